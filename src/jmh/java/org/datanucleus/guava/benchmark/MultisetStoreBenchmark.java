@@ -0,0 +1,261 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.guava.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Transaction;
+
+import org.datanucleus.guava.test.MultisetHolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+
+/**
+ * Benchmarks of the backed Multiset wrapper against its backing store, using the "GuavaTest" persistence-unit
+ * with an in-memory H2 database.
+ * Each invocation operates on a holder persisted with a multiset of "size" occurrences over "distinct" elements.
+ * The Level 2 cache is disabled (and with it the container content cache, which is only used alongside it) so that
+ * every load reads the backing store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MultisetStoreBenchmark
+{
+    /** Number of occurrences in the multiset. */
+    @Param({"10", "1000", "100000", "1000000"})
+    int size;
+
+    /** Number of distinct elements in the multiset. */
+    @Param({"100"})
+    int distinct;
+
+    /** Whether to use optimistic transactions, hence queued updates of the backing store. */
+    @Param({"false", "true"})
+    boolean optimistic;
+
+    PersistenceManagerFactory pmf;
+
+    Object id;
+
+    Object detached;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        Map<String, String> props = new HashMap<>();
+        props.put("javax.jdo.option.ConnectionURL", "jdbc:h2:mem:benchmark");
+        props.put("javax.jdo.option.Optimistic", "" + optimistic);
+        props.put("datanucleus.cache.level2.type", "none");
+        pmf = JDOHelper.getPersistenceManagerFactory(props, "GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            MultisetHolder holder = new MultisetHolder(newWords(size, 0));
+            pm.makePersistent(holder);
+            id = JDOHelper.getObjectId(holder);
+            tx.commit();
+
+            pm.getFetchPlan().addGroup("all");
+            tx.begin();
+            holder = (MultisetHolder) pm.getObjectById(id);
+            holder.getWords().size();
+            detached = pm.detachCopy(holder);
+            tx.commit();
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        pmf.close();
+    }
+
+    Multiset<String> newWords(int num, int offset)
+    {
+        Multiset<String> words = HashMultiset.create();
+        for (int i = 0; i < num; i++)
+        {
+            words.add("word" + ((i + offset) % distinct));
+        }
+        return words;
+    }
+
+    /**
+     * Load of the whole multiset from the datastore (loadFromStore()).
+     */
+    @Benchmark
+    public int loadFromStore()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            MultisetHolder holder = (MultisetHolder) pm.getObjectById(id);
+            int num = holder.getWords().elementSet().size();
+            tx.commit();
+            return num;
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+    }
+
+    /**
+     * Replacement of the multiset by one sharing half of its elements (initialise(newValue, oldValue)).
+     * The change is rolled back so each invocation sees the same datastore contents.
+     */
+    @Benchmark
+    public void initialiseDiff()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            MultisetHolder holder = (MultisetHolder) pm.getObjectById(id);
+            holder.setWords(newWords(size, distinct / 2));
+            pm.flush();
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+    }
+
+    /**
+     * Detach of the holder and its multiset (detachCopy()).
+     */
+    @Benchmark
+    public Object detachCopy()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        pm.getFetchPlan().addGroup("all");
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            MultisetHolder holder = (MultisetHolder) pm.getObjectById(id);
+            Object copy = pm.detachCopy(holder);
+            tx.commit();
+            return copy;
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+    }
+
+    /**
+     * Attach of an unchanged detached holder and its multiset (attachCopy()).
+     * The change is rolled back so each invocation sees the same datastore contents.
+     */
+    @Benchmark
+    public void attachCopy()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            pm.makePersistent(detached);
+            pm.flush();
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+    }
+
+    /**
+     * Flush of a sequence of count changes over the distinct elements, queued when optimistic.
+     * The change is rolled back so each invocation sees the same datastore contents.
+     */
+    @Benchmark
+    public void flushUpdates()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            MultisetHolder holder = (MultisetHolder) pm.getObjectById(id);
+            Multiset<String> words = holder.getWords();
+            for (int i = 0; i < 1000; i++)
+            {
+                String word = "word" + (i % distinct);
+                words.add(word, 2);
+                words.remove(word, 1);
+            }
+            pm.flush();
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.guava.benchmark;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.datanucleus.store.types.guava.wrappers.Multiset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.HashMultiset;
+
+/**
+ * Benchmarks of the (non-backed) Multiset SCO wrapper accessors and mutators, without an owner so measuring only
+ * the overhead of the wrapper over its delegate.
+ * The count of the element changed by a mutator is restored before the next invocation, so the contents stay at the
+ * "size" occurrences set up, however many invocations there are in an iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MultisetWrapperBenchmark
+{
+    /** Number of occurrences in the multiset. */
+    @Param({"10", "1000", "100000", "1000000"})
+    int size;
+
+    /** Number of distinct elements in the multiset. */
+    @Param({"100"})
+    int distinct;
+
+    Multiset<String> wrapper;
+
+    /** The contents set up, to restore changed counts from. */
+    HashMultiset<String> initial;
+
+    String[] elements;
+
+    int next;
+
+    /** Element whose count was changed by the last invocation (if any). */
+    String changed;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        elements = new String[distinct];
+        for (int i = 0; i < distinct; i++)
+        {
+            elements[i] = "word" + i;
+        }
+
+        HashMultiset<String> value = HashMultiset.create();
+        for (int i = 0; i < size; i++)
+        {
+            value.add(elements[i % distinct]);
+        }
+        initial = value;
+        wrapper = new Multiset<>(null, null);
+        wrapper.setValue(HashMultiset.create(value));
+        next = 0;
+    }
+
+    @Setup(Level.Invocation)
+    public void restore()
+    {
+        if (changed != null)
+        {
+            wrapper.setCount(changed, initial.count(changed));
+            changed = null;
+        }
+    }
+
+    String nextChangedElement()
+    {
+        changed = nextElement();
+        return changed;
+    }
+
+    String nextElement()
+    {
+        next = (next + 1) % distinct;
+        return elements[next];
+    }
+
+    @Benchmark
+    public boolean add()
+    {
+        return wrapper.add(nextChangedElement());
+    }
+
+    @Benchmark
+    public int addOccurrences()
+    {
+        return wrapper.add(nextChangedElement(), 5);
+    }
+
+    @Benchmark
+    public int addAndRemove()
+    {
+        String element = nextChangedElement();
+        wrapper.add(element);
+        return wrapper.remove(element, 1);
+    }
+
+    @Benchmark
+    public int count()
+    {
+        return wrapper.count(nextElement());
+    }
+
+    @Benchmark
+    public void iterator(Blackhole bh)
+    {
+        Iterator<String> iter = wrapper.iterator();
+        while (iter.hasNext())
+        {
+            bh.consume(iter.next());
+        }
+    }
+}
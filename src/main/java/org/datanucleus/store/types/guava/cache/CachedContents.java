@@ -0,0 +1,77 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.cache;
+
+import java.io.Serializable;
+
+/**
+ * Contents of a container field as held in the {@link ContainerContentCache}.
+ * For a Multiset these are the distinct elements with their counts; for a map the keys and values, alternating.
+ * Any persistable object is held as its identity, so is resolved in the ExecutionContext when read.
+ */
+public class CachedContents implements Serializable
+{
+    private static final long serialVersionUID = 7795360117280632347L;
+
+    /** Version of the owner when the contents were cached (or null if not versioned). */
+    final Object ownerVersion;
+
+    final Object[] values;
+
+    final int[] counts;
+
+    CachedContents(Object ownerVersion, Object[] values, int[] counts)
+    {
+        this.ownerVersion = ownerVersion;
+        this.values = values;
+        this.counts = counts;
+    }
+
+    /**
+     * Accessor for the values (distinct elements, or alternating keys and values).
+     * @return The values
+     */
+    public Object[] getValues()
+    {
+        return values;
+    }
+
+    /**
+     * Accessor for the count of each distinct element (or null when caching a map).
+     * @return The counts
+     */
+    public int[] getCounts()
+    {
+        return counts;
+    }
+
+    /**
+     * Identity of a persistable object in the cached contents.
+     */
+    static class CachedId implements Serializable
+    {
+        private static final long serialVersionUID = -1813254904731567011L;
+
+        final Object id;
+
+        CachedId(Object id)
+        {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,457 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.cache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.PersistenceNucleusContext;
+import org.datanucleus.Transaction;
+import org.datanucleus.TransactionEventListener;
+import org.datanucleus.api.ApiAdapter;
+import org.datanucleus.cache.CachedPC;
+import org.datanucleus.cache.Level2Cache;
+import org.datanucleus.exceptions.NucleusObjectNotFoundException;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.util.NucleusLogger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Multiset;
+
+/**
+ * Cache of the contents of backed Guava container fields, alongside the Level 2 cache of their owners.
+ * When a backed container loads its contents from the datastore it adds them here, and when next loading (for
+ * an owner that is still in the Level 2 cache) it takes them from here rather than iterating the backing store.
+ * Contents are evicted when a transaction that changed the container (i.e made the field dirty) commits, and are
+ * ignored when the owner has been evicted from the Level 2 cache or its cached version differs from when the contents
+ * were cached, or when a persistable element no longer exists.
+ * Contents loaded inside an active transaction may include its uncommitted changes, so they are only added to the
+ * cache when that transaction commits (and are dropped if it rolls back, or the container is changed before then).
+ * Each commit that changes containers is numbered, and contents are only added when no commit has changed their
+ * container since they were read from the datastore, so a transaction can't add contents made stale by another
+ * transaction that committed in the meantime.
+ * <p>
+ * The contents are held in the local JVM, so in a clustered deployment an owner class should be versioned for changes
+ * made on another node to be detected.
+ * The maximum number of cached fields is set by the persistence property "datanucleus.guava.cache.containerMaxSize".
+ */
+public class ContainerContentCache
+{
+    /** Persistence property specifying the maximum number of container fields to cache the contents of. */
+    public static final String PROPERTY_MAX_SIZE = "datanucleus.guava.cache.containerMaxSize";
+
+    /** Content cache for each Level 2 cache, so having the lifetime of the persistence context. */
+    private static final Map<Level2Cache, ContainerContentCache> CACHES = new MapMaker().weakKeys().makeMap();
+
+    private final Level2Cache level2Cache;
+
+    private final Cache<ContentKey, CachedContents> contents;
+
+    /** Number of the last commit that changed containers. */
+    private final AtomicLong commitNumber = new AtomicLong();
+
+    /** Number of the last commit that changed each container, for those changed recently. */
+    private final Cache<ContentKey, Long> changedAt;
+
+    /** Highest commit number of a container dropped from {@link #changedAt}, assumed for any container not in it. */
+    private final AtomicLong changedAtFloor = new AtomicLong();
+
+    /** Contents loaded and containers changed in each active transaction, removed when it completes. */
+    private final Map<Transaction, TransactionContents> transactions = new ConcurrentHashMap<>();
+
+    ContainerContentCache(Level2Cache level2Cache, long maxSize)
+    {
+        this.level2Cache = level2Cache;
+        this.contents = CacheBuilder.newBuilder().maximumSize(maxSize).softValues().build();
+        this.changedAt = CacheBuilder.newBuilder().maximumSize(maxSize).removalListener((RemovalNotification<ContentKey, Long> notification) -> 
+        {
+            if (notification.wasEvicted())
+            {
+                changedAtFloor.accumulateAndGet(notification.getValue(), Math::max);
+            }
+        }).build();
+    }
+
+    /**
+     * Accessor for the content cache to use for the specified container field, if any.
+     * @param sm StateManager of the owner
+     * @param mmd Metadata for the container field
+     * @return The content cache, or null if the field is not to be cached
+     */
+    public static ContainerContentCache getCache(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        if (sm == null || mmd == null || !mmd.isCacheable())
+        {
+            return null;
+        }
+        PersistenceNucleusContext nucCtx = sm.getExecutionContext().getNucleusContext();
+        if (!nucCtx.hasLevel2Cache())
+        {
+            return null;
+        }
+        return CACHES.computeIfAbsent(nucCtx.getLevel2Cache(), l2Cache -> 
+        {
+            int maxSize = nucCtx.getConfiguration().getIntProperty(PROPERTY_MAX_SIZE);
+            return new ContainerContentCache(l2Cache, maxSize > 0 ? maxSize : 10000);
+        });
+    }
+
+    /**
+     * Accessor for the cached contents of the container field of this owner, with any persistable objects resolved.
+     * @param sm StateManager of the owner
+     * @param mmd Metadata for the container field
+     * @return The contents, or null if not cached (or no longer valid)
+     */
+    public CachedContents get(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        ExecutionContext ec = sm.getExecutionContext();
+        if ("bypass".equalsIgnoreCase((String) ec.getProperty("datanucleus.cache.level2.retrieveMode")))
+        {
+            return null;
+        }
+
+        Object ownerId = sm.getInternalObjectId();
+        ContentKey key = new ContentKey(ownerId, mmd.getFullFieldName());
+        CachedContents cached = contents.getIfPresent(key);
+        if (cached == null)
+        {
+            return null;
+        }
+
+        TransactionContents txContents = ec.getTransaction().isActive() ? transactions.get(ec.getTransaction()) : null;
+        if (txContents != null && txContents.isChanged(key))
+        {
+            // Changed in this transaction, so the cached (committed) contents are out of date for it
+            return null;
+        }
+
+        CachedPC cachedOwner = level2Cache.get(ownerId);
+        if (cachedOwner == null || !Objects.equals(cachedOwner.getVersion(), cached.ownerVersion))
+        {
+            contents.invalidate(key);
+            return null;
+        }
+
+        Object[] values = new Object[cached.values.length];
+        try
+        {
+            for (int i = 0; i < values.length; i++)
+            {
+                Object value = cached.values[i];
+                values[i] = (value instanceof CachedContents.CachedId) ? ec.findObject(((CachedContents.CachedId) value).id, false, false, null) : value;
+            }
+        }
+        catch (NucleusObjectNotFoundException onfe)
+        {
+            // An element has been deleted since the contents were cached
+            contents.invalidate(key);
+            return null;
+        }
+        if (NucleusLogger.CACHE.isDebugEnabled())
+        {
+            NucleusLogger.CACHE.debug("Contents of field " + mmd.getFullFieldName() + " for " + sm.getObjectAsPrintable() + " taken from the container content cache");
+        }
+        return new CachedContents(cached.ownerVersion, values, cached.counts);
+    }
+
+    /**
+     * Accessor for the stamp to take before reading contents from the datastore, and pass when caching them, so that
+     * they are not cached when their container has been changed by a commit since they were read.
+     * @return The load stamp
+     */
+    public long getLoadStamp()
+    {
+        return commitNumber.get();
+    }
+
+    /**
+     * Method to cache the contents of a Multiset field of this owner.
+     * @param sm StateManager of the owner
+     * @param mmd Metadata for the Multiset field
+     * @param multiset The Multiset
+     * @param loadStamp Stamp taken before reading the contents from the datastore (see {@link #getLoadStamp()})
+     */
+    public void putMultiset(DNStateManager sm, AbstractMemberMetaData mmd, Multiset<?> multiset, long loadStamp)
+    {
+        Object[] values = new Object[multiset.entrySet().size()];
+        int[] counts = new int[values.length];
+        int i = 0;
+        for (Multiset.Entry<?> entry : multiset.entrySet())
+        {
+            values[i] = entry.getElement();
+            counts[i++] = entry.getCount();
+        }
+        put(sm, mmd, values, counts, loadStamp);
+    }
+
+    /**
+     * Method to cache the contents of a Map field of this owner.
+     * @param sm StateManager of the owner
+     * @param mmd Metadata for the Map field
+     * @param map The Map
+     * @param loadStamp Stamp taken before reading the contents from the datastore (see {@link #getLoadStamp()})
+     */
+    public void putMap(DNStateManager sm, AbstractMemberMetaData mmd, Map<?, ?> map, long loadStamp)
+    {
+        Object[] values = new Object[map.size() * 2];
+        int i = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet())
+        {
+            values[i++] = entry.getKey();
+            values[i++] = entry.getValue();
+        }
+        put(sm, mmd, values, null, loadStamp);
+    }
+
+    private void put(DNStateManager sm, AbstractMemberMetaData mmd, Object[] values, int[] counts, long loadStamp)
+    {
+        ExecutionContext ec = sm.getExecutionContext();
+        if ("bypass".equalsIgnoreCase((String) ec.getProperty("datanucleus.cache.level2.storeMode")))
+        {
+            return;
+        }
+
+        Object ownerId = sm.getInternalObjectId();
+        CachedPC cachedOwner = level2Cache.get(ownerId);
+        if (cachedOwner == null)
+        {
+            // Only cache contents alongside a cached owner
+            return;
+        }
+
+        ApiAdapter api = ec.getApiAdapter();
+        for (int i = 0; i < values.length; i++)
+        {
+            if (values[i] != null && api.isPersistable(values[i]))
+            {
+                Object id = api.getIdForObject(values[i]);
+                if (id == null)
+                {
+                    // Embedded/non-durable object, so cannot be resolved later
+                    return;
+                }
+                values[i] = new CachedContents.CachedId(id);
+            }
+        }
+        ContentKey key = new ContentKey(ownerId, mmd.getFullFieldName());
+        CachedContents cached = new CachedContents(cachedOwner.getVersion(), values, counts);
+        Transaction tx = ec.getTransaction();
+        if (tx.isActive())
+        {
+            // Contents may include uncommitted changes, so only add them once the transaction commits
+            getTransactionContents(tx).loaded(key, cached, loadStamp);
+            return;
+        }
+        putIfCurrent(key, cached, loadStamp);
+    }
+
+    /**
+     * Method to add contents to the cache, unless their container has been changed by a commit since they were read.
+     * @param key Key of the contents
+     * @param cached The contents
+     * @param loadStamp Stamp taken before reading the contents from the datastore
+     */
+    private void putIfCurrent(ContentKey key, CachedContents cached, long loadStamp)
+    {
+        Long changed = changedAt.getIfPresent(key);
+        if ((changed != null ? changed : changedAtFloor.get()) <= loadStamp)
+        {
+            contents.put(key, cached);
+        }
+    }
+
+    /**
+     * Method to record that the container field of this owner has been changed, so that its cached contents are
+     * evicted when the transaction commits (or now, when there is no active transaction).
+     * @param sm StateManager of the owner
+     * @param mmd Metadata for the container field
+     */
+    public void markChanged(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        ContentKey key = new ContentKey(sm.getInternalObjectId(), mmd.getFullFieldName());
+        Transaction tx = sm.getExecutionContext().getTransaction();
+        if (tx.isActive())
+        {
+            getTransactionContents(tx).changed(key);
+            return;
+        }
+        changedAt.put(key, commitNumber.incrementAndGet());
+        contents.invalidate(key);
+    }
+
+    private TransactionContents getTransactionContents(Transaction tx)
+    {
+        TransactionContents txContents = transactions.get(tx);
+        if (txContents == null)
+        {
+            txContents = new TransactionContents(tx);
+            transactions.put(tx, txContents);
+            tx.addTransactionEventListener(txContents);
+        }
+        return txContents;
+    }
+
+    /**
+     * Contents loaded, and containers changed, in an active transaction. When it commits the cached contents of
+     * the changed containers are evicted, and the loaded contents are added to the cache provided that their owner is
+     * still in the Level 2 cache and their container has not been changed by any commit since they were read.
+     */
+    class TransactionContents implements TransactionEventListener
+    {
+        final Transaction tx;
+
+        final Map<ContentKey, CachedContents> loaded = new HashMap<>();
+
+        final Map<ContentKey, Long> loadStamps = new HashMap<>();
+
+        final Set<ContentKey> changed = new HashSet<>();
+
+        TransactionContents(Transaction tx)
+        {
+            this.tx = tx;
+        }
+
+        synchronized void loaded(ContentKey key, CachedContents cached, long loadStamp)
+        {
+            if (!changed.contains(key))
+            {
+                loaded.put(key, cached);
+                loadStamps.put(key, loadStamp);
+            }
+        }
+
+        synchronized void changed(ContentKey key)
+        {
+            changed.add(key);
+            loaded.remove(key);
+            loadStamps.remove(key);
+        }
+
+        synchronized boolean isChanged(ContentKey key)
+        {
+            return changed.contains(key);
+        }
+
+        public synchronized void transactionCommitted()
+        {
+            transactions.remove(tx);
+            if (!changed.isEmpty())
+            {
+                long number = commitNumber.incrementAndGet();
+                for (ContentKey key : changed)
+                {
+                    changedAt.put(key, number);
+                    contents.invalidate(key);
+                }
+            }
+            for (Map.Entry<ContentKey, CachedContents> entry : loaded.entrySet())
+            {
+                if (level2Cache.get(entry.getKey().ownerId) != null)
+                {
+                    putIfCurrent(entry.getKey(), entry.getValue(), loadStamps.get(entry.getKey()));
+                }
+            }
+        }
+
+        public void transactionRolledBack()
+        {
+            transactions.remove(tx);
+        }
+
+        public void transactionStarted()
+        {
+        }
+
+        public void transactionEnded()
+        {
+        }
+
+        public void transactionPreFlush()
+        {
+        }
+
+        public void transactionFlushed()
+        {
+        }
+
+        public void transactionPreCommit()
+        {
+        }
+
+        public void transactionPreRollBack()
+        {
+        }
+
+        public void transactionSetSavepoint(String name)
+        {
+        }
+
+        public void transactionReleaseSavepoint(String name)
+        {
+        }
+
+        public synchronized void transactionRollbackToSavepoint(String name)
+        {
+            // Contents loaded since the savepoint may have been rolled back, so drop all (keeping the changed containers)
+            loaded.clear();
+            loadStamps.clear();
+        }
+    }
+
+    /**
+     * Key of cached contents, being the identity of the owner and the name of the field.
+     */
+    static class ContentKey
+    {
+        final Object ownerId;
+        final String fieldName;
+
+        ContentKey(Object ownerId, String fieldName)
+        {
+            this.ownerId = ownerId;
+            this.fieldName = fieldName;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof ContentKey))
+            {
+                return false;
+            }
+            ContentKey other = (ContentKey) obj;
+            return ownerId.equals(other.ownerId) && fieldName.equals(other.fieldName);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return ownerId.hashCode() * 31 + fieldName.hashCode();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.containers;
+
+import java.util.Map;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.IndexedValue;
+import org.datanucleus.metadata.ValueMetaData;
+import org.datanucleus.store.types.containers.JDKMapHandler;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+
+public class BiMapHandler extends JDKMapHandler<BiMap>
+{
+    @Override
+    public BiMap newContainer(AbstractMemberMetaData mmm)
+    {
+        return HashBiMap.create();
+    }
+
+    /**
+     * Method to create a new container holding the specified entries.
+     * @param mmd Metadata for the member
+     * @param objects The entries (Map.Entry) to add
+     * @return The BiMap
+     */
+    public BiMap newContainer(AbstractMemberMetaData mmd, Object... objects)
+    {
+        BiMap map = HashBiMap.create(objects.length);
+        for (Object object : objects)
+        {
+            Map.Entry entry = (Map.Entry)object;
+            map.put(entry.getKey(), entry.getValue());
+        }
+        return map;
+    }
+
+    @Override
+    public void populateMetaData(ClassLoaderResolver clr, ClassLoader primary, AbstractMemberMetaData mmd)
+    {
+        super.populateMetaData(clr, primary, mmd);
+
+        // Index the value for inverse lookups. Values are only unique within the BiMap of one owner (checked by the wrapper),
+        // so this can't be a unique constraint on the value column of the join table
+        ValueMetaData valmd = mmd.getValueMetaData();
+        if (valmd == null)
+        {
+            valmd = new ValueMetaData();
+            mmd.setValueMetaData(valmd);
+        }
+        valmd.setIndexed(IndexedValue.TRUE);
+    }
+}
@@ -0,0 +1,44 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.containers;
+
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.store.types.containers.JDKCollectionHandler;
+
+import com.google.common.collect.ImmutableMultiset;
+
+/**
+ * Handler for ImmutableMultiset containers.
+ * An ImmutableMultiset is handled as a Collection (so is stored in a join table with a row per occurrence), but is
+ * never wrapped since it can't be changed; reassigning the field is the only change. It is loaded in full when the
+ * field is fetched, giving an ImmutableMultiset of the elements read (see ImmutableCollectionMapping).
+ */
+public class ImmutableMultisetHandler extends JDKCollectionHandler<ImmutableMultiset>
+{
+    @Override
+    public ImmutableMultiset newContainer(AbstractMemberMetaData mmd)
+    {
+        return ImmutableMultiset.of();
+    }
+
+    @Override
+    public ImmutableMultiset newContainer(AbstractMemberMetaData mmd, Object... objects)
+    {
+        return ImmutableMultiset.copyOf(objects);
+    }
+}
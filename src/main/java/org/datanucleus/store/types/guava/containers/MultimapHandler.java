@@ -0,0 +1,132 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.containers;
+
+import java.util.Map;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.IndexedValue;
+import org.datanucleus.metadata.KeyMetaData;
+import org.datanucleus.store.types.containers.MapContainerAdapter;
+import org.datanucleus.store.types.containers.MapHandler;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.SetMultimap;
+
+/**
+ * Handler for Multimap (and ListMultimap, SetMultimap) containers.
+ * A Multimap is handled as a Map from key to value (so has map metadata, and is stored in a join table with a row per
+ * key-value pair), with its entries being all of its key-value pairs. A ListMultimap (or Multimap) field is given an
+ * ArrayListMultimap, and a SetMultimap field a LinkedHashMultimap.
+ */
+public class MultimapHandler extends MapHandler<Multimap>
+{
+    @Override
+    public Multimap newContainer(AbstractMemberMetaData mmd)
+    {
+        if (mmd != null && SetMultimap.class.isAssignableFrom(mmd.getType()))
+        {
+            return LinkedHashMultimap.create();
+        }
+        return ArrayListMultimap.create();
+    }
+
+    @Override
+    public Multimap newContainer(AbstractMemberMetaData mmd, Object... objects)
+    {
+        Multimap multimap = newContainer(mmd);
+        for (Object object : objects)
+        {
+            Map.Entry entry = (Map.Entry)object;
+            multimap.put(entry.getKey(), entry.getValue());
+        }
+        return multimap;
+    }
+
+    @Override
+    public MapContainerAdapter<Multimap> getAdapter(Multimap container)
+    {
+        return new MultimapAdapter(container);
+    }
+
+    @Override
+    public void populateMetaData(ClassLoaderResolver clr, ClassLoader primary, AbstractMemberMetaData mmd)
+    {
+        super.populateMetaData(clr, primary, mmd);
+
+        // Index the key, since the values of a key are read on their own
+        KeyMetaData keymd = mmd.getKeyMetaData();
+        if (keymd == null)
+        {
+            keymd = new KeyMetaData();
+            mmd.setKeyMetaData(keymd);
+        }
+        keymd.setIndexed(IndexedValue.TRUE);
+    }
+
+    /**
+     * Adapter for a Multimap, presenting each of its key-value pairs as an entry.
+     */
+    public static class MultimapAdapter extends MapContainerAdapter<Multimap>
+    {
+        public MultimapAdapter(Multimap container)
+        {
+            super(container);
+        }
+
+        @Override
+        public Iterable<Object> keys()
+        {
+            return container.keys();
+        }
+
+        @Override
+        public Iterable<Object> values()
+        {
+            return container.values();
+        }
+
+        @Override
+        public Iterable<Map.Entry<Object, Object>> entries()
+        {
+            return container.entries();
+        }
+
+        @Override
+        public Object put(Object key, Object value)
+        {
+            container.put(key, value);
+            return null;
+        }
+
+        @Override
+        public void remove(Object key)
+        {
+            container.removeAll(key);
+        }
+
+        @Override
+        public void clear()
+        {
+            container.clear();
+        }
+    }
+}
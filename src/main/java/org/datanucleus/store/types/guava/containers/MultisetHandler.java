@@ -18,24 +18,348 @@ Contributors:
 package org.datanucleus.store.types.guava.containers;
 
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.NucleusContext;
+import org.datanucleus.exceptions.NucleusUserException;
 import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.store.types.containers.ContainerHandler;
 import org.datanucleus.store.types.containers.JDKCollectionHandler;
 
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.EnumMultiset;
 import com.google.common.collect.HashMultiset;
+import com.google.common.collect.LinkedHashMultiset;
 import com.google.common.collect.Multiset;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.SortedMultiset;
+import com.google.common.collect.TreeMultiset;
 
+/**
+ * Handler for Multiset containers.
+ * The implementation used for a Multiset field is selected by the metadata extension "multiset-type" on the member
+ * (or the persistence property "datanucleus.guava.multisetType" when not specified on the member), taking values
+ * <ul>
+ * <li><b>hash</b> : HashMultiset (default)</li>
+ * <li><b>linked</b> : LinkedHashMultiset, retaining the order that elements were first added</li>
+ * <li><b>tree</b> : TreeMultiset, using the Comparator class named by the extension "multiset-comparator", or else
+ * natural ordering</li>
+ * <li><b>enum</b> : EnumMultiset, for a field with an Enum element type</li>
+ * <li><b>concurrent</b> : ConcurrentHashMultiset</li>
+ * </ul>
+ * The extension "multiset-expected-size" provides the number of distinct elements expected, and is used to size
+ * the hash-based implementations.
+ * The extension "multiset-fetch-size" (or the persistence property "datanucleus.guava.multisetFetchSize") sets the
+ * number of distinct elements read per chunk when iterating a non-cached backed Multiset, so that only one chunk is
+ * held in memory at a time (0, the default, reads all elements at once).
+ * The extension "multiset-bulk-fetch" (or the persistence property "datanucleus.guava.multisetBulkFetch") sets the
+ * maximum number of owners whose (cached) backed Multisets of a field are loaded together, in one datastore call, when
+ * the first of them is loaded (0, the default, loads each on its own).
+ */
 public class MultisetHandler extends JDKCollectionHandler<Multiset>
 {
+    /** Extension on the member specifying the Multiset implementation. */
+    public static final String EXTENSION_MULTISET_TYPE = "multiset-type";
+
+    /** Extension on the member specifying the Comparator class for a "tree" Multiset. */
+    public static final String EXTENSION_MULTISET_COMPARATOR = "multiset-comparator";
+
+    /** Extension on the member specifying the expected number of distinct elements. */
+    public static final String EXTENSION_MULTISET_EXPECTED_SIZE = "multiset-expected-size";
+
+    /** Extension on the member specifying the number of distinct elements read per chunk when streaming. */
+    public static final String EXTENSION_MULTISET_FETCH_SIZE = "multiset-fetch-size";
+
+    /** Extension on the member specifying the maximum number of owners whose Multisets are loaded together. */
+    public static final String EXTENSION_MULTISET_BULK_FETCH = "multiset-bulk-fetch";
+
+    /** Persistence property specifying the default Multiset implementation. */
+    public static final String PROPERTY_MULTISET_TYPE = "datanucleus.guava.multisetType";
+
+    /** Persistence property specifying the default number of distinct elements read per chunk when streaming. */
+    public static final String PROPERTY_MULTISET_FETCH_SIZE = "datanucleus.guava.multisetFetchSize";
+
+    /** Persistence property specifying the default maximum number of owners whose Multisets are loaded together. */
+    public static final String PROPERTY_MULTISET_BULK_FETCH = "datanucleus.guava.multisetBulkFetch";
+
+    /** Settings of each member, resolved when first needed. */
+    private final Map<AbstractMemberMetaData, MemberSettings> settingsByMember = new ConcurrentHashMap<>();
+
     @Override
-    public Multiset newContainer(AbstractMemberMetaData mmm)
+    public Multiset newContainer(AbstractMemberMetaData mmd)
     {
-        return HashMultiset.create();
+        return (mmd != null ? getMemberSettings(mmd, getNucleusContext(mmd, null)).newMultiset(-1) : HashMultiset.create());
     }
 
     @Override
     public Multiset newContainer(AbstractMemberMetaData mmd, Object... objects)
     {
-        return HashMultiset.create(Arrays.asList(objects));
+        Multiset multiset = (mmd != null ? getMemberSettings(mmd, getNucleusContext(mmd, null)).newMultiset(objects.length) : HashMultiset.create(objects.length));
+        multiset.addAll(Arrays.asList(objects));
+        return multiset;
+    }
+
+    /**
+     * Method to create a new (empty) Multiset of the implementation configured for the specified member.
+     * @param mmd Metadata for the member (or null, giving a HashMultiset)
+     * @param ec ExecutionContext (or null, in which case the context of the metadata is used)
+     * @param distinctElements Number of distinct elements about to be added, or -1 if not known
+     * @return The Multiset
+     * @param <E> Type of the element
+     * @throws NucleusUserException if the configured implementation is unknown or cannot be used for this member
+     */
+    public static <E> Multiset<E> newMultiset(AbstractMemberMetaData mmd, ExecutionContext ec, int distinctElements)
+    {
+        if (mmd == null)
+        {
+            return distinctElements > 0 ? HashMultiset.create(distinctElements) : HashMultiset.create();
+        }
+        return getSettings(mmd, ec).newMultiset(distinctElements);
+    }
+
+    /**
+     * Method to create a new (empty) SortedMultiset for the specified member, ordered by the Comparator class named by
+     * the extension "multiset-comparator" on the member, or else by the natural ordering of the elements.
+     * @param mmd Metadata for the member (or null, giving natural ordering)
+     * @param ec ExecutionContext (or null, in which case the context of the metadata is used)
+     * @return The SortedMultiset
+     * @param <E> Type of the element
+     * @throws NucleusUserException if the Comparator cannot be instantiated
+     */
+    public static <E> SortedMultiset<E> newSortedMultiset(AbstractMemberMetaData mmd, ExecutionContext ec)
+    {
+        if (mmd == null)
+        {
+            return (SortedMultiset<E>) TreeMultiset.create(Ordering.natural());
+        }
+        return getSettings(mmd, ec).newSortedMultiset();
+    }
+
+    /**
+     * Accessor for the number of distinct elements to read per chunk when iterating a non-cached backed Multiset.
+     * @param mmd Metadata for the member
+     * @param ec ExecutionContext
+     * @return The fetch size, or 0 if all elements are read at once
+     * @throws NucleusUserException if the configured fetch size is not a number
+     */
+    public static int getFetchSize(AbstractMemberMetaData mmd, ExecutionContext ec)
+    {
+        return getSettings(mmd, ec).fetchSize;
+    }
+
+    /**
+     * Accessor for the maximum number of owners whose (cached) backed Multisets of the member are loaded together.
+     * @param mmd Metadata for the member
+     * @param ec ExecutionContext
+     * @return The number of owners, or 0 if each is loaded on its own
+     * @throws NucleusUserException if the configured number is not a number
+     */
+    public static int getBulkFetchSize(AbstractMemberMetaData mmd, ExecutionContext ec)
+    {
+        return getSettings(mmd, ec).bulkFetchSize;
+    }
+
+    /**
+     * Accessor for the settings of the specified member, as held by the handler of the member type (so resolved once
+     * per member), or else resolved now.
+     * @param mmd Metadata for the member
+     * @param ec ExecutionContext (or null, in which case the context of the metadata is used)
+     * @return The settings
+     */
+    private static MemberSettings getSettings(AbstractMemberMetaData mmd, ExecutionContext ec)
+    {
+        NucleusContext nucCtx = getNucleusContext(mmd, ec);
+        ContainerHandler handler = (nucCtx != null ? nucCtx.getTypeManager().getContainerHandler(mmd.getType()) : null);
+        if (handler instanceof MultisetHandler)
+        {
+            return ((MultisetHandler)handler).getMemberSettings(mmd, nucCtx);
+        }
+        return new MemberSettings(mmd, nucCtx);
+    }
+
+    /**
+     * Accessor for the settings of the specified member, resolving them when first needed.
+     * @param mmd Metadata for the member
+     * @param nucCtx Context for the member (or null if not known)
+     * @return The settings
+     */
+    protected MemberSettings getMemberSettings(AbstractMemberMetaData mmd, NucleusContext nucCtx)
+    {
+        MemberSettings settings = settingsByMember.get(mmd);
+        if (settings == null)
+        {
+            settings = new MemberSettings(mmd, nucCtx);
+            settingsByMember.putIfAbsent(mmd, settings);
+        }
+        return settings;
+    }
+
+    private static NucleusContext getNucleusContext(AbstractMemberMetaData mmd, ExecutionContext ec)
+    {
+        if (ec != null)
+        {
+            return ec.getNucleusContext();
+        }
+        if (mmd.getAbstractClassMetaData() != null && mmd.getAbstractClassMetaData().getMetaDataManager() != null)
+        {
+            return mmd.getAbstractClassMetaData().getMetaDataManager().getNucleusContext();
+        }
+        return null;
+    }
+
+    /**
+     * Settings of a Multiset member, resolved from its extensions (and the persistence properties) once, rather than
+     * for each Multiset created. The Comparator of a "tree" Multiset is instantiated once and shared, so must be
+     * stateless (as a Comparator normally is).
+     */
+    protected static class MemberSettings
+    {
+        final String memberName;
+
+        /** Multiset implementation (null for the default "hash"). */
+        final String type;
+
+        /** Expected number of distinct elements (or -1 if not specified). */
+        final int expectedSize;
+
+        /** Comparator for a "tree" Multiset (or null for natural ordering). */
+        final Comparator comparator;
+
+        /** Element type for an "enum" Multiset. */
+        final Class enumType;
+
+        final int fetchSize;
+
+        final int bulkFetchSize;
+
+        MemberSettings(AbstractMemberMetaData mmd, NucleusContext nucCtx)
+        {
+            memberName = mmd.getFullFieldName();
+
+            String typeName = mmd.getValueForExtension(EXTENSION_MULTISET_TYPE);
+            if (typeName == null && nucCtx != null)
+            {
+                typeName = nucCtx.getConfiguration().getStringProperty(PROPERTY_MULTISET_TYPE);
+            }
+            type = (typeName == null || typeName.equalsIgnoreCase("hash") ? null : typeName.toLowerCase());
+
+            String sizeHint = mmd.getValueForExtension(EXTENSION_MULTISET_EXPECTED_SIZE);
+            expectedSize = (sizeHint != null ? parseInt(mmd, EXTENSION_MULTISET_EXPECTED_SIZE, sizeHint) : -1);
+
+            String comparatorName = mmd.getValueForExtension(EXTENSION_MULTISET_COMPARATOR);
+            if (comparatorName != null)
+            {
+                Class comparatorCls = getClassLoaderResolver(nucCtx).classForName(comparatorName);
+                try
+                {
+                    comparator = (Comparator) comparatorCls.getDeclaredConstructor().newInstance();
+                }
+                catch (ReflectiveOperationException roe)
+                {
+                    throw new NucleusUserException("Member " + memberName + " has Comparator " + comparatorName + 
+                        " that could not be instantiated", roe);
+                }
+            }
+            else
+            {
+                comparator = null;
+            }
+
+            if ("enum".equals(type))
+            {
+                Class elementCls = (mmd.getCollection() != null && mmd.getCollection().getElementType() != null) ?
+                        getClassLoaderResolver(nucCtx).classForName(mmd.getCollection().getElementType()) : null;
+                if (elementCls == null || !elementCls.isEnum())
+                {
+                    throw new NucleusUserException("Member " + memberName + " has Multiset type \"enum\" but its element type is not an Enum");
+                }
+                enumType = elementCls;
+            }
+            else if (type != null && !type.equals("linked") && !type.equals("concurrent") && !type.equals("tree"))
+            {
+                throw new NucleusUserException("Member " + memberName + " has unknown Multiset type \"" + typeName + 
+                    "\". Supported types are hash, linked, tree, enum and concurrent");
+            }
+            else
+            {
+                enumType = null;
+            }
+
+            fetchSize = getIntSetting(mmd, nucCtx, EXTENSION_MULTISET_FETCH_SIZE, PROPERTY_MULTISET_FETCH_SIZE);
+            bulkFetchSize = getIntSetting(mmd, nucCtx, EXTENSION_MULTISET_BULK_FETCH, PROPERTY_MULTISET_BULK_FETCH);
+        }
+
+        /**
+         * Method to create a new (empty) Multiset of the implementation of this member.
+         * @param distinctElements Number of distinct elements about to be added, or -1 if not known
+         * @return The Multiset
+         * @param <E> Type of the element
+         */
+        <E> Multiset<E> newMultiset(int distinctElements)
+        {
+            int size = Math.max(distinctElements, expectedSize);
+            if (type == null)
+            {
+                return size > 0 ? HashMultiset.create(size) : HashMultiset.create();
+            }
+            switch (type)
+            {
+                case "linked" :
+                    return size > 0 ? LinkedHashMultiset.create(size) : LinkedHashMultiset.create();
+                case "concurrent" :
+                    return size > 0 ? ConcurrentHashMultiset.create(new ConcurrentHashMap<>(size)) : ConcurrentHashMultiset.create();
+                case "tree" :
+                    return newSortedMultiset();
+                default :
+                    return (Multiset<E>) EnumMultiset.create(enumType);
+            }
+        }
+
+        /**
+         * Method to create a new (empty) SortedMultiset, ordered by the Comparator of this member, or else by the
+         * natural ordering of the elements.
+         * @return The SortedMultiset
+         * @param <E> Type of the element
+         */
+        <E> SortedMultiset<E> newSortedMultiset()
+        {
+            return (SortedMultiset<E>) (comparator != null ? TreeMultiset.create(comparator) : TreeMultiset.create(Ordering.natural()));
+        }
+
+        private static int getIntSetting(AbstractMemberMetaData mmd, NucleusContext nucCtx, String extensionName, String propertyName)
+        {
+            String value = mmd.getValueForExtension(extensionName);
+            if (value == null)
+            {
+                return (nucCtx != null ? Math.max(0, nucCtx.getConfiguration().getIntProperty(propertyName)) : 0);
+            }
+            return Math.max(0, parseInt(mmd, extensionName, value));
+        }
+
+        private static int parseInt(AbstractMemberMetaData mmd, String extensionName, String value)
+        {
+            try
+            {
+                return Integer.parseInt(value.trim());
+            }
+            catch (NumberFormatException nfe)
+            {
+                throw new NucleusUserException("Member " + mmd.getFullFieldName() + " has extension " + extensionName + 
+                    " with invalid value \"" + value + "\"");
+            }
+        }
+
+        private static ClassLoaderResolver getClassLoaderResolver(NucleusContext nucCtx)
+        {
+            if (nucCtx != null)
+            {
+                return nucCtx.getClassLoaderResolver(null);
+            }
+            throw new NucleusUserException("Unable to resolve classes for the Multiset implementation since no context is available");
+        }
     }
 }
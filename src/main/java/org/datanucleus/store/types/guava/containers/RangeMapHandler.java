@@ -0,0 +1,156 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.containers;
+
+import java.util.Map;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.IndexedValue;
+import org.datanucleus.metadata.KeyMetaData;
+import org.datanucleus.metadata.MapMetaData;
+import org.datanucleus.metadata.MetaData;
+import org.datanucleus.store.types.containers.MapContainerAdapter;
+import org.datanucleus.store.types.containers.MapHandler;
+import org.datanucleus.store.types.guava.converters.RangeConverter;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeMap;
+import com.google.common.collect.TreeRangeMap;
+
+/**
+ * Handler for RangeMap containers.
+ * A RangeMap is handled as a Map from Range to value (so has map metadata, and is stored in a join table with a row per
+ * range), with its entries being its (disjoint) ranges and their values. Each range is held in the columns of the
+ * RangeConverter for the endpoint type of the member (Integer, Long or Date), unless a converter is specified by the
+ * extension "type-converter-name" on the key. A RangeMap with any other endpoint type is stored serialised.
+ */
+public class RangeMapHandler extends MapHandler<RangeMap>
+{
+    @Override
+    public RangeMap newContainer(AbstractMemberMetaData mmd)
+    {
+        return TreeRangeMap.create();
+    }
+
+    @Override
+    public RangeMap newContainer(AbstractMemberMetaData mmd, Object... objects)
+    {
+        RangeMap rangeMap = TreeRangeMap.create();
+        for (Object object : objects)
+        {
+            Map.Entry entry = (Map.Entry)object;
+            rangeMap.put((Range)entry.getKey(), entry.getValue());
+        }
+        return rangeMap;
+    }
+
+    @Override
+    public MapContainerAdapter<RangeMap> getAdapter(RangeMap container)
+    {
+        return new RangeMapAdapter(container);
+    }
+
+    @Override
+    public void populateMetaData(ClassLoaderResolver clr, ClassLoader primary, AbstractMemberMetaData mmd)
+    {
+        KeyMetaData keymd = mmd.getKeyMetaData();
+        String converterName = (keymd != null && keymd.hasExtension(MetaData.EXTENSION_MEMBER_TYPE_CONVERTER_NAME)) ?
+                keymd.getValueForExtension(MetaData.EXTENSION_MEMBER_TYPE_CONVERTER_NAME) : RangeConverter.getConverterName(mmd);
+        if (converterName == null || mmd.isSerialized())
+        {
+            // Serialised, or no converter for the ranges, so store the RangeMap as a whole
+            mmd.setSerialised(true);
+            return;
+        }
+
+        // Keys are ranges, rather than the first type argument (the endpoint type) of the RangeMap
+        MapMetaData mapmd = mmd.getMap();
+        if (mapmd == null)
+        {
+            mapmd = new MapMetaData();
+            mmd.setContainer(mapmd);
+        }
+        if (mapmd.getKeyType() == null)
+        {
+            mapmd.setKeyType(Range.class.getName());
+        }
+
+        // Hold each range in the columns of the converter, and index them since lookups are made on the endpoints
+        if (keymd == null)
+        {
+            keymd = new KeyMetaData();
+            mmd.setKeyMetaData(keymd);
+        }
+        if (!keymd.hasExtension(MetaData.EXTENSION_MEMBER_TYPE_CONVERTER_NAME))
+        {
+            keymd.addExtension(MetaData.EXTENSION_MEMBER_TYPE_CONVERTER_NAME, converterName);
+        }
+        keymd.setIndexed(IndexedValue.TRUE);
+
+        super.populateMetaData(clr, primary, mmd);
+    }
+
+    /**
+     * Adapter for a RangeMap, presenting each of its ranges (and its value) as an entry.
+     */
+    public static class RangeMapAdapter extends MapContainerAdapter<RangeMap>
+    {
+        public RangeMapAdapter(RangeMap container)
+        {
+            super(container);
+        }
+
+        @Override
+        public Iterable<Object> keys()
+        {
+            return container.asMapOfRanges().keySet();
+        }
+
+        @Override
+        public Iterable<Object> values()
+        {
+            return container.asMapOfRanges().values();
+        }
+
+        @Override
+        public Iterable<Map.Entry<Object, Object>> entries()
+        {
+            return container.asMapOfRanges().entrySet();
+        }
+
+        @Override
+        public Object put(Object key, Object value)
+        {
+            container.put((Range)key, value);
+            return null;
+        }
+
+        @Override
+        public void remove(Object key)
+        {
+            container.remove((Range)key);
+        }
+
+        @Override
+        public void clear()
+        {
+            container.clear();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.containers;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.CollectionMetaData;
+import org.datanucleus.metadata.ElementMetaData;
+import org.datanucleus.metadata.IndexedValue;
+import org.datanucleus.metadata.MetaData;
+import org.datanucleus.store.types.containers.CollectionHandler;
+import org.datanucleus.store.types.containers.ElementContainerAdapter;
+import org.datanucleus.store.types.guava.converters.RangeConverter;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeSet;
+
+/**
+ * Handler for RangeSet containers.
+ * A RangeSet is handled as a Collection of Range (so has collection metadata, and is stored in a join table with a row
+ * per range), with its elements being its (disconnected) ranges. Each range is held in the columns of the RangeConverter
+ * for the endpoint type of the member (Integer, Long or Date), unless a converter is specified by the extension
+ * "type-converter-name" on the element. A RangeSet with any other endpoint type is stored serialised.
+ */
+public class RangeSetHandler extends CollectionHandler<RangeSet>
+{
+    @Override
+    public RangeSet newContainer(AbstractMemberMetaData mmd)
+    {
+        return TreeRangeSet.create();
+    }
+
+    @Override
+    public RangeSet newContainer(AbstractMemberMetaData mmd, Object... objects)
+    {
+        RangeSet rangeSet = TreeRangeSet.create();
+        for (Object object : objects)
+        {
+            rangeSet.add((Range)object);
+        }
+        return rangeSet;
+    }
+
+    @Override
+    public ElementContainerAdapter<RangeSet> getAdapter(RangeSet container)
+    {
+        return new RangeSetAdapter(container);
+    }
+
+    @Override
+    public void populateMetaData(ClassLoaderResolver clr, ClassLoader primary, AbstractMemberMetaData mmd)
+    {
+        ElementMetaData elemmd = mmd.getElementMetaData();
+        String converterName = (elemmd != null && elemmd.hasExtension(MetaData.EXTENSION_MEMBER_TYPE_CONVERTER_NAME)) ?
+                elemmd.getValueForExtension(MetaData.EXTENSION_MEMBER_TYPE_CONVERTER_NAME) : RangeConverter.getConverterName(mmd);
+        if (converterName == null || mmd.isSerialized())
+        {
+            // Serialised, or no converter for the ranges, so store the RangeSet as a whole
+            mmd.setSerialised(true);
+            return;
+        }
+
+        // Elements are ranges, rather than the type argument (the endpoint type) of the RangeSet
+        CollectionMetaData collmd = mmd.getCollection();
+        if (collmd == null)
+        {
+            collmd = new CollectionMetaData();
+            mmd.setContainer(collmd);
+        }
+        if (collmd.getElementType() == null)
+        {
+            collmd.setElementType(Range.class.getName());
+        }
+
+        // Hold each range in the columns of the converter, and index them since lookups are made on the endpoints
+        if (elemmd == null)
+        {
+            elemmd = new ElementMetaData();
+            mmd.setElementMetaData(elemmd);
+        }
+        if (!elemmd.hasExtension(MetaData.EXTENSION_MEMBER_TYPE_CONVERTER_NAME))
+        {
+            elemmd.addExtension(MetaData.EXTENSION_MEMBER_TYPE_CONVERTER_NAME, converterName);
+        }
+        elemmd.setIndexed(IndexedValue.TRUE);
+
+        super.populateMetaData(clr, primary, mmd);
+    }
+
+    /**
+     * Adapter for a RangeSet, presenting each of its ranges as an element.
+     */
+    public static class RangeSetAdapter extends ElementContainerAdapter<RangeSet>
+    {
+        public RangeSetAdapter(RangeSet container)
+        {
+            super(container);
+        }
+
+        @Override
+        public Iterator<Object> iterator()
+        {
+            // Copy the ranges, so that the RangeSet can be changed while iterating
+            return new ArrayList<Object>(container.asRanges()).iterator();
+        }
+
+        @Override
+        public void add(Object element)
+        {
+            container.add((Range)element);
+        }
+
+        @Override
+        public void remove(Object element)
+        {
+            container.remove((Range)element);
+        }
+
+        @Override
+        public void clear()
+        {
+            container.clear();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.containers;
+
+import java.util.Arrays;
+
+import org.datanucleus.metadata.AbstractMemberMetaData;
+
+import com.google.common.collect.Multiset;
+
+/**
+ * Handler for SortedMultiset containers.
+ * The implementation is always a TreeMultiset, using the Comparator class named by the metadata extension
+ * "multiset-comparator" on the member, or else natural ordering.
+ */
+public class SortedMultisetHandler extends MultisetHandler
+{
+    @Override
+    public Multiset newContainer(AbstractMemberMetaData mmd)
+    {
+        return newSortedMultiset(mmd, null);
+    }
+
+    @Override
+    public Multiset newContainer(AbstractMemberMetaData mmd, Object... objects)
+    {
+        Multiset multiset = newSortedMultiset(mmd, null);
+        multiset.addAll(Arrays.asList(objects));
+        return multiset;
+    }
+}
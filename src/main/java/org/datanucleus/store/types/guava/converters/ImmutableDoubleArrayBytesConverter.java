@@ -0,0 +1,61 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.converters;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.datanucleus.store.types.converters.TypeConverter;
+
+import com.google.common.primitives.ImmutableDoubleArray;
+
+/**
+ * Converter of an ImmutableDoubleArray to a byte[] holding the values packed in little-endian order.
+ * Values are copied in bulk to/from the bytes, without boxing any element.
+ */
+public class ImmutableDoubleArrayBytesConverter implements TypeConverter<ImmutableDoubleArray, byte[]>
+{
+    private static final long serialVersionUID = 4740830557634987353L;
+
+    public byte[] toDatastoreType(ImmutableDoubleArray array)
+    {
+        if (array == null)
+        {
+            return null;
+        }
+
+        ByteBuffer bytes = ByteBuffer.allocate(array.length() * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < array.length(); i++)
+        {
+            bytes.putDouble(array.get(i));
+        }
+        return bytes.array();
+    }
+
+    public ImmutableDoubleArray toMemberType(byte[] bytes)
+    {
+        if (bytes == null)
+        {
+            return null;
+        }
+
+        double[] values = new double[bytes.length / Double.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values);
+        return ImmutableDoubleArray.copyOf(values);
+    }
+}
@@ -0,0 +1,41 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.converters;
+
+import org.datanucleus.store.types.converters.TypeConverter;
+
+import com.google.common.collect.Multiset;
+
+/**
+ * Converter of a Multiset to a byte[] holding its elements and their counts, in the form of {@link MultisetCodec}.
+ * This allows a (small) Multiset to be stored in a single column of the owner table rather than a join table.
+ */
+public class MultisetBytesConverter implements TypeConverter<Multiset, byte[]>
+{
+    private static final long serialVersionUID = 2391587263312004418L;
+
+    public byte[] toDatastoreType(Multiset multiset)
+    {
+        return MultisetCodec.encode(multiset);
+    }
+
+    public Multiset toMemberType(byte[] bytes)
+    {
+        return MultisetCodec.decode(bytes);
+    }
+}
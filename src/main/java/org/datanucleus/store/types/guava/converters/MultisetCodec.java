@@ -0,0 +1,376 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.converters;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.datanucleus.exceptions.NucleusException;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+
+/**
+ * Compact binary form of a Multiset, holding each distinct element with its count.
+ * The form is
+ * <pre>
+ * {distinct elements : varint} ({element type : byte} {element} {count : varint})*
+ * </pre>
+ * String elements are stored as their UTF-8 length (varint) and bytes, Integer, Long, Short and Byte elements as
+ * zig-zag varints, Double and Float elements as their (little-endian) IEEE bits, and Boolean and Character elements
+ * directly. Any other element is stored as its length (varint) and Java serialised form.
+ */
+public final class MultisetCodec
+{
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INTEGER = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_SHORT = 4;
+    private static final byte TYPE_BYTE = 5;
+    private static final byte TYPE_DOUBLE = 6;
+    private static final byte TYPE_FLOAT = 7;
+    private static final byte TYPE_BOOLEAN = 8;
+    private static final byte TYPE_CHARACTER = 9;
+    private static final byte TYPE_SERIALIZED = 10;
+
+    private MultisetCodec()
+    {
+    }
+
+    /**
+     * Method to encode the Multiset.
+     * @param multiset The Multiset
+     * @return The encoded bytes (or null if the Multiset is null)
+     */
+    public static byte[] encode(Multiset<?> multiset)
+    {
+        if (multiset == null)
+        {
+            return null;
+        }
+
+        Writer writer = new Writer(16 + multiset.elementSet().size() * 8);
+        writer.writeVarint(multiset.entrySet().size());
+        for (Multiset.Entry<?> entry : multiset.entrySet())
+        {
+            writer.writeElement(entry.getElement());
+            writer.writeVarint(entry.getCount());
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Method to decode the Multiset.
+     * @param bytes The encoded bytes
+     * @return The Multiset (or null if the bytes are null)
+     * @param <E> Type of the element
+     */
+    public static <E> Multiset<E> decode(byte[] bytes)
+    {
+        if (bytes == null)
+        {
+            return null;
+        }
+        return decode(bytes, HashMultiset.create());
+    }
+
+    /**
+     * Method to decode the Multiset into the supplied Multiset.
+     * @param bytes The encoded bytes
+     * @param multiset The Multiset to add the elements to
+     * @return The Multiset
+     * @param <E> Type of the element
+     */
+    public static <E> Multiset<E> decode(byte[] bytes, Multiset<E> multiset)
+    {
+        Reader reader = new Reader(bytes);
+        int distinct = reader.readVarint();
+        for (int i = 0; i < distinct; i++)
+        {
+            E element = (E) reader.readElement();
+            multiset.add(element, reader.readVarint());
+        }
+        if (reader.pos != bytes.length)
+        {
+            throw new NucleusException("Encoded Multiset has " + (bytes.length - reader.pos) + " trailing bytes");
+        }
+        return multiset;
+    }
+
+    /**
+     * Growable buffer that the encoded form is written to.
+     */
+    private static class Writer
+    {
+        byte[] buf;
+        int pos = 0;
+
+        Writer(int capacity)
+        {
+            buf = new byte[capacity];
+        }
+
+        void ensureCapacity(int extra)
+        {
+            if (pos + extra > buf.length)
+            {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+            }
+        }
+
+        void writeByte(int b)
+        {
+            ensureCapacity(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeVarint(int value)
+        {
+            writeVarlong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarlong(long value)
+        {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0)
+            {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        void writeFixed(long bits, int numBytes)
+        {
+            ensureCapacity(numBytes);
+            for (int i = 0; i < numBytes; i++)
+            {
+                buf[pos++] = (byte) (bits >>> (8 * i));
+            }
+        }
+
+        void writeBytes(byte[] bytes)
+        {
+            writeVarint(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        void writeElement(Object element)
+        {
+            if (element == null)
+            {
+                writeByte(TYPE_NULL);
+            }
+            else if (element instanceof String)
+            {
+                writeByte(TYPE_STRING);
+                writeBytes(((String) element).getBytes(StandardCharsets.UTF_8));
+            }
+            else if (element instanceof Integer)
+            {
+                writeByte(TYPE_INTEGER);
+                int value = (Integer) element;
+                writeVarint((value << 1) ^ (value >> 31));
+            }
+            else if (element instanceof Long)
+            {
+                writeByte(TYPE_LONG);
+                long value = (Long) element;
+                writeVarlong((value << 1) ^ (value >> 63));
+            }
+            else if (element instanceof Short)
+            {
+                writeByte(TYPE_SHORT);
+                int value = (Short) element;
+                writeVarint((value << 1) ^ (value >> 31));
+            }
+            else if (element instanceof Byte)
+            {
+                writeByte(TYPE_BYTE);
+                writeByte((Byte) element);
+            }
+            else if (element instanceof Double)
+            {
+                writeByte(TYPE_DOUBLE);
+                writeFixed(Double.doubleToRawLongBits((Double) element), 8);
+            }
+            else if (element instanceof Float)
+            {
+                writeByte(TYPE_FLOAT);
+                writeFixed(Float.floatToRawIntBits((Float) element), 4);
+            }
+            else if (element instanceof Boolean)
+            {
+                writeByte(TYPE_BOOLEAN);
+                writeByte((Boolean) element ? 1 : 0);
+            }
+            else if (element instanceof Character)
+            {
+                writeByte(TYPE_CHARACTER);
+                writeVarint((Character) element);
+            }
+            else
+            {
+                writeByte(TYPE_SERIALIZED);
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                try (ObjectOutputStream oos = new ObjectOutputStream(baos))
+                {
+                    oos.writeObject(element);
+                }
+                catch (IOException ioe)
+                {
+                    throw new NucleusException("Unable to serialise Multiset element " + element, ioe);
+                }
+                writeBytes(baos.toByteArray());
+            }
+        }
+
+        byte[] toByteArray()
+        {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    /**
+     * Reader of the encoded form.
+     */
+    private static class Reader
+    {
+        final byte[] buf;
+        int pos = 0;
+
+        Reader(byte[] buf)
+        {
+            this.buf = buf;
+        }
+
+        int readByte()
+        {
+            if (pos >= buf.length)
+            {
+                throw new NucleusException("Encoded Multiset is truncated");
+            }
+            return buf[pos++];
+        }
+
+        int readVarint()
+        {
+            return (int) readVarlong();
+        }
+
+        long readVarlong()
+        {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7)
+            {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                {
+                    return value;
+                }
+            }
+            throw new NucleusException("Encoded Multiset has a malformed varint");
+        }
+
+        long readFixed(int numBytes)
+        {
+            long bits = 0;
+            for (int i = 0; i < numBytes; i++)
+            {
+                bits |= (long) (readByte() & 0xFF) << (8 * i);
+            }
+            return bits;
+        }
+
+        int readLength()
+        {
+            int length = readVarint();
+            if (length < 0 || length > buf.length - pos)
+            {
+                throw new NucleusException("Encoded Multiset is truncated");
+            }
+            return length;
+        }
+
+        Object readElement()
+        {
+            int type = readByte();
+            switch (type)
+            {
+                case TYPE_NULL :
+                    return null;
+                case TYPE_STRING :
+                {
+                    int length = readLength();
+                    String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+                    pos += length;
+                    return value;
+                }
+                case TYPE_INTEGER :
+                {
+                    int value = readVarint();
+                    return (value >>> 1) ^ -(value & 1);
+                }
+                case TYPE_LONG :
+                {
+                    long value = readVarlong();
+                    return (value >>> 1) ^ -(value & 1);
+                }
+                case TYPE_SHORT :
+                {
+                    int value = readVarint();
+                    return (short) ((value >>> 1) ^ -(value & 1));
+                }
+                case TYPE_BYTE :
+                    return (byte) readByte();
+                case TYPE_DOUBLE :
+                    return Double.longBitsToDouble(readFixed(8));
+                case TYPE_FLOAT :
+                    return Float.intBitsToFloat((int) readFixed(4));
+                case TYPE_BOOLEAN :
+                    return readByte() != 0;
+                case TYPE_CHARACTER :
+                    return (char) readVarint();
+                case TYPE_SERIALIZED :
+                {
+                    int length = readLength();
+                    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(buf, pos, length)))
+                    {
+                        pos += length;
+                        return ois.readObject();
+                    }
+                    catch (IOException | ClassNotFoundException e)
+                    {
+                        throw new NucleusException("Unable to deserialise Multiset element", e);
+                    }
+                }
+                default :
+                    throw new NucleusException("Encoded Multiset has unknown element type " + type);
+            }
+        }
+    }
+}
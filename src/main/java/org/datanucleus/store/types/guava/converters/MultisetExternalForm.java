@@ -0,0 +1,175 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.converters;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.Comparator;
+
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.EnumMultiset;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.LinkedHashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.TreeMultiset;
+
+/**
+ * Serialised form of a Multiset, written using the {@link MultisetCodec} rather than serialising each element
+ * and count separately. The implementation of the Multiset is written ahead of the elements, so that it resolves
+ * to the same implementation when read : HashMultiset, LinkedHashMultiset, TreeMultiset (with its Comparator),
+ * EnumMultiset or ConcurrentHashMultiset (see the types of {@link org.datanucleus.store.types.guava.containers.MultisetHandler}).
+ * Any other implementation resolves to a HashMultiset, as does an empty EnumMultiset (whose element type is not
+ * available).
+ * A TreeMultiset Comparator that is not Serializable is written as its class name, and created using its default
+ * constructor when read, as for the extension "multiset-comparator".
+ */
+public class MultisetExternalForm implements Externalizable
+{
+    private static final long serialVersionUID = -5314178283573390581L;
+
+    private static final byte HASH = 0;
+    private static final byte LINKED = 1;
+    private static final byte TREE = 2;
+    private static final byte ENUM = 3;
+    private static final byte CONCURRENT = 4;
+
+    private transient Multiset<?> multiset;
+
+    /**
+     * Constructor used when deserialising.
+     */
+    public MultisetExternalForm()
+    {
+    }
+
+    /**
+     * Constructor for the Multiset to be serialised.
+     * @param multiset The Multiset
+     */
+    public MultisetExternalForm(Multiset<?> multiset)
+    {
+        this.multiset = multiset;
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException
+    {
+        if (multiset instanceof LinkedHashMultiset)
+        {
+            out.writeByte(LINKED);
+        }
+        else if (multiset instanceof TreeMultiset)
+        {
+            out.writeByte(TREE);
+            Comparator comparator = ((TreeMultiset) multiset).comparator();
+            boolean serialisable = comparator instanceof Serializable;
+            out.writeBoolean(serialisable);
+            if (serialisable)
+            {
+                out.writeObject(comparator);
+            }
+            else
+            {
+                out.writeUTF(comparator.getClass().getName());
+            }
+        }
+        else if (multiset instanceof EnumMultiset && !multiset.isEmpty())
+        {
+            out.writeByte(ENUM);
+            out.writeObject(((Enum) multiset.iterator().next()).getDeclaringClass());
+        }
+        else if (multiset instanceof ConcurrentHashMultiset)
+        {
+            out.writeByte(CONCURRENT);
+        }
+        else
+        {
+            out.writeByte(HASH);
+        }
+
+        byte[] bytes = MultisetCodec.encode(multiset);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException
+    {
+        Multiset target = null;
+        byte kind = in.readByte();
+        switch (kind)
+        {
+            case HASH :
+                target = HashMultiset.create();
+                break;
+            case LINKED :
+                target = LinkedHashMultiset.create();
+                break;
+            case TREE :
+                target = TreeMultiset.create(in.readBoolean() ? (Comparator) in.readObject() : newComparator(in.readUTF()));
+                break;
+            case ENUM :
+                target = EnumMultiset.create((Class) in.readObject());
+                break;
+            case CONCURRENT :
+                target = ConcurrentHashMultiset.create();
+                break;
+            default :
+                throw new InvalidObjectException("Unknown Multiset implementation " + kind + " in serialised form");
+        }
+
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        multiset = MultisetCodec.decode(bytes, target);
+    }
+
+    /**
+     * Method to create a Comparator of the specified class using its default constructor.
+     * @param className Name of the Comparator class
+     * @return The Comparator
+     * @throws ClassNotFoundException if the class cannot be loaded
+     * @throws InvalidObjectException if the Comparator cannot be created
+     */
+    private static Comparator newComparator(String className) throws ClassNotFoundException, InvalidObjectException
+    {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        Class<?> cls = Class.forName(className, true, loader != null ? loader : MultisetExternalForm.class.getClassLoader());
+        try
+        {
+            return (Comparator) cls.getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException e)
+        {
+            InvalidObjectException ioe = new InvalidObjectException("Unable to create Comparator " + className + " of serialised TreeMultiset");
+            ioe.initCause(e);
+            throw ioe;
+        }
+    }
+    /**
+     * Method to resolve the Multiset that this is the serialised form of.
+     * @return The Multiset
+     * @throws ObjectStreamException if an error occurs
+     */
+    protected Object readResolve() throws ObjectStreamException
+    {
+        return multiset;
+    }
+}
@@ -0,0 +1,114 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.converters;
+
+import org.datanucleus.exceptions.NucleusException;
+import org.datanucleus.store.types.converters.TypeConverter;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+
+/**
+ * Converter of a Multiset of String to a String of the form "element:count,element:count,...".
+ * Any backslash, comma or colon in an element is escaped with a backslash.
+ * This allows a (small) Multiset to be stored in a single (readable) column of the owner table rather than a join table.
+ */
+public class MultisetStringConverter implements TypeConverter<Multiset<String>, String>
+{
+    private static final long serialVersionUID = -6760338612394855671L;
+
+    public String toDatastoreType(Multiset<String> multiset)
+    {
+        if (multiset == null)
+        {
+            return null;
+        }
+
+        StringBuilder str = new StringBuilder(multiset.elementSet().size() * 16);
+        for (Multiset.Entry<String> entry : multiset.entrySet())
+        {
+            String element = entry.getElement();
+            if (element == null)
+            {
+                throw new NucleusException("Multiset with a null element cannot be converted to a String");
+            }
+            if (str.length() > 0)
+            {
+                str.append(',');
+            }
+            for (int i = 0; i < element.length(); i++)
+            {
+                char c = element.charAt(i);
+                if (c == '\\' || c == ',' || c == ':')
+                {
+                    str.append('\\');
+                }
+                str.append(c);
+            }
+            str.append(':').append(entry.getCount());
+        }
+        return str.toString();
+    }
+
+    public Multiset<String> toMemberType(String str)
+    {
+        if (str == null)
+        {
+            return null;
+        }
+
+        Multiset<String> multiset = HashMultiset.create();
+        StringBuilder element = new StringBuilder();
+        int pos = 0;
+        while (pos < str.length())
+        {
+            // Element, up to the unescaped colon
+            element.setLength(0);
+            while (pos < str.length() && str.charAt(pos) != ':')
+            {
+                char c = str.charAt(pos++);
+                if (c == '\\' && pos < str.length())
+                {
+                    c = str.charAt(pos++);
+                }
+                element.append(c);
+            }
+            if (pos == str.length())
+            {
+                throw new NucleusException("Multiset string \"" + str + "\" has an element without a count");
+            }
+
+            // Count, up to the next comma
+            int countStart = ++pos;
+            while (pos < str.length() && str.charAt(pos) != ',')
+            {
+                pos++;
+            }
+            try
+            {
+                multiset.add(element.toString(), Integer.parseInt(str.substring(countStart, pos)));
+            }
+            catch (NumberFormatException nfe)
+            {
+                throw new NucleusException("Multiset string \"" + str + "\" has an invalid count", nfe);
+            }
+            pos++;
+        }
+        return multiset;
+    }
+}
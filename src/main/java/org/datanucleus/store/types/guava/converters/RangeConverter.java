@@ -0,0 +1,160 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.converters;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Date;
+
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.store.types.converters.MultiColumnConverter;
+import org.datanucleus.store.types.converters.TypeConverter;
+
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Range;
+
+/**
+ * Base for converters of a Range to 4 columns : lower endpoint, lower bound type, upper endpoint, upper bound type.
+ * The bound types are stored as "CLOSED", "OPEN" or "UNBOUNDED" (with a null endpoint), and a null Range has
+ * all columns null. Since the endpoints are in their own columns they can be indexed, and the query methods
+ * contains(), encloses() and isConnected() of a Range field are evaluated in RDBMS queries as predicates on them.
+ * A converter is selected for a member using the extension "type-converter-name" (e.g "dn.guava.range-long"), since
+ * the endpoint type is not known from the member type; a Range without one is stored serialised, and does not support
+ * these query methods.
+ * @param <C> Type of the endpoints of the range
+ */
+public abstract class RangeConverter<C extends Comparable> implements TypeConverter<Range<C>, Object[]>, MultiColumnConverter
+{
+    private static final long serialVersionUID = 5187235290743208841L;
+
+    public static final String UNBOUNDED = "UNBOUNDED";
+
+    /**
+     * Accessor for the name of the converter for ranges with the endpoint type of the specified member, being the first
+     * type argument of its (generic) type, so Range&lt;C&gt;, RangeSet&lt;C&gt; or RangeMap&lt;C, V&gt;.
+     * @param mmd Metadata for the member
+     * @return The converter name, or null if the endpoint type is not known or has no converter
+     */
+    public static String getConverterName(AbstractMemberMetaData mmd)
+    {
+        Type type = null;
+        if (mmd.getMemberRepresented() instanceof Field)
+        {
+            type = ((Field)mmd.getMemberRepresented()).getGenericType();
+        }
+        else if (mmd.getMemberRepresented() instanceof Method)
+        {
+            type = ((Method)mmd.getMemberRepresented()).getGenericReturnType();
+        }
+        if (!(type instanceof ParameterizedType))
+        {
+            return null;
+        }
+
+        Type endpointType = ((ParameterizedType)type).getActualTypeArguments()[0];
+        if (endpointType == Integer.class)
+        {
+            return "dn.guava.range-integer";
+        }
+        else if (endpointType == Long.class)
+        {
+            return "dn.guava.range-long";
+        }
+        else if (endpointType == Date.class)
+        {
+            return "dn.guava.range-date";
+        }
+        return null;
+    }
+
+    /**
+     * Accessor for the type of the endpoints, used as the type of the endpoint columns.
+     * @return The endpoint type
+     */
+    protected abstract Class<C> getEndpointType();
+
+    /**
+     * Method to convert an endpoint value read from the datastore to the endpoint type.
+     * @param value The datastore value
+     * @return The endpoint
+     */
+    protected C toEndpoint(Object value)
+    {
+        return getEndpointType().cast(value);
+    }
+
+    public Class[] getDatastoreColumnTypes()
+    {
+        return new Class[] {getEndpointType(), String.class, getEndpointType(), String.class};
+    }
+
+    public Object[] toDatastoreType(Range<C> range)
+    {
+        if (range == null)
+        {
+            return new Object[4];
+        }
+
+        Object[] cols = new Object[4];
+        if (range.hasLowerBound())
+        {
+            cols[0] = range.lowerEndpoint();
+            cols[1] = range.lowerBoundType().name();
+        }
+        else
+        {
+            cols[1] = UNBOUNDED;
+        }
+        if (range.hasUpperBound())
+        {
+            cols[2] = range.upperEndpoint();
+            cols[3] = range.upperBoundType().name();
+        }
+        else
+        {
+            cols[3] = UNBOUNDED;
+        }
+        return cols;
+    }
+
+    public Range<C> toMemberType(Object[] cols)
+    {
+        if (cols == null || cols[1] == null || cols[3] == null)
+        {
+            return null;
+        }
+
+        boolean hasLower = !UNBOUNDED.equals(cols[1]);
+        boolean hasUpper = !UNBOUNDED.equals(cols[3]);
+        if (hasLower && hasUpper)
+        {
+            return Range.range(toEndpoint(cols[0]), BoundType.valueOf((String)cols[1]), toEndpoint(cols[2]), BoundType.valueOf((String)cols[3]));
+        }
+        else if (hasLower)
+        {
+            return Range.downTo(toEndpoint(cols[0]), BoundType.valueOf((String)cols[1]));
+        }
+        else if (hasUpper)
+        {
+            return Range.upTo(toEndpoint(cols[2]), BoundType.valueOf((String)cols[3]));
+        }
+        return Range.all();
+    }
+}
@@ -0,0 +1,40 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.converters;
+
+import java.util.Date;
+
+/**
+ * Converter of a Range of java.util.Date to columns for its endpoints and bound types.
+ */
+public class RangeDateConverter extends RangeConverter<Date>
+{
+    private static final long serialVersionUID = 4113248954881916065L;
+
+    @Override
+    protected Class<Date> getEndpointType()
+    {
+        return Date.class;
+    }
+
+    @Override
+    protected Date toEndpoint(Object value)
+    {
+        return (value == null ? null : new Date(((Date)value).getTime()));
+    }
+}
@@ -0,0 +1,229 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.flush;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.datanucleus.flush.SCOOperation;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.guava.scostore.MultimapStore;
+import org.datanucleus.store.types.scostore.Store;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Maps;
+
+/**
+ * Changes to the key-value pairs of a backed Multimap, queued for later performing.
+ * A backed Multimap has (at most) one of these queued at any time, and folds each change into it, so this holds the
+ * keys whose values were all removed, and the net change in the number of occurrences of each key-value pair touched
+ * since (and whether the multimap was cleared first). Where the multimap was changed in a way that can't be expressed
+ * per pair (e.g via one of its views), the operation instead holds the contents to write in full.
+ * @param <K> Type of the key
+ * @param <V> Type of the value
+ */
+public class MultimapChangeOperation<K, V> implements SCOOperation
+{
+    final DNStateManager sm;
+    final MultimapStore<K, V> store;
+
+    /** Keys whose values are all removed, before applying the changes to the pairs. */
+    final Set<Object> removedKeys = new LinkedHashSet<>();
+
+    /** Net change in the occurrences of each key-value pair (positive when putting, negative when removing). */
+    final Map<Map.Entry<K, V>, Integer> deltas = new LinkedHashMap<>();
+
+    /** Whether the multimap is cleared before applying the changes. */
+    boolean clear = false;
+
+    /** Contents to write in full after clearing (or null when writing the changes per pair). */
+    com.google.common.collect.Multimap<K, V> contents;
+
+    /** Whether this operation has been performed, so cannot take further changes. */
+    boolean performed = false;
+
+    public MultimapChangeOperation(DNStateManager sm, MultimapStore<K, V> store)
+    {
+        this.sm = sm;
+        this.store = store;
+    }
+
+    /**
+     * Method to fold a put of a key-value pair into this operation.
+     * @param key The key
+     * @param value The value
+     */
+    public void put(K key, V value)
+    {
+        addDelta(key, value, 1);
+    }
+
+    /**
+     * Method to fold the removal of one occurrence of a key-value pair into this operation.
+     * @param key The key
+     * @param value The value
+     */
+    public void remove(Object key, Object value)
+    {
+        addDelta((K) key, (V) value, -1);
+    }
+
+    /**
+     * Method to fold the removal of all values of a key into this operation, so dropping the changes to its pairs
+     * registered before it.
+     * @param key The key
+     */
+    public void removeKey(Object key)
+    {
+        if (contents == null)
+        {
+            deltas.keySet().removeIf(entry -> Objects.equals(entry.getKey(), key));
+            removedKeys.add(key);
+        }
+    }
+
+    /**
+     * Method to register a clear of the multimap, so dropping all changes registered before it.
+     */
+    public void clear()
+    {
+        removedKeys.clear();
+        deltas.clear();
+        contents = null;
+        clear = true;
+    }
+
+    /**
+     * Method to register that the multimap is to be written in full, from the contents at the time of performing.
+     * Any further change is then already held in the contents, so is ignored.
+     * @param contents The contents of the multimap (as maintained by the wrapper)
+     */
+    public void rewrite(com.google.common.collect.Multimap<K, V> contents)
+    {
+        clear();
+        this.contents = contents;
+    }
+
+    /**
+     * Accessor for whether this operation writes the contents of the multimap in full.
+     * @return Whether the contents are written in full
+     */
+    public boolean isRewrite()
+    {
+        return contents != null;
+    }
+
+    /**
+     * Accessor for whether this operation has been performed.
+     * @return Whether it has been performed
+     */
+    public boolean isPerformed()
+    {
+        return performed;
+    }
+
+    /**
+     * Convenience method to fold a change in the occurrences of a key-value pair into this operation.
+     * @param key The key
+     * @param value The value
+     * @param delta Change in the occurrences of the pair
+     */
+    protected void addDelta(K key, V value, int delta)
+    {
+        if (contents == null)
+        {
+            deltas.merge(Maps.immutableEntry(key, value), delta, (a, b) -> (a + b == 0 ? null : a + b));
+        }
+    }
+
+    /**
+     * Perform the changes in the datastore.
+     */
+    public void perform()
+    {
+        performed = true;
+        if (clear)
+        {
+            store.clear(sm);
+        }
+        if (contents != null)
+        {
+            store.putEntries(sm, contents);
+            return;
+        }
+
+        for (Object key : removedKeys)
+        {
+            store.removeKey(sm, key);
+        }
+        com.google.common.collect.Multimap<K, V> added = ArrayListMultimap.create();
+        for (Map.Entry<Map.Entry<K, V>, Integer> delta : deltas.entrySet())
+        {
+            Map.Entry<K, V> entry = delta.getKey();
+            for (int i = 0; i < Math.abs(delta.getValue()); i++)
+            {
+                if (delta.getValue() > 0)
+                {
+                    added.put(entry.getKey(), entry.getValue());
+                }
+                else
+                {
+                    store.removeEntry(sm, entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        store.putEntries(sm, added);
+    }
+
+    /**
+     * Accessor for the StateManager of the owner of the multimap.
+     * @return The StateManager
+     */
+    public DNStateManager getStateManager()
+    {
+        return sm;
+    }
+
+    /**
+     * Accessor for the backing store.
+     * @return The backing store
+     */
+    public Store getStore()
+    {
+        return store;
+    }
+
+    /**
+     * Accessor for the metadata of the multimap member.
+     * @return The member metadata
+     */
+    public AbstractMemberMetaData getMemberMetaData()
+    {
+        return store.getOwnerMemberMetaData();
+    }
+
+    public String toString()
+    {
+        return "MULTIMAP CHANGE : " + sm + " field=" + store.getOwnerMemberMetaData().getName() + (clear ? " clear" : "") +
+            (contents != null ? " rewrite" : " removedKeys=" + removedKeys + " deltas=" + deltas);
+    }
+}
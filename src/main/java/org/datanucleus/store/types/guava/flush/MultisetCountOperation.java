@@ -0,0 +1,254 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.flush;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.datanucleus.flush.SCOOperation;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.guava.scostore.MultisetStore;
+import org.datanucleus.store.types.scostore.CollectionStore;
+import org.datanucleus.store.types.scostore.Store;
+
+/**
+ * Changes in the counts of elements of a backed Multiset, queued for later performing.
+ * A backed Multiset has (at most) one of these queued at any time, and folds each change into it, so this holds
+ * the net change in count of each element touched (and whether the multiset was cleared first). When performed the
+ * changes are passed to the backing store as a single batch, whatever the number of calls made.
+ * @param <E> Type of element in the multiset
+ */
+public class MultisetCountOperation<E> implements SCOOperation
+{
+    final DNStateManager sm;
+    final CollectionStore<E> store;
+
+    /** Net change in the count of each element (positive when adding occurrences, negative when removing). */
+    final Map<E, Integer> deltas = new LinkedHashMap<>();
+
+    /** Whether the multiset is cleared before applying the changes in count. */
+    boolean clear = false;
+
+    /** Whether this operation has been performed, so cannot take further changes. */
+    boolean performed = false;
+
+    public MultisetCountOperation(DNStateManager sm, CollectionStore<E> store)
+    {
+        this.sm = sm;
+        this.store = store;
+    }
+
+    /**
+     * Method to fold a change in the count of an element into this operation.
+     * @param element The element
+     * @param delta Change in the count of the element
+     */
+    public void addDelta(E element, int delta)
+    {
+        if (delta != 0)
+        {
+            deltas.merge(element, delta, (a, b) -> (a + b == 0 ? null : a + b));
+        }
+    }
+
+    /**
+     * Method to register a clear of the multiset, so dropping all changes registered before it.
+     */
+    public void clear()
+    {
+        deltas.clear();
+        clear = true;
+    }
+
+    /**
+     * Accessor for whether this operation has been performed.
+     * @return Whether it has been performed
+     */
+    public boolean isPerformed()
+    {
+        return performed;
+    }
+
+    /**
+     * Perform the net changes in count of the elements in the datastore.
+     */
+    public void perform()
+    {
+        performed = true;
+        if (clear)
+        {
+            store.clear(sm);
+        }
+        updateCounts(sm, store, deltas, -1);
+    }
+
+    /**
+     * Convenience method to pass a change in the count of an element of a multiset to its backing store.
+     * Uses the count-aware methods when the store is a {@link MultisetStore}, otherwise a single bulk add of the
+     * occurrences added, or for a decrease see {@link #updateCounts(DNStateManager, CollectionStore, Map, int)}.
+     * @param sm StateManager for the owner of the multiset
+     * @param store The backing store
+     * @param element The element
+     * @param delta Change in the count of the element
+     * @param size Current size of the multiset (or -1 if not known)
+     * @return Whether the datastore was changed
+     * @param <E> Type of element in the multiset
+     */
+    public static <E> boolean updateCount(DNStateManager sm, CollectionStore<E> store, E element, int delta, int size)
+    {
+        if (delta > 0)
+        {
+            if (store instanceof MultisetStore)
+            {
+                return ((MultisetStore<E>)store).addOccurrences(sm, element, delta);
+            }
+            return store.addAll(sm, Collections.nCopies(delta, element), size);
+        }
+        else if (delta < 0)
+        {
+            if (store instanceof MultisetStore)
+            {
+                return ((MultisetStore<E>)store).removeOccurrences(sm, element, -delta);
+            }
+            return updateCounts(sm, store, Collections.singletonMap(element, delta), size);
+        }
+        return false;
+    }
+
+    /**
+     * Convenience method to pass changes in the counts of several elements of a multiset to its backing store.
+     * Uses the batched count-aware method when the store is a {@link MultisetStore}. Otherwise the store holds a row
+     * per occurrence, and removing an element from it removes all of its occurrences, so the counts of the elements
+     * being decreased are read from the store, those elements removed with a single bulk remove, and their remaining
+     * occurrences added back together with the occurrences added with a single bulk add.
+     * @param sm StateManager for the owner of the multiset
+     * @param store The backing store
+     * @param deltas Change in count of each element
+     * @param size Current size of the multiset (or -1 if not known)
+     * @return Whether the datastore was changed
+     * @param <E> Type of element in the multiset
+     */
+    public static <E> boolean updateCounts(DNStateManager sm, CollectionStore<E> store, Map<? extends E, Integer> deltas, int size)
+    {
+        if (deltas.isEmpty())
+        {
+            return false;
+        }
+        if (store instanceof MultisetStore)
+        {
+            return ((MultisetStore<E>)store).updateCounts(sm, deltas);
+        }
+
+        Map<E, Integer> oldCounts = new HashMap<>();
+        for (Map.Entry<? extends E, Integer> entry : deltas.entrySet())
+        {
+            if (entry.getValue() < 0)
+            {
+                oldCounts.put(entry.getKey(), 0);
+            }
+        }
+        if (!oldCounts.isEmpty())
+        {
+            Iterator<E> iter = store.iterator(sm);
+            while (iter.hasNext())
+            {
+                oldCounts.computeIfPresent(iter.next(), (element, count) -> count + 1);
+            }
+        }
+
+        List<E> added = new ArrayList<>();
+        List<E> removed = new ArrayList<>();
+        int numRemoved = 0;
+        for (Map.Entry<? extends E, Integer> entry : deltas.entrySet())
+        {
+            int delta = entry.getValue();
+            if (delta > 0)
+            {
+                added.addAll(Collections.nCopies(delta, entry.getKey()));
+            }
+            else if (delta < 0)
+            {
+                int oldCount = oldCounts.get(entry.getKey());
+                if (oldCount > 0)
+                {
+                    removed.add(entry.getKey());
+                    numRemoved += oldCount;
+                    added.addAll(Collections.nCopies(Math.max(0, oldCount + delta), entry.getKey()));
+                }
+            }
+        }
+
+        boolean modified = false;
+        if (!removed.isEmpty())
+        {
+            modified |= store.removeAll(sm, removed, size);
+        }
+        if (!added.isEmpty())
+        {
+            modified |= store.addAll(sm, added, (size < 0 ? size : size - numRemoved));
+        }
+        return modified;
+    }
+
+    /**
+     * Accessor for the StateManager of the owner of the multiset.
+     * @return The StateManager
+     */
+    public DNStateManager getStateManager()
+    {
+        return sm;
+    }
+
+    /**
+     * Accessor for the backing store.
+     * @return The backing store
+     */
+    public Store getStore()
+    {
+        return store;
+    }
+
+    /**
+     * Accessor for the metadata of the multiset member.
+     * @return The member metadata
+     */
+    public AbstractMemberMetaData getMemberMetaData()
+    {
+        return store.getOwnerMemberMetaData();
+    }
+
+    /**
+     * Accessor for the net change in count of the elements.
+     * @return The changes in count, keyed by element
+     */
+    public Map<E, Integer> getDeltas()
+    {
+        return Collections.unmodifiableMap(deltas);
+    }
+
+    public String toString()
+    {
+        return "MULTISET COUNT : " + sm + " field=" + store.getOwnerMemberMetaData().getName() + (clear ? " clear" : "") + " deltas=" + deltas;
+    }
+}
@@ -0,0 +1,152 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.flush;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.datanucleus.flush.SCOOperation;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.scostore.Store;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.TreeRangeSet;
+
+/**
+ * Changes to the ranges of a backed RangeSet or RangeMap, queued for later performing.
+ * A backed RangeSet (RangeMap) has (at most) one of these queued at any time, and folds each change into it, so this
+ * holds the union of the ranges changed since. Ranges stored in the datastore that are not connected to a changed range
+ * are unaffected by the changes, so the changes are performed by replacing, for each changed range, the stored ranges
+ * connected to it by those of the contents (as maintained by the wrapper) at the time of performing.
+ * @param <C> Type of the endpoints of the ranges
+ */
+public abstract class RangeChangeOperation<C extends Comparable> implements SCOOperation
+{
+    final DNStateManager sm;
+    final Store store;
+
+    /** Union of the changed ranges. */
+    final com.google.common.collect.RangeSet<C> changedRanges = TreeRangeSet.create();
+
+    /** Whether this operation has been performed, so cannot take further changes. */
+    boolean performed = false;
+
+    public RangeChangeOperation(DNStateManager sm, Store store)
+    {
+        this.sm = sm;
+        this.store = store;
+    }
+
+    /**
+     * Method to fold a change of the ranges connected to the specified range into this operation.
+     * @param range The changed range
+     */
+    public void change(Range<C> range)
+    {
+        changedRanges.add(range);
+    }
+
+    /**
+     * Method to register that the contents are to be written in full (e.g when cleared, or changed via a view).
+     */
+    public void rewrite()
+    {
+        changedRanges.add(Range.all());
+    }
+
+    /**
+     * Accessor for whether this operation has been performed.
+     * @return Whether it has been performed
+     */
+    public boolean isPerformed()
+    {
+        return performed;
+    }
+
+    /**
+     * Accessor for the ranges of the contents, in ascending order.
+     * @return The ranges
+     */
+    protected abstract Iterable<Range<C>> getRanges();
+
+    /**
+     * Method to replace the stored ranges connected to the specified range by the specified ranges of the contents.
+     * @param range The changed range
+     * @param ranges The ranges of the contents connected to the changed range
+     */
+    protected abstract void replaceConnected(Range<C> range, List<Range<C>> ranges);
+
+    /**
+     * Perform the changes in the datastore.
+     */
+    public void perform()
+    {
+        performed = true;
+
+        List<Range<C>> ranges = new ArrayList<>();
+        getRanges().forEach(ranges::add);
+        int start = 0;
+        for (Range<C> changed : changedRanges.asRanges())
+        {
+            // Skip the ranges below this changed range. Those connected to it follow, but may also be connected to the next
+            while (start < ranges.size() && isBelow(ranges.get(start), changed))
+            {
+                start++;
+            }
+            List<Range<C>> connected = new ArrayList<>();
+            for (int i = start; i < ranges.size() && ranges.get(i).isConnected(changed); i++)
+            {
+                connected.add(ranges.get(i));
+            }
+            replaceConnected(changed, connected);
+        }
+    }
+
+    private static <C extends Comparable> boolean isBelow(Range<C> range, Range<C> other)
+    {
+        return !range.isConnected(other) && range.hasUpperBound() && other.hasLowerBound() && range.upperEndpoint().compareTo(other.lowerEndpoint()) <= 0;
+    }
+
+    /**
+     * Accessor for the StateManager of the owner of the container.
+     * @return The StateManager
+     */
+    public DNStateManager getStateManager()
+    {
+        return sm;
+    }
+
+    /**
+     * Accessor for the backing store.
+     * @return The backing store
+     */
+    public Store getStore()
+    {
+        return store;
+    }
+
+    /**
+     * Accessor for the metadata of the container member.
+     * @return The member metadata
+     */
+    public AbstractMemberMetaData getMemberMetaData()
+    {
+        return store.getOwnerMemberMetaData();
+    }
+}
@@ -0,0 +1,67 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.flush;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.guava.scostore.RangeMapStore;
+
+import com.google.common.collect.Range;
+
+/**
+ * Changes to the ranges of a backed RangeMap, queued for later performing.
+ * @param <K> Type of the endpoints of the ranges
+ * @param <V> Type of the value
+ */
+public class RangeMapChangeOperation<K extends Comparable, V> extends RangeChangeOperation<K>
+{
+    /** Contents of the RangeMap (as maintained by the wrapper). */
+    final com.google.common.collect.RangeMap<K, V> contents;
+
+    public RangeMapChangeOperation(DNStateManager sm, RangeMapStore<K, V> store, com.google.common.collect.RangeMap<K, V> contents)
+    {
+        super(sm, store);
+        this.contents = contents;
+    }
+
+    @Override
+    protected Iterable<Range<K>> getRanges()
+    {
+        return contents.asMapOfRanges().keySet();
+    }
+
+    @Override
+    protected void replaceConnected(Range<K> range, List<Range<K>> ranges)
+    {
+        Map<Range<K>, V> entries = new LinkedHashMap<>();
+        Map<Range<K>, V> map = contents.asMapOfRanges();
+        for (Range<K> key : ranges)
+        {
+            entries.put(key, map.get(key));
+        }
+        ((RangeMapStore<K, V>)store).replaceConnectedEntries(sm, range, entries);
+    }
+
+    public String toString()
+    {
+        return "RANGEMAP CHANGE : " + sm + " field=" + store.getOwnerMemberMetaData().getName() + " changed=" + changedRanges;
+    }
+}
@@ -0,0 +1,58 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.flush;
+
+import java.util.List;
+
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.guava.scostore.RangeSetStore;
+
+import com.google.common.collect.Range;
+
+/**
+ * Changes to the ranges of a backed RangeSet, queued for later performing.
+ * @param <C> Type of the endpoints of the ranges
+ */
+public class RangeSetChangeOperation<C extends Comparable> extends RangeChangeOperation<C>
+{
+    /** Contents of the RangeSet (as maintained by the wrapper). */
+    final com.google.common.collect.RangeSet<C> contents;
+
+    public RangeSetChangeOperation(DNStateManager sm, RangeSetStore<C> store, com.google.common.collect.RangeSet<C> contents)
+    {
+        super(sm, store);
+        this.contents = contents;
+    }
+
+    @Override
+    protected Iterable<Range<C>> getRanges()
+    {
+        return contents.asRanges();
+    }
+
+    @Override
+    protected void replaceConnected(Range<C> range, List<Range<C>> ranges)
+    {
+        ((RangeSetStore<C>)store).replaceConnectedRanges(sm, range, ranges);
+    }
+
+    public String toString()
+    {
+        return "RANGESET CHANGE : " + sm + " field=" + store.getOwnerMemberMetaData().getName() + " changed=" + changedRanges;
+    }
+}
@@ -0,0 +1,170 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.management;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime metrics of a (backed) Guava container field, across all owners.
+ * The wrappers only hold one of these when metrics are enabled, so there is no cost otherwise.
+ */
+public class ContainerFieldMetrics implements ContainerFieldMetricsMXBean
+{
+    final LongAdder loadCount = new LongAdder();
+    final LongAdder elementsLoaded = new LongAdder();
+    final LongAdder loadTimeNanos = new LongAdder();
+    final LongAdder contentCacheLoads = new LongAdder();
+    final Map<String, LongAdder> storeCalls = new ConcurrentHashMap<>();
+    final LongAdder queuedOperations = new LongAdder();
+    final LongAdder cacheHits = new LongAdder();
+    final LongAdder datastoreFallbacks = new LongAdder();
+    final LongAdder initialiseDiffs = new LongAdder();
+    final LongAdder initialiseDiffSize = new LongAdder();
+
+    /**
+     * Method to register a load of the contents from the backing store.
+     * @param numElements Number of elements (or entries) loaded
+     * @param startNanos Time at which the load started, from System.nanoTime()
+     */
+    public void loaded(int numElements, long startNanos)
+    {
+        loadCount.increment();
+        elementsLoaded.add(numElements);
+        loadTimeNanos.add(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Method to register a load of the contents from the container content cache.
+     */
+    public void loadedFromContentCache()
+    {
+        contentCacheLoads.increment();
+    }
+
+    /**
+     * Method to register a call to the backing store.
+     * @param operation Name of the operation
+     */
+    public void storeCall(String operation)
+    {
+        storeCalls.computeIfAbsent(operation, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Method to register an operation queued for performing at flush.
+     */
+    public void queuedOperation()
+    {
+        queuedOperations.increment();
+    }
+
+    /**
+     * Method to register an accessor answered from the loaded contents.
+     */
+    public void cacheHit()
+    {
+        cacheHits.increment();
+    }
+
+    /**
+     * Method to register an accessor that went to the backing store.
+     */
+    public void datastoreFallback()
+    {
+        datastoreFallbacks.increment();
+    }
+
+    /**
+     * Method to register a diff of a replaced value.
+     * @param numChanged Number of elements (or entries) changed
+     */
+    public void initialiseDiff(int numChanged)
+    {
+        initialiseDiffs.increment();
+        initialiseDiffSize.add(numChanged);
+    }
+
+    public long getLoadCount()
+    {
+        return loadCount.sum();
+    }
+
+    public long getElementsLoaded()
+    {
+        return elementsLoaded.sum();
+    }
+
+    public long getLoadTimeMicros()
+    {
+        return loadTimeNanos.sum() / 1000;
+    }
+
+    public long getContentCacheLoads()
+    {
+        return contentCacheLoads.sum();
+    }
+
+    public Map<String, Long> getStoreCalls()
+    {
+        Map<String, Long> calls = new TreeMap<>();
+        storeCalls.forEach((op, num) -> calls.put(op, num.sum()));
+        return calls;
+    }
+
+    public long getQueuedOperations()
+    {
+        return queuedOperations.sum();
+    }
+
+    public long getCacheHits()
+    {
+        return cacheHits.sum();
+    }
+
+    public long getDatastoreFallbacks()
+    {
+        return datastoreFallbacks.sum();
+    }
+
+    public long getInitialiseDiffs()
+    {
+        return initialiseDiffs.sum();
+    }
+
+    public long getInitialiseDiffSize()
+    {
+        return initialiseDiffSize.sum();
+    }
+
+    public void reset()
+    {
+        loadCount.reset();
+        elementsLoaded.reset();
+        loadTimeNanos.reset();
+        contentCacheLoads.reset();
+        storeCalls.clear();
+        queuedOperations.reset();
+        cacheHits.reset();
+        datastoreFallbacks.reset();
+        initialiseDiffs.reset();
+        initialiseDiffSize.reset();
+    }
+}
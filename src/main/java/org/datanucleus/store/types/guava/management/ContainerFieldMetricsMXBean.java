@@ -0,0 +1,91 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.management;
+
+import java.util.Map;
+
+/**
+ * Management interface for the runtime metrics of a (backed) Guava container field.
+ */
+public interface ContainerFieldMetricsMXBean
+{
+    /**
+     * Accessor for the number of loads of the contents from the backing store.
+     * @return Number of loads
+     */
+    long getLoadCount();
+
+    /**
+     * Accessor for the number of elements (or entries) read when loading from the backing store.
+     * @return Number of elements loaded
+     */
+    long getElementsLoaded();
+
+    /**
+     * Accessor for the total time spent loading from the backing store.
+     * @return Time (microseconds)
+     */
+    long getLoadTimeMicros();
+
+    /**
+     * Accessor for the number of loads satisfied from the container content cache.
+     * @return Number of loads from the cache
+     */
+    long getContentCacheLoads();
+
+    /**
+     * Accessor for the number of calls to the backing store, keyed by the operation.
+     * @return Number of calls for each operation
+     */
+    Map<String, Long> getStoreCalls();
+
+    /**
+     * Accessor for the number of operations queued for performing at flush.
+     * @return Number of queued operations
+     */
+    long getQueuedOperations();
+
+    /**
+     * Accessor for the number of accessor calls (contains/size/count etc) answered from the loaded contents.
+     * @return Number of hits
+     */
+    long getCacheHits();
+
+    /**
+     * Accessor for the number of accessor calls (contains/size/count etc) that had to go to the backing store.
+     * @return Number of datastore fallbacks
+     */
+    long getDatastoreFallbacks();
+
+    /**
+     * Accessor for the number of times the field was replaced by a new value, and so diffed.
+     * @return Number of diffs
+     */
+    long getInitialiseDiffs();
+
+    /**
+     * Accessor for the total number of elements (or entries) changed by the diffs of replaced values.
+     * @return Number of changed elements
+     */
+    long getInitialiseDiffSize();
+
+    /**
+     * Method to reset all metrics.
+     */
+    void reset();
+}
@@ -0,0 +1,90 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.management;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.ObjectName;
+
+import org.datanucleus.PersistenceNucleusContext;
+import org.datanucleus.management.jmx.ManagementManager;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.util.NucleusLogger;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Registry of the runtime metrics of (backed) Guava container fields, for a persistence context.
+ * Enabled by the persistence property "datanucleus.guava.metrics". Where the persistence context has JMX enabled
+ * (persistence property "datanucleus.jmxType") the metrics of each field are registered as an MBean with its JMX manager,
+ * so have the lifecycle of the persistence context; otherwise they are only recorded.
+ */
+public class ContainerMetrics
+{
+    /** Persistence property enabling the metrics. */
+    public static final String PROPERTY_METRICS = "datanucleus.guava.metrics";
+
+    /** Metrics registry of each persistence context (only present when enabled). Registries must not refer to their context. */
+    private static final Map<PersistenceNucleusContext, ContainerMetrics> REGISTRIES = new MapMaker().weakKeys().makeMap();
+
+    private final Map<String, ContainerFieldMetrics> fieldMetrics = new ConcurrentHashMap<>();
+
+    /**
+     * Accessor for the metrics of the specified container field.
+     * Wrappers should call this once, when constructed, and hold the result.
+     * @param sm StateManager of the owner
+     * @param mmd Metadata for the container field
+     * @return The metrics, or null if metrics are not enabled
+     */
+    public static ContainerFieldMetrics getMetrics(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        if (sm == null || mmd == null)
+        {
+            return null;
+        }
+        PersistenceNucleusContext nucCtx = sm.getExecutionContext().getNucleusContext();
+        if (!nucCtx.getConfiguration().getBooleanProperty(PROPERTY_METRICS))
+        {
+            return null;
+        }
+        ContainerMetrics registry = REGISTRIES.computeIfAbsent(nucCtx, ctx -> new ContainerMetrics());
+        return registry.fieldMetrics.computeIfAbsent(mmd.getFullFieldName(), fieldName -> register(nucCtx, fieldName));
+    }
+
+    private static ContainerFieldMetrics register(PersistenceNucleusContext nucCtx, String fieldName)
+    {
+        ContainerFieldMetrics metrics = new ContainerFieldMetrics();
+        if (nucCtx.isJMXEnabled())
+        {
+            ManagementManager jmxManager = nucCtx.getJMXManager();
+            try
+            {
+                String name = jmxManager.getDomainName() + ":InstanceName=" + jmxManager.getInstanceName() + 
+                    ",Type=GuavaContainerMetrics,Name=" + ObjectName.quote(fieldName);
+                jmxManager.registerMBean(metrics, name);
+            }
+            catch (Exception e)
+            {
+                NucleusLogger.GENERAL.warn("Unable to register metrics MBean for field " + fieldName + " : " + e.getMessage());
+            }
+        }
+        return metrics;
+    }
+}
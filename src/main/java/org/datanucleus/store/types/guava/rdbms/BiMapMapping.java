@@ -0,0 +1,81 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.mapping.java.MapMapping;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.store.rdbms.table.MapTable;
+import org.datanucleus.store.rdbms.table.Table;
+import org.datanucleus.store.types.scostore.MapStore;
+
+/**
+ * Mapping for a BiMap member. Stored as for any Map, but when held in a join table its contents are accessed using a
+ * {@link JoinBiMapStore}, so that the key for a value can be looked up without reading all entries.
+ */
+public class BiMapMapping extends MapMapping
+{
+    /** Backing store for the member, created when first needed. */
+    protected transient JoinBiMapStore biMapStore;
+
+    /**
+     * Accessor for the backing store of this member, when held in a join table.
+     * @param clr ClassLoader resolver
+     * @return The backing store, or null if not held in a join table
+     */
+    public synchronized JoinBiMapStore getBiMapStore(ClassLoaderResolver clr)
+    {
+        if (biMapStore == null && mmd.getMappedBy() == null && !mmd.isSerialized())
+        {
+            Table joinTable = storeMgr.getTable(mmd);
+            if (joinTable instanceof MapTable)
+            {
+                biMapStore = new JoinBiMapStore<>((MapTable)joinTable, clr);
+            }
+        }
+        return biMapStore;
+    }
+
+    /**
+     * Accessor for the backing store of a BiMap member of the specified owner; the {@link JoinBiMapStore} where
+     * it is held in a join table, otherwise the backing store provided by the store manager.
+     * @param sm StateManager of the owner
+     * @param mmd Metadata for the member
+     * @return The backing store
+     */
+    public static MapStore getBackingStore(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        RDBMSStoreManager storeMgr = (RDBMSStoreManager) sm.getStoreManager();
+        ClassLoaderResolver clr = sm.getExecutionContext().getClassLoaderResolver();
+        DatastoreClass ownerTable = storeMgr.getDatastoreClass(sm.getClassMetaData().getFullClassName(), clr);
+        JavaTypeMapping mapping = (ownerTable != null ? ownerTable.getMemberMapping(mmd) : null);
+        if (mapping instanceof BiMapMapping)
+        {
+            JoinBiMapStore store = ((BiMapMapping)mapping).getBiMapStore(clr);
+            if (store != null)
+            {
+                return store;
+            }
+        }
+        return (MapStore) storeMgr.getBackingStoreForField(clr, mmd, java.util.HashMap.class);
+    }
+}
@@ -0,0 +1,173 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.api.ApiAdapter;
+import org.datanucleus.exceptions.ReachableObjectNotCascadedException;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.rdbms.mapping.java.CollectionMapping;
+import org.datanucleus.store.types.scostore.CollectionStore;
+
+import com.google.common.collect.Multiset;
+
+/**
+ * Mapping for an ImmutableList, ImmutableSet, ImmutableSortedSet or ImmutableMultiset member stored in a join table.
+ * The join table is as for a List, Set or (for an ImmutableMultiset) Collection of the element type, with one row per
+ * occurrence. Since the value can't be changed, the member has no SCO wrapper : the elements are written when the owner
+ * is inserted, rewritten when the field is reassigned, and read in full when the field is fetched, building the value
+ * using the container handler of the member type. A member that is serialised is handled as for any Collection.
+ */
+public class ImmutableCollectionMapping extends CollectionMapping
+{
+    /**
+     * Accessor for the backing store of this member.
+     * @param clr ClassLoader resolver
+     * @return The backing store, or null if not held in a join table
+     */
+    protected CollectionStore getCollectionStore(ClassLoaderResolver clr)
+    {
+        if (containerIsStoredInSingleColumn())
+        {
+            return null;
+        }
+        // An ImmutableMultiset allows duplicates, so is held as for any Collection (as a Multiset without a count column)
+        Class storeType = Multiset.class.isAssignableFrom(mmd.getType()) ? HashSet.class : mmd.getType();
+        return (CollectionStore) storeMgr.getBackingStoreForField(clr, mmd, storeType);
+    }
+
+    /**
+     * Method to be called after the insert of the owner class element, inserting the elements.
+     * @param ownerSM StateManager of the owner
+     */
+    @Override
+    public void postInsert(DNStateManager ownerSM)
+    {
+        CollectionStore store = getCollectionStore(ownerSM.getExecutionContext().getClassLoaderResolver());
+        if (store == null)
+        {
+            super.postInsert(ownerSM);
+            return;
+        }
+
+        Collection value = (Collection) ownerSM.provideField(getAbsoluteFieldNumber());
+        if (value != null && !value.isEmpty())
+        {
+            addElements(ownerSM, store, value);
+        }
+    }
+
+    /**
+     * Method to be called after any update of the owner class element. The field can only have been reassigned, so
+     * its elements are replaced.
+     * @param ownerSM StateManager of the owner
+     */
+    @Override
+    public void postUpdate(DNStateManager ownerSM)
+    {
+        CollectionStore store = getCollectionStore(ownerSM.getExecutionContext().getClassLoaderResolver());
+        if (store == null)
+        {
+            super.postUpdate(ownerSM);
+            return;
+        }
+        if (!mmd.isCascadeUpdate())
+        {
+            // User doesn't want to update by reachability
+            return;
+        }
+
+        store.clear(ownerSM);
+        Collection value = (Collection) ownerSM.provideField(getAbsoluteFieldNumber());
+        if (value != null && !value.isEmpty())
+        {
+            addElements(ownerSM, store, value);
+        }
+    }
+
+    /**
+     * Method to be called after the fetch of the owner class element, reading the elements and setting the field to
+     * the immutable collection of them.
+     * @param ownerSM StateManager of the owner
+     */
+    @Override
+    public void postFetch(DNStateManager ownerSM)
+    {
+        ExecutionContext ec = ownerSM.getExecutionContext();
+        CollectionStore store = getCollectionStore(ec.getClassLoaderResolver());
+        if (store == null)
+        {
+            super.postFetch(ownerSM);
+            return;
+        }
+
+        List<Object> elements = new ArrayList<>();
+        Iterator iter = store.iterator(ownerSM);
+        while (iter.hasNext())
+        {
+            elements.add(iter.next());
+        }
+        ownerSM.replaceField(getAbsoluteFieldNumber(), ec.getTypeManager().getContainerHandler(mmd.getType()).newContainer(mmd, elements.toArray()));
+    }
+
+    /**
+     * Method to be called before any delete of the owner class element, deleting its elements.
+     * @param ownerSM StateManager of the owner
+     */
+    @Override
+    public void preDelete(DNStateManager ownerSM)
+    {
+        CollectionStore store = getCollectionStore(ownerSM.getExecutionContext().getClassLoaderResolver());
+        if (store == null)
+        {
+            super.preDelete(ownerSM);
+            return;
+        }
+        store.clear(ownerSM);
+    }
+
+    /**
+     * Convenience method to add the elements of the value of this member to the datastore.
+     * @param ownerSM StateManager of the owner
+     * @param store The backing store
+     * @param value The value
+     */
+    protected void addElements(DNStateManager ownerSM, CollectionStore store, Collection value)
+    {
+        if (!mmd.isCascadePersist() && mmd.getCollection().elementIsPersistent())
+        {
+            // Check that all elements are persistent since we are not persisting them by reachability
+            ApiAdapter api = ownerSM.getExecutionContext().getApiAdapter();
+            for (Object element : value)
+            {
+                if (!api.isDetached(element) && !api.isPersistent(element))
+                {
+                    throw new ReachableObjectNotCascadedException(mmd.getFullFieldName(), element);
+                }
+            }
+        }
+        store.addAll(ownerSM, value, 0);
+    }
+}
@@ -0,0 +1,132 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.exceptions.NucleusDataStoreException;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.connection.ManagedConnection;
+import org.datanucleus.store.rdbms.SQLController;
+import org.datanucleus.store.rdbms.mapping.MappingHelper;
+import org.datanucleus.store.rdbms.scostore.BackingStoreHelper;
+import org.datanucleus.store.rdbms.scostore.JoinMapStore;
+import org.datanucleus.store.rdbms.table.MapTable;
+import org.datanucleus.store.types.guava.scostore.BiMapStore;
+
+import com.google.common.base.Objects;
+
+/**
+ * Backing store for a BiMap held in a join table, i.e (OWNER_ID, KEY, VALUE). Adds to the join table store of a Map
+ * the lookup of the key for a value, as a single SELECT of the row for (owner, value). The value column is indexed
+ * (by the container handler); its values are only unique per owner, which the wrapper checks before any put.
+ * @param <K> Type of the key
+ * @param <V> Type of the value
+ */
+public class JoinBiMapStore<K, V> extends JoinMapStore<K, V> implements BiMapStore<K, V>
+{
+    protected String getKeyForValueStmt;
+
+    /**
+     * Constructor for a join table store of a BiMap.
+     * @param mapTable The join table
+     * @param clr ClassLoader resolver
+     */
+    public JoinBiMapStore(MapTable mapTable, ClassLoaderResolver clr)
+    {
+        super(mapTable, clr);
+
+        StringBuilder stmt = new StringBuilder("SELECT ");
+        stmt.append(JoinMultisetStore.getColumnList(keyMapping, null));
+        stmt.append(" FROM ").append(mapTable.toString()).append(" WHERE ");
+        BackingStoreHelper.appendWhereClauseForMapping(stmt, ownerMapping, null, true);
+        BackingStoreHelper.appendWhereClauseForMapping(stmt, valueMapping, null, false);
+        getKeyForValueStmt = stmt.toString();
+    }
+
+    @Override
+    public K getKeyForValue(DNStateManager sm, Object value)
+    {
+        if (value == null || !validateValueForReading(sm, value))
+        {
+            return null;
+        }
+        if (valuesAreEmbedded || valuesAreSerialised)
+        {
+            // Value can't be compared in a WHERE clause, so find it amongst the entries
+            Iterator<Map.Entry<K, V>> iter = entrySetStore().iterator(sm);
+            while (iter.hasNext())
+            {
+                Map.Entry<K, V> entry = iter.next();
+                if (Objects.equal(value, entry.getValue()))
+                {
+                    return entry.getKey();
+                }
+            }
+            return null;
+        }
+
+        ExecutionContext ec = sm.getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                PreparedStatement ps = sqlControl.getStatementForQuery(mconn, getKeyForValueStmt);
+                try
+                {
+                    int jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+                    BackingStoreHelper.populateValueInStatement(ec, ps, value, jdbcPosition, valueMapping);
+
+                    ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, getKeyForValueStmt, ps);
+                    try
+                    {
+                        if (!rs.next())
+                        {
+                            return null;
+                        }
+                        return (K) keyMapping.getObject(ec, rs, MappingHelper.getMappingIndices(1, keyMapping));
+                    }
+                    finally
+                    {
+                        rs.close();
+                    }
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception reading the key for a value of BiMap " + ownerMemberMetaData.getFullFieldName() + " : " + getKeyForValueStmt, e);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.exceptions.NucleusDataStoreException;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.connection.ManagedConnection;
+import org.datanucleus.store.rdbms.SQLController;
+import org.datanucleus.store.rdbms.mapping.MappingHelper;
+import org.datanucleus.store.rdbms.scostore.BackingStoreHelper;
+import org.datanucleus.store.rdbms.scostore.JoinMapStore;
+import org.datanucleus.store.rdbms.table.MapTable;
+import org.datanucleus.store.types.guava.scostore.MultimapStore;
+
+/**
+ * Backing store for a Multimap held in a join table with one row per key-value pair, i.e (OWNER_ID, KEY, VALUE).
+ * The join table has no primary key (see {@link MultimapMapping}), since a key has many values (and a ListMultimap
+ * can hold the same pair more than once). The values of a key are read with a single SELECT of the rows for
+ * (owner, key), and each change is an INSERT or DELETE of the rows for the pair or key, so no change needs the other
+ * entries of the multimap. The size, containsKey, containsValue, clear and iteration of all pairs are those of the
+ * join table store of a Map, which work per row; the single-valued Map methods put, get and remove are not used.
+ * @param <K> Type of the key
+ * @param <V> Type of the value
+ */
+public class JoinMultimapStore<K, V> extends JoinMapStore<K, V> implements MultimapStore<K, V>
+{
+    protected String getValuesStmt;
+
+    protected String countEntryStmt;
+
+    protected String insertEntryStmt;
+
+    protected String removeEntryStmt;
+
+    protected String removeKeyStmt;
+
+    /**
+     * Constructor for a join table store of a Multimap.
+     * @param mapTable The join table
+     * @param clr ClassLoader resolver
+     */
+    public JoinMultimapStore(MapTable mapTable, ClassLoaderResolver clr)
+    {
+        super(mapTable, clr);
+
+        String tableName = mapTable.toString();
+        String keyColumns = JoinMultisetStore.getColumnList(keyMapping, null);
+        String valueColumns = JoinMultisetStore.getColumnList(valueMapping, null);
+
+        StringBuilder keyWhere = new StringBuilder(" WHERE ");
+        BackingStoreHelper.appendWhereClauseForMapping(keyWhere, ownerMapping, null, true);
+        BackingStoreHelper.appendWhereClauseForMapping(keyWhere, keyMapping, null, false);
+        StringBuilder entryWhere = new StringBuilder(keyWhere);
+        BackingStoreHelper.appendWhereClauseForMapping(entryWhere, valueMapping, null, false);
+
+        getValuesStmt = "SELECT " + valueColumns + " FROM " + tableName + keyWhere;
+        countEntryStmt = "SELECT COUNT(*) FROM " + tableName + entryWhere;
+
+        StringBuilder values = new StringBuilder();
+        int numParams = ownerMapping.getNumberOfColumnMappings() + keyMapping.getNumberOfColumnMappings() + valueMapping.getNumberOfColumnMappings();
+        for (int i = 0; i < numParams; i++)
+        {
+            values.append(i > 0 ? ",?" : "?");
+        }
+        insertEntryStmt = "INSERT INTO " + tableName + " (" + JoinMultisetStore.getColumnList(ownerMapping, null) + "," + keyColumns + "," + valueColumns +
+            ") VALUES (" + values + ")";
+
+        removeEntryStmt = "DELETE FROM " + tableName + entryWhere;
+        removeKeyStmt = "DELETE FROM " + tableName + keyWhere;
+    }
+
+    @Override
+    public int countEntry(DNStateManager sm, Object key, Object value)
+    {
+        if (!validateKeyForReading(sm, key) || !validateValueForReading(sm, value))
+        {
+            return 0;
+        }
+
+        ExecutionContext ec = sm.getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                PreparedStatement ps = sqlControl.getStatementForQuery(mconn, countEntryStmt);
+                try
+                {
+                    int jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+                    jdbcPosition = BackingStoreHelper.populateKeyInStatement(ec, ps, key, jdbcPosition, keyMapping);
+                    BackingStoreHelper.populateValueInStatement(ec, ps, value, jdbcPosition, valueMapping);
+
+                    ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, countEntryStmt, ps);
+                    try
+                    {
+                        return rs.next() ? rs.getInt(1) : 0;
+                    }
+                    finally
+                    {
+                        rs.close();
+                    }
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception reading a key-value pair of Multimap " + ownerMemberMetaData.getFullFieldName() + " : " + countEntryStmt, e);
+        }
+    }
+
+    @Override
+    public List<V> getValues(DNStateManager sm, Object key)
+    {
+        List<V> values = new ArrayList<>();
+        if (!validateKeyForReading(sm, key))
+        {
+            return values;
+        }
+
+        ExecutionContext ec = sm.getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                PreparedStatement ps = sqlControl.getStatementForQuery(mconn, getValuesStmt);
+                try
+                {
+                    int jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+                    BackingStoreHelper.populateKeyInStatement(ec, ps, key, jdbcPosition, keyMapping);
+
+                    ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, getValuesStmt, ps);
+                    try
+                    {
+                        int[] valueIndices = MappingHelper.getMappingIndices(1, valueMapping);
+                        while (rs.next())
+                        {
+                            values.add((V) valueMapping.getObject(ec, rs, valueIndices));
+                        }
+                    }
+                    finally
+                    {
+                        rs.close();
+                    }
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception reading the values of a key of Multimap " + ownerMemberMetaData.getFullFieldName() + " : " + getValuesStmt, e);
+        }
+        return values;
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> entryIterator(DNStateManager sm)
+    {
+        return entrySetStore().iterator(sm);
+    }
+
+    @Override
+    public void putEntry(DNStateManager sm, K key, V value)
+    {
+        com.google.common.collect.Multimap<K, V> entries = com.google.common.collect.ArrayListMultimap.create(1, 1);
+        entries.put(key, value);
+        putEntries(sm, entries);
+    }
+
+    @Override
+    public void putEntries(DNStateManager sm, com.google.common.collect.Multimap<? extends K, ? extends V> entries)
+    {
+        if (entries.isEmpty())
+        {
+            return;
+        }
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entries())
+        {
+            validateKeyForWriting(sm, entry.getKey());
+            validateValueForWriting(sm, entry.getValue());
+        }
+
+        ExecutionContext ec = sm.getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                Iterator<? extends Map.Entry<? extends K, ? extends V>> iter = entries.entries().iterator();
+                while (iter.hasNext())
+                {
+                    Map.Entry<? extends K, ? extends V> entry = iter.next();
+                    PreparedStatement ps = sqlControl.getStatementForUpdate(mconn, insertEntryStmt, true);
+                    try
+                    {
+                        int jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+                        jdbcPosition = BackingStoreHelper.populateKeyInStatement(ec, ps, entry.getKey(), jdbcPosition, keyMapping);
+                        BackingStoreHelper.populateValueInStatement(ec, ps, entry.getValue(), jdbcPosition, valueMapping);
+
+                        // Add to the batch, executing it with the last pair
+                        sqlControl.executeStatementUpdate(ec, mconn, insertEntryStmt, ps, !iter.hasNext());
+                    }
+                    finally
+                    {
+                        sqlControl.closeStatement(mconn, ps);
+                    }
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception adding key-value pairs to Multimap " + ownerMemberMetaData.getFullFieldName() + " : " + insertEntryStmt, e);
+        }
+    }
+
+    @Override
+    public boolean removeEntry(DNStateManager sm, Object key, Object value)
+    {
+        if (!validateKeyForReading(sm, key) || !validateValueForReading(sm, value))
+        {
+            return false;
+        }
+
+        // The rows of the pair can't be told apart, so delete them all and add back any further occurrences
+        int numRemoved = executeUpdate(sm, removeEntryStmt, key, value, true);
+        if (numRemoved > 1)
+        {
+            com.google.common.collect.Multimap<K, V> remaining = com.google.common.collect.ArrayListMultimap.create(1, numRemoved - 1);
+            for (int i = 1; i < numRemoved; i++)
+            {
+                remaining.put((K) key, (V) value);
+            }
+            putEntries(sm, remaining);
+        }
+        return numRemoved > 0;
+    }
+
+    @Override
+    public boolean removeKey(DNStateManager sm, Object key)
+    {
+        if (!validateKeyForReading(sm, key))
+        {
+            return false;
+        }
+        return executeUpdate(sm, removeKeyStmt, key, null, false) > 0;
+    }
+
+    @Override
+    public V get(DNStateManager sm, Object key)
+    {
+        throw new UnsupportedOperationException("Multimap " + ownerMemberMetaData.getFullFieldName() + " has many values for a key; use getValues");
+    }
+
+    @Override
+    public V put(DNStateManager sm, K key, V value)
+    {
+        throw new UnsupportedOperationException("Multimap " + ownerMemberMetaData.getFullFieldName() + " has many values for a key; use putEntry");
+    }
+
+    @Override
+    public void putAll(DNStateManager sm, Map<? extends K, ? extends V> m)
+    {
+        throw new UnsupportedOperationException("Multimap " + ownerMemberMetaData.getFullFieldName() + " has many values for a key; use putEntries");
+    }
+
+    @Override
+    public V remove(DNStateManager sm, Object key)
+    {
+        throw new UnsupportedOperationException("Multimap " + ownerMemberMetaData.getFullFieldName() + " has many values for a key; use removeKey");
+    }
+
+    /**
+     * Method to execute a DELETE of the rows of a key, or of a key-value pair, of the multimap of this owner.
+     * @param sm StateManager for the owner of the multimap
+     * @param stmt The statement
+     * @param key The key
+     * @param value The value
+     * @param hasValueParameter Whether the statement has a value parameter (after the key)
+     * @return Number of rows deleted
+     */
+    protected int executeUpdate(DNStateManager sm, String stmt, Object key, Object value, boolean hasValueParameter)
+    {
+        ExecutionContext ec = sm.getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                PreparedStatement ps = sqlControl.getStatementForUpdate(mconn, stmt, false);
+                try
+                {
+                    int jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+                    jdbcPosition = BackingStoreHelper.populateKeyInStatement(ec, ps, key, jdbcPosition, keyMapping);
+                    if (hasValueParameter)
+                    {
+                        BackingStoreHelper.populateValueInStatement(ec, ps, value, jdbcPosition, valueMapping);
+                    }
+
+                    int[] rowsDeleted = sqlControl.executeStatementUpdate(ec, mconn, stmt, ps, true);
+                    return (rowsDeleted != null && rowsDeleted.length > 0) ? rowsDeleted[0] : 0;
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception removing values of Multimap " + ownerMemberMetaData.getFullFieldName() + " : " + stmt, e);
+        }
+    }
+}
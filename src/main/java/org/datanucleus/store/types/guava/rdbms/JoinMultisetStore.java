@@ -0,0 +1,1547 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.exceptions.NucleusDataStoreException;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.connection.ManagedConnection;
+import org.datanucleus.store.rdbms.SQLController;
+import org.datanucleus.store.rdbms.mapping.MappingHelper;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.scostore.BackingStoreHelper;
+import org.datanucleus.store.rdbms.scostore.JoinSetStore;
+import org.datanucleus.store.rdbms.table.CollectionTable;
+import org.datanucleus.store.types.guava.scostore.SortedMultisetStore;
+
+import com.google.common.collect.BoundType;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multisets;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.TreeMultiset;
+
+/**
+ * Backing store for a Multiset held in a join table with one row per distinct element, and a column holding the
+ * count of that element, i.e (OWNER_ID, ELEMENT, ELEMENT_COUNT). The count column is added to the join table by
+ * {@link MultisetMapping}. A change in the count of an element is a single UPDATE of its row (followed by an INSERT
+ * when the element was not present), and the row is deleted when its count drops to 0. Changes to the counts of
+ * many elements are made as JDBC batches of these statements.
+ * The join table has the pair (owner, element) as its primary key (see {@link MultisetMapping}), so when two
+ * transactions insert the row of the same element the later INSERT fails, and its UPDATE is retried.
+ * Ranges of elements (for a SortedMultiset) are read with a bounded query on the element column, ordered by it.
+ * @param <E> Type of element in this multiset
+ */
+public class JoinMultisetStore<E> extends JoinSetStore<E> implements SortedMultisetStore<E>
+{
+    /** Maximum number of element parameters in one statement restricted to a number of elements. */
+    protected static final int MAX_PARAMETERS_PER_STATEMENT = 1000;
+
+    /** Mapping for the column holding the count of each element. */
+    protected JavaTypeMapping countMapping;
+
+    protected String countColumnName;
+
+    protected String countStmt;
+
+    protected String sizeStmt;
+
+    protected String entriesStmt;
+
+    protected String insertEntryStmt;
+
+    protected String incrementCountStmt;
+
+    protected String decrementCountStmt;
+
+    protected String setCountStmt;
+
+    protected String removeEntryStmt;
+
+    protected String removeEntryUpToCountStmt;
+
+    /**
+     * Constructor for a join table store of a Multiset.
+     * @param mmd Metadata for the owning member
+     * @param joinTable The join table, having an order mapping for the count column
+     * @param clr ClassLoader resolver
+     */
+    public JoinMultisetStore(AbstractMemberMetaData mmd, CollectionTable joinTable, ClassLoaderResolver clr)
+    {
+        super(mmd, joinTable, clr);
+        this.countMapping = joinTable.getOrderMapping();
+        this.countColumnName = getColumnList(countMapping, null);
+
+        String tableName = containerTable.toString();
+        String elementColumns = getColumnList(elementMapping, null);
+
+        StringBuilder ownerWhere = new StringBuilder(" WHERE ");
+        BackingStoreHelper.appendWhereClauseForMapping(ownerWhere, ownerMapping, null, true);
+        StringBuilder entryWhere = new StringBuilder(ownerWhere);
+        BackingStoreHelper.appendWhereClauseForMapping(entryWhere, elementMapping, null, false);
+
+        countStmt = "SELECT " + countColumnName + " FROM " + tableName + entryWhere;
+        sizeStmt = "SELECT SUM(" + countColumnName + "),COUNT(*) FROM " + tableName + ownerWhere;
+        entriesStmt = "SELECT " + elementColumns + "," + countColumnName + " FROM " + tableName + ownerWhere + " ORDER BY " + elementColumns;
+
+        StringBuilder values = new StringBuilder();
+        int numParams = ownerMapping.getNumberOfColumnMappings() + elementMapping.getNumberOfColumnMappings() + 1;
+        for (int i = 0; i < numParams; i++)
+        {
+            values.append(i > 0 ? ",?" : "?");
+        }
+        insertEntryStmt = "INSERT INTO " + tableName + " (" + getColumnList(ownerMapping, null) + "," + elementColumns + "," + countColumnName +
+            ") VALUES (" + values + ")";
+
+        incrementCountStmt = "UPDATE " + tableName + " SET " + countColumnName + "=" + countColumnName + "+?" + entryWhere;
+        decrementCountStmt = "UPDATE " + tableName + " SET " + countColumnName + "=" + countColumnName + "-?" + entryWhere + " AND " + countColumnName + ">?";
+        setCountStmt = "UPDATE " + tableName + " SET " + countColumnName + "=?" + entryWhere;
+        removeEntryStmt = "DELETE FROM " + tableName + entryWhere;
+        removeEntryUpToCountStmt = removeEntryStmt + " AND " + countColumnName + "<=?";
+    }
+
+    /**
+     * Convenience method to return the (comma-separated) names of the columns of a mapping.
+     * @param mapping The mapping
+     * @param alias Alias of the table to prefix each column with (or null)
+     * @return The column names
+     */
+    protected static String getColumnList(JavaTypeMapping mapping, String alias)
+    {
+        StringBuilder str = new StringBuilder();
+        for (int i = 0; i < mapping.getNumberOfColumnMappings(); i++)
+        {
+            if (i > 0)
+            {
+                str.append(',');
+            }
+            if (alias != null)
+            {
+                str.append(alias).append('.');
+            }
+            str.append(mapping.getColumnMapping(i).getColumn().getIdentifier().toString());
+        }
+        return str.toString();
+    }
+
+    /**
+     * Accessor for the mapping of the count column.
+     * @return The count mapping
+     */
+    public JavaTypeMapping getCountMapping()
+    {
+        return countMapping;
+    }
+
+    @Override
+    public int count(DNStateManager sm, Object element)
+    {
+        ExecutionContext ec = sm.getExecutionContext();
+        if (!validateElementForReading(ec, element))
+        {
+            return 0;
+        }
+
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                PreparedStatement ps = sqlControl.getStatementForQuery(mconn, countStmt);
+                try
+                {
+                    int jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+                    BackingStoreHelper.populateElementForWhereClauseInStatement(ec, ps, element, jdbcPosition, elementMapping);
+
+                    ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, countStmt, ps);
+                    try
+                    {
+                        return rs.next() ? rs.getInt(1) : 0;
+                    }
+                    finally
+                    {
+                        rs.close();
+                    }
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception reading the count of an element of Multiset " + ownerMemberMetaData.getFullFieldName() + " : " + countStmt, e);
+        }
+    }
+
+    @Override
+    public int size(DNStateManager sm)
+    {
+        return getSizes(sm)[0];
+    }
+
+    @Override
+    public int elementSetSize(DNStateManager sm)
+    {
+        return getSizes(sm)[1];
+    }
+
+    /**
+     * Accessor for the size of the multiset of this owner and its number of distinct elements, with a single query.
+     * @param sm StateManager for the owner of the multiset
+     * @return The total of the counts, and the number of distinct elements
+     */
+    protected int[] getSizes(DNStateManager sm)
+    {
+        ExecutionContext ec = sm.getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                PreparedStatement ps = sqlControl.getStatementForQuery(mconn, sizeStmt);
+                try
+                {
+                    BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+
+                    ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, sizeStmt, ps);
+                    try
+                    {
+                        // SUM is NULL when there are no rows, which getInt returns as 0
+                        return rs.next() ? new int[] {rs.getInt(1), rs.getInt(2)} : new int[] {0, 0};
+                    }
+                    finally
+                    {
+                        rs.close();
+                    }
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception reading the size of Multiset " + ownerMemberMetaData.getFullFieldName() + " : " + sizeStmt, e);
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator(DNStateManager sm)
+    {
+        List<com.google.common.collect.Multiset.Entry<E>> entries = getEntries(sm);
+        return Iterators.unmodifiableIterator(Iterators.concat(Iterators.transform(entries.iterator(),
+            entry -> Collections.nCopies(entry.getCount(), entry.getElement()).iterator())));
+    }
+
+    @Override
+    public Iterator<E> elementIterator(DNStateManager sm)
+    {
+        return Iterators.unmodifiableIterator(Iterators.transform(getEntries(sm).iterator(), com.google.common.collect.Multiset.Entry::getElement));
+    }
+
+    @Override
+    public Iterator<com.google.common.collect.Multiset.Entry<E>> entryIterator(DNStateManager sm)
+    {
+        return Iterators.unmodifiableIterator(getEntries(sm).iterator());
+    }
+
+    /**
+     * Accessor for the entries (distinct element and its count) of the multiset of this owner, ordered by element.
+     * @param sm StateManager for the owner of the multiset
+     * @return The entries
+     */
+    protected List<com.google.common.collect.Multiset.Entry<E>> getEntries(DNStateManager sm)
+    {
+        ExecutionContext ec = sm.getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                PreparedStatement ps = sqlControl.getStatementForQuery(mconn, entriesStmt);
+                try
+                {
+                    BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+
+                    ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, entriesStmt, ps);
+                    try
+                    {
+                        return readEntries(ec, rs, 1, -1);
+                    }
+                    finally
+                    {
+                        rs.close();
+                    }
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception reading the entries of Multiset " + ownerMemberMetaData.getFullFieldName() + " : " + entriesStmt, e);
+        }
+    }
+
+    /**
+     * Accessor for a chunk of the entries of the multiset of this owner, ordered by element. The chunk continues from
+     * the last element of the previous chunk (i.e "WHERE owner=? AND element &gt; ? ORDER BY element" limited to the
+     * chunk size, see {@link #rangeEntries}), so is a bounded read on the primary key however far into the multiset it is.
+     * Where the element spans several columns there is no single column to continue from, so the chunk is taken
+     * by its position.
+     * @param sm StateManager for the owner of the multiset
+     * @param lastElement Element of the last entry of the previous chunk, or null for the first chunk
+     * @param firstEntry Position of the first entry to return (starting at 0), used when the element spans several columns
+     * @param maxEntries Maximum number of entries to return
+     * @return The entries
+     */
+    @Override
+    public List<com.google.common.collect.Multiset.Entry<E>> entries(DNStateManager sm, E lastElement, int firstEntry, int maxEntries)
+    {
+        if (elementMapping.getNumberOfColumnMappings() != 1)
+        {
+            return SortedMultisetStore.super.entries(sm, lastElement, firstEntry, maxEntries);
+        }
+        return rangeEntries(sm, lastElement, lastElement != null ? BoundType.OPEN : null, null, null, false, maxEntries);
+    }
+
+    /**
+     * Accessor for the entries in a range of elements, in order, i.e
+     * "SELECT element, count ... WHERE owner=? AND element &gt;= ? AND element &lt; ? ORDER BY element [DESC]", limited to
+     * the number of entries requested. The ordering is that of the element column in the datastore.
+     * @param sm StateManager for the owner of the multiset
+     * @param lower The lower bound (ignored when unbounded below)
+     * @param lowerType Type of the lower bound, or null when unbounded below
+     * @param upper The upper bound (ignored when unbounded above)
+     * @param upperType Type of the upper bound, or null when unbounded above
+     * @param descending Whether to return the entries in descending order
+     * @param maxEntries Maximum number of entries to return, or -1 for all in the range
+     * @return The entries
+     */
+    @Override
+    public List<com.google.common.collect.Multiset.Entry<E>> rangeEntries(DNStateManager sm, E lower, BoundType lowerType, E upper, BoundType upperType,
+            boolean descending, int maxEntries)
+    {
+        ExecutionContext ec = sm.getExecutionContext();
+        if ((lowerType != null && !validateElementForReading(ec, lower)) || (upperType != null && !validateElementForReading(ec, upper)))
+        {
+            return new ArrayList<>();
+        }
+        if (elementMapping.getNumberOfColumnMappings() != 1)
+        {
+            // Element spans several columns so cannot be compared in the datastore
+            return getRangeOfEntries(getEntries(sm), lower, lowerType, upper, upperType, descending, maxEntries);
+        }
+
+        String elementColumn = getColumnList(elementMapping, null);
+        StringBuilder stmtStr = new StringBuilder("SELECT ").append(elementColumn).append(',').append(countColumnName)
+            .append(" FROM ").append(containerTable.toString()).append(" WHERE ");
+        BackingStoreHelper.appendWhereClauseForMapping(stmtStr, ownerMapping, null, true);
+        if (lowerType != null)
+        {
+            stmtStr.append(" AND ").append(elementColumn).append(lowerType == BoundType.OPEN ? ">?" : ">=?");
+        }
+        if (upperType != null)
+        {
+            stmtStr.append(" AND ").append(elementColumn).append(upperType == BoundType.OPEN ? "<?" : "<=?");
+        }
+        stmtStr.append(" ORDER BY ").append(elementColumn).append(descending ? " DESC" : "");
+        String rangeClause = (maxEntries >= 0 ? dba.getRangeByLimitEndOfStatementClause(0, maxEntries, true) : null);
+        boolean rangeInStatement = rangeClause != null && rangeClause.length() > 0;
+        if (rangeInStatement)
+        {
+            stmtStr.append(' ').append(rangeClause);
+        }
+        String stmt = stmtStr.toString();
+
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                PreparedStatement ps = sqlControl.getStatementForQuery(mconn, stmt);
+                try
+                {
+                    int jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+                    if (lowerType != null)
+                    {
+                        jdbcPosition = BackingStoreHelper.populateElementForWhereClauseInStatement(ec, ps, lower, jdbcPosition, elementMapping);
+                    }
+                    if (upperType != null)
+                    {
+                        BackingStoreHelper.populateElementForWhereClauseInStatement(ec, ps, upper, jdbcPosition, elementMapping);
+                    }
+                    if (maxEntries >= 0 && !rangeInStatement)
+                    {
+                        ps.setMaxRows(maxEntries);
+                    }
+
+                    ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, stmt, ps);
+                    try
+                    {
+                        return readEntries(ec, rs, 1, maxEntries);
+                    }
+                    finally
+                    {
+                        rs.close();
+                    }
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception reading a range of entries of Multiset " + ownerMemberMetaData.getFullFieldName() + " : " + stmt, e);
+        }
+    }
+
+    /**
+     * Convenience method to select the entries in a range of elements, using the natural ordering of the elements.
+     * @param entries The entries
+     * @param lower The lower bound
+     * @param lowerType Type of the lower bound, or null when unbounded below
+     * @param upper The upper bound
+     * @param upperType Type of the upper bound, or null when unbounded above
+     * @param descending Whether to return the entries in descending order
+     * @param maxEntries Maximum number of entries to return, or -1 for all in the range
+     * @return The entries in the range
+     */
+    protected static <E> List<com.google.common.collect.Multiset.Entry<E>> getRangeOfEntries(List<com.google.common.collect.Multiset.Entry<E>> entries,
+            E lower, BoundType lowerType, E upper, BoundType upperType, boolean descending, int maxEntries)
+    {
+        com.google.common.collect.SortedMultiset<E> sorted = TreeMultiset.create((Comparator<? super E>) Ordering.natural());
+        for (com.google.common.collect.Multiset.Entry<E> entry : entries)
+        {
+            sorted.add(entry.getElement(), entry.getCount());
+        }
+        if (lowerType != null)
+        {
+            sorted = sorted.tailMultiset(lower, lowerType);
+        }
+        if (upperType != null)
+        {
+            sorted = sorted.headMultiset(upper, upperType);
+        }
+        List<com.google.common.collect.Multiset.Entry<E>> range = new ArrayList<>();
+        for (com.google.common.collect.Multiset.Entry<E> entry : (descending ? sorted.descendingMultiset() : sorted).entrySet())
+        {
+            if (maxEntries >= 0 && range.size() >= maxEntries)
+            {
+                break;
+            }
+            range.add(Multisets.immutableEntry(entry.getElement(), entry.getCount()));
+        }
+        return range;
+    }
+
+    /**
+     * Accessor for the entries of the multisets of several owners, with a single query restricted to those owners
+     * (i.e "WHERE (owner=?) OR (owner=?) ..."). The owner of each row is read from its owner columns.
+     * @param sms StateManagers for the owners of the multisets
+     * @return The entries of the multiset of each owner (owners with an empty multiset are omitted)
+     */
+    @Override
+    public Map<DNStateManager, List<com.google.common.collect.Multiset.Entry<E>>> entries(Collection<DNStateManager> sms)
+    {
+        Map<DNStateManager, List<com.google.common.collect.Multiset.Entry<E>>> entriesByOwner = new HashMap<>(sms.size());
+        if (sms.isEmpty())
+        {
+            return entriesByOwner;
+        }
+
+        String ownerColumns = getColumnList(ownerMapping, null);
+        String elementColumns = getColumnList(elementMapping, null);
+        StringBuilder stmt = new StringBuilder("SELECT ").append(ownerColumns).append(',').append(elementColumns).append(',').append(countColumnName)
+            .append(" FROM ").append(containerTable.toString()).append(" WHERE ");
+        for (int i = 0; i < sms.size(); i++)
+        {
+            stmt.append(i > 0 ? " OR (" : "(");
+            BackingStoreHelper.appendWhereClauseForMapping(stmt, ownerMapping, null, true);
+            stmt.append(')');
+        }
+        stmt.append(" ORDER BY ").append(ownerColumns).append(',').append(elementColumns);
+        String ownersEntriesStmt = stmt.toString();
+
+        ExecutionContext ec = sms.iterator().next().getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                PreparedStatement ps = sqlControl.getStatementForQuery(mconn, ownersEntriesStmt);
+                try
+                {
+                    int jdbcPosition = 1;
+                    for (DNStateManager sm : sms)
+                    {
+                        jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, jdbcPosition, this);
+                    }
+
+                    ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, ownersEntriesStmt, ps);
+                    try
+                    {
+                        int[] ownerIndices = MappingHelper.getMappingIndices(1, ownerMapping);
+                        int[] elementIndices = MappingHelper.getMappingIndices(1 + ownerIndices.length, elementMapping);
+                        int countIndex = 1 + ownerIndices.length + elementIndices.length;
+                        while (rs.next())
+                        {
+                            DNStateManager ownerSM = ec.findStateManager(ownerMapping.getObject(ec, rs, ownerIndices));
+                            if (ownerSM == null || !sms.contains(ownerSM))
+                            {
+                                continue;
+                            }
+                            E element = (E) elementMapping.getObject(ec, rs, elementIndices);
+                            entriesByOwner.computeIfAbsent(ownerSM, sm -> new ArrayList<>()).add(Multisets.immutableEntry(element, rs.getInt(countIndex)));
+                        }
+                    }
+                    finally
+                    {
+                        rs.close();
+                    }
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception reading the entries of Multiset " + ownerMemberMetaData.getFullFieldName() + " : " + ownersEntriesStmt, e);
+        }
+        return entriesByOwner;
+    }
+
+    /**
+     * Convenience method to read entries from a result set with the element columns starting at the specified position
+     * followed by the count column.
+     * @param ec ExecutionContext
+     * @param rs The result set
+     * @param elementPosition Position of the first element column
+     * @param maxEntries Maximum number of entries to read, or -1 for all
+     * @return The entries
+     * @throws SQLException If an error occurs reading the results
+     */
+    protected List<com.google.common.collect.Multiset.Entry<E>> readEntries(ExecutionContext ec, ResultSet rs, int elementPosition, int maxEntries)
+    throws SQLException
+    {
+        int[] elementIndices = MappingHelper.getMappingIndices(elementPosition, elementMapping);
+        int countIndex = elementPosition + elementIndices.length;
+        List<com.google.common.collect.Multiset.Entry<E>> entries = new ArrayList<>();
+        while ((maxEntries < 0 || entries.size() < maxEntries) && rs.next())
+        {
+            E element = (E) elementMapping.getObject(ec, rs, elementIndices);
+            entries.add(Multisets.immutableEntry(element, rs.getInt(countIndex)));
+        }
+        return entries;
+    }
+
+    @Override
+    public boolean add(DNStateManager sm, E element, int size)
+    {
+        return addOccurrences(sm, element, 1);
+    }
+
+    @Override
+    public boolean addAll(DNStateManager sm, Collection<E> elements, int size)
+    {
+        if (elements == null || elements.isEmpty())
+        {
+            return false;
+        }
+
+        com.google.common.collect.Multiset<E> multiset = (elements instanceof com.google.common.collect.Multiset) ?
+                (com.google.common.collect.Multiset<E>) elements : HashMultiset.create(elements);
+        if (size == 0)
+        {
+            // Owner has no elements so insert a row per distinct element, without trying an update first
+            ExecutionContext ec = sm.getExecutionContext();
+            for (E element : multiset.elementSet())
+            {
+                validateElementForWriting(ec, element, null);
+            }
+            try
+            {
+                ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+                try
+                {
+                    Map<Object, Integer> counts = new LinkedHashMap<>();
+                    for (com.google.common.collect.Multiset.Entry<E> entry : multiset.entrySet())
+                    {
+                        counts.put(entry.getElement(), entry.getCount());
+                    }
+                    insertEntries(mconn, sm, incrementCountStmt, counts);
+                }
+                finally
+                {
+                    mconn.release();
+                }
+            }
+            catch (SQLException e)
+            {
+                throw new NucleusDataStoreException("Exception adding elements to Multiset " + ownerMemberMetaData.getFullFieldName() + " : " + insertEntryStmt, e);
+            }
+            return true;
+        }
+
+        Map<E, Integer> deltas = new LinkedHashMap<>();
+        for (com.google.common.collect.Multiset.Entry<E> entry : multiset.entrySet())
+        {
+            deltas.put(entry.getElement(), entry.getCount());
+        }
+        return updateCounts(sm, deltas);
+    }
+
+    @Override
+    public boolean addOccurrences(DNStateManager sm, E element, int occurrences)
+    {
+        if (occurrences <= 0)
+        {
+            return false;
+        }
+        return updateCounts(sm, Collections.singletonMap(element, occurrences));
+    }
+
+    @Override
+    public boolean remove(DNStateManager sm, Object element, int size, boolean allowDependentField)
+    {
+        return removeOccurrences(sm, element, 1, allowDependentField);
+    }
+
+    @Override
+    public boolean removeOccurrences(DNStateManager sm, Object element, int occurrences)
+    {
+        return removeOccurrences(sm, element, occurrences, true);
+    }
+
+    /**
+     * Method to remove occurrences of an element, deleting its row when its count drops to 0.
+     * @param sm StateManager for the owner of the multiset
+     * @param element The element
+     * @param occurrences Number of occurrences to remove
+     * @param allowDependentField Whether to delete a dependent element when its last occurrence is removed
+     * @return Whether the datastore was changed
+     */
+    protected boolean removeOccurrences(DNStateManager sm, Object element, int occurrences, boolean allowDependentField)
+    {
+        ExecutionContext ec = sm.getExecutionContext();
+        if (occurrences <= 0 || !validateElementForReading(ec, element))
+        {
+            return false;
+        }
+
+        boolean removedEntry = false;
+        boolean modified;
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            try
+            {
+                modified = executeEntryUpdate(mconn, sm, decrementCountStmt, element, occurrences, occurrences) > 0;
+                if (!modified)
+                {
+                    // Not present, or removing at least its count, so remove its row
+                    removedEntry = executeEntryUpdate(mconn, sm, removeEntryStmt, element, -1, -1) > 0;
+                    modified = removedEntry;
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception removing an element from Multiset " + ownerMemberMetaData.getFullFieldName() + " : " + decrementCountStmt, e);
+        }
+
+        if (removedEntry && allowDependentField)
+        {
+            deleteDependentElement(ec, element);
+        }
+        return modified;
+    }
+
+    @Override
+    public boolean setCount(DNStateManager sm, E element, int count)
+    {
+        ExecutionContext ec = sm.getExecutionContext();
+        if (count == 0)
+        {
+            return removeOccurrences(sm, element, Integer.MAX_VALUE, true);
+        }
+
+        validateElementForWriting(ec, element, null);
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            try
+            {
+                updateOrInsertEntry(mconn, sm, setCountStmt, element, count);
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception setting the count of an element of Multiset " + ownerMemberMetaData.getFullFieldName() + " : " + setCountStmt, e);
+        }
+        return true;
+    }
+
+    /**
+     * Method to change the counts of elements, with a batch of UPDATEs of the incremented elements (followed by a
+     * batch of INSERTs of those without a row), a batch of DELETEs of the rows of elements having no more than the
+     * removed number of occurrences, and a batch of UPDATEs of the other decremented elements.
+     * @param sm StateManager for the owner of the multiset
+     * @param deltas Change in count of each element
+     * @return Whether the datastore was changed
+     */
+    @Override
+    public boolean updateCounts(DNStateManager sm, Map<? extends E, Integer> deltas)
+    {
+        ExecutionContext ec = sm.getExecutionContext();
+        List<Object> incremented = new ArrayList<>();
+        List<Integer> increments = new ArrayList<>();
+        List<Object> decremented = new ArrayList<>();
+        List<Integer> decrements = new ArrayList<>();
+        for (Map.Entry<? extends E, Integer> entry : deltas.entrySet())
+        {
+            E element = entry.getKey();
+            int delta = entry.getValue();
+            if (delta > 0)
+            {
+                validateElementForWriting(ec, element, null);
+                incremented.add(element);
+                increments.add(delta);
+            }
+            else if (delta < 0 && validateElementForReading(ec, element))
+            {
+                decremented.add(element);
+                decrements.add(-delta);
+            }
+        }
+        if (incremented.isEmpty() && decremented.isEmpty())
+        {
+            return false;
+        }
+
+        List<Object> removedElements = new ArrayList<>();
+        boolean modified = !incremented.isEmpty();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            try
+            {
+                if (!incremented.isEmpty())
+                {
+                    int[] rowsAffected = executeEntryUpdates(mconn, sm, incrementCountStmt, incremented, increments, null);
+                    Map<Object, Integer> missing = new LinkedHashMap<>();
+                    List<Object> unknown = new ArrayList<>();
+                    for (int i = 0; i < rowsAffected.length; i++)
+                    {
+                        if (rowsAffected[i] == 0)
+                        {
+                            missing.put(incremented.get(i), increments.get(i));
+                        }
+                        else if (rowsAffected[i] < 0)
+                        {
+                            unknown.add(incremented.get(i));
+                        }
+                    }
+                    if (!unknown.isEmpty())
+                    {
+                        // The driver doesn't report the rows updated in a batch, so look for the rows not updated
+                        Map<E, Integer> present = counts(sm, unknown);
+                        for (int i = 0; i < incremented.size(); i++)
+                        {
+                            if (rowsAffected[i] < 0 && !present.containsKey(incremented.get(i)))
+                            {
+                                missing.put(incremented.get(i), increments.get(i));
+                            }
+                        }
+                    }
+                    insertEntries(mconn, sm, incrementCountStmt, missing);
+                }
+
+                if (!decremented.isEmpty())
+                {
+                    // Delete the rows that would drop to 0 first, so that the decrement applies only to the others
+                    int[] rowsRemoved = executeEntryUpdates(mconn, sm, removeEntryUpToCountStmt, decremented, null, decrements);
+                    int[] rowsDecremented = executeEntryUpdates(mconn, sm, decrementCountStmt, decremented, decrements, decrements);
+                    List<Object> unknown = new ArrayList<>();
+                    for (int i = 0; i < decremented.size(); i++)
+                    {
+                        if (rowsRemoved[i] > 0)
+                        {
+                            removedElements.add(decremented.get(i));
+                        }
+                        else if (rowsRemoved[i] < 0)
+                        {
+                            unknown.add(decremented.get(i));
+                        }
+                        modified |= (rowsRemoved[i] != 0 || rowsDecremented[i] != 0);
+                    }
+                    if (!unknown.isEmpty() && ownerMemberMetaData.getCollection().isDependentElement() && !elementsAreEmbedded)
+                    {
+                        // The driver doesn't report the rows deleted in a batch, so find the elements that no longer have a row
+                        Map<E, Integer> present = counts(sm, unknown);
+                        for (Object element : unknown)
+                        {
+                            if (!present.containsKey(element))
+                            {
+                                removedElements.add(element);
+                            }
+                        }
+                    }
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception updating the counts of elements of Multiset " + ownerMemberMetaData.getFullFieldName(), e);
+        }
+
+        for (Object element : removedElements)
+        {
+            deleteDependentElement(ec, element);
+        }
+        return modified;
+    }
+
+    /**
+     * Method to remove the rows of the specified elements, with a single statement per chunk of elements
+     * (i.e "DELETE ... WHERE owner=? AND ((element=?) OR ...)"). Where the elements are dependent the removed
+     * elements have to be known to delete them, so the elements having a row are read first.
+     * @param sm StateManager for the owner of the multiset
+     * @param elements The elements to remove
+     * @param size Current size of the multiset (not used)
+     * @return Whether the datastore was changed
+     */
+    @Override
+    public boolean removeAll(DNStateManager sm, Collection elements, int size)
+    {
+        if (elements == null || elements.isEmpty())
+        {
+            return false;
+        }
+
+        ExecutionContext ec = sm.getExecutionContext();
+        List<Object> validElements = getElementsForReading(ec, new LinkedHashSet<Object>(elements));
+        Collection<E> removedElements = null;
+        if (ownerMemberMetaData.getCollection().isDependentElement() && !elementsAreEmbedded)
+        {
+            removedElements = counts(sm, validElements).keySet();
+            validElements = new ArrayList<>(removedElements);
+        }
+        if (validElements.isEmpty())
+        {
+            return false;
+        }
+
+        boolean modified = false;
+        String stmt = null;
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                for (List<Object> chunk : Lists.partition(validElements, getMaxElementsPerStatement()))
+                {
+                    stmt = "DELETE FROM " + containerTable.toString() + getElementsWhereClause(chunk.size(), false);
+                    PreparedStatement ps = sqlControl.getStatementForUpdate(mconn, stmt, false);
+                    try
+                    {
+                        populateElementsInStatement(sm, ps, chunk);
+
+                        int[] rowsAffected = sqlControl.executeStatementUpdate(ec, mconn, stmt, ps, true);
+                        modified |= (rowsAffected != null && rowsAffected.length > 0 && rowsAffected[0] > 0);
+                    }
+                    finally
+                    {
+                        sqlControl.closeStatement(mconn, ps);
+                    }
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception removing elements from Multiset " + ownerMemberMetaData.getFullFieldName() + " : " + stmt, e);
+        }
+
+        if (removedElements != null)
+        {
+            for (Object element : removedElements)
+            {
+                deleteDependentElement(ec, element);
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * Accessor for the counts of the specified elements, with a single query per chunk of elements
+     * (i.e "WHERE owner=? AND ((element=?) OR (element=?) ...)").
+     * @param sm StateManager for the owner of the multiset
+     * @param elements The elements
+     * @return The count of each of the elements that is present
+     */
+    @Override
+    public Map<E, Integer> counts(DNStateManager sm, Collection<?> elements)
+    {
+        Map<E, Integer> counts = new HashMap<>();
+        List<Object> validElements = getElementsForReading(sm.getExecutionContext(), elements);
+        if (validElements.isEmpty())
+        {
+            return counts;
+        }
+
+        String elementColumns = getColumnList(elementMapping, null);
+        String stmt = null;
+        ExecutionContext ec = sm.getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                for (List<Object> chunk : Lists.partition(validElements, getMaxElementsPerStatement()))
+                {
+                    stmt = "SELECT " + elementColumns + "," + countColumnName + " FROM " + containerTable.toString() + getElementsWhereClause(chunk.size(), false);
+                    PreparedStatement ps = sqlControl.getStatementForQuery(mconn, stmt);
+                    try
+                    {
+                        populateElementsInStatement(sm, ps, chunk);
+
+                        ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, stmt, ps);
+                        try
+                        {
+                            for (com.google.common.collect.Multiset.Entry<E> entry : readEntries(ec, rs, 1, -1))
+                            {
+                                counts.put(entry.getElement(), entry.getCount());
+                            }
+                        }
+                        finally
+                        {
+                            rs.close();
+                        }
+                    }
+                    finally
+                    {
+                        sqlControl.closeStatement(mconn, ps);
+                    }
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception reading the counts of elements of Multiset " + ownerMemberMetaData.getFullFieldName() + " : " + stmt, e);
+        }
+        return counts;
+    }
+
+    /**
+     * Accessor for whether the multiset contains all of the specified elements, comparing the number of rows of
+     * each chunk of those elements (i.e "SELECT COUNT(*) ... WHERE owner=? AND ((element=?) OR ...)") with the number
+     * of elements in the chunk.
+     * @param sm StateManager for the owner of the multiset
+     * @param elements The elements
+     * @return Whether all are contained
+     */
+    @Override
+    public boolean containsAll(DNStateManager sm, Collection<?> elements)
+    {
+        Collection<?> distinctElements = new LinkedHashSet<>(elements);
+        List<Object> validElements = getElementsForReading(sm.getExecutionContext(), distinctElements);
+        if (validElements.size() < distinctElements.size())
+        {
+            // An element that cannot be in this multiset
+            return false;
+        }
+        else if (validElements.isEmpty())
+        {
+            return true;
+        }
+
+        String stmt = null;
+        ExecutionContext ec = sm.getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                for (List<Object> chunk : Lists.partition(validElements, getMaxElementsPerStatement()))
+                {
+                    stmt = "SELECT COUNT(*) FROM " + containerTable.toString() + getElementsWhereClause(chunk.size(), false);
+                    PreparedStatement ps = sqlControl.getStatementForQuery(mconn, stmt);
+                    try
+                    {
+                        populateElementsInStatement(sm, ps, chunk);
+
+                        ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, stmt, ps);
+                        try
+                        {
+                            if (!rs.next() || rs.getInt(1) != chunk.size())
+                            {
+                                return false;
+                            }
+                        }
+                        finally
+                        {
+                            rs.close();
+                        }
+                    }
+                    finally
+                    {
+                        sqlControl.closeStatement(mconn, ps);
+                    }
+                }
+                return true;
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception checking the elements of Multiset " + ownerMemberMetaData.getFullFieldName() + " : " + stmt, e);
+        }
+    }
+
+    /**
+     * Method to remove the rows of all elements not in the specified elements, with a single statement
+     * (i.e "DELETE ... WHERE owner=? AND NOT ((element=?) OR ...)"). Where the elements are dependent the removed
+     * elements have to be known to delete them, and where there are more elements than fit in one statement the
+     * statement cannot be split, so in those cases this reads the elements present and removes the others (see
+     * {@link #removeAll(DNStateManager, Collection, int)}).
+     * @param sm StateManager for the owner of the multiset
+     * @param elements The elements to retain
+     * @return Whether the datastore was changed
+     */
+    @Override
+    public boolean retainAll(DNStateManager sm, Collection<?> elements)
+    {
+        List<Object> validElements = getElementsForReading(sm.getExecutionContext(), new LinkedHashSet<>(elements));
+        if ((ownerMemberMetaData.getCollection().isDependentElement() && !elementsAreEmbedded) || validElements.size() > getMaxElementsPerStatement())
+        {
+            Set<Object> retained = new HashSet<>(validElements);
+            List<Object> removed = new ArrayList<>();
+            for (com.google.common.collect.Multiset.Entry<E> entry : getEntries(sm))
+            {
+                if (!retained.contains(entry.getElement()))
+                {
+                    removed.add(entry.getElement());
+                }
+            }
+            return removeAll(sm, removed, -1);
+        }
+
+        String stmt = "DELETE FROM " + containerTable.toString() + getElementsWhereClause(validElements.size(), true);
+        ExecutionContext ec = sm.getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                PreparedStatement ps = sqlControl.getStatementForUpdate(mconn, stmt, false);
+                try
+                {
+                    populateElementsInStatement(sm, ps, validElements);
+
+                    int[] rowsAffected = sqlControl.executeStatementUpdate(ec, mconn, stmt, ps, true);
+                    return rowsAffected != null && rowsAffected.length > 0 && rowsAffected[0] > 0;
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception retaining elements of Multiset " + ownerMemberMetaData.getFullFieldName() + " : " + stmt, e);
+        }
+    }
+
+    /**
+     * Accessor for the maximum number of elements in the WHERE clause of one statement, keeping the number of
+     * parameters (and the length of the statement) within the limits of datastores.
+     * @return The maximum number of elements
+     */
+    protected int getMaxElementsPerStatement()
+    {
+        return Math.max(1, MAX_PARAMETERS_PER_STATEMENT / Math.max(1, elementMapping.getNumberOfColumnMappings()));
+    }
+
+    /**
+     * Convenience method to return the elements that can be in this multiset (omitting any of the wrong type).
+     * @param ec ExecutionContext
+     * @param elements The elements
+     * @return The elements that can be present
+     */
+    protected List<Object> getElementsForReading(ExecutionContext ec, Collection<?> elements)
+    {
+        List<Object> validElements = new ArrayList<>(elements.size());
+        for (Object element : elements)
+        {
+            if (validateElementForReading(ec, element))
+            {
+                validElements.add(element);
+            }
+        }
+        return validElements;
+    }
+
+    /**
+     * Convenience method to return the WHERE clause for the rows of this owner having (or not having) any of a
+     * number of elements, i.e " WHERE owner=? AND ((element=?) OR (element=?) ...)".
+     * @param numElements Number of elements (0 restricts to the owner only, or to no rows when not negated)
+     * @param negate Whether to select the rows not having any of the elements
+     * @return The WHERE clause
+     */
+    protected String getElementsWhereClause(int numElements, boolean negate)
+    {
+        StringBuilder where = new StringBuilder(" WHERE ");
+        BackingStoreHelper.appendWhereClauseForMapping(where, ownerMapping, null, true);
+        if (numElements == 0)
+        {
+            return negate ? where.toString() : where.append(" AND 1=0").toString();
+        }
+
+        where.append(negate ? " AND NOT (" : " AND (");
+        for (int i = 0; i < numElements; i++)
+        {
+            where.append(i > 0 ? " OR (" : "(");
+            BackingStoreHelper.appendWhereClauseForMapping(where, elementMapping, null, true);
+            where.append(')');
+        }
+        return where.append(')').toString();
+    }
+
+    /**
+     * Convenience method to populate the owner and elements parameters of a statement using
+     * {@link #getElementsWhereClause(int, boolean)}.
+     * @param sm StateManager for the owner of the multiset
+     * @param ps The statement
+     * @param elements The elements
+     */
+    protected void populateElementsInStatement(DNStateManager sm, PreparedStatement ps, List<Object> elements)
+    {
+        ExecutionContext ec = sm.getExecutionContext();
+        int jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+        for (Object element : elements)
+        {
+            jdbcPosition = BackingStoreHelper.populateElementForWhereClauseInStatement(ec, ps, element, jdbcPosition, elementMapping);
+        }
+    }
+
+    @Override
+    public void update(DNStateManager sm, Collection<E> coll)
+    {
+        if (coll == null || coll.isEmpty())
+        {
+            clear(sm);
+            return;
+        }
+
+        // Apply the difference in count of each element between the datastore and the new value
+        com.google.common.collect.Multiset<E> newMultiset = (coll instanceof com.google.common.collect.Multiset) ?
+                (com.google.common.collect.Multiset<E>) coll : HashMultiset.create(coll);
+        Map<E, Integer> deltas = new LinkedHashMap<>();
+        for (com.google.common.collect.Multiset.Entry<E> entry : getEntries(sm))
+        {
+            int delta = newMultiset.count(entry.getElement()) - entry.getCount();
+            deltas.put(entry.getElement(), delta);
+        }
+        for (com.google.common.collect.Multiset.Entry<E> entry : newMultiset.entrySet())
+        {
+            deltas.putIfAbsent(entry.getElement(), entry.getCount());
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        if (!deltas.isEmpty())
+        {
+            updateCounts(sm, deltas);
+        }
+    }
+
+    /**
+     * Method to execute a statement on the row of an element, optionally with a count parameter before the WHERE
+     * clause and one after it.
+     * @param mconn The connection
+     * @param sm StateManager for the owner of the multiset
+     * @param stmt The statement
+     * @param element The element
+     * @param leadingCount Count parameter before the owner and element parameters, or -1 for none
+     * @param trailingCount Count parameter after the owner and element parameters, or -1 for none
+     * @return Number of rows affected
+     * @throws SQLException If an error occurs executing the statement
+     */
+    protected int executeEntryUpdate(ManagedConnection mconn, DNStateManager sm, String stmt, Object element, int leadingCount, int trailingCount)
+    throws SQLException
+    {
+        ExecutionContext ec = sm.getExecutionContext();
+        SQLController sqlControl = storeMgr.getSQLController();
+        PreparedStatement ps = sqlControl.getStatementForUpdate(mconn, stmt, false);
+        try
+        {
+            int jdbcPosition = 1;
+            if (leadingCount >= 0)
+            {
+                ps.setInt(jdbcPosition++, leadingCount);
+            }
+            jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, jdbcPosition, this);
+            jdbcPosition = BackingStoreHelper.populateElementForWhereClauseInStatement(ec, ps, element, jdbcPosition, elementMapping);
+            if (trailingCount >= 0)
+            {
+                ps.setInt(jdbcPosition, trailingCount);
+            }
+
+            int[] rowsAffected = sqlControl.executeStatementUpdate(ec, mconn, stmt, ps, true);
+            return (rowsAffected != null && rowsAffected.length > 0) ? rowsAffected[0] : 0;
+        }
+        finally
+        {
+            sqlControl.closeStatement(mconn, ps);
+        }
+    }
+
+    /**
+     * Method to execute a statement on the rows of a number of elements as a JDBC batch, optionally with a count
+     * parameter before the WHERE clause and one after it.
+     * @param mconn The connection
+     * @param sm StateManager for the owner of the multiset
+     * @param stmt The statement
+     * @param elements The elements
+     * @param leadingCounts Count parameter of each element before the owner and element parameters, or null for none
+     * @param trailingCounts Count parameter of each element after the owner and element parameters, or null for none
+     * @return Number of rows affected for each element, or {@link Statement#SUCCESS_NO_INFO} where the driver doesn't
+     *     report it
+     * @throws SQLException If an error occurs executing the statements
+     */
+    protected int[] executeEntryUpdates(ManagedConnection mconn, DNStateManager sm, String stmt, List<Object> elements,
+            List<Integer> leadingCounts, List<Integer> trailingCounts)
+    throws SQLException
+    {
+        ExecutionContext ec = sm.getExecutionContext();
+        SQLController sqlControl = storeMgr.getSQLController();
+        int[] results = new int[elements.size()];
+        Arrays.fill(results, Statement.SUCCESS_NO_INFO);
+        for (int i = 0; i < elements.size(); i++)
+        {
+            PreparedStatement ps = sqlControl.getStatementForUpdate(mconn, stmt, true);
+            try
+            {
+                int jdbcPosition = 1;
+                if (leadingCounts != null)
+                {
+                    ps.setInt(jdbcPosition++, leadingCounts.get(i));
+                }
+                jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, jdbcPosition, this);
+                jdbcPosition = BackingStoreHelper.populateElementForWhereClauseInStatement(ec, ps, elements.get(i), jdbcPosition, elementMapping);
+                if (trailingCounts != null)
+                {
+                    ps.setInt(jdbcPosition, trailingCounts.get(i));
+                }
+
+                // Add to the batch, executing it with the last element. The results are for the statements up to this one
+                int[] rowsAffected = sqlControl.executeStatementUpdate(ec, mconn, stmt, ps, i == elements.size() - 1);
+                if (rowsAffected != null)
+                {
+                    int length = Math.min(rowsAffected.length, i + 1);
+                    System.arraycopy(rowsAffected, rowsAffected.length - length, results, i + 1 - length, length);
+                }
+            }
+            finally
+            {
+                sqlControl.closeStatement(mconn, ps);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Method to update the row of an element, inserting the row when there is none. When the INSERT violates the
+     * primary key, because another transaction has inserted the row of the element since the UPDATE, the UPDATE is
+     * retried (once, since the row then exists).
+     * @param mconn The connection
+     * @param sm StateManager for the owner of the multiset
+     * @param updateStmt The UPDATE statement, taking the count before the owner and element parameters
+     * @param element The element
+     * @param count The count to update with, and the count of the row when inserted
+     * @throws SQLException If an error occurs executing the statements
+     */
+    protected void updateOrInsertEntry(ManagedConnection mconn, DNStateManager sm, String updateStmt, Object element, int count)
+    throws SQLException
+    {
+        if (executeEntryUpdate(mconn, sm, updateStmt, element, count, -1) == 0 && !insertEntry(mconn, sm, element, count))
+        {
+            executeEntryUpdate(mconn, sm, updateStmt, element, count, -1);
+        }
+    }
+
+    /**
+     * Method to insert the row for an element that is not present.
+     * @param mconn The connection
+     * @param sm StateManager for the owner of the multiset
+     * @param element The element
+     * @param count The count of the element
+     * @return Whether the row was inserted, or false if it violated the primary key since the element now has a row
+     * @throws SQLException If an error occurs executing the statement
+     */
+    protected boolean insertEntry(ManagedConnection mconn, DNStateManager sm, Object element, int count)
+    throws SQLException
+    {
+        ExecutionContext ec = sm.getExecutionContext();
+        SQLController sqlControl = storeMgr.getSQLController();
+        Savepoint savepoint = setSavepoint(mconn);
+        PreparedStatement ps = sqlControl.getStatementForUpdate(mconn, insertEntryStmt, false);
+        try
+        {
+            int jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+            jdbcPosition = BackingStoreHelper.populateElementInStatement(ec, ps, element, jdbcPosition, elementMapping);
+            ps.setInt(jdbcPosition, count);
+
+            sqlControl.executeStatementUpdate(ec, mconn, insertEntryStmt, ps, true);
+        }
+        catch (SQLException e)
+        {
+            if (!isConstraintViolation(e))
+            {
+                throw e;
+            }
+            if (savepoint != null)
+            {
+                // Some datastores abort the whole transaction on an error, so undo just the failed INSERT
+                ((Connection) mconn.getConnection()).rollback(savepoint);
+            }
+            return false;
+        }
+        finally
+        {
+            sqlControl.closeStatement(mconn, ps);
+        }
+        if (savepoint != null)
+        {
+            ((Connection) mconn.getConnection()).releaseSavepoint(savepoint);
+        }
+        return true;
+    }
+
+    /**
+     * Method to insert the rows of elements that are not present, as a JDBC batch. When the batch violates the
+     * primary key, because another transaction has inserted the row of one of the elements, the batch is undone
+     * and each element is updated (or inserted) in turn. Where the batch could not be undone (the connection being
+     * auto-commit or not supporting savepoints) the rows are inserted one at a time.
+     * @param mconn The connection
+     * @param sm StateManager for the owner of the multiset
+     * @param updateStmt The UPDATE statement to apply to an element found to have a row, taking the count before the
+     *     owner and element parameters
+     * @param counts The count of each element
+     * @throws SQLException If an error occurs executing the statements
+     */
+    protected void insertEntries(ManagedConnection mconn, DNStateManager sm, String updateStmt, Map<Object, Integer> counts)
+    throws SQLException
+    {
+        if (counts.isEmpty())
+        {
+            return;
+        }
+
+        Savepoint savepoint = (counts.size() > 1 ? setSavepoint(mconn) : null);
+        if (savepoint == null)
+        {
+            for (Map.Entry<Object, Integer> entry : counts.entrySet())
+            {
+                if (!insertEntry(mconn, sm, entry.getKey(), entry.getValue()))
+                {
+                    // Another transaction has inserted the row since it was looked for
+                    updateOrInsertEntry(mconn, sm, updateStmt, entry.getKey(), entry.getValue());
+                }
+            }
+            return;
+        }
+
+        ExecutionContext ec = sm.getExecutionContext();
+        SQLController sqlControl = storeMgr.getSQLController();
+        try
+        {
+            Iterator<Map.Entry<Object, Integer>> iter = counts.entrySet().iterator();
+            while (iter.hasNext())
+            {
+                Map.Entry<Object, Integer> entry = iter.next();
+                PreparedStatement ps = sqlControl.getStatementForUpdate(mconn, insertEntryStmt, true);
+                try
+                {
+                    int jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+                    jdbcPosition = BackingStoreHelper.populateElementInStatement(ec, ps, entry.getKey(), jdbcPosition, elementMapping);
+                    ps.setInt(jdbcPosition, entry.getValue());
+
+                    // Add to the batch, executing it with the last element
+                    sqlControl.executeStatementUpdate(ec, mconn, insertEntryStmt, ps, !iter.hasNext());
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            if (!isConstraintViolation(e))
+            {
+                throw e;
+            }
+
+            // Another transaction has inserted the row of an element since it was looked for, so undo the batch
+            ((Connection) mconn.getConnection()).rollback(savepoint);
+            for (Map.Entry<Object, Integer> entry : counts.entrySet())
+            {
+                updateOrInsertEntry(mconn, sm, updateStmt, entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+        ((Connection) mconn.getConnection()).releaseSavepoint(savepoint);
+    }
+
+    /**
+     * Convenience method to set a savepoint before a statement that may violate the primary key, so that the
+     * transaction can continue after the violation.
+     * @param mconn The connection
+     * @return The savepoint, or null when the connection is auto-commit or doesn't support savepoints
+     * @throws SQLException If an error occurs setting the savepoint
+     */
+    protected Savepoint setSavepoint(ManagedConnection mconn)
+    throws SQLException
+    {
+        Connection conn = (Connection) mconn.getConnection();
+        if (conn.getAutoCommit() || !conn.getMetaData().supportsSavepoints())
+        {
+            return null;
+        }
+        return conn.setSavepoint();
+    }
+
+    /**
+     * Convenience method to return whether an exception is an integrity constraint violation (SQLState class 23),
+     * such as a duplicate primary key.
+     * @param e The exception
+     * @return Whether it is a constraint violation
+     */
+    protected static boolean isConstraintViolation(SQLException e)
+    {
+        for (SQLException ex = e; ex != null; ex = ex.getNextException())
+        {
+            if (ex.getSQLState() != null && ex.getSQLState().startsWith("23"))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method to delete an element whose last occurrence has been removed, when the elements are dependent.
+     * @param ec ExecutionContext
+     * @param element The element
+     */
+    protected void deleteDependentElement(ExecutionContext ec, Object element)
+    {
+        if (ownerMemberMetaData.getCollection().isDependentElement() && !elementsAreEmbedded && ec.getApiAdapter().isPersistable(element))
+        {
+            ec.deleteObjectInternal(element);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.exceptions.NucleusDataStoreException;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.connection.ManagedConnection;
+import org.datanucleus.store.rdbms.SQLController;
+import org.datanucleus.store.rdbms.mapping.MappingHelper;
+import org.datanucleus.store.rdbms.scostore.BackingStoreHelper;
+import org.datanucleus.store.rdbms.scostore.JoinMapStore;
+import org.datanucleus.store.rdbms.table.MapTable;
+import org.datanucleus.store.types.guava.scostore.RangeMapStore;
+
+import com.google.common.collect.Range;
+
+/**
+ * Backing store for a RangeMap held in a join table with one row per range, with the range (the key) in the 4 columns
+ * of a RangeConverter, i.e (OWNER_ID, LOWER, LOWER_TYPE, UPPER, UPPER_TYPE, VALUE). The join table has no primary
+ * key (see {@link RangeMapMapping}), since an unbounded range has a null endpoint. The entry for a key is read with a
+ * single SELECT with a condition on the endpoint columns (see {@link RangeClause}), returning at most one row since
+ * the ranges of a RangeMap don't overlap. A change to the map DELETEs the rows connected to the range changed and
+ * INSERTs their replacements, so no change needs the other entries of the map. The size, clear and iteration of all
+ * entries are those of the join table store of a Map.
+ * @param <K> Type of the endpoints of the ranges
+ * @param <V> Type of the value
+ */
+public class JoinRangeMapStore<K extends Comparable, V> extends JoinMapStore<Range<K>, V> implements RangeMapStore<K, V>
+{
+    protected String insertEntryStmt;
+
+    /**
+     * Constructor for a join table store of a RangeMap.
+     * @param mapTable The join table
+     * @param clr ClassLoader resolver
+     */
+    public JoinRangeMapStore(MapTable mapTable, ClassLoaderResolver clr)
+    {
+        super(mapTable, clr);
+
+        int numParams = ownerMapping.getNumberOfColumnMappings() + keyMapping.getNumberOfColumnMappings() + valueMapping.getNumberOfColumnMappings();
+        insertEntryStmt = "INSERT INTO " + mapTable.toString() + " (" + JoinMultisetStore.getColumnList(ownerMapping, null) + "," +
+            JoinMultisetStore.getColumnList(keyMapping, null) + "," + JoinMultisetStore.getColumnList(valueMapping, null) + ") VALUES (" +
+            JoinRangeSetStore.getParameterList(numParams) + ")";
+    }
+
+    @Override
+    public Iterator<Map.Entry<Range<K>, V>> entryIterator(DNStateManager sm)
+    {
+        return entrySetStore().iterator(sm);
+    }
+
+    @Override
+    public Map.Entry<Range<K>, V> getEntry(DNStateManager sm, K key)
+    {
+        if (key == null)
+        {
+            return null;
+        }
+        Map<Range<K>, V> entries = getEntries(sm, RangeClause.contains(keyMapping, key));
+        return entries.isEmpty() ? null : entries.entrySet().iterator().next();
+    }
+
+    @Override
+    public Map<Range<K>, V> getConnectedEntries(DNStateManager sm, Range<K> range)
+    {
+        return getEntries(sm, RangeClause.connected(keyMapping, range));
+    }
+
+    @Override
+    public void replaceConnectedEntries(DNStateManager sm, Range<K> range, Map<Range<K>, ? extends V> entries)
+    {
+        RangeClause clause = RangeClause.connected(keyMapping, range);
+        String stmt = clause.appendTo(getOwnerWhereClause(new StringBuilder("DELETE FROM ").append(mapTable.toString()))).toString();
+
+        ExecutionContext ec = sm.getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                PreparedStatement ps = sqlControl.getStatementForUpdate(mconn, stmt, false);
+                try
+                {
+                    int jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+                    clause.populate(ps, jdbcPosition);
+                    sqlControl.executeStatementUpdate(ec, mconn, stmt, ps, true);
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception removing entries of RangeMap " + ownerMemberMetaData.getFullFieldName() + " : " + stmt, e);
+        }
+
+        putEntries(sm, entries);
+    }
+
+    @Override
+    public void putEntries(DNStateManager sm, Map<Range<K>, ? extends V> entries)
+    {
+        if (entries.isEmpty())
+        {
+            return;
+        }
+        for (V value : entries.values())
+        {
+            validateValueForWriting(sm, value);
+        }
+
+        ExecutionContext ec = sm.getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                Iterator<? extends Map.Entry<Range<K>, ? extends V>> iter = entries.entrySet().iterator();
+                while (iter.hasNext())
+                {
+                    Map.Entry<Range<K>, ? extends V> entry = iter.next();
+                    PreparedStatement ps = sqlControl.getStatementForUpdate(mconn, insertEntryStmt, true);
+                    try
+                    {
+                        int jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+                        jdbcPosition = BackingStoreHelper.populateKeyInStatement(ec, ps, entry.getKey(), jdbcPosition, keyMapping);
+                        BackingStoreHelper.populateValueInStatement(ec, ps, entry.getValue(), jdbcPosition, valueMapping);
+
+                        // Add to the batch, executing it with the last entry
+                        sqlControl.executeStatementUpdate(ec, mconn, insertEntryStmt, ps, !iter.hasNext());
+                    }
+                    finally
+                    {
+                        sqlControl.closeStatement(mconn, ps);
+                    }
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception adding entries to RangeMap " + ownerMemberMetaData.getFullFieldName() + " : " + insertEntryStmt, e);
+        }
+    }
+
+    /**
+     * Method to read the entries of the map of this owner whose ranges satisfy a condition.
+     * @param sm StateManager for the owner of the map
+     * @param clause Condition on the range columns
+     * @return The entries, in the order read
+     */
+    protected Map<Range<K>, V> getEntries(DNStateManager sm, RangeClause clause)
+    {
+        String stmt = clause.appendTo(getOwnerWhereClause(new StringBuilder("SELECT ").append(JoinMultisetStore.getColumnList(keyMapping, null))
+            .append(',').append(JoinMultisetStore.getColumnList(valueMapping, null)).append(" FROM ").append(mapTable.toString()))).toString();
+
+        Map<Range<K>, V> entries = new LinkedHashMap<>();
+        ExecutionContext ec = sm.getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                PreparedStatement ps = sqlControl.getStatementForQuery(mconn, stmt);
+                try
+                {
+                    int jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+                    clause.populate(ps, jdbcPosition);
+
+                    ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, stmt, ps);
+                    try
+                    {
+                        int[] keyIndices = MappingHelper.getMappingIndices(1, keyMapping);
+                        int[] valueIndices = MappingHelper.getMappingIndices(keyIndices.length + 1, valueMapping);
+                        while (rs.next())
+                        {
+                            entries.put((Range<K>) keyMapping.getObject(ec, rs, keyIndices), (V) valueMapping.getObject(ec, rs, valueIndices));
+                        }
+                    }
+                    finally
+                    {
+                        rs.close();
+                    }
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception reading entries of RangeMap " + ownerMemberMetaData.getFullFieldName() + " : " + stmt, e);
+        }
+        return entries;
+    }
+
+    /**
+     * Convenience method to append the WHERE clause for the owner to a statement.
+     * @param stmt The statement
+     * @return The statement
+     */
+    protected StringBuilder getOwnerWhereClause(StringBuilder stmt)
+    {
+        stmt.append(" WHERE ");
+        BackingStoreHelper.appendWhereClauseForMapping(stmt, ownerMapping, null, true);
+        return stmt;
+    }
+}
@@ -0,0 +1,259 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.exceptions.NucleusDataStoreException;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.connection.ManagedConnection;
+import org.datanucleus.store.rdbms.SQLController;
+import org.datanucleus.store.rdbms.mapping.MappingHelper;
+import org.datanucleus.store.rdbms.scostore.BackingStoreHelper;
+import org.datanucleus.store.rdbms.scostore.JoinSetStore;
+import org.datanucleus.store.rdbms.table.CollectionTable;
+import org.datanucleus.store.types.guava.scostore.RangeSetStore;
+
+import com.google.common.collect.Range;
+
+/**
+ * Backing store for a RangeSet held in a join table with one row per range, with the range in the 4 columns of a
+ * RangeConverter, i.e (OWNER_ID, LOWER, LOWER_TYPE, UPPER, UPPER_TYPE). The join table has no primary key (see
+ * {@link RangeSetMapping}), since an unbounded range has a null endpoint. A lookup (rangeContaining, contains,
+ * encloses) is a single SELECT with a condition on the endpoint columns (see {@link RangeClause}), returning at most
+ * one row since the ranges of a RangeSet are not connected. A change to the set DELETEs the rows connected to the range
+ * changed and INSERTs their replacements, so no change needs the other ranges of the set. The size, clear and
+ * iteration of all ranges are those of the join table store of a Set.
+ * @param <C> Type of the endpoints of the ranges
+ */
+public class JoinRangeSetStore<C extends Comparable> extends JoinSetStore<Range<C>> implements RangeSetStore<C>
+{
+    protected String insertRangeStmt;
+
+    /**
+     * Constructor for a join table store of a RangeSet.
+     * @param mmd Metadata for the member
+     * @param joinTable The join table
+     * @param clr ClassLoader resolver
+     */
+    public JoinRangeSetStore(AbstractMemberMetaData mmd, CollectionTable joinTable, ClassLoaderResolver clr)
+    {
+        super(mmd, joinTable, clr);
+
+        insertRangeStmt = "INSERT INTO " + containerTable.toString() + " (" + JoinMultisetStore.getColumnList(ownerMapping, null) + "," +
+            JoinMultisetStore.getColumnList(elementMapping, null) + ") VALUES (" + getParameterList(ownerMapping.getNumberOfColumnMappings() + 4) + ")";
+    }
+
+    @Override
+    public Range<C> rangeContaining(DNStateManager sm, C value)
+    {
+        if (value == null)
+        {
+            return null;
+        }
+        List<Range<C>> ranges = getRanges(sm, RangeClause.contains(elementMapping, value));
+        return ranges.isEmpty() ? null : ranges.get(0);
+    }
+
+    @Override
+    public boolean encloses(DNStateManager sm, Range<C> range)
+    {
+        return !getRanges(sm, RangeClause.encloses(elementMapping, range)).isEmpty();
+    }
+
+    @Override
+    public List<Range<C>> getConnectedRanges(DNStateManager sm, Range<C> range)
+    {
+        return getRanges(sm, RangeClause.connected(elementMapping, range));
+    }
+
+    @Override
+    public void replaceConnectedRanges(DNStateManager sm, Range<C> range, Collection<Range<C>> ranges)
+    {
+        RangeClause clause = RangeClause.connected(elementMapping, range);
+        String stmt = clause.appendTo(getOwnerWhereClause(new StringBuilder("DELETE FROM ").append(containerTable.toString()))).toString();
+
+        ExecutionContext ec = sm.getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                PreparedStatement ps = sqlControl.getStatementForUpdate(mconn, stmt, false);
+                try
+                {
+                    int jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+                    clause.populate(ps, jdbcPosition);
+                    sqlControl.executeStatementUpdate(ec, mconn, stmt, ps, true);
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception removing ranges of RangeSet " + ownerMemberMetaData.getFullFieldName() + " : " + stmt, e);
+        }
+
+        addRanges(sm, ranges);
+    }
+
+    @Override
+    public void addRanges(DNStateManager sm, Collection<Range<C>> ranges)
+    {
+        if (ranges.isEmpty())
+        {
+            return;
+        }
+
+        ExecutionContext ec = sm.getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                Iterator<Range<C>> iter = ranges.iterator();
+                while (iter.hasNext())
+                {
+                    Range<C> range = iter.next();
+                    PreparedStatement ps = sqlControl.getStatementForUpdate(mconn, insertRangeStmt, true);
+                    try
+                    {
+                        int jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+                        BackingStoreHelper.populateElementInStatement(ec, ps, range, jdbcPosition, elementMapping);
+
+                        // Add to the batch, executing it with the last range
+                        sqlControl.executeStatementUpdate(ec, mconn, insertRangeStmt, ps, !iter.hasNext());
+                    }
+                    finally
+                    {
+                        sqlControl.closeStatement(mconn, ps);
+                    }
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception adding ranges to RangeSet " + ownerMemberMetaData.getFullFieldName() + " : " + insertRangeStmt, e);
+        }
+    }
+
+    /**
+     * Method to read the ranges of the set of this owner that satisfy a condition.
+     * @param sm StateManager for the owner of the set
+     * @param clause Condition on the range columns
+     * @return The ranges
+     */
+    protected List<Range<C>> getRanges(DNStateManager sm, RangeClause clause)
+    {
+        String stmt = clause.appendTo(getOwnerWhereClause(new StringBuilder("SELECT ").append(JoinMultisetStore.getColumnList(elementMapping, null))
+            .append(" FROM ").append(containerTable.toString()))).toString();
+
+        List<Range<C>> ranges = new ArrayList<>();
+        ExecutionContext ec = sm.getExecutionContext();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                PreparedStatement ps = sqlControl.getStatementForQuery(mconn, stmt);
+                try
+                {
+                    int jdbcPosition = BackingStoreHelper.populateOwnerInStatement(sm, ec, ps, 1, this);
+                    clause.populate(ps, jdbcPosition);
+
+                    ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, stmt, ps);
+                    try
+                    {
+                        int[] rangeIndices = MappingHelper.getMappingIndices(1, elementMapping);
+                        while (rs.next())
+                        {
+                            ranges.add((Range<C>) elementMapping.getObject(ec, rs, rangeIndices));
+                        }
+                    }
+                    finally
+                    {
+                        rs.close();
+                    }
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Exception reading ranges of RangeSet " + ownerMemberMetaData.getFullFieldName() + " : " + stmt, e);
+        }
+        return ranges;
+    }
+
+    /**
+     * Convenience method to append the WHERE clause for the owner to a statement.
+     * @param stmt The statement
+     * @return The statement
+     */
+    protected StringBuilder getOwnerWhereClause(StringBuilder stmt)
+    {
+        stmt.append(" WHERE ");
+        BackingStoreHelper.appendWhereClauseForMapping(stmt, ownerMapping, null, true);
+        return stmt;
+    }
+
+    /**
+     * Convenience method to return a list of parameters ("?,?,?") for the values of an INSERT.
+     * @param numParams Number of parameters
+     * @return The parameter list
+     */
+    static String getParameterList(int numParams)
+    {
+        StringBuilder params = new StringBuilder();
+        for (int i = 0; i < numParams; i++)
+        {
+            params.append(i > 0 ? ",?" : "?");
+        }
+        return params.toString();
+    }
+}
@@ -0,0 +1,206 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.JoinMetaData;
+import org.datanucleus.metadata.MapMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.mapping.java.MapMapping;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.store.rdbms.table.MapTable;
+import org.datanucleus.store.rdbms.table.Table;
+import org.datanucleus.store.types.guava.scostore.MultimapStore;
+import org.datanucleus.store.types.wrappers.backed.BackedSCO;
+
+import com.google.common.collect.Multimap;
+
+/**
+ * Mapping for a Multimap (or ListMultimap, SetMultimap) member, stored in a join table with one row per key-value
+ * pair, i.e (OWNER_ID, KEY, VALUE). The join table has no primary key, since (owner, key) is not unique. The contents
+ * are written and read using a {@link JoinMultimapStore}, so the values of a key are read without reading the rest
+ * of the multimap. The member has map metadata (added by the container handler), so the join table is created as
+ * for a Map; only the writing of the contents when the owner is inserted, updated or deleted is specific to a Multimap.
+ * Specify the member as serialized to store the multimap in a single column instead.
+ */
+public class MultimapMapping extends MapMapping
+{
+    /** Extension on the join metadata for whether the join table has a primary key. */
+    private static final String EXTENSION_JOIN_PRIMARY_KEY = "primary-key";
+
+    /** Backing store for the member, created when first needed. */
+    protected transient JoinMultimapStore multimapStore;
+
+    @Override
+    public void initialize(AbstractMemberMetaData mmd, Table table, ClassLoaderResolver clr)
+    {
+        // Add the join metadata (with no primary key) before the join table is created
+        addJoinMetaData(mmd);
+        super.initialize(mmd, table, clr);
+    }
+
+    /**
+     * Method to add the join metadata (with no primary key) for a Multimap member stored in a join table.
+     * @param mmd Metadata for the member
+     * @throws NucleusUserException if the keys or values are serialised or embedded, so can't be compared in SQL
+     */
+    protected static void addJoinMetaData(AbstractMemberMetaData mmd)
+    {
+        MapMetaData mapmd = mmd.getMap();
+        if (mmd.isSerialized() || mapmd == null)
+        {
+            return;
+        }
+        if (mapmd.isSerializedKey() || mapmd.isSerializedValue() || (mapmd.keyIsPersistent() && mapmd.isEmbeddedKey()) ||
+            (mapmd.valueIsPersistent() && mapmd.isEmbeddedValue()))
+        {
+            throw new NucleusUserException("Member " + mmd.getFullFieldName() + " is a Multimap so its keys and values are held in columns of its join table," +
+                " and can't be serialised or embedded. Specify the member as serialized to store the whole multimap in a single column");
+        }
+
+        JoinMetaData joinmd = mmd.getJoinMetaData();
+        if (joinmd == null)
+        {
+            joinmd = new JoinMetaData();
+            mmd.setJoinMetaData(joinmd);
+        }
+        if (!joinmd.hasExtension(EXTENSION_JOIN_PRIMARY_KEY))
+        {
+            joinmd.addExtension(EXTENSION_JOIN_PRIMARY_KEY, "false");
+        }
+    }
+
+    /**
+     * Accessor for the backing store of this member, when held in a join table.
+     * @param clr ClassLoader resolver
+     * @return The backing store, or null if not held in a join table
+     */
+    public synchronized JoinMultimapStore getMultimapStore(ClassLoaderResolver clr)
+    {
+        if (multimapStore == null && !mmd.isSerialized())
+        {
+            Table joinTable = storeMgr.getTable(mmd);
+            if (joinTable instanceof MapTable)
+            {
+                multimapStore = new JoinMultimapStore<>((MapTable)joinTable, clr);
+            }
+        }
+        return multimapStore;
+    }
+
+    /**
+     * Accessor for the backing store of a Multimap member of the specified owner.
+     * @param sm StateManager of the owner
+     * @param mmd Metadata for the member
+     * @return The backing store, or null if the member is not held in a join table
+     */
+    public static MultimapStore getBackingStore(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        RDBMSStoreManager storeMgr = (RDBMSStoreManager) sm.getStoreManager();
+        ClassLoaderResolver clr = sm.getExecutionContext().getClassLoaderResolver();
+        DatastoreClass ownerTable = storeMgr.getDatastoreClass(sm.getClassMetaData().getFullClassName(), clr);
+        JavaTypeMapping mapping = (ownerTable != null ? ownerTable.getMemberMapping(mmd) : null);
+        if (mapping instanceof MultimapMapping)
+        {
+            return ((MultimapMapping)mapping).getMultimapStore(clr);
+        }
+        return null;
+    }
+
+    /**
+     * Method to be called after the insert of the owner class element, inserting a row per key-value pair.
+     * @param ownerSM StateManager of the owner
+     */
+    @Override
+    public void postInsert(DNStateManager ownerSM)
+    {
+        MultimapStore store = getMultimapStore(ownerSM.getExecutionContext().getClassLoaderResolver());
+        if (store == null)
+        {
+            return;
+        }
+
+        Multimap value = (Multimap) ownerSM.provideField(getAbsoluteFieldNumber());
+        if (value == null || value.isEmpty())
+        {
+            // Create a SCO wrapper, passing in null so it loads any entries from the datastore (on next access)
+            replaceFieldWithWrapper(ownerSM, null);
+            return;
+        }
+
+        store.putEntries(ownerSM, value);
+        replaceFieldWithWrapper(ownerSM, value);
+    }
+
+    /**
+     * Method to be called after any update of the owner class element, writing the changes to the key-value pairs.
+     * @param ownerSM StateManager of the owner
+     */
+    @Override
+    public void postUpdate(DNStateManager ownerSM)
+    {
+        ExecutionContext ec = ownerSM.getExecutionContext();
+        MultimapStore store = getMultimapStore(ec.getClassLoaderResolver());
+        if (store == null)
+        {
+            return;
+        }
+
+        Multimap value = (Multimap) ownerSM.provideField(getAbsoluteFieldNumber());
+        if (value == null)
+        {
+            store.clear(ownerSM);
+            replaceFieldWithWrapper(ownerSM, null);
+            return;
+        }
+        if (value instanceof BackedSCO)
+        {
+            // Already have a wrapper, so just flush any queued changes
+            ec.flushOperationsForBackingStore(((BackedSCO)value).getBackingStore(), ownerSM);
+            return;
+        }
+        if (!mmd.isCascadeUpdate())
+        {
+            // User doesn't want to update by reachability
+            return;
+        }
+
+        store.clear(ownerSM);
+        store.putEntries(ownerSM, value);
+        replaceFieldWithWrapper(ownerSM, value);
+    }
+
+    /**
+     * Method to be called before any delete of the owner class element, deleting its key-value pairs.
+     * @param ownerSM StateManager of the owner
+     */
+    @Override
+    public void preDelete(DNStateManager ownerSM)
+    {
+        MultimapStore store = getMultimapStore(ownerSM.getExecutionContext().getClassLoaderResolver());
+        if (store != null)
+        {
+            store.clear(ownerSM);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import java.util.List;
+
+import org.datanucleus.exceptions.NucleusException;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.SelectStatement;
+import org.datanucleus.store.rdbms.sql.expression.CollectionLiteral;
+import org.datanucleus.store.rdbms.sql.expression.NumericSubqueryExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpressionFactory;
+import org.datanucleus.store.rdbms.sql.expression.SQLLiteral;
+import org.datanucleus.store.rdbms.table.CollectionTable;
+
+import com.google.common.collect.Multiset;
+
+/**
+ * Method for evaluating {multisetExpr}.count(elementExpr).
+ * Returns a NumericSubqueryExpression of the form
+ * <pre>
+ * (SELECT COALESCE(SUM(A0_SUB.ELEMENT_COUNT),0) FROM JOIN_TBL A0_SUB WHERE A0_SUB.OWNER_ID = A0.ID AND A0_SUB.ELEMENT = {elementExpr})
+ * </pre>
+ * or COUNT(*) in place of the sum where the join table has no count column.
+ */
+public class MultisetCountMethod extends MultisetSubqueryMethod
+{
+    @Override
+    public SQLExpression getExpression(SQLStatement stmt, SQLExpression expr, List<SQLExpression> args)
+    {
+        if (args == null || args.size() != 1)
+        {
+            throw new NucleusException("Method \"count\" of Multiset requires a single argument");
+        }
+
+        SQLExpressionFactory exprFactory = stmt.getSQLExpressionFactory();
+        SQLExpression elemExpr = args.get(0);
+        if (expr instanceof CollectionLiteral && elemExpr instanceof SQLLiteral)
+        {
+            Multiset multiset = (Multiset) ((CollectionLiteral) expr).getValue();
+            int count = (multiset != null ? multiset.count(((SQLLiteral) elemExpr).getValue()) : 0);
+            return exprFactory.newLiteral(stmt, exprFactory.getMappingForType(int.class, false), count);
+        }
+
+        CollectionTable joinTbl = getJoinTable(stmt, expr);
+        SelectStatement subStmt = getOwnerSubquery(stmt, expr, joinTbl);
+
+        SQLExpression joinElemExpr = exprFactory.newExpression(subStmt, subStmt.getPrimaryTable(), joinTbl.getElementMapping());
+        subStmt.whereAnd(joinElemExpr.eq(elemExpr), true);
+
+        subStmt.select(getOccurrencesExpression(subStmt, joinTbl), null);
+
+        SQLExpression subqExpr = new NumericSubqueryExpression(stmt, subStmt);
+        subqExpr.setJavaTypeMapping(exprFactory.getMappingForType(int.class, false));
+        return subqExpr;
+    }
+}
@@ -0,0 +1,41 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.SQLTable;
+import org.datanucleus.store.rdbms.sql.expression.CollectionExpression;
+
+/**
+ * Expression for the elementSet() of a Multiset field.
+ * This is the same field as the Multiset, but methods evaluated on it consider each distinct element once.
+ */
+public class MultisetElementSetExpression extends CollectionExpression
+{
+    /**
+     * Constructor for an expression for the element set of a Multiset field.
+     * @param stmt The SQL statement
+     * @param table The table of the owner
+     * @param mapping Mapping for the Multiset field
+     */
+    public MultisetElementSetExpression(SQLStatement stmt, SQLTable table, JavaTypeMapping mapping)
+    {
+        super(stmt, table, mapping);
+    }
+}
@@ -0,0 +1,52 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import java.util.List;
+
+import org.datanucleus.exceptions.NucleusException;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.CollectionLiteral;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+import org.datanucleus.store.rdbms.sql.method.SQLMethod;
+
+import com.google.common.collect.Multiset;
+
+/**
+ * Method for evaluating {multisetExpr}.elementSet().
+ * Returns a MultisetElementSetExpression, so that methods invoked on it (size(), contains()) can be evaluated on
+ * the distinct elements.
+ */
+public class MultisetElementSetMethod implements SQLMethod
+{
+    @Override
+    public SQLExpression getExpression(SQLStatement stmt, SQLExpression expr, List<SQLExpression> args)
+    {
+        if (args != null && !args.isEmpty())
+        {
+            throw new NucleusException("Method \"elementSet\" of Multiset takes no arguments");
+        }
+
+        if (expr instanceof CollectionLiteral)
+        {
+            Multiset multiset = (Multiset) ((CollectionLiteral) expr).getValue();
+            return stmt.getSQLExpressionFactory().newLiteral(stmt, expr.getJavaTypeMapping(), multiset != null ? multiset.elementSet() : null);
+        }
+        return new MultisetElementSetExpression(stmt, expr.getSQLTable(), expr.getJavaTypeMapping());
+    }
+}
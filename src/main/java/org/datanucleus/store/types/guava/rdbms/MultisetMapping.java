@@ -0,0 +1,373 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.api.ApiAdapter;
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.exceptions.ReachableObjectNotCascadedException;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.ColumnMetaData;
+import org.datanucleus.metadata.ElementMetaData;
+import org.datanucleus.metadata.IdentityType;
+import org.datanucleus.metadata.JoinMetaData;
+import org.datanucleus.metadata.OrderMetaData;
+import org.datanucleus.metadata.PrimaryKeyMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.mapping.java.CollectionMapping;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.table.CollectionTable;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.store.rdbms.table.Table;
+import org.datanucleus.store.types.SCOUtils;
+import org.datanucleus.store.types.guava.scostore.MultisetStore;
+import org.datanucleus.store.types.scostore.CollectionStore;
+import org.datanucleus.store.types.wrappers.backed.BackedSCO;
+
+/**
+ * Mapping for a Multiset (or SortedMultiset) member stored in a join table. By default the join table holds one row
+ * per occurrence, as for any Collection. Specifying the extension "multiset-count-column" (as the name of the column,
+ * or "true" for ELEMENT_COUNT), or the persistence property "datanucleus.guava.multisetCountColumn" as true, holds one
+ * row per distinct element with its count instead. The count is held in the order column of the join table, and the
+ * primary key of the join table is (owner, element) rather than (owner, count), so the owner and element columns
+ * are named here when not specified in the metadata. The contents are then written and read using a
+ * {@link JoinMultisetStore}. Multisets that are serialised, or have serialised elements, or are held using a foreign
+ * key in the element table are always handled as for any Collection.
+ */
+public class MultisetMapping extends CollectionMapping
+{
+    /** Extension for the name of the count column of the join table (or "true" for the default name, or "false" to have no count column). */
+    public static final String EXTENSION_COUNT_COLUMN = "multiset-count-column";
+
+    /** Persistence property for whether Multiset members without the extension have a count column. */
+    public static final String PROPERTY_COUNT_COLUMN = "datanucleus.guava.multisetCountColumn";
+
+    public static final String DEFAULT_COUNT_COLUMN = "ELEMENT_COUNT";
+
+    public static final String DEFAULT_OWNER_COLUMN = "OWNER_ID";
+
+    public static final String DEFAULT_ELEMENT_COLUMN = "ELEMENT";
+
+    public static final String DEFAULT_ELEMENT_ID_COLUMN = "ELEMENT_ID";
+
+    /** Extension marking the order metadata added for the count column. */
+    private static final String EXTENSION_COUNT_ORDER = "multiset-count";
+
+    /** Extension on the join metadata for whether the join table has a primary key. */
+    private static final String EXTENSION_JOIN_PRIMARY_KEY = "primary-key";
+
+    /** Whether the join table has a count column. */
+    protected boolean hasCountColumn = false;
+
+    /** Backing store for the member, created when first needed. */
+    protected transient MultisetStore multisetStore;
+
+    @Override
+    public void initialize(AbstractMemberMetaData mmd, Table table, ClassLoaderResolver clr)
+    {
+        // Add the count column to the metadata before the join table is created
+        this.hasCountColumn = addCountColumnMetaData(mmd, table.getStoreManager().getNucleusContext().getConfiguration().getBooleanProperty(PROPERTY_COUNT_COLUMN), clr);
+        super.initialize(mmd, table, clr);
+    }
+
+    /**
+     * Method to add the order metadata (for the count column) and the join metadata (with the primary key on the
+     * owner and element) for a Multiset member stored in a join table.
+     * @param mmd Metadata for the member
+     * @param countColumnDefault Whether to have a count column when the member doesn't specify the extension
+     * @param clr ClassLoader resolver
+     * @return Whether the join table has a count column
+     */
+    protected static boolean addCountColumnMetaData(AbstractMemberMetaData mmd, boolean countColumnDefault, ClassLoaderResolver clr)
+    {
+        if (mmd.isSerialized() || mmd.getCollection() == null || mmd.getMappedBy() != null || SCOUtils.collectionHasSerialisedElements(mmd))
+        {
+            return false;
+        }
+        if (mmd.getJoinMetaData() == null && mmd.getCollection().elementIsPersistent())
+        {
+            // Elements hold a foreign key to the owner, so there is no join table
+            return false;
+        }
+        String countColumn = mmd.getValueForExtension(EXTENSION_COUNT_COLUMN);
+        if (countColumn == null ? !countColumnDefault : "false".equalsIgnoreCase(countColumn))
+        {
+            return false;
+        }
+        if ("true".equalsIgnoreCase(countColumn))
+        {
+            countColumn = null;
+        }
+
+        OrderMetaData omd = mmd.getOrderMetaData();
+        if (omd != null)
+        {
+            if (omd.hasExtension(EXTENSION_COUNT_ORDER))
+            {
+                // Already added (e.g for the mapping of this member in the table of another class)
+                return true;
+            }
+            throw new NucleusUserException("Member " + mmd.getFullFieldName() + " is a Multiset so cannot specify an ordering; its join table has a count column." +
+                " Specify the extension " + EXTENSION_COUNT_COLUMN + " as \"false\" to store it as for any Collection");
+        }
+
+        ColumnMetaData colmd = new ColumnMetaData();
+        colmd.setName(countColumn != null ? countColumn : DEFAULT_COUNT_COLUMN);
+        colmd.setAllowsNull(Boolean.FALSE);
+        omd = new OrderMetaData();
+        omd.addColumn(colmd);
+        omd.addExtension(EXTENSION_COUNT_ORDER, "true");
+        mmd.setOrderMetaData(omd);
+
+        JoinMetaData joinmd = mmd.getJoinMetaData();
+        if (joinmd == null)
+        {
+            joinmd = new JoinMetaData();
+            mmd.setJoinMetaData(joinmd);
+        }
+        if (!"false".equalsIgnoreCase(joinmd.getValueForExtension(EXTENSION_JOIN_PRIMARY_KEY)) && joinmd.getPrimaryKeyMetaData() == null)
+        {
+            // The join table would default to a primary key of (owner, count), so specify (owner, element)
+            PrimaryKeyMetaData pkmd = new PrimaryKeyMetaData();
+            for (String columnName : getOwnerColumnNames(mmd, joinmd))
+            {
+                pkmd.addColumn(new ColumnMetaData().setName(columnName));
+            }
+            for (String columnName : getElementColumnNames(mmd, clr))
+            {
+                pkmd.addColumn(new ColumnMetaData().setName(columnName));
+            }
+            joinmd.setPrimaryKeyMetaData(pkmd);
+        }
+        return true;
+    }
+
+    /**
+     * Convenience method to return the names of the owner columns of the join table, naming the column where the
+     * owner has a single identity column and the metadata doesn't name it.
+     * @param mmd Metadata for the member
+     * @param joinmd Join metadata for the member
+     * @return The names of the owner columns
+     */
+    private static List<String> getOwnerColumnNames(AbstractMemberMetaData mmd, JoinMetaData joinmd)
+    {
+        List<String> names = getColumnNames(joinmd.getColumnMetaData());
+        if (names == null)
+        {
+            AbstractClassMetaData cmd = mmd.getAbstractClassMetaData();
+            if (cmd.getIdentityType() != IdentityType.DATASTORE && cmd.getNoOfPrimaryKeyMembers() != 1)
+            {
+                throw new NucleusUserException("Member " + mmd.getFullFieldName() + " is a Multiset with a count column, so the primary key of its join table is" +
+                    " (owner, element). Specify the names of the owner columns of the join table, since the owner has a composite identity");
+            }
+            joinmd.addColumn(new ColumnMetaData().setName(DEFAULT_OWNER_COLUMN));
+            names = Collections.singletonList(DEFAULT_OWNER_COLUMN);
+        }
+        return names;
+    }
+
+    /**
+     * Convenience method to return the names of the element columns of the join table, naming the column where the
+     * element has a single column and the metadata doesn't name it.
+     * @param mmd Metadata for the member
+     * @param clr ClassLoader resolver
+     * @return The names of the element columns
+     */
+    private static List<String> getElementColumnNames(AbstractMemberMetaData mmd, ClassLoaderResolver clr)
+    {
+        ElementMetaData elemmd = mmd.getElementMetaData();
+        List<String> names = (elemmd != null ? getColumnNames(elemmd.getColumnMetaData()) : null);
+        if (names == null)
+        {
+            String columnName = DEFAULT_ELEMENT_COLUMN;
+            if (mmd.getCollection().elementIsPersistent())
+            {
+                AbstractClassMetaData elementCmd = mmd.getCollection().getElementClassMetaData(clr);
+                if (elementCmd == null || (elementCmd.getIdentityType() != IdentityType.DATASTORE && elementCmd.getNoOfPrimaryKeyMembers() != 1))
+                {
+                    throw new NucleusUserException("Member " + mmd.getFullFieldName() + " is a Multiset with a count column, so the primary key of its join table is" +
+                        " (owner, element). Specify the names of the element columns of the join table, since the element has a composite identity");
+                }
+                columnName = DEFAULT_ELEMENT_ID_COLUMN;
+            }
+            if (elemmd == null)
+            {
+                elemmd = new ElementMetaData();
+                mmd.setElementMetaData(elemmd);
+            }
+            elemmd.addColumn(new ColumnMetaData().setName(columnName));
+            names = Collections.singletonList(columnName);
+        }
+        return names;
+    }
+
+    /**
+     * Convenience method to return the names of the specified columns.
+     * @param colmds Metadata for the columns
+     * @return The names, or null if no columns are specified (or any column has no name)
+     */
+    private static List<String> getColumnNames(ColumnMetaData[] colmds)
+    {
+        if (colmds == null || colmds.length == 0)
+        {
+            return null;
+        }
+        List<String> names = new ArrayList<>(colmds.length);
+        for (ColumnMetaData colmd : colmds)
+        {
+            if (colmd.getName() == null)
+            {
+                return null;
+            }
+            names.add(colmd.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Accessor for the backing store of this member, when its join table has a count column.
+     * @param clr ClassLoader resolver
+     * @return The backing store, or null if the join table has no count column
+     */
+    public synchronized MultisetStore getMultisetStore(ClassLoaderResolver clr)
+    {
+        if (multisetStore == null && hasCountColumn)
+        {
+            Table joinTable = storeMgr.getTable(mmd);
+            if (joinTable instanceof CollectionTable && ((CollectionTable)joinTable).getOrderMapping() != null &&
+                ((CollectionTable)joinTable).getRelationDiscriminatorMapping() == null)
+            {
+                multisetStore = new JoinMultisetStore<>(mmd, (CollectionTable)joinTable, clr);
+            }
+            else
+            {
+                hasCountColumn = false;
+            }
+        }
+        return multisetStore;
+    }
+
+    /**
+     * Accessor for the backing store of a Multiset member of the specified owner; the {@link JoinMultisetStore} where
+     * its join table has a count column, otherwise the backing store provided by the store manager.
+     * @param sm StateManager of the owner
+     * @param mmd Metadata for the member
+     * @return The backing store
+     */
+    public static CollectionStore getBackingStore(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        RDBMSStoreManager storeMgr = (RDBMSStoreManager) sm.getStoreManager();
+        ClassLoaderResolver clr = sm.getExecutionContext().getClassLoaderResolver();
+        DatastoreClass ownerTable = storeMgr.getDatastoreClass(sm.getClassMetaData().getFullClassName(), clr);
+        JavaTypeMapping mapping = (ownerTable != null ? ownerTable.getMemberMapping(mmd) : null);
+        if (mapping instanceof MultisetMapping)
+        {
+            MultisetStore store = ((MultisetMapping)mapping).getMultisetStore(clr);
+            if (store != null)
+            {
+                return store;
+            }
+        }
+        return (CollectionStore) storeMgr.getBackingStoreForField(clr, mmd, java.util.HashSet.class);
+    }
+
+    /**
+     * Method to be called after the insert of the owner class element, inserting a row per distinct element.
+     * @param ownerSM StateManager of the owner
+     */
+    @Override
+    public void postInsert(DNStateManager ownerSM)
+    {
+        MultisetStore store = getMultisetStore(ownerSM.getExecutionContext().getClassLoaderResolver());
+        if (store == null)
+        {
+            super.postInsert(ownerSM);
+            return;
+        }
+
+        Collection value = (Collection) ownerSM.provideField(getAbsoluteFieldNumber());
+        if (value == null || value.isEmpty())
+        {
+            // Create a SCO wrapper, passing in null so it loads any elements from the datastore (on next access)
+            replaceFieldWithWrapper(ownerSM, null);
+            return;
+        }
+
+        if (!mmd.isCascadePersist() && mmd.getCollection().elementIsPersistent())
+        {
+            // Check that all elements are persistent since we are not persisting them by reachability
+            ApiAdapter api = ownerSM.getExecutionContext().getApiAdapter();
+            for (Object element : value)
+            {
+                if (!api.isDetached(element) && !api.isPersistent(element))
+                {
+                    throw new ReachableObjectNotCascadedException(mmd.getFullFieldName(), element);
+                }
+            }
+        }
+
+        store.addAll(ownerSM, value, 0);
+        replaceFieldWithWrapper(ownerSM, value);
+    }
+
+    /**
+     * Method to be called after any update of the owner class element, applying the changes in count of the elements.
+     * @param ownerSM StateManager of the owner
+     */
+    @Override
+    public void postUpdate(DNStateManager ownerSM)
+    {
+        ExecutionContext ec = ownerSM.getExecutionContext();
+        MultisetStore store = getMultisetStore(ec.getClassLoaderResolver());
+        if (store == null)
+        {
+            super.postUpdate(ownerSM);
+            return;
+        }
+
+        Collection value = (Collection) ownerSM.provideField(getAbsoluteFieldNumber());
+        if (value == null)
+        {
+            store.clear(ownerSM);
+            replaceFieldWithWrapper(ownerSM, null);
+            return;
+        }
+        if (value instanceof BackedSCO)
+        {
+            // Already have a wrapper, so just flush any queued changes
+            ec.flushOperationsForBackingStore(((BackedSCO)value).getBackingStore(), ownerSM);
+            return;
+        }
+        if (!mmd.isCascadeUpdate())
+        {
+            // User doesn't want to update by reachability
+            return;
+        }
+
+        store.update(ownerSM, value);
+        replaceFieldWithWrapper(ownerSM, value);
+    }
+}
@@ -0,0 +1,91 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.datanucleus.exceptions.NucleusException;
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.SelectStatement;
+import org.datanucleus.store.rdbms.sql.expression.AggregateNumericExpression;
+import org.datanucleus.store.rdbms.sql.expression.CollectionLiteral;
+import org.datanucleus.store.rdbms.sql.expression.NumericSubqueryExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpressionFactory;
+import org.datanucleus.store.rdbms.sql.method.CollectionSizeMethod;
+import org.datanucleus.store.rdbms.table.CollectionTable;
+
+/**
+ * Method for evaluating {multisetExpr}.size() and {multisetExpr}.elementSet().size().
+ * The size of the Multiset is the sum of the count column of the rows of the owner in the join table, i.e
+ * (SELECT COALESCE(SUM(A0_SUB.ELEMENT_COUNT),0) FROM JOIN_TBL A0_SUB WHERE A0_SUB.OWNER_ID = A0.ID), or where the
+ * join table has no count column the number of rows, so is evaluated as for any Collection.
+ * The size of the element set returns a NumericSubqueryExpression of the form
+ * <pre>
+ * (SELECT COUNT(DISTINCT A0_SUB.ELEMENT) FROM JOIN_TBL A0_SUB WHERE A0_SUB.OWNER_ID = A0.ID)
+ * </pre>
+ */
+public class MultisetSizeMethod extends MultisetSubqueryMethod
+{
+    @Override
+    public SQLExpression getExpression(SQLStatement stmt, SQLExpression expr, List<SQLExpression> args)
+    {
+        if (!(expr instanceof MultisetElementSetExpression))
+        {
+            CollectionTable joinTbl = (expr instanceof CollectionLiteral) ? null : getJoinTable(stmt, expr);
+            if (joinTbl == null || joinTbl.getOrderMapping() == null)
+            {
+                // One row per occurrence, so the same as for any Collection
+                return new CollectionSizeMethod().getExpression(stmt, expr, args);
+            }
+            if (args != null && !args.isEmpty())
+            {
+                throw new NucleusException("Method \"size\" of Multiset takes no arguments");
+            }
+
+            SelectStatement subStmt = getOwnerSubquery(stmt, expr, joinTbl);
+            subStmt.select(getOccurrencesExpression(subStmt, joinTbl), null);
+            SQLExpression subqExpr = new NumericSubqueryExpression(stmt, subStmt);
+            subqExpr.setJavaTypeMapping(stmt.getSQLExpressionFactory().getMappingForType(int.class, false));
+            return subqExpr;
+        }
+        if (args != null && !args.isEmpty())
+        {
+            throw new NucleusException("Method \"size\" of Multiset.elementSet() takes no arguments");
+        }
+
+        SQLExpressionFactory exprFactory = stmt.getSQLExpressionFactory();
+        CollectionTable joinTbl = getJoinTable(stmt, expr);
+        if (joinTbl.getElementMapping().getNumberOfColumnMappings() != 1)
+        {
+            throw new NucleusUserException("Method \"size\" of Multiset.elementSet() is only supported for an element stored in a single column");
+        }
+        SelectStatement subStmt = getOwnerSubquery(stmt, expr, joinTbl);
+
+        SQLExpression joinElemExpr = exprFactory.newExpression(subStmt, subStmt.getPrimaryTable(), joinTbl.getElementMapping());
+        SQLExpression countExpr = new AggregateNumericExpression(subStmt, exprFactory.getMappingForType(long.class, false), "COUNT", 
+            Collections.singletonList(joinElemExpr.distinct()));
+        subStmt.select(countExpr, null);
+
+        SQLExpression subqExpr = new NumericSubqueryExpression(stmt, subStmt);
+        subqExpr.setJavaTypeMapping(exprFactory.getMappingForType(int.class, false));
+        return subqExpr;
+    }
+}
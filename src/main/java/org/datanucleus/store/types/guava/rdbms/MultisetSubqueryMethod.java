@@ -0,0 +1,105 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.SelectStatement;
+import org.datanucleus.store.rdbms.sql.expression.AggregateNumericExpression;
+import org.datanucleus.store.rdbms.sql.expression.NumericExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpressionFactory;
+import org.datanucleus.store.rdbms.sql.method.SQLMethod;
+import org.datanucleus.store.rdbms.table.CollectionTable;
+import org.datanucleus.store.rdbms.table.Table;
+
+/**
+ * Base for methods on a Multiset field that are evaluated as a subquery over the join table of the Multiset,
+ * correlated with the owner in the outer statement. The join table holds a row per distinct element with its count
+ * (see {@link MultisetMapping}), or a row per occurrence of an element where it has no count column.
+ */
+public abstract class MultisetSubqueryMethod implements SQLMethod
+{
+    /**
+     * Accessor for the join table of the Multiset field represented by the expression.
+     * @param stmt The statement
+     * @param expr Expression for the Multiset field
+     * @return The join table
+     * @throws NucleusUserException if the Multiset is not stored in a join table
+     */
+    protected CollectionTable getJoinTable(SQLStatement stmt, SQLExpression expr)
+    {
+        AbstractMemberMetaData mmd = expr.getJavaTypeMapping().getMemberMetaData();
+        Table table = (mmd != null ? stmt.getRDBMSManager().getTable(mmd) : null);
+        if (!(table instanceof CollectionTable))
+        {
+            throw new NucleusUserException("Query method on Multiset " + (mmd != null ? mmd.getFullFieldName() : expr) + 
+                " is only supported where the Multiset is stored in a join table");
+        }
+        return (CollectionTable) table;
+    }
+
+    /**
+     * Method to create a subquery over the join table of the Multiset, restricted to the rows of the owner.
+     * @param stmt The (outer) statement
+     * @param expr Expression for the Multiset field
+     * @param joinTbl The join table
+     * @return The subquery, with nothing selected
+     */
+    protected SelectStatement getOwnerSubquery(SQLStatement stmt, SQLExpression expr, CollectionTable joinTbl)
+    {
+        RDBMSStoreManager storeMgr = stmt.getRDBMSManager();
+        SQLExpressionFactory exprFactory = stmt.getSQLExpressionFactory();
+
+        SelectStatement subStmt = new SelectStatement(stmt, storeMgr, joinTbl, null, null);
+        subStmt.setClassLoaderResolver(stmt.getClassLoaderResolver());
+
+        SQLExpression joinOwnerExpr = exprFactory.newExpression(subStmt, subStmt.getPrimaryTable(), joinTbl.getOwnerMapping());
+        SQLExpression ownerIdExpr = exprFactory.newExpression(stmt, expr.getSQLTable(), expr.getSQLTable().getTable().getIdMapping());
+        subStmt.whereAnd(joinOwnerExpr.eq(ownerIdExpr), true);
+        return subStmt;
+    }
+
+    /**
+     * Method to create the expression for the number of occurrences in the rows selected by a subquery over the join
+     * table; the sum of the count column where the join table has one, otherwise the number of rows.
+     * @param subStmt The subquery
+     * @param joinTbl The join table
+     * @return The expression for the number of occurrences (0 when there are no rows)
+     */
+    protected SQLExpression getOccurrencesExpression(SelectStatement subStmt, CollectionTable joinTbl)
+    {
+        SQLExpressionFactory exprFactory = subStmt.getSQLExpressionFactory();
+        if (joinTbl.getOrderMapping() == null)
+        {
+            return new AggregateNumericExpression(subStmt, exprFactory.getMappingForType(long.class, false), "COUNT", 
+                Collections.singletonList(exprFactory.newLiteral(subStmt, exprFactory.getMappingForType(int.class, false), 1)));
+        }
+
+        SQLExpression countExpr = exprFactory.newExpression(subStmt, subStmt.getPrimaryTable(), joinTbl.getOrderMapping());
+        SQLExpression sumExpr = new AggregateNumericExpression(subStmt, exprFactory.getMappingForType(long.class, false), "SUM", 
+            Collections.singletonList(countExpr));
+        return new NumericExpression(subStmt, exprFactory.getMappingForType(long.class, false), "COALESCE", 
+            Arrays.asList(sumExpr, exprFactory.newLiteral(subStmt, exprFactory.getMappingForType(int.class, false), 0)));
+    }
+}
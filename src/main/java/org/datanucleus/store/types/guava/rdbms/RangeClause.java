@@ -0,0 +1,213 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.datanucleus.store.rdbms.mapping.column.ColumnMapping;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.types.guava.converters.RangeConverter;
+
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Range;
+
+/**
+ * Condition on the columns of a Range stored using a {@link RangeConverter} (lower endpoint, lower bound type, upper
+ * endpoint, upper bound type), for use in the statements of the join table stores of a RangeSet and RangeMap. These
+ * are the same predicates as used for the query methods of a Range field (see {@link RangeMethod}), with the
+ * endpoints of the argument as parameters, so can make use of an index on the endpoint columns.
+ */
+final class RangeClause
+{
+    /** Names of the lower endpoint, lower bound type, upper endpoint and upper bound type columns. */
+    private final String[] columns;
+
+    /** Mapping for an endpoint column, used to set the endpoint parameters. */
+    private final ColumnMapping endpointMapping;
+
+    private final StringBuilder sql = new StringBuilder();
+
+    private final List<Object> parameters = new ArrayList<>();
+
+    /**
+     * Constructor for a condition on the columns of the specified Range mapping.
+     * @param rangeMapping Mapping for the Range (with the 4 columns of the converter)
+     */
+    private RangeClause(JavaTypeMapping rangeMapping)
+    {
+        columns = new String[4];
+        for (int i = 0; i < 4; i++)
+        {
+            columns[i] = rangeMapping.getColumnMapping(i).getColumn().getIdentifier().toString();
+        }
+        endpointMapping = rangeMapping.getColumnMapping(0);
+    }
+
+    /**
+     * Method to return the condition for the Range to contain a value.
+     * @param rangeMapping Mapping for the Range
+     * @param value The value
+     * @return The condition
+     */
+    static RangeClause contains(JavaTypeMapping rangeMapping, Comparable value)
+    {
+        RangeClause clause = new RangeClause(rangeMapping);
+        clause.appendLowerBelow(value, true);
+        clause.sql.append(" AND ");
+        clause.appendUpperAbove(value, true);
+        return clause;
+    }
+
+    /**
+     * Method to return the condition for the Range to enclose another range.
+     * @param rangeMapping Mapping for the Range
+     * @param range The other range
+     * @return The condition
+     */
+    static RangeClause encloses(JavaTypeMapping rangeMapping, Range range)
+    {
+        RangeClause clause = new RangeClause(rangeMapping);
+        if (range.hasLowerBound())
+        {
+            // Strict when the other range includes its lower endpoint
+            clause.appendLowerBelow(range.lowerEndpoint(), range.lowerBoundType() == BoundType.CLOSED);
+        }
+        else
+        {
+            clause.appendBoundTypeIs(clause.columns[1], RangeConverter.UNBOUNDED);
+        }
+        clause.sql.append(" AND ");
+        if (range.hasUpperBound())
+        {
+            // Strict when the other range includes its upper endpoint
+            clause.appendUpperAbove(range.upperEndpoint(), range.upperBoundType() == BoundType.CLOSED);
+        }
+        else
+        {
+            clause.appendBoundTypeIs(clause.columns[3], RangeConverter.UNBOUNDED);
+        }
+        return clause;
+    }
+
+    /**
+     * Method to return the condition for the Range to be connected to another range. This is empty (no condition)
+     * when the other range is unbounded in both directions.
+     * @param rangeMapping Mapping for the Range
+     * @param range The other range
+     * @return The condition
+     */
+    static RangeClause connected(JavaTypeMapping rangeMapping, Range range)
+    {
+        RangeClause clause = new RangeClause(rangeMapping);
+        if (range.hasUpperBound())
+        {
+            // Strict when the other range excludes its upper endpoint
+            clause.appendLowerBelow(range.upperEndpoint(), range.upperBoundType() == BoundType.OPEN);
+        }
+        if (range.hasLowerBound())
+        {
+            if (clause.sql.length() > 0)
+            {
+                clause.sql.append(" AND ");
+            }
+            // Strict when the other range excludes its lower endpoint
+            clause.appendUpperAbove(range.lowerEndpoint(), range.lowerBoundType() == BoundType.OPEN);
+        }
+        return clause;
+    }
+
+    /**
+     * Method to append this condition to a WHERE clause that already has a condition (e.g on the owner).
+     * @param where The WHERE clause
+     * @return The WHERE clause
+     */
+    StringBuilder appendTo(StringBuilder where)
+    {
+        if (sql.length() > 0)
+        {
+            where.append(" AND ").append(sql);
+        }
+        return where;
+    }
+
+    /**
+     * Method to set the endpoint parameters of this condition in a statement.
+     * @param ps The statement
+     * @param position Position of the first parameter of this condition
+     * @return Position of the next parameter after this condition
+     */
+    int populate(PreparedStatement ps, int position)
+    {
+        for (Object parameter : parameters)
+        {
+            endpointMapping.setObject(ps, position++, parameter);
+        }
+        return position;
+    }
+
+    /**
+     * Method to append the condition for the lower bound to be below a value : the lower bound type is UNBOUNDED,
+     * or the lower endpoint is less than the value, or equal to it (when closed, if strict).
+     * @param value The value
+     * @param strict Whether the lower endpoint can only equal the value when the lower bound is closed
+     */
+    private void appendLowerBelow(Comparable value, boolean strict)
+    {
+        appendBelowOrAbove(columns[0], columns[1], strict ? "<" : "<=", value, strict);
+    }
+
+    /**
+     * Method to append the condition for the upper bound to be above a value : the upper bound type is UNBOUNDED,
+     * or the upper endpoint is greater than the value, or equal to it (when closed, if strict).
+     * @param value The value
+     * @param strict Whether the upper endpoint can only equal the value when the upper bound is closed
+     */
+    private void appendUpperAbove(Comparable value, boolean strict)
+    {
+        appendBelowOrAbove(columns[2], columns[3], strict ? ">" : ">=", value, strict);
+    }
+
+    private void appendBelowOrAbove(String endpointColumn, String boundTypeColumn, String operator, Comparable value, boolean strict)
+    {
+        sql.append('(');
+        appendBoundTypeIs(boundTypeColumn, RangeConverter.UNBOUNDED);
+        sql.append(" OR ").append(endpointColumn).append(' ').append(operator).append(" ?");
+        parameters.add(value);
+        if (strict)
+        {
+            sql.append(" OR (").append(endpointColumn).append(" = ? AND ");
+            parameters.add(value);
+            appendBoundTypeIs(boundTypeColumn, BoundType.CLOSED.name());
+            sql.append(')');
+        }
+        sql.append(')');
+    }
+
+    private void appendBoundTypeIs(String boundTypeColumn, String boundType)
+    {
+        sql.append(boundTypeColumn).append(" = '").append(boundType).append('\'');
+    }
+
+    @Override
+    public String toString()
+    {
+        return sql.toString();
+    }
+}
@@ -0,0 +1,52 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.BooleanExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+
+import com.google.common.collect.Range;
+
+/**
+ * Method for evaluating {rangeExpr}.contains(valueExpr). Returns a BooleanExpression of the form
+ * <pre>
+ * (A0.LOWER_TYPE = 'UNBOUNDED' OR A0.LOWER &lt; {valueExpr} OR (A0.LOWER = {valueExpr} AND A0.LOWER_TYPE = 'CLOSED')) AND
+ * (A0.UPPER_TYPE = 'UNBOUNDED' OR A0.UPPER &gt; {valueExpr} OR (A0.UPPER = {valueExpr} AND A0.UPPER_TYPE = 'CLOSED'))
+ * </pre>
+ */
+public class RangeContainsMethod extends RangeMethod
+{
+    @Override
+    protected String getMethodName()
+    {
+        return "contains";
+    }
+
+    @Override
+    protected boolean evaluate(Range range, Object arg)
+    {
+        return arg != null && range.contains((Comparable) arg);
+    }
+
+    @Override
+    protected BooleanExpression getExpression(SQLStatement stmt, SQLExpression[] cols, SQLExpression argExpr)
+    {
+        return getLowerBelow(stmt, cols, argExpr, true).and(getUpperAbove(stmt, cols, argExpr, true));
+    }
+}
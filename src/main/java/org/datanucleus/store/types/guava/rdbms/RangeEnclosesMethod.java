@@ -0,0 +1,79 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.BooleanExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+import org.datanucleus.store.types.guava.converters.RangeConverter;
+
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Range;
+
+/**
+ * Method for evaluating {rangeExpr}.encloses(rangeArg), where the argument is a Range literal or parameter.
+ * Returns a BooleanExpression comparing the lower bound of the field with the lower bound of the argument, and the
+ * upper bound of the field with the upper bound of the argument, e.g for an argument [10..20)
+ * <pre>
+ * (A0.LOWER_TYPE = 'UNBOUNDED' OR A0.LOWER &lt; 10 OR (A0.LOWER = 10 AND A0.LOWER_TYPE = 'CLOSED')) AND
+ * (A0.UPPER_TYPE = 'UNBOUNDED' OR A0.UPPER &gt;= 20)
+ * </pre>
+ */
+public class RangeEnclosesMethod extends RangeMethod
+{
+    @Override
+    protected String getMethodName()
+    {
+        return "encloses";
+    }
+
+    @Override
+    protected boolean evaluate(Range range, Object arg)
+    {
+        return arg != null && range.encloses((Range) arg);
+    }
+
+    @Override
+    protected BooleanExpression getExpression(SQLStatement stmt, SQLExpression[] cols, SQLExpression argExpr)
+    {
+        Range other = getRangeArgument(argExpr);
+
+        BooleanExpression lowerExpr = null;
+        if (other.hasLowerBound())
+        {
+            // Strict when the argument includes its lower endpoint
+            lowerExpr = getLowerBelow(stmt, cols, getEndpointLiteral(stmt, other.lowerEndpoint()), other.lowerBoundType() == BoundType.CLOSED);
+        }
+        else
+        {
+            lowerExpr = boundTypeIs(stmt, cols[LOWER_BOUND_TYPE], RangeConverter.UNBOUNDED);
+        }
+
+        BooleanExpression upperExpr = null;
+        if (other.hasUpperBound())
+        {
+            // Strict when the argument includes its upper endpoint
+            upperExpr = getUpperAbove(stmt, cols, getEndpointLiteral(stmt, other.upperEndpoint()), other.upperBoundType() == BoundType.CLOSED);
+        }
+        else
+        {
+            upperExpr = boundTypeIs(stmt, cols[UPPER_BOUND_TYPE], RangeConverter.UNBOUNDED);
+        }
+        return lowerExpr.and(upperExpr);
+    }
+}
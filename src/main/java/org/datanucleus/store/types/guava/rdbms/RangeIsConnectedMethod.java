@@ -0,0 +1,69 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.BooleanExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Range;
+
+/**
+ * Method for evaluating {rangeExpr}.isConnected(rangeArg), where the argument is a Range literal or parameter.
+ * Returns a BooleanExpression requiring the lower bound of the field to be below the upper bound of the argument, and
+ * the upper bound of the field to be above the lower bound of the argument, e.g for an argument [10..20)
+ * <pre>
+ * (A0.LOWER_TYPE = 'UNBOUNDED' OR A0.LOWER &lt; 20 OR (A0.LOWER = 20 AND A0.LOWER_TYPE = 'CLOSED')) AND
+ * (A0.UPPER_TYPE = 'UNBOUNDED' OR A0.UPPER &gt;= 10)
+ * </pre>
+ */
+public class RangeIsConnectedMethod extends RangeMethod
+{
+    @Override
+    protected String getMethodName()
+    {
+        return "isConnected";
+    }
+
+    @Override
+    protected boolean evaluate(Range range, Object arg)
+    {
+        return arg != null && range.isConnected((Range) arg);
+    }
+
+    @Override
+    protected BooleanExpression getExpression(SQLStatement stmt, SQLExpression[] cols, SQLExpression argExpr)
+    {
+        Range other = getRangeArgument(argExpr);
+
+        BooleanExpression expr = null;
+        if (other.hasUpperBound())
+        {
+            // Strict when the argument excludes its upper endpoint
+            expr = getLowerBelow(stmt, cols, getEndpointLiteral(stmt, other.upperEndpoint()), other.upperBoundType() == BoundType.OPEN);
+        }
+        if (other.hasLowerBound())
+        {
+            // Strict when the argument excludes its lower endpoint
+            BooleanExpression upperExpr = getUpperAbove(stmt, cols, getEndpointLiteral(stmt, other.lowerEndpoint()), other.lowerBoundType() == BoundType.OPEN);
+            expr = (expr != null ? expr.and(upperExpr) : upperExpr);
+        }
+        return (expr != null ? expr : getTrue(stmt));
+    }
+}
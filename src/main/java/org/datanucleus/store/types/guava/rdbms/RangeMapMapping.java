@@ -0,0 +1,193 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.JoinMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.mapping.java.MapMapping;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.store.rdbms.table.MapTable;
+import org.datanucleus.store.rdbms.table.Table;
+import org.datanucleus.store.types.guava.scostore.RangeMapStore;
+import org.datanucleus.store.types.wrappers.backed.BackedSCO;
+
+import com.google.common.collect.RangeMap;
+
+/**
+ * Mapping for a RangeMap member, stored in a join table with one row per range, the range (the key) being held in the
+ * 4 columns of a RangeConverter (selected by the container handler from the endpoint type), i.e (OWNER_ID, LOWER,
+ * LOWER_TYPE, UPPER, UPPER_TYPE, VALUE). The join table has no primary key, since an unbounded range has a null
+ * endpoint. The contents are written and read using a {@link JoinRangeMapStore}, so the entry for a key is looked up in
+ * the datastore. The member has map metadata (added by the container handler), so the join table is created as for a
+ * Map from Range; only the writing of the contents when the owner is inserted, updated or deleted is specific to a
+ * RangeMap. A RangeMap whose endpoint type has no RangeConverter is stored serialised in a single column.
+ */
+public class RangeMapMapping extends MapMapping
+{
+    /** Extension on the join metadata for whether the join table has a primary key. */
+    private static final String EXTENSION_JOIN_PRIMARY_KEY = "primary-key";
+
+    /** Backing store for the member, created when first needed. */
+    protected transient JoinRangeMapStore rangeMapStore;
+
+    @Override
+    public void initialize(AbstractMemberMetaData mmd, Table table, ClassLoaderResolver clr)
+    {
+        // Add the join metadata (with no primary key) before the join table is created
+        if (!mmd.isSerialized() && mmd.getMap() != null)
+        {
+            JoinMetaData joinmd = mmd.getJoinMetaData();
+            if (joinmd == null)
+            {
+                joinmd = new JoinMetaData();
+                mmd.setJoinMetaData(joinmd);
+            }
+            if (!joinmd.hasExtension(EXTENSION_JOIN_PRIMARY_KEY))
+            {
+                joinmd.addExtension(EXTENSION_JOIN_PRIMARY_KEY, "false");
+            }
+        }
+        super.initialize(mmd, table, clr);
+    }
+
+    /**
+     * Accessor for the backing store of this member, when held in a join table.
+     * @param clr ClassLoader resolver
+     * @return The backing store, or null if not held in a join table
+     * @throws NucleusUserException if the ranges are not held in the columns of a RangeConverter
+     */
+    public synchronized JoinRangeMapStore getRangeMapStore(ClassLoaderResolver clr)
+    {
+        if (rangeMapStore == null && !mmd.isSerialized())
+        {
+            Table joinTable = storeMgr.getTable(mmd);
+            if (joinTable instanceof MapTable)
+            {
+                if (((MapTable)joinTable).getKeyMapping().getNumberOfColumnMappings() != 4)
+                {
+                    throw new NucleusUserException("Member " + mmd.getFullFieldName() + " is a RangeMap, so its ranges are held in the columns of a Range type converter." +
+                        " Specify the extension type-converter-name on the key (e.g dn.guava.range-long), or specify the member as serialized");
+                }
+                rangeMapStore = new JoinRangeMapStore<>((MapTable)joinTable, clr);
+            }
+        }
+        return rangeMapStore;
+    }
+
+    /**
+     * Accessor for the backing store of a RangeMap member of the specified owner.
+     * @param sm StateManager of the owner
+     * @param mmd Metadata for the member
+     * @return The backing store, or null if the member is not held in a join table
+     */
+    public static RangeMapStore getBackingStore(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        RDBMSStoreManager storeMgr = (RDBMSStoreManager) sm.getStoreManager();
+        ClassLoaderResolver clr = sm.getExecutionContext().getClassLoaderResolver();
+        DatastoreClass ownerTable = storeMgr.getDatastoreClass(sm.getClassMetaData().getFullClassName(), clr);
+        JavaTypeMapping mapping = (ownerTable != null ? ownerTable.getMemberMapping(mmd) : null);
+        if (mapping instanceof RangeMapMapping)
+        {
+            return ((RangeMapMapping)mapping).getRangeMapStore(clr);
+        }
+        return null;
+    }
+
+    /**
+     * Method to be called after the insert of the owner class element, inserting a row per entry.
+     * @param ownerSM StateManager of the owner
+     */
+    @Override
+    public void postInsert(DNStateManager ownerSM)
+    {
+        RangeMapStore store = getRangeMapStore(ownerSM.getExecutionContext().getClassLoaderResolver());
+        if (store == null)
+        {
+            return;
+        }
+
+        RangeMap value = (RangeMap) ownerSM.provideField(getAbsoluteFieldNumber());
+        if (value == null || value.asMapOfRanges().isEmpty())
+        {
+            // Create a SCO wrapper, passing in null so it loads any entries from the datastore (on next access)
+            replaceFieldWithWrapper(ownerSM, null);
+            return;
+        }
+
+        store.putEntries(ownerSM, value.asMapOfRanges());
+        replaceFieldWithWrapper(ownerSM, value);
+    }
+
+    /**
+     * Method to be called after any update of the owner class element, writing the changes to the entries.
+     * @param ownerSM StateManager of the owner
+     */
+    @Override
+    public void postUpdate(DNStateManager ownerSM)
+    {
+        ExecutionContext ec = ownerSM.getExecutionContext();
+        RangeMapStore store = getRangeMapStore(ec.getClassLoaderResolver());
+        if (store == null)
+        {
+            return;
+        }
+
+        RangeMap value = (RangeMap) ownerSM.provideField(getAbsoluteFieldNumber());
+        if (value == null)
+        {
+            store.clear(ownerSM);
+            replaceFieldWithWrapper(ownerSM, null);
+            return;
+        }
+        if (value instanceof BackedSCO)
+        {
+            // Already have a wrapper, so just flush any queued changes
+            ec.flushOperationsForBackingStore(((BackedSCO)value).getBackingStore(), ownerSM);
+            return;
+        }
+        if (!mmd.isCascadeUpdate())
+        {
+            // User doesn't want to update by reachability
+            return;
+        }
+
+        store.clear(ownerSM);
+        store.putEntries(ownerSM, value.asMapOfRanges());
+        replaceFieldWithWrapper(ownerSM, value);
+    }
+
+    /**
+     * Method to be called before any delete of the owner class element, deleting its entries.
+     * @param ownerSM StateManager of the owner
+     */
+    @Override
+    public void preDelete(DNStateManager ownerSM)
+    {
+        RangeMapStore store = getRangeMapStore(ownerSM.getExecutionContext().getClassLoaderResolver());
+        if (store != null)
+        {
+            store.clear(ownerSM);
+        }
+    }
+}
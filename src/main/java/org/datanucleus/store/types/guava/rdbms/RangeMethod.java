@@ -0,0 +1,195 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.rdbms;
+
+import java.util.List;
+
+import org.datanucleus.exceptions.NucleusException;
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.store.query.expression.Expression;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.BooleanExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpressionFactory;
+import org.datanucleus.store.rdbms.sql.expression.SQLLiteral;
+import org.datanucleus.store.rdbms.sql.method.SQLMethod;
+import org.datanucleus.store.types.guava.converters.RangeConverter;
+
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Range;
+
+/**
+ * Base for methods on a Range field stored using a {@link RangeConverter}, so as 4 columns : lower endpoint, lower
+ * bound type, upper endpoint, upper bound type. The methods are evaluated as predicates on the endpoint columns, so
+ * can make use of an index on them. A Range stored serialised (the default) does not support these methods in queries.
+ */
+public abstract class RangeMethod implements SQLMethod
+{
+    protected static final int LOWER_ENDPOINT = 0;
+    protected static final int LOWER_BOUND_TYPE = 1;
+    protected static final int UPPER_ENDPOINT = 2;
+    protected static final int UPPER_BOUND_TYPE = 3;
+
+    @Override
+    public SQLExpression getExpression(SQLStatement stmt, SQLExpression expr, List<SQLExpression> args)
+    {
+        if (args == null || args.size() != 1)
+        {
+            throw new NucleusException("Method \"" + getMethodName() + "\" of Range requires a single argument");
+        }
+
+        SQLExpressionFactory exprFactory = stmt.getSQLExpressionFactory();
+        SQLExpression argExpr = args.get(0);
+        if (expr instanceof SQLLiteral && argExpr instanceof SQLLiteral)
+        {
+            // Evaluate in memory
+            Range range = (Range) ((SQLLiteral) expr).getValue();
+            boolean result = range != null && evaluate(range, ((SQLLiteral) argExpr).getValue());
+            return exprFactory.newLiteral(stmt, exprFactory.getMappingForType(boolean.class, false), result);
+        }
+
+        if (expr.getNumberOfSubExpressions() != 4)
+        {
+            throw new NucleusUserException("Method \"" + getMethodName() + "\" of Range " + expr + " is only supported in a query where the Range is a field" +
+                " stored using one of the Range type converters (e.g dn.guava.range-long)");
+        }
+        SQLExpression[] cols = new SQLExpression[4];
+        for (int i = 0; i < 4; i++)
+        {
+            cols[i] = expr.getSubExpression(i);
+        }
+        return getExpression(stmt, cols, argExpr);
+    }
+
+    /**
+     * Accessor for the name of the method.
+     * @return The method name
+     */
+    protected abstract String getMethodName();
+
+    /**
+     * Method to evaluate the method on a Range value in memory.
+     * @param range The range
+     * @param arg The argument
+     * @return The result
+     */
+    protected abstract boolean evaluate(Range range, Object arg);
+
+    /**
+     * Method to return the predicate for the method on the columns of the Range field.
+     * @param stmt The statement
+     * @param cols Expressions for the lower endpoint, lower bound type, upper endpoint and upper bound type columns
+     * @param argExpr Expression for the argument
+     * @return The predicate
+     */
+    protected abstract BooleanExpression getExpression(SQLStatement stmt, SQLExpression[] cols, SQLExpression argExpr);
+
+    /**
+     * Accessor for the Range value of a literal (or parameter) argument.
+     * @param argExpr Expression for the argument
+     * @return The Range
+     * @throws NucleusUserException if the argument is not a Range literal/parameter
+     */
+    protected Range getRangeArgument(SQLExpression argExpr)
+    {
+        Object value = (argExpr instanceof SQLLiteral ? ((SQLLiteral) argExpr).getValue() : null);
+        if (!(value instanceof Range))
+        {
+            throw new NucleusUserException("Method \"" + getMethodName() + "\" of Range is only supported in a query with a Range literal or parameter argument");
+        }
+        return (Range) value;
+    }
+
+    /**
+     * Method to return the predicate for the lower bound of the Range being below a value : the lower bound type is
+     * UNBOUNDED, or the lower endpoint is less than the value, or equal to it (when closed, if strict).
+     * @param stmt The statement
+     * @param cols Expressions for the columns of the Range
+     * @param value Expression for the value
+     * @param strict Whether the lower endpoint can only equal the value when the lower bound is closed
+     * @return The predicate
+     */
+    protected BooleanExpression getLowerBelow(SQLStatement stmt, SQLExpression[] cols, SQLExpression value, boolean strict)
+    {
+        BooleanExpression expr = boundTypeIs(stmt, cols[LOWER_BOUND_TYPE], RangeConverter.UNBOUNDED);
+        if (strict)
+        {
+            expr = expr.ior(new BooleanExpression(cols[LOWER_ENDPOINT], Expression.OP_LT, value));
+            return expr.ior(new BooleanExpression(cols[LOWER_ENDPOINT], Expression.OP_EQ, value).and(
+                boundTypeIs(stmt, cols[LOWER_BOUND_TYPE], BoundType.CLOSED.name())));
+        }
+        return expr.ior(new BooleanExpression(cols[LOWER_ENDPOINT], Expression.OP_LTEQ, value));
+    }
+
+    /**
+     * Method to return the predicate for the upper bound of the Range being above a value : the upper bound type is
+     * UNBOUNDED, or the upper endpoint is greater than the value, or equal to it (when closed, if strict).
+     * @param stmt The statement
+     * @param cols Expressions for the columns of the Range
+     * @param value Expression for the value
+     * @param strict Whether the upper endpoint can only equal the value when the upper bound is closed
+     * @return The predicate
+     */
+    protected BooleanExpression getUpperAbove(SQLStatement stmt, SQLExpression[] cols, SQLExpression value, boolean strict)
+    {
+        BooleanExpression expr = boundTypeIs(stmt, cols[UPPER_BOUND_TYPE], RangeConverter.UNBOUNDED);
+        if (strict)
+        {
+            expr = expr.ior(new BooleanExpression(cols[UPPER_ENDPOINT], Expression.OP_GT, value));
+            return expr.ior(new BooleanExpression(cols[UPPER_ENDPOINT], Expression.OP_EQ, value).and(
+                boundTypeIs(stmt, cols[UPPER_BOUND_TYPE], BoundType.CLOSED.name())));
+        }
+        return expr.ior(new BooleanExpression(cols[UPPER_ENDPOINT], Expression.OP_GTEQ, value));
+    }
+
+    /**
+     * Method to return the predicate for a bound type column having the specified value.
+     * @param stmt The statement
+     * @param boundTypeCol Expression for the bound type column
+     * @param boundType The bound type (CLOSED, OPEN or UNBOUNDED)
+     * @return The predicate
+     */
+    protected BooleanExpression boundTypeIs(SQLStatement stmt, SQLExpression boundTypeCol, String boundType)
+    {
+        SQLExpressionFactory exprFactory = stmt.getSQLExpressionFactory();
+        return new BooleanExpression(boundTypeCol, Expression.OP_EQ, exprFactory.newLiteral(stmt, exprFactory.getMappingForType(String.class, false), boundType));
+    }
+
+    /**
+     * Method to return a literal for an endpoint of a Range argument.
+     * @param stmt The statement
+     * @param endpoint The endpoint
+     * @return The literal
+     */
+    protected SQLExpression getEndpointLiteral(SQLStatement stmt, Comparable endpoint)
+    {
+        SQLExpressionFactory exprFactory = stmt.getSQLExpressionFactory();
+        return exprFactory.newLiteral(stmt, exprFactory.getMappingForType(endpoint.getClass(), false), endpoint);
+    }
+
+    /**
+     * Method to return a predicate that is always true.
+     * @param stmt The statement
+     * @return The predicate
+     */
+    protected BooleanExpression getTrue(SQLStatement stmt)
+    {
+        SQLExpressionFactory exprFactory = stmt.getSQLExpressionFactory();
+        return (BooleanExpression) exprFactory.newLiteral(stmt, exprFactory.getMappingForType(boolean.class, false), Boolean.TRUE);
+    }
+}
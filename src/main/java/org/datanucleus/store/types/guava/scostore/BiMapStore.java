@@ -0,0 +1,39 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.scostore;
+
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.scostore.MapStore;
+
+/**
+ * Interface representation of the backing store for a BiMap, adding a lookup of the key for a value.
+ * The values of a BiMap are unique, so the datastore can answer this from an index on the value.
+ * A backed BiMap wrapper will use this when its backing store implements this interface.
+ * @param <K> Type of the key
+ * @param <V> Type of the value
+ */
+public interface BiMapStore<K, V> extends MapStore<K, V>
+{
+    /**
+     * Accessor for the key that the value is mapped against in the BiMap of this owner.
+     * @param sm StateManager for the owner of the map
+     * @param value The value
+     * @return The key (or null if the value is not present)
+     */
+    K getKeyForValue(DNStateManager sm, Object value);
+}
@@ -0,0 +1,122 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.scostore;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.scostore.Store;
+
+/**
+ * Interface representation of the backing store for a Multimap (or ListMultimap, SetMultimap), where the datastore
+ * holds one entry per key-value pair, i.e (owner, key, value). The values of a single key are read and changed without
+ * reading the other entries of the multimap.
+ * Any check that a SetMultimap doesn't already hold a key-value pair is made by the caller; this store holds whatever
+ * pairs it is given.
+ * @param <K> Type of the key
+ * @param <V> Type of the value
+ */
+public interface MultimapStore<K, V> extends Store
+{
+    /**
+     * Accessor for the number of key-value pairs in the multimap of this owner.
+     * @param sm StateManager for the owner of the multimap
+     * @return The number of key-value pairs
+     */
+    int size(DNStateManager sm);
+
+    /**
+     * Accessor for whether the multimap of this owner has any value for the key.
+     * @param sm StateManager for the owner of the multimap
+     * @param key The key
+     * @return Whether the key is present
+     */
+    boolean containsKey(DNStateManager sm, Object key);
+
+    /**
+     * Accessor for whether the multimap of this owner has the value for any key.
+     * @param sm StateManager for the owner of the multimap
+     * @param value The value
+     * @return Whether the value is present
+     */
+    boolean containsValue(DNStateManager sm, Object value);
+
+    /**
+     * Accessor for the number of times the multimap of this owner holds the key-value pair.
+     * @param sm StateManager for the owner of the multimap
+     * @param key The key
+     * @param value The value
+     * @return The number of times the pair is held (0 if not present)
+     */
+    int countEntry(DNStateManager sm, Object key, Object value);
+
+    /**
+     * Accessor for the values of a key in the multimap of this owner.
+     * @param sm StateManager for the owner of the multimap
+     * @param key The key
+     * @return The values (empty if the key is not present)
+     */
+    List<V> getValues(DNStateManager sm, Object key);
+
+    /**
+     * Accessor for an iterator over the key-value pairs in the multimap of this owner.
+     * @param sm StateManager for the owner of the multimap
+     * @return The iterator
+     */
+    Iterator<Map.Entry<K, V>> entryIterator(DNStateManager sm);
+
+    /**
+     * Method to add a key-value pair to the multimap of this owner.
+     * @param sm StateManager for the owner of the multimap
+     * @param key The key
+     * @param value The value
+     */
+    void putEntry(DNStateManager sm, K key, V value);
+
+    /**
+     * Method to add key-value pairs to the multimap of this owner, as a single batch.
+     * @param sm StateManager for the owner of the multimap
+     * @param entries The key-value pairs
+     */
+    void putEntries(DNStateManager sm, com.google.common.collect.Multimap<? extends K, ? extends V> entries);
+
+    /**
+     * Method to remove one occurrence of a key-value pair from the multimap of this owner.
+     * @param sm StateManager for the owner of the multimap
+     * @param key The key
+     * @param value The value
+     * @return Whether the pair was present
+     */
+    boolean removeEntry(DNStateManager sm, Object key, Object value);
+
+    /**
+     * Method to remove all values of a key from the multimap of this owner.
+     * @param sm StateManager for the owner of the multimap
+     * @param key The key
+     * @return Whether the key was present
+     */
+    boolean removeKey(DNStateManager sm, Object key);
+
+    /**
+     * Method to remove all key-value pairs from the multimap of this owner.
+     * @param sm StateManager for the owner of the multimap
+     */
+    void clear(DNStateManager sm);
+}
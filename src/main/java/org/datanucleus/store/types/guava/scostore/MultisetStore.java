@@ -0,0 +1,230 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.scostore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.scostore.CollectionStore;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+
+/**
+ * Interface representation of the backing store for a Multiset, where the datastore holds one entry per
+ * distinct element together with its count (i.e (owner, element, count)) rather than one entry per occurrence.
+ * Any change in the count of an element is a single update (or upsert) of that entry, without having to read the
+ * current count first.
+ * A backed Multiset wrapper will use these methods when its backing store implements this interface, and fall back to
+ * the generic {@link CollectionStore} methods otherwise.
+ * @param <E> Type of element in this multiset
+ */
+public interface MultisetStore<E> extends CollectionStore<E>
+{
+    /**
+     * Accessor for the number of occurrences of the element in the multiset of this owner.
+     * @param sm StateManager for the owner of the multiset
+     * @param element The element
+     * @return The count of the element (0 if not present)
+     */
+    int count(DNStateManager sm, Object element);
+
+    /**
+     * Accessor for the number of distinct elements in the multiset of this owner.
+     * @param sm StateManager for the owner of the multiset
+     * @return The number of distinct elements
+     */
+    int elementSetSize(DNStateManager sm);
+
+    /**
+     * Accessor for an iterator over the distinct elements in the multiset of this owner.
+     * Each distinct element is returned once, so the datastore should only return one row per element
+     * (e.g "SELECT DISTINCT element" or "GROUP BY element") rather than one per occurrence.
+     * @param sm StateManager for the owner of the multiset
+     * @return Iterator over the distinct elements
+     */
+    Iterator<E> elementIterator(DNStateManager sm);
+
+    /**
+     * Accessor for an iterator over the entries (distinct element and its count) in the multiset of this owner.
+     * Each distinct element is returned once with its count (e.g "SELECT element, COUNT(*) ... GROUP BY element").
+     * @param sm StateManager for the owner of the multiset
+     * @return Iterator over the entries
+     */
+    Iterator<com.google.common.collect.Multiset.Entry<E>> entryIterator(DNStateManager sm);
+
+    /**
+     * Accessor for a chunk of the entries (distinct element and its count) in the multiset of this owner, in an order
+     * that is stable between calls (e.g ordered by the element id). Implementations should continue from the element
+     * of the last entry of the previous chunk, only reading the requested entries from the datastore
+     * (e.g "WHERE element &gt; ? ORDER BY element FETCH FIRST ? ROWS ONLY"), so that reading each chunk doesn't get
+     * slower as the iteration proceeds. This default skips through {@link #entryIterator(DNStateManager)} to the
+     * position of the chunk, for stores that cannot continue from an element.
+     * @param sm StateManager for the owner of the multiset
+     * @param lastElement Element of the last entry of the previous chunk, or null for the first chunk
+     * @param firstEntry Position of the first entry to return (starting at 0), for stores that cannot continue from
+     *     lastElement
+     * @param maxEntries Maximum number of entries to return
+     * @return The entries (fewer than maxEntries when the end of the multiset is reached)
+     */
+    default List<com.google.common.collect.Multiset.Entry<E>> entries(DNStateManager sm, E lastElement, int firstEntry, int maxEntries)
+    {
+        Iterator<com.google.common.collect.Multiset.Entry<E>> iter = entryIterator(sm);
+        Iterators.advance(iter, firstEntry);
+        List<com.google.common.collect.Multiset.Entry<E>> entries = new ArrayList<>(maxEntries);
+        while (iter.hasNext() && entries.size() < maxEntries)
+        {
+            entries.add(iter.next());
+        }
+        return entries;
+    }
+
+    /**
+     * Method to add occurrences of an element to the multiset of this owner.
+     * @param sm StateManager for the owner of the multiset
+     * @param element The element
+     * @param occurrences Number of occurrences to add (non-negative)
+     * @return Whether the datastore was changed
+     */
+    boolean addOccurrences(DNStateManager sm, E element, int occurrences);
+
+    /**
+     * Method to remove occurrences of an element from the multiset of this owner.
+     * If the count of the element drops to 0 (or below) its entry is removed.
+     * @param sm StateManager for the owner of the multiset
+     * @param element The element
+     * @param occurrences Number of occurrences to remove (non-negative)
+     * @return Whether the datastore was changed
+     */
+    boolean removeOccurrences(DNStateManager sm, Object element, int occurrences);
+
+    /**
+     * Method to set the count of an element in the multiset of this owner.
+     * A count of 0 removes the entry for the element.
+     * @param sm StateManager for the owner of the multiset
+     * @param element The element
+     * @param count The required count (non-negative)
+     * @return Whether the datastore was changed
+     */
+    boolean setCount(DNStateManager sm, E element, int count);
+
+    /**
+     * Accessor for the entries (distinct element and its count) in the multisets of several owners of this field.
+     * Implementations should read these with a single query restricted to the owners (e.g "WHERE owner IN (...)")
+     * so that loading the multisets of many owners is not one query per owner; this default reads each in turn.
+     * @param sms StateManagers for the owners of the multisets
+     * @return The entries of the multiset of each owner (owners with an empty multiset may be omitted)
+     */
+    default Map<DNStateManager, List<com.google.common.collect.Multiset.Entry<E>>> entries(Collection<DNStateManager> sms)
+    {
+        Map<DNStateManager, List<com.google.common.collect.Multiset.Entry<E>>> entriesByOwner = new HashMap<>(sms.size());
+        for (DNStateManager sm : sms)
+        {
+            entriesByOwner.put(sm, Lists.newArrayList(entryIterator(sm)));
+        }
+        return entriesByOwner;
+    }
+
+    /**
+     * Accessor for the counts of the specified elements in the multiset of this owner.
+     * Implementations should read these with a single query (e.g "WHERE element IN (...)"); this default counts each
+     * element in turn.
+     * @param sm StateManager for the owner of the multiset
+     * @param elements The elements
+     * @return The count of each of the elements that is present (elements not present are omitted)
+     */
+    default Map<E, Integer> counts(DNStateManager sm, Collection<?> elements)
+    {
+        Map<E, Integer> counts = new HashMap<>();
+        for (Object element : elements)
+        {
+            int count = count(sm, element);
+            if (count > 0)
+            {
+                counts.put((E) element, count);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Accessor for whether the multiset of this owner contains all of the specified elements.
+     * Implementations should answer this with a single query (e.g comparing "COUNT(DISTINCT element) ... WHERE element
+     * IN (...)" with the number of distinct elements specified); this default uses {@link #counts(DNStateManager, Collection)}.
+     * @param sm StateManager for the owner of the multiset
+     * @param elements The (distinct) elements
+     * @return Whether all are contained
+     */
+    default boolean containsAll(DNStateManager sm, Collection<?> elements)
+    {
+        return counts(sm, elements).size() == elements.size();
+    }
+
+    /**
+     * Method to remove all occurrences of all elements of the multiset of this owner that are not in the specified
+     * elements. Implementations should do this with a single statement (e.g "DELETE ... WHERE element NOT IN (...)");
+     * this default finds the entries to remove using {@link #entryIterator(DNStateManager)} and removes them as a batch.
+     * @param sm StateManager for the owner of the multiset
+     * @param elements The elements to retain
+     * @return Whether the datastore was changed
+     */
+    default boolean retainAll(DNStateManager sm, Collection<?> elements)
+    {
+        Map<E, Integer> deltas = new HashMap<>();
+        Iterator<com.google.common.collect.Multiset.Entry<E>> iter = entryIterator(sm);
+        while (iter.hasNext())
+        {
+            com.google.common.collect.Multiset.Entry<E> entry = iter.next();
+            if (!elements.contains(entry.getElement()))
+            {
+                deltas.put(entry.getElement(), -entry.getCount());
+            }
+        }
+        return !deltas.isEmpty() && updateCounts(sm, deltas);
+    }
+
+    /**
+     * Method to change the counts of several elements of the multiset of this owner.
+     * Implementations should pass these to the datastore as a batch; this default applies each change in turn.
+     * @param sm StateManager for the owner of the multiset
+     * @param deltas Change in count of each element (positive to add occurrences, negative to remove them)
+     * @return Whether the datastore was changed
+     */
+    default boolean updateCounts(DNStateManager sm, Map<? extends E, Integer> deltas)
+    {
+        boolean modified = false;
+        for (Map.Entry<? extends E, Integer> entry : deltas.entrySet())
+        {
+            int delta = entry.getValue();
+            if (delta > 0)
+            {
+                modified |= addOccurrences(sm, entry.getKey(), delta);
+            }
+            else if (delta < 0)
+            {
+                modified |= removeOccurrences(sm, entry.getKey(), -delta);
+            }
+        }
+        return modified;
+    }
+}
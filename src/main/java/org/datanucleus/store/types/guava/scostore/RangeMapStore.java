@@ -0,0 +1,90 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.scostore;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.scostore.Store;
+
+import com.google.common.collect.Range;
+
+/**
+ * Interface representation of the backing store for a RangeMap, where the datastore holds one entry per range of the
+ * map, i.e (owner, range, value). The entry for a key is looked up against the ranges in the datastore, so doesn't
+ * need the whole map. A change to the map only affects the entries whose range is connected to the range changed, so
+ * is made by replacing those entries with the result of the change, which is worked out by the caller.
+ * @param <K> Type of the endpoints of the ranges
+ * @param <V> Type of the value
+ */
+public interface RangeMapStore<K extends Comparable, V> extends Store
+{
+    /**
+     * Accessor for the number of ranges in the map of this owner.
+     * @param sm StateManager for the owner of the map
+     * @return The number of ranges
+     */
+    int size(DNStateManager sm);
+
+    /**
+     * Accessor for an iterator over the entries (range, value) of the map of this owner.
+     * @param sm StateManager for the owner of the map
+     * @return The iterator
+     */
+    Iterator<Map.Entry<Range<K>, V>> entryIterator(DNStateManager sm);
+
+    /**
+     * Accessor for the entry of the map of this owner whose range contains the key.
+     * @param sm StateManager for the owner of the map
+     * @param key The key
+     * @return The entry (or null if no range contains the key)
+     */
+    Map.Entry<Range<K>, V> getEntry(DNStateManager sm, K key);
+
+    /**
+     * Accessor for the entries of the map of this owner whose ranges are connected to the specified range
+     * (see Range.isConnected).
+     * @param sm StateManager for the owner of the map
+     * @param range The range
+     * @return The connected entries
+     */
+    Map<Range<K>, V> getConnectedEntries(DNStateManager sm, Range<K> range);
+
+    /**
+     * Method to replace the entries of the map of this owner whose ranges are connected to the specified range by the
+     * specified entries (whose ranges are all connected to it).
+     * @param sm StateManager for the owner of the map
+     * @param range The range
+     * @param entries The entries replacing the connected entries
+     */
+    void replaceConnectedEntries(DNStateManager sm, Range<K> range, Map<Range<K>, ? extends V> entries);
+
+    /**
+     * Method to add entries to the map of this owner, whose ranges don't overlap any range it holds.
+     * @param sm StateManager for the owner of the map
+     * @param entries The entries
+     */
+    void putEntries(DNStateManager sm, Map<Range<K>, ? extends V> entries);
+
+    /**
+     * Method to remove all entries from the map of this owner.
+     * @param sm StateManager for the owner of the map
+     */
+    void clear(DNStateManager sm);
+}
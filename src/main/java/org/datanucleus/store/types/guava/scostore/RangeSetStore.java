@@ -0,0 +1,97 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.scostore;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.scostore.Store;
+
+import com.google.common.collect.Range;
+
+/**
+ * Interface representation of the backing store for a RangeSet, where the datastore holds one entry per (coalesced)
+ * range of the set, i.e (owner, range). Lookups of a value or range are made against the ranges in the datastore, so
+ * don't need the whole set. A change to the set only affects the ranges connected to the range added or removed, so is
+ * made by replacing those ranges with the result of the change, which is worked out by the caller.
+ * @param <C> Type of the endpoints of the ranges
+ */
+public interface RangeSetStore<C extends Comparable> extends Store
+{
+    /**
+     * Accessor for the number of ranges in the set of this owner.
+     * @param sm StateManager for the owner of the set
+     * @return The number of ranges
+     */
+    int size(DNStateManager sm);
+
+    /**
+     * Accessor for an iterator over the ranges in the set of this owner.
+     * @param sm StateManager for the owner of the set
+     * @return The iterator
+     */
+    Iterator<Range<C>> iterator(DNStateManager sm);
+
+    /**
+     * Accessor for the range of the set of this owner that contains the value.
+     * @param sm StateManager for the owner of the set
+     * @param value The value
+     * @return The range containing the value (or null if not contained)
+     */
+    Range<C> rangeContaining(DNStateManager sm, C value);
+
+    /**
+     * Accessor for whether a range of the set of this owner encloses the specified range.
+     * @param sm StateManager for the owner of the set
+     * @param range The range
+     * @return Whether the range is enclosed
+     */
+    boolean encloses(DNStateManager sm, Range<C> range);
+
+    /**
+     * Accessor for the ranges of the set of this owner that are connected to the specified range (see Range.isConnected).
+     * @param sm StateManager for the owner of the set
+     * @param range The range
+     * @return The connected ranges
+     */
+    List<Range<C>> getConnectedRanges(DNStateManager sm, Range<C> range);
+
+    /**
+     * Method to replace the ranges of the set of this owner that are connected to the specified range by the
+     * specified ranges (that are all connected to it).
+     * @param sm StateManager for the owner of the set
+     * @param range The range
+     * @param ranges The ranges replacing the connected ranges
+     */
+    void replaceConnectedRanges(DNStateManager sm, Range<C> range, Collection<Range<C>> ranges);
+
+    /**
+     * Method to add ranges to the set of this owner, which are not connected to any range it holds.
+     * @param sm StateManager for the owner of the set
+     * @param ranges The ranges
+     */
+    void addRanges(DNStateManager sm, Collection<Range<C>> ranges);
+
+    /**
+     * Method to remove all ranges from the set of this owner.
+     * @param sm StateManager for the owner of the set
+     */
+    void clear(DNStateManager sm);
+}
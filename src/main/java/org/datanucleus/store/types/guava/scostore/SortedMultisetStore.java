@@ -0,0 +1,50 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.scostore;
+
+import java.util.List;
+
+import org.datanucleus.state.DNStateManager;
+
+import com.google.common.collect.BoundType;
+
+/**
+ * Interface representation of the backing store for a SortedMultiset, adding queries of the entries in a range of
+ * elements, in order. The datastore should hold an index on the element so that these are bounded reads.
+ * A backed SortedMultiset wrapper will use this when its backing store implements this interface and the member uses
+ * the natural ordering of its elements, so the order of the datastore must be consistent with that natural ordering
+ * (e.g a binary collation for String elements).
+ * @param <E> Type of element in this multiset
+ */
+public interface SortedMultisetStore<E> extends MultisetStore<E>
+{
+    /**
+     * Accessor for the entries (distinct element and its count) in a range of elements of the multiset of this owner,
+     * in order of the element (e.g "WHERE element &gt;= ? ORDER BY element DESC FETCH FIRST ? ROWS ONLY").
+     * @param sm StateManager for the owner of the multiset
+     * @param lower The lower bound (ignored when unbounded below)
+     * @param lowerType Type of the lower bound, or null when unbounded below
+     * @param upper The upper bound (ignored when unbounded above)
+     * @param upperType Type of the upper bound, or null when unbounded above
+     * @param descending Whether to return the entries in descending order
+     * @param maxEntries Maximum number of entries to return, or -1 for all in the range
+     * @return The entries
+     */
+    List<com.google.common.collect.Multiset.Entry<E>> rangeEntries(DNStateManager sm, E lower, BoundType lowerType, E upper, BoundType upperType,
+            boolean descending, int maxEntries);
+}
@@ -0,0 +1,474 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.wrappers;
+
+import java.io.ObjectStreamException;
+import java.util.Map;
+import java.util.Set;
+
+import org.datanucleus.FetchPlanState;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.SCOMap;
+import org.datanucleus.store.types.SCOUtils;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ForwardingMap;
+import com.google.common.collect.HashBiMap;
+
+/**
+ * A mutable second-class BiMap object.
+ * This is the simplified form that intercepts mutators and marks the field as dirty.
+ * The inverse view passes its mutators through this object so they are likewise intercepted.
+ */
+public class BiMap<K, V> extends ForwardingMap<K, V> implements com.google.common.collect.BiMap<K, V>, SCOMap<com.google.common.collect.BiMap<K, V>, K, V>, Cloneable
+{
+    protected transient DNStateManager ownerSM;
+    protected transient AbstractMemberMetaData ownerMmd;
+
+    /** The internal "delegate". */
+    protected com.google.common.collect.BiMap<K, V> delegate;
+
+    /** Inverse view of this BiMap, created when first requested. */
+    protected transient InverseBiMap inverse;
+
+    /**
+     * Constructor, using StateManager of the "owner" and the member.
+     * @param sm The owner StateManager
+     * @param mmd Metadata for the member.
+     */
+    public BiMap(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        this.ownerSM = sm;
+        this.ownerMmd = mmd;
+    }
+
+    public void initialise(com.google.common.collect.BiMap<K, V> newValue, Object oldValue)
+    {
+        initialise(newValue);
+    }
+
+    /**
+     * Method to initialise the SCO from an existing value.
+     * @param m The object to set from
+     */
+    public void initialise(com.google.common.collect.BiMap<K, V> m)
+    {
+        delegate = HashBiMap.create();
+        if (m != null)
+        {
+            delegate.putAll(m); // Make copy of the entries rather than using same memory
+        }
+        if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+        {
+            NucleusLogger.PERSISTENCE.debug(Localiser.msg("023003", this.getClass().getName(), ownerSM.getObjectAsPrintable(), ownerMmd.getName(), "" + size(),
+                SCOUtils.getSCOWrapperOptionsMessage(true, false, true, false)));
+        }
+    }
+
+    /**
+     * Method to initialise the SCO for use.
+     */
+    public void initialise()
+    {
+        initialise(null);
+    }
+
+    // ----------------------- Implementation of SCO methods -------------------
+
+    /**
+     * Accessor for the unwrapped value that we are wrapping.
+     * @return The unwrapped value
+     */
+    public com.google.common.collect.BiMap<K, V> getValue()
+    {
+        return delegate;
+    }
+
+    public void setValue(com.google.common.collect.BiMap<K, V> value)
+    {
+        this.delegate = value;
+    }
+
+    /**
+     * Method to effect the load of the data in the SCO.
+     * Used when the SCO supports lazy-loading to tell it to load all now.
+     */
+    public void load()
+    {
+        // Always loaded
+    }
+
+    /**
+     * Method to return if the SCO has its contents loaded. Returns true.
+     * @return Whether it is loaded
+     */
+    public boolean isLoaded()
+    {
+        return true;
+    }
+
+    /**
+     * Method to update an embedded key in this map.
+     * @param key The key
+     * @param fieldNumber Number of field in the key
+     * @param newValue New value for this field
+     * @param makeDirty Whether to make the SCO field dirty.
+     */
+    public void updateEmbeddedKey(K key, int fieldNumber, Object newValue, boolean makeDirty)
+    {
+        if (makeDirty)
+        {
+            // Just mark field in embedded owners as dirty
+            makeDirty();
+        }
+    }
+
+    /**
+     * Method to update an embedded value in this map.
+     * @param value The value
+     * @param fieldNumber Number of field in the value
+     * @param newValue New value for this field
+     * @param makeDirty Whether to make the SCO field dirty.
+     */
+    public void updateEmbeddedValue(V value, int fieldNumber, Object newValue, boolean makeDirty)
+    {
+        if (makeDirty)
+        {
+            // Just mark field in embedded owners as dirty
+            makeDirty();
+        }
+    }
+
+    /**
+     * Accessor for the field name.
+     * @return The field name
+     */
+    public String getFieldName()
+    {
+        return ownerMmd.getName();
+    }
+
+    /**
+     * Accessor for the owner object.
+     * @return The owner object
+     */
+    public Object getOwner()
+    {
+        return (ownerSM != null ? ownerSM.getObject() : null);
+    }
+
+    /**
+     * Method to unset the owner and field information.
+     */
+    public synchronized void unsetOwner()
+    {
+        if (ownerSM != null)
+        {
+            ownerSM = null;
+            ownerMmd = null;
+        }
+    }
+
+    /**
+     * Utility to mark the object as dirty
+     **/
+    public void makeDirty()
+    {
+        if (ownerSM != null)
+        {
+            ownerSM.makeDirty(ownerMmd.getAbsoluteFieldNumber());
+        }
+    }
+
+    /**
+     * Method to return a detached copy of the container.
+     * Recurses through the keys/values so that they are likewise detached.
+     * @param state State for detachment process
+     * @return The detached container
+     */
+    public com.google.common.collect.BiMap<K, V> detachCopy(FetchPlanState state)
+    {
+        com.google.common.collect.BiMap<K, V> detached = HashBiMap.create();
+        SCOUtils.detachCopyForMap(ownerSM, entrySet(), state, detached);
+        return detached;
+    }
+
+    /**
+     * Method to return an attached copy of the passed (detached) value. The returned attached copy
+     * is a SCO wrapper. Goes through the existing keys/values in the store for this owner field and
+     * removes ones no longer present, and adds new keys/values. All keys/values in the (detached)
+     * value are attached.
+     * @param value The new (map) value
+     */
+    public void attachCopy(com.google.common.collect.BiMap<K, V> value)
+    {
+        boolean keysWithoutIdentity = SCOUtils.mapHasKeysWithoutIdentity(ownerMmd);
+        boolean valuesWithoutIdentity = SCOUtils.mapHasValuesWithoutIdentity(ownerMmd);
+
+        java.util.Map attachedKeysValues = new java.util.HashMap(value.size());
+        SCOUtils.attachCopyForMap(ownerSM, value.entrySet(), attachedKeysValues, keysWithoutIdentity, valuesWithoutIdentity);
+
+        // Update the attached map with the detached elements
+        SCOUtils.updateMapWithMapKeysValues(ownerSM.getExecutionContext().getApiAdapter(), this, attachedKeysValues);
+    }
+
+    // ------------------ Implementation of methods --------------------
+
+    /**
+     * Creates and returns a copy of this object.
+     * @return The cloned object
+     */
+    public Object clone()
+    {
+        return HashBiMap.create(delegate);
+    }
+
+    /**
+     * Accessor for the key that the value is mapped against.
+     * @param value The value
+     * @return The key (or null if not present)
+     */
+    protected K getKeyForValue(Object value)
+    {
+        return delegate.inverse().get(value);
+    }
+
+    /**
+     * Accessor for the delegate to use for the inverse view.
+     * @return The inverse of the delegate
+     */
+    protected com.google.common.collect.BiMap<V, K> inverseDelegate()
+    {
+        return delegate.inverse();
+    }
+
+    /**
+     * Accessor for the inverse view of this BiMap.
+     * @return The inverse view
+     */
+    public com.google.common.collect.BiMap<V, K> inverse()
+    {
+        if (inverse == null)
+        {
+            inverse = new InverseBiMap();
+        }
+        return inverse;
+    }
+
+    /**
+     * Accessor for the set of values in the map.
+     * @return The values
+     */
+    public Set<V> values()
+    {
+        return delegate.values();
+    }
+
+    /**
+     * Method to add a key-value pair to the map.
+     * @param key The key
+     * @param value The value
+     * @return The previous value for this key
+     * @throws IllegalArgumentException if the value is already mapped against a different key
+     */
+    public V put(K key, V value)
+    {
+        V oldValue = delegate.put(key, value);
+        makeDirty();
+        return oldValue;
+    }
+
+    /**
+     * Method to add a key-value pair to the map, removing any other key mapped to the same value.
+     * @param key The key
+     * @param value The value
+     * @return The previous value for this key
+     */
+    public V forcePut(K key, V value)
+    {
+        V oldValue = delegate.forcePut(key, value);
+        makeDirty();
+        return oldValue;
+    }
+
+    /**
+     * Method to add the entries of a map to this map.
+     * @param m The map
+     */
+    public void putAll(Map<? extends K, ? extends V> m)
+    {
+        delegate.putAll(m);
+        makeDirty();
+    }
+
+    /**
+     * Method to remove the entry for a key.
+     * @param key The key
+     * @return The value for this key that was removed
+     */
+    public V remove(Object key)
+    {
+        boolean contained = delegate.containsKey(key);
+        V value = delegate.remove(key);
+        if (contained)
+        {
+            makeDirty();
+        }
+        return value;
+    }
+
+    /**
+     * Method to clear the map.
+     */
+    public void clear()
+    {
+        delegate.clear();
+        makeDirty();
+    }
+
+    /**
+     * The writeReplace method is called when ObjectOutputStream is preparing
+     * to write the object to the stream. The ObjectOutputStream checks
+     * whether the class defines the writeReplace method. If the method is
+     * defined, the writeReplace method is called to allow the object to
+     * designate its replacement in the stream. The object returned should be
+     * either of the same type as the object passed in or an object that when
+     * read and resolved will result in an object of a type that is compatible
+     * with all references to the object.
+     * @return the replaced object
+     * @throws ObjectStreamException if an error occurs
+     */
+    protected Object writeReplace() throws ObjectStreamException
+    {
+        return HashBiMap.create(delegate);
+    }
+
+    @Override
+    protected com.google.common.collect.BiMap<K, V> delegate()
+    {
+        return delegate;
+    }
+
+    /**
+     * Inverse view of the BiMap. Lookups are answered by the owning BiMap (so a backed BiMap can answer them
+     * from the datastore), and mutators are passed through the owning BiMap so they are intercepted.
+     */
+    protected class InverseBiMap extends ForwardingMap<V, K> implements com.google.common.collect.BiMap<V, K>
+    {
+        @Override
+        protected com.google.common.collect.BiMap<V, K> delegate()
+        {
+            return inverseDelegate();
+        }
+
+        @Override
+        public K get(Object value)
+        {
+            return getKeyForValue(value);
+        }
+
+        @Override
+        public boolean containsKey(Object value)
+        {
+            return BiMap.this.containsValue(value);
+        }
+
+        @Override
+        public boolean containsValue(Object key)
+        {
+            return BiMap.this.containsKey(key);
+        }
+
+        @Override
+        public int size()
+        {
+            return BiMap.this.size();
+        }
+
+        @Override
+        public Set<K> values()
+        {
+            return delegate().values();
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return BiMap.this.isEmpty();
+        }
+
+        @Override
+        public K put(V value, K key)
+        {
+            K oldKey = getKeyForValue(value);
+            if (Objects.equal(oldKey, key) && BiMap.this.containsKey(key))
+            {
+                return oldKey;
+            }
+            if (BiMap.this.containsKey(key))
+            {
+                throw new IllegalArgumentException("value already present: " + key);
+            }
+            BiMap.this.forcePut(key, value);
+            return oldKey;
+        }
+
+        @Override
+        public K forcePut(V value, K key)
+        {
+            K oldKey = getKeyForValue(value);
+            BiMap.this.forcePut(key, value);
+            return oldKey;
+        }
+
+        @Override
+        public void putAll(Map<? extends V, ? extends K> m)
+        {
+            for (Map.Entry<? extends V, ? extends K> entry : m.entrySet())
+            {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        @Override
+        public K remove(Object value)
+        {
+            K key = getKeyForValue(value);
+            if (key != null || BiMap.this.containsValue(value))
+            {
+                BiMap.this.remove(key);
+            }
+            return key;
+        }
+
+        @Override
+        public void clear()
+        {
+            BiMap.this.clear();
+        }
+
+        @Override
+        public com.google.common.collect.BiMap<K, V> inverse()
+        {
+            return BiMap.this;
+        }
+    }
+}
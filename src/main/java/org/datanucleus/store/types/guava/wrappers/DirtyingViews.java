@@ -0,0 +1,638 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.wrappers;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.google.common.collect.ForwardingCollection;
+import com.google.common.collect.ForwardingIterator;
+import com.google.common.collect.ForwardingList;
+import com.google.common.collect.ForwardingListIterator;
+import com.google.common.collect.ForwardingMap;
+import com.google.common.collect.ForwardingMapEntry;
+import com.google.common.collect.ForwardingMultiset;
+import com.google.common.collect.ForwardingSet;
+import com.google.common.collect.Iterators;
+
+/**
+ * Utility providing views of the views of a container (e.g Multimap.get(), Multimap.asMap()) that mark the owning field
+ * as dirty when they are mutated. Since the container is stored as a whole, any change made via one of its views
+ * has to be notified to the owner in the same way as a change made via the container itself.
+ * Views that are returned by a view (e.g the values of Multimap.asMap()) are wrapped in the same way, using the
+ * supplied function.
+ */
+final class DirtyingViews
+{
+    private DirtyingViews()
+    {
+    }
+
+    /**
+     * Accessor for a view of a collection that notifies the supplied callback when it is changed.
+     * Returns a List (or Set) view when the collection is a List (or Set).
+     * @param coll The collection
+     * @param onChange Callback to invoke when the collection is changed
+     * @return The view
+     * @param <E> Type of the elements
+     */
+    static <E> Collection<E> collection(Collection<E> coll, Runnable onChange)
+    {
+        if (coll == null)
+        {
+            return null;
+        }
+        else if (coll instanceof List)
+        {
+            return list((List<E>) coll, onChange);
+        }
+        else if (coll instanceof Set)
+        {
+            return set((Set<E>) coll, onChange);
+        }
+        return new DirtyingCollection<>(coll, onChange);
+    }
+
+    /**
+     * Accessor for a view of a set that notifies the supplied callback when it is changed.
+     * @param set The set
+     * @param onChange Callback to invoke when the set is changed
+     * @return The view
+     * @param <E> Type of the elements
+     */
+    static <E> Set<E> set(Set<E> set, Runnable onChange)
+    {
+        return set != null ? new DirtyingSet<>(set, onChange) : null;
+    }
+
+    /**
+     * Accessor for a view of a list that notifies the supplied callback when it is changed.
+     * @param list The list
+     * @param onChange Callback to invoke when the list is changed
+     * @return The view
+     * @param <E> Type of the elements
+     */
+    static <E> List<E> list(List<E> list, Runnable onChange)
+    {
+        return list != null ? new DirtyingList<>(list, onChange) : null;
+    }
+
+    /**
+     * Accessor for a view of a multiset that notifies the supplied callback when it is changed.
+     * @param multiset The multiset
+     * @param onChange Callback to invoke when the multiset is changed
+     * @return The view
+     * @param <E> Type of the elements
+     */
+    static <E> com.google.common.collect.Multiset<E> multiset(com.google.common.collect.Multiset<E> multiset, Runnable onChange)
+    {
+        return multiset != null ? new DirtyingMultiset<>(multiset, onChange) : null;
+    }
+
+    /**
+     * Accessor for a view of a map that notifies the supplied callback when it is changed.
+     * @param map The map
+     * @param onChange Callback to invoke when the map is changed
+     * @return The view
+     * @param <K> Type of the keys
+     * @param <V> Type of the values
+     */
+    static <K, V> Map<K, V> map(Map<K, V> map, Runnable onChange)
+    {
+        return map(map, onChange, Function.identity());
+    }
+
+    /**
+     * Accessor for a view of a map that notifies the supplied callback when it is changed, and whose values are
+     * themselves views (e.g the value collections of Multimap.asMap()).
+     * @param map The map
+     * @param onChange Callback to invoke when the map is changed
+     * @param valueView Function returning the view of a value of the map
+     * @return The view
+     * @param <K> Type of the keys
+     * @param <V> Type of the values
+     */
+    static <K, V> Map<K, V> map(Map<K, V> map, Runnable onChange, Function<V, V> valueView)
+    {
+        return map != null ? new DirtyingMap<>(map, onChange, valueView) : null;
+    }
+
+    static <E> Iterator<E> iterator(Iterator<E> iter, Runnable onChange)
+    {
+        return new ForwardingIterator<E>()
+        {
+            @Override
+            protected Iterator<E> delegate()
+            {
+                return iter;
+            }
+
+            @Override
+            public void remove()
+            {
+                iter.remove();
+                onChange.run();
+            }
+        };
+    }
+
+    static <E> ListIterator<E> listIterator(ListIterator<E> iter, Runnable onChange)
+    {
+        return new ForwardingListIterator<E>()
+        {
+            @Override
+            protected ListIterator<E> delegate()
+            {
+                return iter;
+            }
+
+            @Override
+            public void remove()
+            {
+                iter.remove();
+                onChange.run();
+            }
+
+            @Override
+            public void set(E element)
+            {
+                iter.set(element);
+                onChange.run();
+            }
+
+            @Override
+            public void add(E element)
+            {
+                iter.add(element);
+                onChange.run();
+            }
+        };
+    }
+
+    static class DirtyingCollection<E> extends ForwardingCollection<E>
+    {
+        final Collection<E> delegate;
+        final Runnable onChange;
+
+        DirtyingCollection(Collection<E> delegate, Runnable onChange)
+        {
+            this.delegate = delegate;
+            this.onChange = onChange;
+        }
+
+        @Override
+        protected Collection<E> delegate()
+        {
+            return delegate;
+        }
+
+        boolean changed(boolean changed)
+        {
+            if (changed)
+            {
+                onChange.run();
+            }
+            return changed;
+        }
+
+        @Override
+        public Iterator<E> iterator()
+        {
+            return DirtyingViews.iterator(delegate.iterator(), onChange);
+        }
+
+        @Override
+        public boolean add(E element)
+        {
+            return changed(delegate.add(element));
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends E> elements)
+        {
+            return changed(delegate.addAll(elements));
+        }
+
+        @Override
+        public boolean remove(Object element)
+        {
+            return changed(delegate.remove(element));
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> elements)
+        {
+            return changed(delegate.removeAll(elements));
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> elements)
+        {
+            return changed(delegate.retainAll(elements));
+        }
+
+        @Override
+        public void clear()
+        {
+            delegate.clear();
+            onChange.run();
+        }
+    }
+
+    static class DirtyingSet<E> extends ForwardingSet<E>
+    {
+        final DirtyingCollection<E> coll;
+
+        DirtyingSet(Set<E> delegate, Runnable onChange)
+        {
+            this.coll = new DirtyingCollection<>(delegate, onChange);
+        }
+
+        @Override
+        protected Set<E> delegate()
+        {
+            return (Set<E>) coll.delegate;
+        }
+
+        @Override
+        public Iterator<E> iterator()
+        {
+            return coll.iterator();
+        }
+
+        @Override
+        public boolean add(E element)
+        {
+            return coll.add(element);
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends E> elements)
+        {
+            return coll.addAll(elements);
+        }
+
+        @Override
+        public boolean remove(Object element)
+        {
+            return coll.remove(element);
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> elements)
+        {
+            return coll.removeAll(elements);
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> elements)
+        {
+            return coll.retainAll(elements);
+        }
+
+        @Override
+        public void clear()
+        {
+            coll.clear();
+        }
+    }
+
+    static class DirtyingList<E> extends ForwardingList<E>
+    {
+        final DirtyingCollection<E> coll;
+
+        DirtyingList(List<E> delegate, Runnable onChange)
+        {
+            this.coll = new DirtyingCollection<>(delegate, onChange);
+        }
+
+        @Override
+        protected List<E> delegate()
+        {
+            return (List<E>) coll.delegate;
+        }
+
+        @Override
+        public Iterator<E> iterator()
+        {
+            return listIterator();
+        }
+
+        @Override
+        public ListIterator<E> listIterator()
+        {
+            return DirtyingViews.listIterator(delegate().listIterator(), coll.onChange);
+        }
+
+        @Override
+        public ListIterator<E> listIterator(int index)
+        {
+            return DirtyingViews.listIterator(delegate().listIterator(index), coll.onChange);
+        }
+
+        @Override
+        public List<E> subList(int fromIndex, int toIndex)
+        {
+            return list(delegate().subList(fromIndex, toIndex), coll.onChange);
+        }
+
+        @Override
+        public boolean add(E element)
+        {
+            return coll.add(element);
+        }
+
+        @Override
+        public void add(int index, E element)
+        {
+            delegate().add(index, element);
+            coll.onChange.run();
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends E> elements)
+        {
+            return coll.addAll(elements);
+        }
+
+        @Override
+        public boolean addAll(int index, Collection<? extends E> elements)
+        {
+            return coll.changed(delegate().addAll(index, elements));
+        }
+
+        @Override
+        public E set(int index, E element)
+        {
+            E previous = delegate().set(index, element);
+            coll.onChange.run();
+            return previous;
+        }
+
+        @Override
+        public boolean remove(Object element)
+        {
+            return coll.remove(element);
+        }
+
+        @Override
+        public E remove(int index)
+        {
+            E removed = delegate().remove(index);
+            coll.onChange.run();
+            return removed;
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> elements)
+        {
+            return coll.removeAll(elements);
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> elements)
+        {
+            return coll.retainAll(elements);
+        }
+
+        @Override
+        public void clear()
+        {
+            coll.clear();
+        }
+    }
+
+    static class DirtyingMultiset<E> extends ForwardingMultiset<E>
+    {
+        final DirtyingCollection<E> coll;
+
+        DirtyingMultiset(com.google.common.collect.Multiset<E> delegate, Runnable onChange)
+        {
+            this.coll = new DirtyingCollection<>(delegate, onChange);
+        }
+
+        @Override
+        protected com.google.common.collect.Multiset<E> delegate()
+        {
+            return (com.google.common.collect.Multiset<E>) coll.delegate;
+        }
+
+        @Override
+        public Iterator<E> iterator()
+        {
+            return coll.iterator();
+        }
+
+        @Override
+        public Set<E> elementSet()
+        {
+            return set(delegate().elementSet(), coll.onChange);
+        }
+
+        @Override
+        public Set<com.google.common.collect.Multiset.Entry<E>> entrySet()
+        {
+            return set(delegate().entrySet(), coll.onChange);
+        }
+
+        @Override
+        public boolean add(E element)
+        {
+            return coll.add(element);
+        }
+
+        @Override
+        public int add(E element, int occurrences)
+        {
+            int count = delegate().add(element, occurrences);
+            coll.changed(occurrences > 0);
+            return count;
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends E> elements)
+        {
+            return coll.addAll(elements);
+        }
+
+        @Override
+        public boolean remove(Object element)
+        {
+            return coll.remove(element);
+        }
+
+        @Override
+        public int remove(Object element, int occurrences)
+        {
+            int count = delegate().remove(element, occurrences);
+            coll.changed(count > 0 && occurrences > 0);
+            return count;
+        }
+
+        @Override
+        public int setCount(E element, int count)
+        {
+            int oldCount = delegate().setCount(element, count);
+            coll.changed(oldCount != count);
+            return oldCount;
+        }
+
+        @Override
+        public boolean setCount(E element, int oldCount, int newCount)
+        {
+            return coll.changed(delegate().setCount(element, oldCount, newCount) && oldCount != newCount);
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> elements)
+        {
+            return coll.removeAll(elements);
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> elements)
+        {
+            return coll.retainAll(elements);
+        }
+
+        @Override
+        public void clear()
+        {
+            coll.clear();
+        }
+    }
+
+    static class DirtyingMap<K, V> extends ForwardingMap<K, V>
+    {
+        final Map<K, V> delegate;
+        final Runnable onChange;
+        final Function<V, V> valueView;
+
+        DirtyingMap(Map<K, V> delegate, Runnable onChange, Function<V, V> valueView)
+        {
+            this.delegate = delegate;
+            this.onChange = onChange;
+            this.valueView = valueView;
+        }
+
+        @Override
+        protected Map<K, V> delegate()
+        {
+            return delegate;
+        }
+
+        @Override
+        public V get(Object key)
+        {
+            V value = delegate.get(key);
+            return value != null ? valueView.apply(value) : null;
+        }
+
+        @Override
+        public V put(K key, V value)
+        {
+            V previous = delegate.put(key, value);
+            onChange.run();
+            return previous;
+        }
+
+        @Override
+        public void putAll(Map<? extends K, ? extends V> map)
+        {
+            delegate.putAll(map);
+            onChange.run();
+        }
+
+        @Override
+        public V remove(Object key)
+        {
+            boolean present = delegate.containsKey(key);
+            V removed = delegate.remove(key);
+            if (present)
+            {
+                onChange.run();
+            }
+            return removed;
+        }
+
+        @Override
+        public void clear()
+        {
+            delegate.clear();
+            onChange.run();
+        }
+
+        @Override
+        public Set<K> keySet()
+        {
+            return set(delegate.keySet(), onChange);
+        }
+
+        @Override
+        public Collection<V> values()
+        {
+            return new DirtyingCollection<V>(delegate.values(), onChange)
+            {
+                @Override
+                public Iterator<V> iterator()
+                {
+                    return Iterators.transform(super.iterator(), valueView::apply);
+                }
+            };
+        }
+
+        @Override
+        public Set<Map.Entry<K, V>> entrySet()
+        {
+            return new DirtyingSet<Map.Entry<K, V>>(delegate.entrySet(), onChange)
+            {
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator()
+                {
+                    return Iterators.transform(super.iterator(), entry -> new ForwardingMapEntry<K, V>()
+                    {
+                        @Override
+                        protected Map.Entry<K, V> delegate()
+                        {
+                            return entry;
+                        }
+
+                        @Override
+                        public V getValue()
+                        {
+                            return valueView.apply(entry.getValue());
+                        }
+
+                        @Override
+                        public V setValue(V value)
+                        {
+                            V previous = entry.setValue(value);
+                            onChange.run();
+                            return previous;
+                        }
+                    });
+                }
+            };
+        }
+    }
+}
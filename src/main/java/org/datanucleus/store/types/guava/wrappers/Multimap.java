@@ -0,0 +1,407 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.wrappers;
+
+import java.io.ObjectStreamException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import org.datanucleus.FetchPlanState;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.SCOContainer;
+import org.datanucleus.store.types.SCOUtils;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ForwardingMultimap;
+
+/**
+ * A mutable second-class Multimap object.
+ * This is the simplified form that intercepts mutators and marks the field as dirty, used where the multimap has no
+ * backing store (e.g when serialised), so is stored and loaded as a whole.
+ * The views (get(), asMap(), entries(), keys(), keySet(), values()) are wrapped so that mutations made via them also
+ * mark the field as dirty (see {@link #viewChanged()}).
+ */
+public class Multimap<K, V> extends ForwardingMultimap<K, V> implements SCOContainer<com.google.common.collect.Multimap<K, V>>, Cloneable
+{
+    protected transient DNStateManager ownerSM;
+    protected transient AbstractMemberMetaData ownerMmd;
+
+    /** The internal "delegate". */
+    protected com.google.common.collect.Multimap<K, V> delegate;
+
+    /**
+     * Constructor, using StateManager of the "owner" and the member.
+     * @param sm The owner StateManager
+     * @param mmd Metadata for the member.
+     */
+    public Multimap(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        this.ownerSM = sm;
+        this.ownerMmd = mmd;
+    }
+
+    /**
+     * Method to create a new (empty) delegate of the type appropriate for this wrapper.
+     * @return The new delegate
+     */
+    protected com.google.common.collect.Multimap<K, V> newDelegate()
+    {
+        return ArrayListMultimap.create();
+    }
+
+    public void initialise(com.google.common.collect.Multimap<K, V> newValue, Object oldValue)
+    {
+        initialise(newValue);
+    }
+
+    /**
+     * Method to initialise the SCO from an existing value.
+     * @param m The object to set from
+     */
+    public void initialise(com.google.common.collect.Multimap<K, V> m)
+    {
+        delegate = newDelegate();
+        if (m != null)
+        {
+            delegate.putAll(m); // Make copy of the entries rather than using same memory
+        }
+        if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+        {
+            NucleusLogger.PERSISTENCE.debug(Localiser.msg("023003", this.getClass().getName(), ownerSM.getObjectAsPrintable(), ownerMmd.getName(), "" + size(),
+                SCOUtils.getSCOWrapperOptionsMessage(true, false, true, false)));
+        }
+    }
+
+    /**
+     * Method to initialise the SCO for use.
+     */
+    public void initialise()
+    {
+        initialise(null);
+    }
+
+    // ----------------------- Implementation of SCO methods -------------------
+
+    /**
+     * Accessor for the unwrapped value that we are wrapping.
+     * @return The unwrapped value
+     */
+    public com.google.common.collect.Multimap<K, V> getValue()
+    {
+        return delegate;
+    }
+
+    public void setValue(com.google.common.collect.Multimap<K, V> value)
+    {
+        this.delegate = value;
+    }
+
+    /**
+     * Method to effect the load of the data in the SCO.
+     * Used when the SCO supports lazy-loading to tell it to load all now.
+     */
+    public void load()
+    {
+        // Always loaded
+    }
+
+    /**
+     * Method to return if the SCO has its contents loaded. Returns true.
+     * @return Whether it is loaded
+     */
+    public boolean isLoaded()
+    {
+        return true;
+    }
+
+    /**
+     * Accessor for the field name.
+     * @return The field name
+     */
+    public String getFieldName()
+    {
+        return ownerMmd.getName();
+    }
+
+    /**
+     * Accessor for the owner object.
+     * @return The owner object
+     */
+    public Object getOwner()
+    {
+        return (ownerSM != null ? ownerSM.getObject() : null);
+    }
+
+    /**
+     * Method to unset the owner and field information.
+     */
+    public synchronized void unsetOwner()
+    {
+        if (ownerSM != null)
+        {
+            ownerSM = null;
+            ownerMmd = null;
+        }
+    }
+
+    /**
+     * Utility to mark the object as dirty
+     **/
+    public void makeDirty()
+    {
+        if (ownerSM != null)
+        {
+            ownerSM.makeDirty(ownerMmd.getAbsoluteFieldNumber());
+        }
+    }
+
+    /**
+     * Method called after the multimap has been changed via one of its views, marking the field as dirty.
+     */
+    protected void viewChanged()
+    {
+        makeDirty();
+    }
+
+    /**
+     * Method to return a detached copy of the container.
+     * @param state State for detachment process
+     * @return The detached container
+     */
+    public com.google.common.collect.Multimap<K, V> detachCopy(FetchPlanState state)
+    {
+        com.google.common.collect.Multimap<K, V> detached = newDelegate();
+        detached.putAll(delegate);
+        return detached;
+    }
+
+    /**
+     * Method to return an attached copy of the passed (detached) value. Replaces the entries of this multimap
+     * by those of the detached value where they differ.
+     * @param value The new (multimap) value
+     */
+    public void attachCopy(com.google.common.collect.Multimap<K, V> value)
+    {
+        if (value == null || delegate.equals(value))
+        {
+            return;
+        }
+        delegate.clear();
+        delegate.putAll(value);
+        makeDirty();
+    }
+
+    // ------------------ Implementation of methods --------------------
+
+    /**
+     * Creates and returns a copy of this object.
+     * @return The cloned object
+     */
+    public Object clone()
+    {
+        com.google.common.collect.Multimap<K, V> copy = newDelegate();
+        copy.putAll(delegate);
+        return copy;
+    }
+
+    /**
+     * Method to add a key-value pair to the multimap.
+     * @param key The key
+     * @param value The value
+     * @return Whether the multimap was changed
+     */
+    public boolean put(K key, V value)
+    {
+        boolean success = delegate.put(key, value);
+        if (success)
+        {
+            makeDirty();
+        }
+        return success;
+    }
+
+    /**
+     * Method to add values for a key to the multimap.
+     * @param key The key
+     * @param values The values
+     * @return Whether the multimap was changed
+     */
+    public boolean putAll(K key, Iterable<? extends V> values)
+    {
+        boolean success = delegate.putAll(key, values);
+        if (success)
+        {
+            makeDirty();
+        }
+        return success;
+    }
+
+    /**
+     * Method to add the entries of another multimap to this multimap.
+     * @param m The multimap
+     * @return Whether the multimap was changed
+     */
+    public boolean putAll(com.google.common.collect.Multimap<? extends K, ? extends V> m)
+    {
+        boolean success = delegate.putAll(m);
+        if (success)
+        {
+            makeDirty();
+        }
+        return success;
+    }
+
+    /**
+     * Method to remove a key-value pair from the multimap.
+     * @param key The key
+     * @param value The value
+     * @return Whether the multimap was changed
+     */
+    public boolean remove(Object key, Object value)
+    {
+        boolean success = delegate.remove(key, value);
+        if (success)
+        {
+            makeDirty();
+        }
+        return success;
+    }
+
+    /**
+     * Method to remove all values for a key from the multimap.
+     * @param key The key
+     * @return The values that were removed
+     */
+    public Collection<V> removeAll(Object key)
+    {
+        Collection<V> removed = delegate.removeAll(key);
+        if (!removed.isEmpty())
+        {
+            makeDirty();
+        }
+        return removed;
+    }
+
+    /**
+     * Method to replace the values for a key in the multimap.
+     * @param key The key
+     * @param values The new values
+     * @return The values that were replaced
+     */
+    public Collection<V> replaceValues(K key, Iterable<? extends V> values)
+    {
+        Collection<V> replaced = delegate.replaceValues(key, values);
+        makeDirty();
+        return replaced;
+    }
+
+    /**
+     * Method to clear the multimap.
+     */
+    public void clear()
+    {
+        delegate.clear();
+        makeDirty();
+    }
+
+    /**
+     * Accessor for a view of the values for a key, marking the field as dirty when it is changed.
+     * @param key The key
+     * @return The values for the key
+     */
+    public Collection<V> get(K key)
+    {
+        return DirtyingViews.collection(delegate.get(key), this::viewChanged);
+    }
+
+    /**
+     * Accessor for a view of the multimap as a map of key to values, marking the field as dirty when it (or the values
+     * of any key) is changed.
+     * @return The map view
+     */
+    public Map<K, Collection<V>> asMap()
+    {
+        Runnable onChange = this::viewChanged;
+        return DirtyingViews.map(delegate.asMap(), onChange, values -> DirtyingViews.collection(values, onChange));
+    }
+
+    /**
+     * Accessor for a view of the key-value pairs, marking the field as dirty when it is changed.
+     * @return The entries
+     */
+    public Collection<Map.Entry<K, V>> entries()
+    {
+        return DirtyingViews.collection(delegate.entries(), this::viewChanged);
+    }
+
+    /**
+     * Accessor for a view of the keys (with a count of the values of each), marking the field as dirty when it is changed.
+     * @return The keys
+     */
+    public com.google.common.collect.Multiset<K> keys()
+    {
+        return DirtyingViews.multiset(delegate.keys(), this::viewChanged);
+    }
+
+    /**
+     * Accessor for a view of the distinct keys, marking the field as dirty when it is changed.
+     * @return The keys
+     */
+    public Set<K> keySet()
+    {
+        return DirtyingViews.set(delegate.keySet(), this::viewChanged);
+    }
+
+    /**
+     * Accessor for a view of the values, marking the field as dirty when it is changed.
+     * @return The values
+     */
+    public Collection<V> values()
+    {
+        return DirtyingViews.collection(delegate.values(), this::viewChanged);
+    }
+
+    /**
+     * The writeReplace method is called when ObjectOutputStream is preparing
+     * to write the object to the stream. The ObjectOutputStream checks
+     * whether the class defines the writeReplace method. If the method is
+     * defined, the writeReplace method is called to allow the object to
+     * designate its replacement in the stream. The object returned should be
+     * either of the same type as the object passed in or an object that when
+     * read and resolved will result in an object of a type that is compatible
+     * with all references to the object.
+     * @return the replaced object
+     * @throws ObjectStreamException if an error occurs
+     */
+    protected Object writeReplace() throws ObjectStreamException
+    {
+        com.google.common.collect.Multimap<K, V> copy = newDelegate();
+        copy.putAll(delegate);
+        return copy;
+    }
+
+    @Override
+    protected com.google.common.collect.Multimap<K, V> delegate()
+    {
+        return delegate;
+    }
+}
@@ -20,14 +20,20 @@ package org.datanucleus.store.types.guava.wrappers;
 import java.io.ObjectStreamException;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import org.datanucleus.ExecutionContext;
 import org.datanucleus.FetchPlanState;
+import org.datanucleus.api.ApiAdapter;
 import org.datanucleus.metadata.AbstractMemberMetaData;
 import org.datanucleus.state.DNStateManager;
 import org.datanucleus.state.RelationshipManager;
 import org.datanucleus.store.types.SCOCollection;
 import org.datanucleus.store.types.SCOCollectionIterator;
 import org.datanucleus.store.types.SCOUtils;
+import org.datanucleus.store.types.guava.containers.MultisetHandler;
+import org.datanucleus.store.types.guava.converters.MultisetExternalForm;
 import org.datanucleus.util.Localiser;
 import org.datanucleus.util.NucleusLogger;
 
@@ -38,6 +44,7 @@ import com.google.common.collect.HashMultiset;
  * A mutable second-class MultiSet object.
  * This is the simplified form that intercepts mutators and marks the field as dirty.
  * Note that we cannot explicitly support HashMultiset etc since Google made these final.
+ * The delegate is of the Multiset implementation configured for the member (see {@link MultisetHandler}).
  */
 public class Multiset<E> extends ForwardingMultiset<E> implements SCOCollection<com.google.common.collect.Multiset<E>, E>, Cloneable
 {
@@ -60,7 +67,7 @@ public class Multiset<E> extends ForwardingMultiset<E> implements SCOCollection<
 
     public void initialise(com.google.common.collect.Multiset<E> newValue, Object oldValue)
     {
-        delegate = HashMultiset.create();
+        delegate = newDelegate(newValue != null ? newValue.elementSet().size() : -1);
         if (newValue != null)
         {
             delegate.addAll(newValue); // Make copy of the elements rather than using same memory
@@ -78,7 +85,7 @@ public class Multiset<E> extends ForwardingMultiset<E> implements SCOCollection<
      */
     public void initialise(com.google.common.collect.Multiset<E> c)
     {
-        delegate = HashMultiset.create();
+        delegate = newDelegate(c != null ? c.elementSet().size() : -1);
         if (c != null)
         {
             delegate.addAll(c); // Make copy of the elements rather than using same memory
@@ -95,7 +102,7 @@ public class Multiset<E> extends ForwardingMultiset<E> implements SCOCollection<
      */
     public void initialise()
     {
-        delegate = HashMultiset.create();
+        delegate = newDelegate(-1);
         if (NucleusLogger.PERSISTENCE.isDebugEnabled())
         {
             NucleusLogger.PERSISTENCE.debug(Localiser.msg("023003", this.getClass().getName(), ownerSM.getObjectAsPrintable(), ownerMmd.getName(), "" + size(), 
@@ -103,6 +110,16 @@ public class Multiset<E> extends ForwardingMultiset<E> implements SCOCollection<
         }
     }
 
+    /**
+     * Method to create a new (empty) delegate, of the Multiset implementation configured for this member.
+     * @param distinctElements Number of distinct elements about to be added, or -1 if not known
+     * @return The delegate
+     */
+    protected com.google.common.collect.Multiset<E> newDelegate(int distinctElements)
+    {
+        return MultisetHandler.newMultiset(ownerMmd, ownerSM != null ? ownerSM.getExecutionContext() : null, distinctElements);
+    }
+
     // ----------------------- Implementation of SCO methods -------------------
 
     /**
@@ -196,38 +213,107 @@ public class Multiset<E> extends ForwardingMultiset<E> implements SCOCollection<
 
     /**
      * Method to return a detached copy of the container.
-     * Recurse sthrough the elements so that they are likewise detached.
+     * Recurses through the distinct elements so that they are likewise detached, once each, retaining their counts.
      * @param state State for detachment process
      * @return The detached container
      */
     public com.google.common.collect.Multiset detachCopy(FetchPlanState state)
     {
-        com.google.common.collect.Multiset detached = HashMultiset.create();
-        SCOUtils.detachCopyForCollection(ownerSM.getExecutionContext(), toArray(), state, detached);
+        com.google.common.collect.Multiset<E> value = getValue();
+        com.google.common.collect.Multiset<E> detached = newDelegate(value.elementSet().size());
+
+        ExecutionContext ec = ownerSM.getExecutionContext();
+        ApiAdapter api = ec.getApiAdapter();
+        for (com.google.common.collect.Multiset.Entry<E> entry : value.entrySet())
+        {
+            E element = entry.getElement();
+            if (element != null && api.isPersistable(element))
+            {
+                element = (E) ec.detachObjectCopy(state, element);
+            }
+            detached.add(element, entry.getCount());
+        }
         return detached;
     }
 
     /**
      * Method to return an attached copy of the passed (detached) value. The returned attached copy
-     * is a SCO wrapper. Goes through the existing elements in the store for this owner field and
-     * removes ones no longer present, and adds new elements. All elements in the (detached)
-     * value are attached.
+     * is a SCO wrapper. Attaches each distinct element in the (detached) value once, and then changes the
+     * count of only those elements whose count differs from this multiset.
      * @param value The new (collection) value
      */
     public void attachCopy(com.google.common.collect.Multiset value)
     {
         boolean elementsWithoutIdentity = SCOUtils.collectionHasElementsWithoutIdentity(ownerMmd);
-        SCOUtils.attachCopyElements(ownerSM, this, value, elementsWithoutIdentity);
+        ExecutionContext ec = ownerSM.getExecutionContext();
+        ApiAdapter api = ec.getApiAdapter();
+
+        com.google.common.collect.Multiset<E> attached = HashMultiset.create(value.elementSet().size());
+        for (Object obj : value.entrySet())
+        {
+            com.google.common.collect.Multiset.Entry<E> entry = (com.google.common.collect.Multiset.Entry<E>) obj;
+            E element = entry.getElement();
+            if (element != null && api.isPersistable(element))
+            {
+                element = (E) ec.attachObjectCopy(ownerSM, element, elementsWithoutIdentity);
+            }
+            attached.add(element, entry.getCount());
+        }
 
-/*        // Remove any no-longer-needed elements from this collection
-        SCOUtils.attachRemoveDeletedElements(ownerSM.getExecutionContext().getApiAdapter(), this, c, elementsWithoutIdentity);
+        applyCountDeltas(getCountDeltas(getValue(), attached));
+    }
 
-        // Persist any new elements and form the attached elements collection
-        java.util.Collection attachedElements = new java.util.HashSet(c.size());
-        SCOUtils.attachCopyForCollection(ownerSM, c.toArray(), attachedElements, elementsWithoutIdentity);
+    /**
+     * Method to change the counts of several elements of this multiset.
+     * @param deltas Change in count of each element (positive to add occurrences, negative to remove them)
+     */
+    protected void applyCountDeltas(Map<E, Integer> deltas)
+    {
+        if (deltas.isEmpty())
+        {
+            return;
+        }
+        for (Map.Entry<E, Integer> entry : deltas.entrySet())
+        {
+            if (entry.getValue() > 0)
+            {
+                delegate.add(entry.getKey(), entry.getValue());
+            }
+            else
+            {
+                delegate.remove(entry.getKey(), -entry.getValue());
+            }
+        }
+        makeDirty();
+    }
 
-        // Add any new elements to this collection
-        SCOUtils.attachAddNewElements(ownerSM.getExecutionContext().getApiAdapter(), this, attachedElements, elementsWithoutIdentity);*/
+    /**
+     * Convenience method to find the change in count of each element between two multisets, in a single pass over the
+     * entries of each.
+     * @param oldMultiset The old multiset
+     * @param newMultiset The new multiset
+     * @return Change in count of each element that differs
+     * @param <E> Type of the element
+     */
+    protected static <E> Map<E, Integer> getCountDeltas(com.google.common.collect.Multiset<E> oldMultiset, com.google.common.collect.Multiset<E> newMultiset)
+    {
+        Map<E, Integer> deltas = new LinkedHashMap<>();
+        for (com.google.common.collect.Multiset.Entry<E> entry : oldMultiset.entrySet())
+        {
+            int delta = newMultiset.count(entry.getElement()) - entry.getCount();
+            if (delta != 0)
+            {
+                deltas.put(entry.getElement(), delta);
+            }
+        }
+        for (com.google.common.collect.Multiset.Entry<E> entry : newMultiset.entrySet())
+        {
+            if (!oldMultiset.contains(entry.getElement()))
+            {
+                deltas.put(entry.getElement(), entry.getCount());
+            }
+        }
+        return deltas;
     }
 
     // ------------------ Implementation of methods --------------------
@@ -447,6 +533,27 @@ public class Multiset<E> extends ForwardingMultiset<E> implements SCOCollection<
         return origNum;
     }
 
+    /**
+     * Set the count of the element to the specified count if it currently has the expected count.
+     * @param elem The element
+     * @param oldCount The expected current count
+     * @param newCount The number required
+     * @return Whether the count was set
+     */
+    public boolean setCount(E elem, int oldCount, int newCount)
+    {
+        if (oldCount < 0 || newCount < 0)
+        {
+            throw new IllegalArgumentException("Number of occurrences is negative");
+        }
+        if (count(elem) != oldCount)
+        {
+            return false;
+        }
+        setCount(elem, newCount);
+        return true;
+    }
+
     /**
      * The writeReplace method is called when ObjectOutputStream is preparing
      * to write the object to the stream. The ObjectOutputStream checks
@@ -461,7 +568,7 @@ public class Multiset<E> extends ForwardingMultiset<E> implements SCOCollection<
      */
     protected Object writeReplace() throws ObjectStreamException
     {
-        return new java.util.HashSet(delegate);
+        return new MultisetExternalForm(delegate);
     }
 
     @Override
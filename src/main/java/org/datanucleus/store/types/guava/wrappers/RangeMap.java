@@ -0,0 +1,354 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.wrappers;
+
+import java.io.ObjectStreamException;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import org.datanucleus.FetchPlanState;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.SCOContainer;
+import org.datanucleus.store.types.SCOUtils;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+import com.google.common.collect.ImmutableRangeMap;
+import com.google.common.collect.Range;
+import com.google.common.collect.TreeRangeMap;
+
+/**
+ * A mutable second-class RangeMap object.
+ * This is the simplified form that intercepts mutators and marks the field as dirty, used where the map has no
+ * backing store (e.g when serialised, as for a Range endpoint type with no RangeConverter), so is stored and loaded as
+ * a whole, and lookups such as get() and getEntry() are made on the loaded map.
+ * The views (asMapOfRanges(), asDescendingMapOfRanges(), subRangeMap()) are wrapped so that mutations made via them
+ * also mark the field as dirty.
+ */
+public class RangeMap<K extends Comparable, V> implements com.google.common.collect.RangeMap<K, V>, SCOContainer<com.google.common.collect.RangeMap<K, V>>, Cloneable
+{
+    protected transient DNStateManager ownerSM;
+    protected transient AbstractMemberMetaData ownerMmd;
+
+    /** The internal "delegate". */
+    protected com.google.common.collect.RangeMap<K, V> delegate;
+
+    /**
+     * Constructor, using StateManager of the "owner" and the member.
+     * @param sm The owner StateManager
+     * @param mmd Metadata for the member.
+     */
+    public RangeMap(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        this.ownerSM = sm;
+        this.ownerMmd = mmd;
+    }
+
+    public void initialise(com.google.common.collect.RangeMap<K, V> newValue, Object oldValue)
+    {
+        initialise(newValue);
+    }
+
+    /**
+     * Method to initialise the SCO from an existing value.
+     * @param value The object to set from
+     */
+    public void initialise(com.google.common.collect.RangeMap<K, V> value)
+    {
+        delegate = TreeRangeMap.create();
+        if (value != null)
+        {
+            delegate.putAll(value); // Make copy of the ranges rather than using same memory
+        }
+        if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+        {
+            NucleusLogger.PERSISTENCE.debug(Localiser.msg("023003", this.getClass().getName(), ownerSM.getObjectAsPrintable(), ownerMmd.getName(), "" + delegate.asMapOfRanges().size(),
+                SCOUtils.getSCOWrapperOptionsMessage(true, false, true, false)));
+        }
+    }
+
+    /**
+     * Method to initialise the SCO for use.
+     */
+    public void initialise()
+    {
+        initialise(null);
+    }
+
+    // ----------------------- Implementation of SCO methods -------------------
+
+    /**
+     * Accessor for the unwrapped value that we are wrapping.
+     * @return The unwrapped value
+     */
+    public com.google.common.collect.RangeMap<K, V> getValue()
+    {
+        return delegate;
+    }
+
+    public void setValue(com.google.common.collect.RangeMap<K, V> value)
+    {
+        this.delegate = value;
+    }
+
+    /**
+     * Method to effect the load of the data in the SCO.
+     * Used when the SCO supports lazy-loading to tell it to load all now.
+     */
+    public void load()
+    {
+        // Always loaded
+    }
+
+    /**
+     * Method to return if the SCO has its contents loaded. Returns true.
+     * @return Whether it is loaded
+     */
+    public boolean isLoaded()
+    {
+        return true;
+    }
+
+    /**
+     * Accessor for the field name.
+     * @return The field name
+     */
+    public String getFieldName()
+    {
+        return ownerMmd.getName();
+    }
+
+    /**
+     * Accessor for the owner object.
+     * @return The owner object
+     */
+    public Object getOwner()
+    {
+        return (ownerSM != null ? ownerSM.getObject() : null);
+    }
+
+    /**
+     * Method to unset the owner and field information.
+     */
+    public synchronized void unsetOwner()
+    {
+        if (ownerSM != null)
+        {
+            ownerSM = null;
+            ownerMmd = null;
+        }
+    }
+
+    /**
+     * Utility to mark the object as dirty
+     **/
+    public void makeDirty()
+    {
+        if (ownerSM != null)
+        {
+            ownerSM.makeDirty(ownerMmd.getAbsoluteFieldNumber());
+        }
+    }
+
+    /**
+     * Method called after the map has been changed via one of its views, marking the field as dirty.
+     */
+    protected void viewChanged()
+    {
+        makeDirty();
+    }
+
+    /**
+     * Method to return a detached copy of the container.
+     * @param state State for detachment process
+     * @return The detached container
+     */
+    public com.google.common.collect.RangeMap<K, V> detachCopy(FetchPlanState state)
+    {
+        com.google.common.collect.RangeMap<K, V> detached = TreeRangeMap.create();
+        detached.putAll(delegate);
+        return detached;
+    }
+
+    /**
+     * Method to return an attached copy of the passed (detached) value. Replaces the ranges of this object
+     * by those of the detached value where they differ.
+     * @param value The new value
+     */
+    public void attachCopy(com.google.common.collect.RangeMap<K, V> value)
+    {
+        if (value == null || delegate.equals(value))
+        {
+            return;
+        }
+        delegate.clear();
+        delegate.putAll(value);
+        makeDirty();
+    }
+
+    /**
+     * Creates and returns a copy of this object.
+     * @return The cloned object
+     */
+    public Object clone()
+    {
+        com.google.common.collect.RangeMap<K, V> copy = TreeRangeMap.create();
+        copy.putAll(delegate);
+        return copy;
+    }
+
+    // ------------------ Implementation of methods --------------------
+
+    public V get(K key)
+    {
+        return delegate.get(key);
+    }
+
+    public Map.Entry<Range<K>, V> getEntry(K key)
+    {
+        return delegate.getEntry(key);
+    }
+
+    public Range<K> span()
+    {
+        return delegate.span();
+    }
+
+    public Map<Range<K>, V> asMapOfRanges()
+    {
+        return DirtyingViews.map(delegate.asMapOfRanges(), this::viewChanged);
+    }
+
+    public Map<Range<K>, V> asDescendingMapOfRanges()
+    {
+        return DirtyingViews.map(delegate.asDescendingMapOfRanges(), this::viewChanged);
+    }
+
+    public com.google.common.collect.RangeMap<K, V> subRangeMap(Range<K> range)
+    {
+        RangeMap<K, V> wrapper = new RangeMap<K, V>(null, null)
+        {
+            @Override
+            public void makeDirty()
+            {
+                RangeMap.this.viewChanged();
+            }
+        };
+        wrapper.setValue(delegate.subRangeMap(range));
+        return wrapper;
+    }
+
+    /**
+     * Method to map a range to a value.
+     * @param range The range
+     * @param value The value
+     */
+    public void put(Range<K> range, V value)
+    {
+        delegate.put(range, value);
+        makeDirty();
+    }
+
+    /**
+     * Method to map a range to a value, coalescing with connected ranges having the same value.
+     * @param range The range
+     * @param value The value
+     */
+    public void putCoalescing(Range<K> range, V value)
+    {
+        delegate.putCoalescing(range, value);
+        makeDirty();
+    }
+
+    /**
+     * Method to put all of the ranges of another map into this map.
+     * @param rangeMap The other map
+     */
+    public void putAll(com.google.common.collect.RangeMap<K, ? extends V> rangeMap)
+    {
+        delegate.putAll(rangeMap);
+        makeDirty();
+    }
+
+    /**
+     * Method to merge a value into the values of the range.
+     * @param range The range
+     * @param value The value
+     * @param remappingFunction Function to merge the existing and new value
+     */
+    public void merge(Range<K> range, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction)
+    {
+        delegate.merge(range, value, remappingFunction);
+        makeDirty();
+    }
+
+    /**
+     * Method to remove the mappings in a range.
+     * @param range The range
+     */
+    public void remove(Range<K> range)
+    {
+        if (!delegate.subRangeMap(range).asMapOfRanges().isEmpty())
+        {
+            delegate.remove(range);
+            makeDirty();
+        }
+    }
+
+    /**
+     * Method to clear the map.
+     */
+    public void clear()
+    {
+        delegate.clear();
+        makeDirty();
+    }
+
+    public boolean equals(Object o)
+    {
+        return delegate.equals(o);
+    }
+
+    public int hashCode()
+    {
+        return delegate.hashCode();
+    }
+
+    public String toString()
+    {
+        return delegate.toString();
+    }
+
+    /**
+     * The writeReplace method is called when ObjectOutputStream is preparing
+     * to write the object to the stream. The ObjectOutputStream checks
+     * whether the class defines the writeReplace method. If the method is
+     * defined, the writeReplace method is called to allow the object to
+     * designate its replacement in the stream. The object returned should be
+     * either of the same type as the object passed in or an object that when
+     * read and resolved will result in an object of a type that is compatible
+     * with all references to the object.
+     * @return the replaced object
+     * @throws ObjectStreamException if an error occurs
+     */
+    protected Object writeReplace() throws ObjectStreamException
+    {
+        return ImmutableRangeMap.copyOf(delegate);
+    }
+}
@@ -0,0 +1,381 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.wrappers;
+
+import java.io.ObjectStreamException;
+import java.util.Set;
+
+import org.datanucleus.FetchPlanState;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.SCOContainer;
+import org.datanucleus.store.types.SCOUtils;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.Range;
+import com.google.common.collect.TreeRangeSet;
+
+/**
+ * A mutable second-class RangeSet object.
+ * This is the simplified form that intercepts mutators and marks the field as dirty, used where the set has no
+ * backing store (e.g when serialised, as for a Range endpoint type with no RangeConverter), so is stored and loaded as
+ * a whole, and lookups such as contains() and rangeContaining() are made on the loaded set.
+ * The views (asRanges(), asDescendingSetOfRanges(), complement(), subRangeSet()) are wrapped so that mutations made via
+ * them also mark the field as dirty.
+ */
+public class RangeSet<C extends Comparable> implements com.google.common.collect.RangeSet<C>, SCOContainer<com.google.common.collect.RangeSet<C>>, Cloneable
+{
+    protected transient DNStateManager ownerSM;
+    protected transient AbstractMemberMetaData ownerMmd;
+
+    /** The internal "delegate". */
+    protected com.google.common.collect.RangeSet<C> delegate;
+
+    /**
+     * Constructor, using StateManager of the "owner" and the member.
+     * @param sm The owner StateManager
+     * @param mmd Metadata for the member.
+     */
+    public RangeSet(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        this.ownerSM = sm;
+        this.ownerMmd = mmd;
+    }
+
+    public void initialise(com.google.common.collect.RangeSet<C> newValue, Object oldValue)
+    {
+        initialise(newValue);
+    }
+
+    /**
+     * Method to initialise the SCO from an existing value.
+     * @param value The object to set from
+     */
+    public void initialise(com.google.common.collect.RangeSet<C> value)
+    {
+        delegate = TreeRangeSet.create();
+        if (value != null)
+        {
+            delegate.addAll(value); // Make copy of the ranges rather than using same memory
+        }
+        if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+        {
+            NucleusLogger.PERSISTENCE.debug(Localiser.msg("023003", this.getClass().getName(), ownerSM.getObjectAsPrintable(), ownerMmd.getName(), "" + delegate.asRanges().size(),
+                SCOUtils.getSCOWrapperOptionsMessage(true, false, true, false)));
+        }
+    }
+
+    /**
+     * Method to initialise the SCO for use.
+     */
+    public void initialise()
+    {
+        initialise(null);
+    }
+
+    // ----------------------- Implementation of SCO methods -------------------
+
+    /**
+     * Accessor for the unwrapped value that we are wrapping.
+     * @return The unwrapped value
+     */
+    public com.google.common.collect.RangeSet<C> getValue()
+    {
+        return delegate;
+    }
+
+    public void setValue(com.google.common.collect.RangeSet<C> value)
+    {
+        this.delegate = value;
+    }
+
+    /**
+     * Method to effect the load of the data in the SCO.
+     * Used when the SCO supports lazy-loading to tell it to load all now.
+     */
+    public void load()
+    {
+        // Always loaded
+    }
+
+    /**
+     * Method to return if the SCO has its contents loaded. Returns true.
+     * @return Whether it is loaded
+     */
+    public boolean isLoaded()
+    {
+        return true;
+    }
+
+    /**
+     * Accessor for the field name.
+     * @return The field name
+     */
+    public String getFieldName()
+    {
+        return ownerMmd.getName();
+    }
+
+    /**
+     * Accessor for the owner object.
+     * @return The owner object
+     */
+    public Object getOwner()
+    {
+        return (ownerSM != null ? ownerSM.getObject() : null);
+    }
+
+    /**
+     * Method to unset the owner and field information.
+     */
+    public synchronized void unsetOwner()
+    {
+        if (ownerSM != null)
+        {
+            ownerSM = null;
+            ownerMmd = null;
+        }
+    }
+
+    /**
+     * Utility to mark the object as dirty
+     **/
+    public void makeDirty()
+    {
+        if (ownerSM != null)
+        {
+            ownerSM.makeDirty(ownerMmd.getAbsoluteFieldNumber());
+        }
+    }
+
+    /**
+     * Method called after the set has been changed via one of its views, marking the field as dirty.
+     */
+    protected void viewChanged()
+    {
+        makeDirty();
+    }
+
+    /**
+     * Method to return a detached copy of the container.
+     * @param state State for detachment process
+     * @return The detached container
+     */
+    public com.google.common.collect.RangeSet<C> detachCopy(FetchPlanState state)
+    {
+        com.google.common.collect.RangeSet<C> detached = TreeRangeSet.create();
+        detached.addAll(delegate);
+        return detached;
+    }
+
+    /**
+     * Method to return an attached copy of the passed (detached) value. Replaces the ranges of this object
+     * by those of the detached value where they differ.
+     * @param value The new value
+     */
+    public void attachCopy(com.google.common.collect.RangeSet<C> value)
+    {
+        if (value == null || delegate.equals(value))
+        {
+            return;
+        }
+        delegate.clear();
+        delegate.addAll(value);
+        makeDirty();
+    }
+
+    /**
+     * Creates and returns a copy of this object.
+     * @return The cloned object
+     */
+    public Object clone()
+    {
+        com.google.common.collect.RangeSet<C> copy = TreeRangeSet.create();
+        copy.addAll(delegate);
+        return copy;
+    }
+
+    // ------------------ Implementation of methods --------------------
+
+    public boolean contains(C value)
+    {
+        return delegate.contains(value);
+    }
+
+    public Range<C> rangeContaining(C value)
+    {
+        return delegate.rangeContaining(value);
+    }
+
+    public boolean intersects(Range<C> otherRange)
+    {
+        return delegate.intersects(otherRange);
+    }
+
+    public boolean encloses(Range<C> otherRange)
+    {
+        return delegate.encloses(otherRange);
+    }
+
+    public boolean enclosesAll(com.google.common.collect.RangeSet<C> other)
+    {
+        return delegate.enclosesAll(other);
+    }
+
+    public boolean isEmpty()
+    {
+        return delegate.isEmpty();
+    }
+
+    public Range<C> span()
+    {
+        return delegate.span();
+    }
+
+    public Set<Range<C>> asRanges()
+    {
+        return DirtyingViews.set(delegate.asRanges(), this::viewChanged);
+    }
+
+    public Set<Range<C>> asDescendingSetOfRanges()
+    {
+        return DirtyingViews.set(delegate.asDescendingSetOfRanges(), this::viewChanged);
+    }
+
+    public com.google.common.collect.RangeSet<C> complement()
+    {
+        return newView(delegate.complement());
+    }
+
+    public com.google.common.collect.RangeSet<C> subRangeSet(Range<C> view)
+    {
+        return newView(delegate.subRangeSet(view));
+    }
+
+    /**
+     * Method to return a view of this set (e.g its complement) that marks the field as dirty when it is changed.
+     * The view has no owner of its own.
+     * @param view The view of the delegate
+     * @return The view
+     */
+    protected RangeSet<C> newView(com.google.common.collect.RangeSet<C> view)
+    {
+        RangeSet<C> wrapper = new RangeSet<C>(null, null)
+        {
+            @Override
+            public void makeDirty()
+            {
+                RangeSet.this.viewChanged();
+            }
+        };
+        wrapper.setValue(view);
+        return wrapper;
+    }
+
+    /**
+     * Method to add a range to the set.
+     * @param range The range
+     */
+    public void add(Range<C> range)
+    {
+        if (!delegate.encloses(range))
+        {
+            delegate.add(range);
+            makeDirty();
+        }
+    }
+
+    /**
+     * Method to remove a range from the set.
+     * @param range The range
+     */
+    public void remove(Range<C> range)
+    {
+        if (delegate.intersects(range))
+        {
+            delegate.remove(range);
+            makeDirty();
+        }
+    }
+
+    /**
+     * Method to clear the set.
+     */
+    public void clear()
+    {
+        delegate.clear();
+        makeDirty();
+    }
+
+    /**
+     * Method to add the ranges of another set to this set.
+     * @param other The other set
+     */
+    public void addAll(com.google.common.collect.RangeSet<C> other)
+    {
+        if (!delegate.enclosesAll(other))
+        {
+            delegate.addAll(other);
+            makeDirty();
+        }
+    }
+
+    /**
+     * Method to remove the ranges of another set from this set.
+     * @param other The other set
+     */
+    public void removeAll(com.google.common.collect.RangeSet<C> other)
+    {
+        delegate.removeAll(other);
+        makeDirty();
+    }
+
+    public boolean equals(Object o)
+    {
+        return delegate.equals(o);
+    }
+
+    public int hashCode()
+    {
+        return delegate.hashCode();
+    }
+
+    public String toString()
+    {
+        return delegate.toString();
+    }
+
+    /**
+     * The writeReplace method is called when ObjectOutputStream is preparing
+     * to write the object to the stream. The ObjectOutputStream checks
+     * whether the class defines the writeReplace method. If the method is
+     * defined, the writeReplace method is called to allow the object to
+     * designate its replacement in the stream. The object returned should be
+     * either of the same type as the object passed in or an object that when
+     * read and resolved will result in an object of a type that is compatible
+     * with all references to the object.
+     * @return the replaced object
+     * @throws ObjectStreamException if an error occurs
+     */
+    protected Object writeReplace() throws ObjectStreamException
+    {
+        return ImmutableRangeSet.copyOf(delegate);
+    }
+}
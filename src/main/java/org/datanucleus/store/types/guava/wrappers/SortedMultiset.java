@@ -0,0 +1,152 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.wrappers;
+
+import java.io.ObjectStreamException;
+import java.util.Comparator;
+import java.util.NavigableSet;
+
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.guava.containers.MultisetHandler;
+
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Multisets;
+import com.google.common.collect.TreeMultiset;
+
+/**
+ * A mutable second-class SortedMultiset object.
+ * This is the simplified form that intercepts mutators and marks the field as dirty.
+ * The delegate is a TreeMultiset ordered as configured for the member (see {@link MultisetHandler}).
+ * The descending and range views are read-only, so mutations have to go through this object and are intercepted.
+ */
+public class SortedMultiset<E> extends Multiset<E> implements com.google.common.collect.SortedMultiset<E>
+{
+    /**
+     * Constructor, using StateManager of the "owner" and the member.
+     * @param sm The owner StateManager
+     * @param mmd Metadata for the member.
+     */
+    public SortedMultiset(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        super(sm, mmd);
+    }
+
+    @Override
+    protected com.google.common.collect.Multiset<E> newDelegate(int distinctElements)
+    {
+        return MultisetHandler.newSortedMultiset(ownerMmd, ownerSM != null ? ownerSM.getExecutionContext() : null);
+    }
+
+    /**
+     * Accessor for the delegate as a SortedMultiset.
+     * @return The delegate
+     */
+    protected com.google.common.collect.SortedMultiset<E> sortedDelegate()
+    {
+        return (com.google.common.collect.SortedMultiset<E>) delegate;
+    }
+
+    public Comparator<? super E> comparator()
+    {
+        return sortedDelegate().comparator();
+    }
+
+    public Entry<E> firstEntry()
+    {
+        return sortedDelegate().firstEntry();
+    }
+
+    public Entry<E> lastEntry()
+    {
+        return sortedDelegate().lastEntry();
+    }
+
+    /**
+     * Method to remove all occurrences of the first element, returning its entry.
+     * @return The entry removed (or null if empty)
+     */
+    public Entry<E> pollFirstEntry()
+    {
+        return pollEntry(firstEntry());
+    }
+
+    /**
+     * Method to remove all occurrences of the last element, returning its entry.
+     * @return The entry removed (or null if empty)
+     */
+    public Entry<E> pollLastEntry()
+    {
+        return pollEntry(lastEntry());
+    }
+
+    /**
+     * Convenience method to remove all occurrences of the element of an entry (via setCount, so it is intercepted).
+     * @param entry The entry (or null)
+     * @return A copy of the entry removed (or null)
+     */
+    protected Entry<E> pollEntry(Entry<E> entry)
+    {
+        if (entry == null)
+        {
+            return null;
+        }
+        Entry<E> polled = Multisets.immutableEntry(entry.getElement(), entry.getCount());
+        setCount(polled.getElement(), 0);
+        return polled;
+    }
+
+    @Override
+    public NavigableSet<E> elementSet()
+    {
+        return sortedDelegate().elementSet();
+    }
+
+    public com.google.common.collect.SortedMultiset<E> descendingMultiset()
+    {
+        return Multisets.unmodifiableSortedMultiset(sortedDelegate().descendingMultiset());
+    }
+
+    public com.google.common.collect.SortedMultiset<E> headMultiset(E upperBound, BoundType boundType)
+    {
+        return Multisets.unmodifiableSortedMultiset(sortedDelegate().headMultiset(upperBound, boundType));
+    }
+
+    public com.google.common.collect.SortedMultiset<E> subMultiset(E lowerBound, BoundType lowerBoundType, E upperBound, BoundType upperBoundType)
+    {
+        return Multisets.unmodifiableSortedMultiset(sortedDelegate().subMultiset(lowerBound, lowerBoundType, upperBound, upperBoundType));
+    }
+
+    public com.google.common.collect.SortedMultiset<E> tailMultiset(E lowerBound, BoundType boundType)
+    {
+        return Multisets.unmodifiableSortedMultiset(sortedDelegate().tailMultiset(lowerBound, boundType));
+    }
+
+    /**
+     * The writeReplace method is called when ObjectOutputStream is preparing to write the object to the stream.
+     * Replaces this object by a TreeMultiset with the same ordering and elements.
+     * @return the replaced object
+     * @throws ObjectStreamException if an error occurs
+     */
+    protected Object writeReplace() throws ObjectStreamException
+    {
+        TreeMultiset<E> copy = TreeMultiset.create(comparator());
+        copy.addAll(delegate);
+        return copy;
+    }
+}
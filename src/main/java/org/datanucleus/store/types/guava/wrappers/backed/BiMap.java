@@ -0,0 +1,783 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.wrappers.backed;
+
+import java.io.ObjectStreamException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.datanucleus.exceptions.NucleusDataStoreException;
+import org.datanucleus.flush.MapClearOperation;
+import org.datanucleus.flush.MapPutOperation;
+import org.datanucleus.flush.MapRemoveOperation;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.FieldPersistenceModifier;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.BackedSCOStoreManager;
+import org.datanucleus.store.types.SCOUtils;
+import org.datanucleus.store.types.guava.cache.CachedContents;
+import org.datanucleus.store.types.guava.cache.ContainerContentCache;
+import org.datanucleus.store.types.guava.management.ContainerFieldMetrics;
+import org.datanucleus.store.types.guava.management.ContainerMetrics;
+import org.datanucleus.store.types.guava.rdbms.BiMapMapping;
+import org.datanucleus.store.types.guava.scostore.BiMapStore;
+import org.datanucleus.store.types.scostore.MapStore;
+import org.datanucleus.store.types.scostore.Store;
+import org.datanucleus.store.types.wrappers.backed.BackedSCO;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.HashBiMap;
+
+/**
+ * A mutable second-class BiMap object.
+ * This class extends BiMap, using that class to contain the current objects, and the backing MapStore
+ * to be the interface to the datastore. A "backing store" is not present for datastores that dont use
+ * DatastoreClass, or if the container is serialised or non-persistent.
+ *
+ * <H3>Modes of Operation</H3>
+ * The user can operate the map in 2 modes.
+ * The <B>cached</B> mode will use an internal cache of the entries (in the "delegate") reading them at
+ * the first opportunity and then using the cache thereafter.
+ * The <B>non-cached</B> mode will just go direct to the "backing store" each call.
+ *
+ * <H3>Inverse lookups</H3>
+ * The values of a BiMap are unique, which this wrapper checks before a put (the value of the join table is only indexed
+ * by the container handler, since the same value can be held by the BiMaps of different owners). When not loaded, a lookup of the key for a value goes direct to the datastore where
+ * the backing store is a {@link BiMapStore} (as for a BiMap held in an RDBMS join table), and otherwise only loads the
+ * entries when the value is present.
+ */
+public class BiMap<K, V> extends org.datanucleus.store.types.guava.wrappers.BiMap<K, V> implements BackedSCO
+{
+    protected transient MapStore<K, V> backingStore;
+    protected transient boolean useCache = true;
+    protected transient boolean isCacheLoaded = false;
+
+    /** Runtime metrics for this field (null unless enabled). */
+    protected transient ContainerFieldMetrics metrics;
+
+    /**
+     * Constructor, using StateManager of the "owner" and the field name.
+     * @param sm The owner StateManager
+     * @param mmd Metadata for the member
+     */
+    public BiMap(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        super(sm, mmd);
+
+        // Set up our delegate
+        this.delegate = HashBiMap.create();
+        this.useCache = SCOUtils.useContainerCache(sm, ownerMmd);
+        this.metrics = ContainerMetrics.getMetrics(sm, ownerMmd);
+
+        if (!SCOUtils.mapHasSerialisedKeysAndValues(ownerMmd) && ownerMmd.getPersistenceModifier() == FieldPersistenceModifier.PERSISTENT)
+        {
+            if ("rdbms".equals(ownerSM.getStoreManager().getStoreManagerKey()))
+            {
+                // Uses the join table store with a lookup of the key for a value where the member has one
+                this.backingStore = BiMapMapping.getBackingStore(ownerSM, mmd);
+            }
+            else
+            {
+                this.backingStore = (MapStore)((BackedSCOStoreManager)ownerSM.getStoreManager()).getBackingStoreForField(sm.getExecutionContext().getClassLoaderResolver(),
+                    mmd, java.util.HashMap.class);
+            }
+        }
+
+        if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+        {
+            NucleusLogger.PERSISTENCE.debug(SCOUtils.getContainerInfoMessage(sm, ownerMmd.getName(), this, useCache, true, SCOUtils.useCachedLazyLoading(sm, ownerMmd)));
+        }
+    }
+
+    public void initialise(com.google.common.collect.BiMap<K, V> newValue, Object oldValue)
+    {
+        if (newValue != null)
+        {
+            if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+            {
+                NucleusLogger.PERSISTENCE.debug(Localiser.msg("023008", ownerSM.getObjectAsPrintable(), ownerMmd.getName(), "" + newValue.size()));
+            }
+
+            if (useCache)
+            {
+                Map oldMap = (Map)oldValue;
+                if (oldMap != null)
+                {
+                    delegate.putAll(oldMap);
+                }
+                isCacheLoaded = true;
+
+                SCOUtils.updateMapWithMapKeysValues(ownerSM.getExecutionContext().getApiAdapter(), this, newValue);
+            }
+            else
+            {
+                if (backingStore != null)
+                {
+                    if (SCOUtils.useQueuedUpdate(ownerSM))
+                    {
+                        addQueuedOperation(new MapClearOperation(ownerSM, backingStore));
+                        for (Map.Entry<K, V> entry : newValue.entrySet())
+                        {
+                            addQueuedOperation(new MapPutOperation(ownerSM, backingStore, entry.getKey(), entry.getValue()));
+                        }
+                    }
+                    else
+                    {
+                        storeCall("clear");
+                        backingStore.clear(ownerSM);
+                        storeCall("putAll");
+                        backingStore.putAll(ownerSM, newValue);
+                    }
+                }
+                delegate.clear();
+                delegate.putAll(newValue);
+                makeDirty();
+            }
+        }
+    }
+
+    /**
+     * Method to initialise the SCO from an existing value.
+     * @param m The object to set from
+     */
+    public void initialise(com.google.common.collect.BiMap<K, V> m)
+    {
+        if (m != null)
+        {
+            if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+            {
+                NucleusLogger.PERSISTENCE.debug(Localiser.msg("023007", ownerSM.getObjectAsPrintable(), ownerMmd.getName(), "" + m.size()));
+            }
+
+            delegate.putAll(m);
+            isCacheLoaded = true;
+        }
+    }
+
+    /**
+     * Method to initialise the SCO for use.
+     */
+    public void initialise()
+    {
+        if (useCache && !SCOUtils.useCachedLazyLoading(ownerSM, ownerMmd))
+        {
+            // Load up the container now if not using lazy loading
+            loadFromStore();
+        }
+    }
+
+    // ----------------------- Implementation of SCO methods -------------------
+
+    /**
+     * Accessor for the unwrapped value that we are wrapping.
+     * @return The unwrapped value
+     */
+    public com.google.common.collect.BiMap<K, V> getValue()
+    {
+        loadFromStore();
+        return super.getValue();
+    }
+
+    /**
+     * Method to effect the load of the data in the SCO.
+     * Used when the SCO supports lazy-loading to tell it to load all now.
+     */
+    public void load()
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+    }
+
+    /**
+     * Method to return if the SCO has its contents loaded.
+     * If the SCO doesn't support lazy loading will just return true.
+     * @return Whether it is loaded
+     */
+    public boolean isLoaded()
+    {
+        return useCache ? isCacheLoaded : false;
+    }
+
+    /**
+     * Method to load all entries from the "backing store" where appropriate.
+     */
+    protected void loadFromStore()
+    {
+        if (backingStore != null && !isCacheLoaded)
+        {
+            if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+            {
+                NucleusLogger.PERSISTENCE.debug(Localiser.msg("023006", ownerSM.getObjectAsPrintable(), ownerMmd.getName()));
+            }
+            delegate.clear();
+            ContainerContentCache contentCache = ContainerContentCache.getCache(ownerSM, ownerMmd);
+            CachedContents cached = (contentCache != null ? contentCache.get(ownerSM, ownerMmd) : null);
+            if (cached != null)
+            {
+                Object[] keysValues = cached.getValues();
+                for (int i = 0; i < keysValues.length; i += 2)
+                {
+                    delegate.forcePut((K) keysValues[i], (V) keysValues[i + 1]);
+                }
+                if (metrics != null)
+                {
+                    metrics.loadedFromContentCache();
+                }
+            }
+            else
+            {
+                long loadStamp = (contentCache != null ? contentCache.getLoadStamp() : 0);
+                long startTime = (metrics != null ? System.nanoTime() : 0);
+                Iterator<Map.Entry<K, V>> iter = backingStore.entrySetStore().iterator(ownerSM);
+                while (iter.hasNext())
+                {
+                    Map.Entry<K, V> entry = iter.next();
+                    delegate.forcePut(entry.getKey(), entry.getValue());
+                }
+                if (metrics != null)
+                {
+                    metrics.storeCall("entrySet");
+                    metrics.loaded(delegate.size(), startTime);
+                }
+                if (contentCache != null)
+                {
+                    contentCache.putMap(ownerSM, ownerMmd, delegate, loadStamp);
+                }
+            }
+
+            isCacheLoaded = true;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.datanucleus.store.types.backed.BackedSCO#getBackingStore()
+     */
+    public Store getBackingStore()
+    {
+        return backingStore;
+    }
+
+    /**
+     * Convenience method to add a queued operation to the operations we perform at commit.
+     * @param oper The operation
+     */
+    protected void addQueuedOperation(org.datanucleus.flush.Operation oper)
+    {
+        if (metrics != null)
+        {
+            metrics.queuedOperation();
+        }
+        ownerSM.getExecutionContext().addOperationToQueue(oper);
+    }
+
+    /**
+     * Convenience method to register a call to the backing store, or that an accessor was answered from the
+     * "delegate", in the metrics (when enabled).
+     * @param operation Name of the backing store operation (or null if answered from the "delegate")
+     */
+    protected void storeCall(String operation)
+    {
+        if (metrics != null)
+        {
+            if (operation == null)
+            {
+                metrics.cacheHit();
+            }
+            else
+            {
+                metrics.storeCall(operation);
+            }
+        }
+    }
+
+    /**
+     * Convenience method to register an accessor that had to go to the backing store in the metrics (when enabled).
+     * @param operation Name of the backing store operation
+     */
+    protected void storeFallback(String operation)
+    {
+        if (metrics != null)
+        {
+            metrics.datastoreFallback();
+            metrics.storeCall(operation);
+        }
+    }
+
+    /**
+     * Utility to mark the object as dirty, evicting any cached contents of this field when the transaction commits.
+     */
+    @Override
+    public void makeDirty()
+    {
+        super.makeDirty();
+        ContainerContentCache contentCache = ContainerContentCache.getCache(ownerSM, ownerMmd);
+        if (contentCache != null)
+        {
+            contentCache.markChanged(ownerSM, ownerMmd);
+        }
+    }
+
+    /**
+     * Method to update an embedded key in this map.
+     * @param key The key
+     * @param fieldNumber Number of field in the key
+     * @param newValue New value for this field
+     * @param makeDirty Whether to make the SCO field dirty.
+     */
+    public void updateEmbeddedKey(K key, int fieldNumber, Object newValue, boolean makeDirty)
+    {
+        if (backingStore != null)
+        {
+            backingStore.updateEmbeddedKey(ownerSM, key, fieldNumber, newValue);
+        }
+    }
+
+    /**
+     * Method to update an embedded value in this map.
+     * @param value The value
+     * @param fieldNumber Number of field in the value
+     * @param newValue New value for this field
+     * @param makeDirty Whether to make the SCO field dirty.
+     */
+    public void updateEmbeddedValue(V value, int fieldNumber, Object newValue, boolean makeDirty)
+    {
+        if (backingStore != null)
+        {
+            backingStore.updateEmbeddedValue(ownerSM, value, fieldNumber, newValue);
+        }
+    }
+
+    /**
+     * Method to unset the owner and field information.
+     */
+    public synchronized void unsetOwner()
+    {
+        super.unsetOwner();
+        if (backingStore != null)
+        {
+            backingStore = null;
+        }
+    }
+
+    // ------------------ Implementation of BiMap methods --------------------
+
+    /**
+     * Creates and returns a copy of this object.
+     * @return The cloned object
+     */
+    public Object clone()
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+        return super.clone();
+    }
+
+    /**
+     * Accessor for whether the map contains a key.
+     * @param key The key
+     * @return Whether it is contained
+     */
+    public boolean containsKey(Object key)
+    {
+        if (useCache && isCacheLoaded)
+        {
+            // If the "delegate" is already loaded, use it
+            storeCall(null);
+            return delegate.containsKey(key);
+        }
+        else if (backingStore != null)
+        {
+            storeFallback("containsKey");
+            return backingStore.containsKey(ownerSM, key);
+        }
+        return delegate.containsKey(key);
+    }
+
+    /**
+     * Accessor for whether the map contains a value.
+     * @param value The value
+     * @return Whether it is contained
+     */
+    public boolean containsValue(Object value)
+    {
+        if (useCache && isCacheLoaded)
+        {
+            // If the "delegate" is already loaded, use it
+            storeCall(null);
+            return delegate.containsValue(value);
+        }
+        else if (backingStore != null)
+        {
+            storeFallback("containsValue");
+            return backingStore.containsValue(ownerSM, value);
+        }
+        return delegate.containsValue(value);
+    }
+
+    /**
+     * Accessor for the value for a key.
+     * @param key The key
+     * @return The value (if present)
+     */
+    public V get(Object key)
+    {
+        if (useCache && isCacheLoaded)
+        {
+            // If the "delegate" is already loaded, use it
+            storeCall(null);
+            return delegate.get(key);
+        }
+        else if (backingStore != null)
+        {
+            storeFallback("get");
+            return backingStore.get(ownerSM, key);
+        }
+        return delegate.get(key);
+    }
+
+    /**
+     * Accessor for the key that the value is mapped against.
+     * @param value The value
+     * @return The key (or null if not present)
+     */
+    protected K getKeyForValue(Object value)
+    {
+        if (useCache && isCacheLoaded)
+        {
+            // If the "delegate" is already loaded, use it
+            storeCall(null);
+            return delegate.inverse().get(value);
+        }
+        else if (backingStore instanceof BiMapStore)
+        {
+            storeFallback("getKeyForValue");
+            return ((BiMapStore<K, V>)backingStore).getKeyForValue(ownerSM, value);
+        }
+        else if (backingStore != null)
+        {
+            storeFallback("containsValue");
+            if (!backingStore.containsValue(ownerSM, value))
+            {
+                return null;
+            }
+            if (!useCache)
+            {
+                storeCall("entrySet");
+                Iterator<Map.Entry<K, V>> iter = backingStore.entrySetStore().iterator(ownerSM);
+                while (iter.hasNext())
+                {
+                    Map.Entry<K, V> entry = iter.next();
+                    if (Objects.equal(value, entry.getValue()))
+                    {
+                        return entry.getKey();
+                    }
+                }
+                return null;
+            }
+        }
+
+        if (useCache)
+        {
+            loadFromStore();
+        }
+        return delegate.inverse().get(value);
+    }
+
+    /**
+     * Accessor for the delegate to use for the inverse view.
+     * @return The inverse of the delegate
+     */
+    protected com.google.common.collect.BiMap<V, K> inverseDelegate()
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+        return delegate.inverse();
+    }
+
+    /**
+     * Accessor for the size of the map.
+     * @return The size
+     */
+    public int size()
+    {
+        if (useCache && isCacheLoaded)
+        {
+            // If the "delegate" is already loaded, use it
+            storeCall(null);
+            return delegate.size();
+        }
+        else if (backingStore != null)
+        {
+            storeFallback("size");
+            return backingStore.size(ownerSM);
+        }
+        return delegate.size();
+    }
+
+    /**
+     * Accessor for whether the map is empty.
+     * @return Whether it is empty
+     */
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    /**
+     * Accessor for the set of keys in the map.
+     * @return The keys
+     */
+    public Set<K> keySet()
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+        return super.keySet();
+    }
+
+    /**
+     * Accessor for the set of values in the map.
+     * @return The values
+     */
+    public Set<V> values()
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+        return delegate.values();
+    }
+
+    /**
+     * Accessor for the set of entries in the map.
+     * @return The entries
+     */
+    public Set<Map.Entry<K, V>> entrySet()
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+        return super.entrySet();
+    }
+
+    public synchronized boolean equals(Object o)
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+        return super.equals(o);
+    }
+
+    public synchronized int hashCode()
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+        return super.hashCode();
+    }
+
+    // ------------------------------ Mutator methods --------------------------
+
+    /**
+     * Method to add a key-value pair to the map.
+     * @param key The key
+     * @param value The value
+     * @return The previous value for this key
+     * @throws IllegalArgumentException if the value is already mapped against a different key
+     */
+    public V put(K key, V value)
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+
+        K existingKey = getKeyForValue(value);
+        if (existingKey != null && !existingKey.equals(key))
+        {
+            throw new IllegalArgumentException("value already present: " + value);
+        }
+        return putInternal(key, value);
+    }
+
+    /**
+     * Method to add a key-value pair to the map, removing any other key mapped to the same value.
+     * @param key The key
+     * @param value The value
+     * @return The previous value for this key
+     */
+    public V forcePut(K key, V value)
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+
+        K existingKey = getKeyForValue(value);
+        if (existingKey != null && !existingKey.equals(key))
+        {
+            remove(existingKey);
+        }
+        return putInternal(key, value);
+    }
+
+    /**
+     * Convenience method to put a key-value pair in the backing store and delegate, once uniqueness of the value
+     * has been checked.
+     * @param key The key
+     * @param value The value
+     * @return The previous value for this key
+     */
+    protected V putInternal(K key, V value)
+    {
+        makeDirty();
+
+        V oldValue = null;
+        if (backingStore != null)
+        {
+            if (SCOUtils.useQueuedUpdate(ownerSM))
+            {
+                oldValue = get(key);
+                addQueuedOperation(new MapPutOperation(ownerSM, backingStore, key, value));
+            }
+            else
+            {
+                try
+                {
+                    storeCall("put");
+                    oldValue = backingStore.put(ownerSM, key, value);
+                }
+                catch (NucleusDataStoreException dse)
+                {
+                    NucleusLogger.PERSISTENCE.warn(Localiser.msg("023013", "put", ownerMmd.getName(), dse));
+                }
+            }
+        }
+
+        V delegateOldValue = delegate.forcePut(key, value);
+        return (backingStore != null ? oldValue : delegateOldValue);
+    }
+
+    /**
+     * Method to add the entries of a map to this map.
+     * @param m The map
+     */
+    public void putAll(Map<? extends K, ? extends V> m)
+    {
+        for (Map.Entry<? extends K, ? extends V> entry : m.entrySet())
+        {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Method to remove the entry for a key.
+     * @param key The key
+     * @return The value for this key that was removed
+     */
+    public V remove(Object key)
+    {
+        makeDirty();
+
+        if (useCache)
+        {
+            loadFromStore();
+        }
+
+        V delegateValue = delegate.remove(key);
+        if (backingStore != null)
+        {
+            V removed = null;
+            if (SCOUtils.useQueuedUpdate(ownerSM))
+            {
+                removed = (useCache ? delegateValue : get(key));
+                addQueuedOperation(new MapRemoveOperation(ownerSM, backingStore, key, removed));
+            }
+            else
+            {
+                try
+                {
+                    storeCall("remove");
+                    removed = backingStore.remove(ownerSM, key);
+                }
+                catch (NucleusDataStoreException dse)
+                {
+                    NucleusLogger.PERSISTENCE.warn(Localiser.msg("023013", "remove", ownerMmd.getName(), dse));
+                }
+            }
+            return removed;
+        }
+        return delegateValue;
+    }
+
+    /**
+     * Method to clear the map.
+     */
+    public void clear()
+    {
+        makeDirty();
+
+        if (backingStore != null)
+        {
+            if (SCOUtils.useQueuedUpdate(ownerSM))
+            {
+                addQueuedOperation(new MapClearOperation(ownerSM, backingStore));
+            }
+            else
+            {
+                storeCall("clear");
+                backingStore.clear(ownerSM);
+            }
+        }
+        delegate.clear();
+    }
+
+    /**
+     * The writeReplace method is called when ObjectOutputStream is preparing
+     * to write the object to the stream. The ObjectOutputStream checks
+     * whether the class defines the writeReplace method. If the method is
+     * defined, the writeReplace method is called to allow the object to
+     * designate its replacement in the stream. The object returned should be
+     * either of the same type as the object passed in or an object that when
+     * read and resolved will result in an object of a type that is compatible
+     * with all references to the object.
+     * @return the replaced object
+     * @throws ObjectStreamException if an error occurs
+     */
+    protected Object writeReplace() throws ObjectStreamException
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+        return HashBiMap.create(delegate);
+    }
+}
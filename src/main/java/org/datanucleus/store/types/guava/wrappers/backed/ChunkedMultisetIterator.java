@@ -0,0 +1,167 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.wrappers.backed;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.SCOUtils;
+import org.datanucleus.store.types.guava.scostore.MultisetStore;
+
+/**
+ * Iterator over the occurrences of a non-cached backed Multiset that reads the entries from the backing store in
+ * chunks of a number of distinct elements, so only one chunk is held in memory at a time. The next chunk is only
+ * read when the current one is exhausted, so abandoning (or closing) the iterator part way through reads nothing more.
+ * Each chunk continues from the last element of the previous chunk (rather than from a position), so the store can
+ * read it directly, e.g "WHERE element &gt; ?".
+ * Removal of an occurrence is passed through the owning Multiset so that it is intercepted.
+ * @param <E> Type of element in the multiset
+ */
+public class ChunkedMultisetIterator<E> implements Iterator<E>, AutoCloseable
+{
+    private final Multiset<E> owner;
+
+    private final DNStateManager ownerSM;
+
+    private final MultisetStore<E> backingStore;
+
+    private final int chunkSize;
+
+    /** Whether removals are queued, so the entries in the datastore do not change during iteration. */
+    private final boolean queued;
+
+    /** The current chunk of entries. */
+    private List<com.google.common.collect.Multiset.Entry<E>> chunk;
+
+    /** Position of the next entry in the current chunk. */
+    private int chunkPosition = 0;
+
+    /** Element of the last entry of the current chunk (null before the first chunk). */
+    private E lastChunkElement;
+
+    /** Position in the datastore of the first entry of the next chunk, for stores that cannot continue from an element. */
+    private int nextChunkStart = 0;
+
+    /** Whether there are no more chunks to read. */
+    private boolean exhausted = false;
+
+    /** Element of the current entry, its count, and the number of occurrences of it still to return and removed. */
+    private E element;
+    private int count = 0;
+    private int remaining = 0;
+    private int removed = 0;
+
+    private boolean canRemove = false;
+
+    /**
+     * Constructor.
+     * @param owner The backed Multiset
+     * @param sm StateManager of the owner of the multiset
+     * @param backingStore The backing store
+     * @param chunkSize Number of distinct elements to read per chunk
+     */
+    public ChunkedMultisetIterator(Multiset<E> owner, DNStateManager sm, MultisetStore<E> backingStore, int chunkSize)
+    {
+        this.owner = owner;
+        this.ownerSM = sm;
+        this.backingStore = backingStore;
+        this.chunkSize = chunkSize;
+        this.queued = SCOUtils.useQueuedUpdate(sm);
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        while (remaining == 0)
+        {
+            if (chunk != null && chunkPosition < chunk.size())
+            {
+                com.google.common.collect.Multiset.Entry<E> entry = chunk.get(chunkPosition++);
+                element = entry.getElement();
+                count = entry.getCount();
+                remaining = count;
+                removed = 0;
+                continue;
+            }
+            if (exhausted)
+            {
+                return false;
+            }
+
+            // Read the next chunk, releasing the previous one
+            chunk = null;
+            owner.storeCall("entries");
+            chunk = backingStore.entries(ownerSM, lastChunkElement, nextChunkStart, chunkSize);
+            chunkPosition = 0;
+            nextChunkStart += chunk.size();
+            if (chunk.size() < chunkSize)
+            {
+                exhausted = true;
+            }
+            else
+            {
+                lastChunkElement = chunk.get(chunk.size() - 1).getElement();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public E next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        remaining--;
+        canRemove = true;
+        return element;
+    }
+
+    @Override
+    public void remove()
+    {
+        if (!canRemove)
+        {
+            throw new IllegalStateException();
+        }
+        canRemove = false;
+
+        owner.remove(element, 1);
+        removed++;
+        if (removed == count && !queued)
+        {
+            // The entry for this element has gone from the datastore, so the later entries have moved back one
+            nextChunkStart--;
+        }
+    }
+
+    /**
+     * Method to stop the iteration, releasing the current chunk. Further calls to {@link #hasNext()} return false.
+     */
+    @Override
+    public void close()
+    {
+        chunk = null;
+        remaining = 0;
+        exhausted = true;
+        canRemove = false;
+    }
+}
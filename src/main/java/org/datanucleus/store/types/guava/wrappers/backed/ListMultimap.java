@@ -0,0 +1,68 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.wrappers.backed;
+
+import java.util.List;
+
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.DNStateManager;
+
+import com.google.common.collect.ArrayListMultimap;
+
+/**
+ * A mutable second-class ListMultimap object, backed by the datastore (see Multimap).
+ * The values of a key are held in the order read from the datastore, since no position is stored for them.
+ * Appending or removing a value is passed to the datastore as a put or removal of a key-value pair, whereas a
+ * positional change to the values of a key has the contents written in full.
+ */
+public class ListMultimap<K, V> extends Multimap<K, V> implements com.google.common.collect.ListMultimap<K, V>
+{
+    /**
+     * Constructor, using StateManager of the "owner" and the member.
+     * @param sm The owner StateManager
+     * @param mmd Metadata for the member.
+     */
+    public ListMultimap(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        super(sm, mmd);
+    }
+
+    @Override
+    protected com.google.common.collect.Multimap<K, V> newDelegate()
+    {
+        return ArrayListMultimap.create();
+    }
+
+    @Override
+    public List<V> get(K key)
+    {
+        return new KeyValueList(key);
+    }
+
+    @Override
+    public List<V> removeAll(Object key)
+    {
+        return (List<V>) super.removeAll(key);
+    }
+
+    @Override
+    public List<V> replaceValues(K key, Iterable<? extends V> values)
+    {
+        return (List<V>) super.replaceValues(key, values);
+    }
+}
@@ -0,0 +1,1087 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.wrappers.backed;
+
+import java.io.ObjectStreamException;
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.datanucleus.FetchPlanState;
+import org.datanucleus.exceptions.NucleusDataStoreException;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.FieldPersistenceModifier;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.SCOUtils;
+import org.datanucleus.store.types.guava.flush.MultimapChangeOperation;
+import org.datanucleus.store.types.guava.management.ContainerFieldMetrics;
+import org.datanucleus.store.types.guava.management.ContainerMetrics;
+import org.datanucleus.store.types.guava.rdbms.MultimapMapping;
+import org.datanucleus.store.types.guava.scostore.MultimapStore;
+import org.datanucleus.store.types.scostore.Store;
+import org.datanucleus.store.types.wrappers.backed.BackedSCO;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+
+/**
+ * A mutable second-class Multimap object.
+ * This class extends Multimap, using that class to contain the current key-value pairs, and the backing MultimapStore
+ * to be the interface to the datastore. A "backing store" is not present for datastores that dont use
+ * DatastoreClass, or if the container is serialised or non-persistent.
+ *
+ * <H3>Modes of Operation</H3>
+ * The user can operate the multimap in 2 modes.
+ * The <B>cached</B> mode will use an internal cache of the key-value pairs (in the "delegate") reading them at
+ * the first opportunity and then using the cache thereafter.
+ * The <B>non-cached</B> mode will just go direct to the "backing store" each call.
+ *
+ * <H3>Values of a key</H3>
+ * Until the "delegate" is loaded, get(key) is a view of the values of that key read from the datastore (a single query
+ * of the rows of the key), so a lookup doesn't load the whole multimap. A put or removal that is not queued is also
+ * passed straight to the datastore without loading. Changes made via the view of a key are passed to this multimap as
+ * puts and removals of key-value pairs, other than positional changes to the values of a ListMultimap.
+ * The other views (asMap(), entries(), keys(), keySet(), values()) are views of the loaded key-value pairs; since a
+ * change made via one of them (or a positional change) can't be told apart, it has the contents written in full when
+ * next flushed.
+ */
+public class Multimap<K, V> extends org.datanucleus.store.types.guava.wrappers.Multimap<K, V> implements BackedSCO
+{
+    protected transient MultimapStore<K, V> backingStore;
+    protected transient boolean useCache = true;
+    protected transient boolean isCacheLoaded = false;
+
+    /** Changes queued for the backing store and not yet performed (if any). */
+    protected transient MultimapChangeOperation<K, V> queuedChangeOperation;
+
+    /** Runtime metrics for this field (null unless enabled). */
+    protected transient ContainerFieldMetrics metrics;
+
+    /**
+     * Constructor, using StateManager of the "owner" and the field name.
+     * @param sm The owner StateManager
+     * @param mmd Metadata for the member
+     */
+    public Multimap(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        super(sm, mmd);
+
+        // Set up our delegate
+        this.delegate = newDelegate();
+        this.useCache = SCOUtils.useContainerCache(sm, ownerMmd);
+        this.metrics = ContainerMetrics.getMetrics(sm, ownerMmd);
+
+        if (!ownerMmd.isSerialized() && ownerMmd.getPersistenceModifier() == FieldPersistenceModifier.PERSISTENT &&
+            "rdbms".equals(ownerSM.getStoreManager().getStoreManagerKey()))
+        {
+            this.backingStore = MultimapMapping.getBackingStore(ownerSM, mmd);
+        }
+
+        if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+        {
+            NucleusLogger.PERSISTENCE.debug(SCOUtils.getContainerInfoMessage(sm, ownerMmd.getName(), this, useCache, true, SCOUtils.useCachedLazyLoading(sm, ownerMmd)));
+        }
+    }
+
+    public void initialise(com.google.common.collect.Multimap<K, V> newValue, Object oldValue)
+    {
+        if (newValue != null)
+        {
+            if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+            {
+                NucleusLogger.PERSISTENCE.debug(Localiser.msg("023008", ownerSM.getObjectAsPrintable(), ownerMmd.getName(), "" + newValue.size()));
+            }
+            replaceContents(newValue);
+        }
+    }
+
+    /**
+     * Method to initialise the SCO from an existing value.
+     * @param m The object to set from
+     */
+    public void initialise(com.google.common.collect.Multimap<K, V> m)
+    {
+        if (m != null)
+        {
+            if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+            {
+                NucleusLogger.PERSISTENCE.debug(Localiser.msg("023007", ownerSM.getObjectAsPrintable(), ownerMmd.getName(), "" + m.size()));
+            }
+
+            delegate.putAll(m);
+            isCacheLoaded = true;
+        }
+    }
+
+    /**
+     * Method to initialise the SCO for use.
+     */
+    public void initialise()
+    {
+        if (useCache && !SCOUtils.useCachedLazyLoading(ownerSM, ownerMmd))
+        {
+            // Load up the container now if not using lazy loading
+            loadFromStore();
+        }
+    }
+
+    // ----------------------- Implementation of SCO methods -------------------
+
+    /**
+     * Accessor for the unwrapped value that we are wrapping.
+     * @return The unwrapped value
+     */
+    public com.google.common.collect.Multimap<K, V> getValue()
+    {
+        return loadContents();
+    }
+
+    /**
+     * Method to effect the load of the data in the SCO.
+     * Used when the SCO supports lazy-loading to tell it to load all now.
+     */
+    public void load()
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+    }
+
+    /**
+     * Method to return if the SCO has its contents loaded.
+     * If the SCO doesn't support lazy loading will just return true.
+     * @return Whether it is loaded
+     */
+    public boolean isLoaded()
+    {
+        return useCache ? isCacheLoaded : false;
+    }
+
+    /**
+     * Method to load all key-value pairs from the "backing store" where appropriate.
+     */
+    protected void loadFromStore()
+    {
+        if (backingStore != null && !isCacheLoaded)
+        {
+            if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+            {
+                NucleusLogger.PERSISTENCE.debug(Localiser.msg("023006", ownerSM.getObjectAsPrintable(), ownerMmd.getName()));
+            }
+            long startTime = (metrics != null ? System.nanoTime() : 0);
+            readFromStore();
+            if (metrics != null)
+            {
+                metrics.storeCall("entryIterator");
+                metrics.loaded(delegate.size(), startTime);
+            }
+
+            isCacheLoaded = true;
+        }
+    }
+
+    /**
+     * Convenience method to read all key-value pairs from the "backing store" into the "delegate".
+     */
+    protected void readFromStore()
+    {
+        delegate.clear();
+        Iterator<Map.Entry<K, V>> iter = backingStore.entryIterator(ownerSM);
+        while (iter.hasNext())
+        {
+            Map.Entry<K, V> entry = iter.next();
+            delegate.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Accessor for the "delegate" holding the current key-value pairs, for a view of the whole multimap. When not
+     * caching, the key-value pairs are read from the "backing store" for each such view (unless the "delegate" holds
+     * changes that are still to be written).
+     * @return The "delegate"
+     */
+    protected com.google.common.collect.Multimap<K, V> loadContents()
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+        else if (backingStore != null && !isRewritePending())
+        {
+            storeCall("entryIterator");
+            readFromStore();
+        }
+        return delegate;
+    }
+
+    /**
+     * Accessor for whether the "delegate" holds the current key-value pairs, so can answer an accessor.
+     * @return Whether the "delegate" is current
+     */
+    protected boolean isDelegateCurrent()
+    {
+        return backingStore == null || (useCache && isCacheLoaded) || isRewritePending();
+    }
+
+    /* (non-Javadoc)
+     * @see org.datanucleus.store.types.backed.BackedSCO#getBackingStore()
+     */
+    public Store getBackingStore()
+    {
+        return backingStore;
+    }
+
+    /**
+     * Convenience method to add a queued operation to the operations we perform at commit.
+     * @param oper The operation
+     */
+    protected void addQueuedOperation(org.datanucleus.flush.Operation oper)
+    {
+        if (metrics != null)
+        {
+            metrics.queuedOperation();
+        }
+        ownerSM.getExecutionContext().addOperationToQueue(oper);
+    }
+
+    /**
+     * Accessor for the queued changes of this multimap, creating (and queueing) them if none are pending.
+     * @return The queued changes
+     */
+    protected MultimapChangeOperation<K, V> getQueuedChangeOperation()
+    {
+        if (queuedChangeOperation == null || queuedChangeOperation.isPerformed())
+        {
+            queuedChangeOperation = new MultimapChangeOperation<>(ownerSM, backingStore);
+            addQueuedOperation(queuedChangeOperation);
+        }
+        return queuedChangeOperation;
+    }
+
+    /**
+     * Accessor for whether the contents are to be written in full when the queued changes are performed.
+     * @return Whether the contents are to be written in full
+     */
+    protected boolean isRewritePending()
+    {
+        return queuedChangeOperation != null && !queuedChangeOperation.isPerformed() && queuedChangeOperation.isRewrite();
+    }
+
+    /**
+     * Accessor for whether changes are queued for the backing store rather than performed now.
+     * @return Whether changes are queued
+     */
+    protected boolean useQueuedChanges()
+    {
+        return SCOUtils.useQueuedUpdate(ownerSM) || isRewritePending();
+    }
+
+    /**
+     * Convenience method to register a call to the backing store, or that an accessor was answered from the
+     * "delegate", in the metrics (when enabled).
+     * @param operation Name of the backing store operation (or null if answered from the "delegate")
+     */
+    protected void storeCall(String operation)
+    {
+        if (metrics != null)
+        {
+            if (operation == null)
+            {
+                metrics.cacheHit();
+            }
+            else
+            {
+                metrics.storeCall(operation);
+            }
+        }
+    }
+
+    /**
+     * Convenience method to register an accessor that had to go to the backing store in the metrics (when enabled).
+     * @param operation Name of the backing store operation
+     */
+    protected void storeFallback(String operation)
+    {
+        if (metrics != null)
+        {
+            metrics.datastoreFallback();
+            metrics.storeCall(operation);
+        }
+    }
+
+    /**
+     * Method called after the multimap has been changed via one of its views. Which key-value pairs were changed
+     * can't be told, so the contents are written in full when next flushed.
+     */
+    @Override
+    protected void viewChanged()
+    {
+        makeDirty();
+        if (backingStore != null && !isRewritePending())
+        {
+            getQueuedChangeOperation().rewrite(delegate);
+        }
+    }
+
+    /**
+     * Method to unset the owner and field information.
+     */
+    public synchronized void unsetOwner()
+    {
+        super.unsetOwner();
+        if (backingStore != null)
+        {
+            backingStore = null;
+        }
+    }
+
+    /**
+     * Method to return a detached copy of the container.
+     * @param state State for detachment process
+     * @return The detached container
+     */
+    public com.google.common.collect.Multimap<K, V> detachCopy(FetchPlanState state)
+    {
+        loadContents();
+        return super.detachCopy(state);
+    }
+
+    /**
+     * Method to return an attached copy of the passed (detached) value. Replaces the key-value pairs of this multimap
+     * by those of the detached value where they differ.
+     * @param value The new (multimap) value
+     */
+    public void attachCopy(com.google.common.collect.Multimap<K, V> value)
+    {
+        if (value == null || loadContents().equals(value))
+        {
+            return;
+        }
+        replaceContents(value);
+    }
+
+    // ------------------ Implementation of Multimap methods --------------------
+
+    /**
+     * Creates and returns a copy of this object.
+     * @return The cloned object
+     */
+    public Object clone()
+    {
+        loadContents();
+        return super.clone();
+    }
+
+    /**
+     * Accessor for the number of key-value pairs.
+     * @return The size
+     */
+    public int size()
+    {
+        if (isDelegateCurrent())
+        {
+            storeCall(null);
+            return delegate.size();
+        }
+        storeFallback("size");
+        return backingStore.size(ownerSM);
+    }
+
+    /**
+     * Accessor for whether the multimap is empty.
+     * @return Whether it is empty
+     */
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    /**
+     * Accessor for whether the multimap has any value for a key.
+     * @param key The key
+     * @return Whether it is contained
+     */
+    public boolean containsKey(Object key)
+    {
+        if (isDelegateCurrent())
+        {
+            storeCall(null);
+            return delegate.containsKey(key);
+        }
+        storeFallback("containsKey");
+        return backingStore.containsKey(ownerSM, key);
+    }
+
+    /**
+     * Accessor for whether the multimap has a value for any key.
+     * @param value The value
+     * @return Whether it is contained
+     */
+    public boolean containsValue(Object value)
+    {
+        if (isDelegateCurrent())
+        {
+            storeCall(null);
+            return delegate.containsValue(value);
+        }
+        storeFallback("containsValue");
+        return backingStore.containsValue(ownerSM, value);
+    }
+
+    /**
+     * Accessor for whether the multimap has a key-value pair.
+     * @param key The key
+     * @param value The value
+     * @return Whether it is contained
+     */
+    public boolean containsEntry(Object key, Object value)
+    {
+        if (isDelegateCurrent())
+        {
+            storeCall(null);
+            return delegate.containsEntry(key, value);
+        }
+        storeFallback("countEntry");
+        return backingStore.countEntry(ownerSM, key, value) > 0;
+    }
+
+    /**
+     * Accessor for a view of the values for a key. Until the "delegate" is loaded the values are read from the
+     * datastore (for this key only).
+     * @param key The key
+     * @return The values for the key
+     */
+    public Collection<V> get(K key)
+    {
+        return new KeyValues(key);
+    }
+
+    /**
+     * Accessor for the current values of a key, from the "delegate" where current, otherwise from the datastore.
+     * @param key The key
+     * @return The values (the live collection of the "delegate" when current)
+     */
+    protected Collection<V> getValues(Object key)
+    {
+        if (isDelegateCurrent())
+        {
+            storeCall(null);
+            return delegate.get((K) key);
+        }
+        storeFallback("getValues");
+        return backingStore.getValues(ownerSM, key);
+    }
+
+    /**
+     * Accessor for an iterator over a copy of the current values of a key, whose removals are passed to this multimap.
+     * @param key The key
+     * @return The iterator
+     */
+    protected Iterator<V> getValuesIterator(Object key)
+    {
+        Iterator<V> iter = new ArrayList<>(getValues(key)).iterator();
+        return new Iterator<V>()
+        {
+            V last;
+
+            @Override
+            public boolean hasNext()
+            {
+                return iter.hasNext();
+            }
+
+            @Override
+            public V next()
+            {
+                last = iter.next();
+                return last;
+            }
+
+            @Override
+            public void remove()
+            {
+                iter.remove();
+                Multimap.this.remove(key, last);
+            }
+        };
+    }
+
+    /**
+     * Convenience method to apply a change to the values of a key in the "delegate" that can't be passed to the
+     * backing store per key-value pair (e.g a positional change in the values of a ListMultimap), so has the contents
+     * written in full when next flushed.
+     * @param key The key
+     * @param change The change to apply to the values of the key
+     * @return The result of the change
+     * @param <R> Type of the result
+     */
+    protected <R> R changeValues(K key, Function<Collection<V>, R> change)
+    {
+        loadContents();
+        R result = change.apply(delegate.get(key));
+        viewChanged();
+        return result;
+    }
+
+    /**
+     * Accessor for a view of the multimap as a map of key to values, loading all key-value pairs.
+     * @return The map view
+     */
+    public Map<K, Collection<V>> asMap()
+    {
+        loadContents();
+        return super.asMap();
+    }
+
+    /**
+     * Accessor for a view of the key-value pairs, loading all key-value pairs.
+     * @return The entries
+     */
+    public Collection<Map.Entry<K, V>> entries()
+    {
+        loadContents();
+        return super.entries();
+    }
+
+    /**
+     * Accessor for a view of the keys (with a count of the values of each), loading all key-value pairs.
+     * @return The keys
+     */
+    public com.google.common.collect.Multiset<K> keys()
+    {
+        loadContents();
+        return super.keys();
+    }
+
+    /**
+     * Accessor for a view of the distinct keys, loading all key-value pairs.
+     * @return The keys
+     */
+    public Set<K> keySet()
+    {
+        loadContents();
+        return super.keySet();
+    }
+
+    /**
+     * Accessor for a view of the values, loading all key-value pairs.
+     * @return The values
+     */
+    public Collection<V> values()
+    {
+        loadContents();
+        return super.values();
+    }
+
+    public synchronized boolean equals(Object o)
+    {
+        loadContents();
+        return super.equals(o);
+    }
+
+    public synchronized int hashCode()
+    {
+        loadContents();
+        return super.hashCode();
+    }
+
+    public String toString()
+    {
+        loadContents();
+        return super.toString();
+    }
+
+    // ------------------------------ Mutator methods --------------------------
+
+    /**
+     * Convenience method to load the key-value pairs before a change that will be queued, since reads from the
+     * datastore don't see queued changes. A change that isn't queued goes to the datastore without loading.
+     */
+    protected void loadForChange()
+    {
+        if (useCache && backingStore != null && SCOUtils.useQueuedUpdate(ownerSM))
+        {
+            loadFromStore();
+        }
+    }
+
+    /**
+     * Method to add a key-value pair to the multimap.
+     * @param key The key
+     * @param value The value
+     * @return Whether the multimap was changed
+     */
+    public boolean put(K key, V value)
+    {
+        return putEntries(Collections.singletonList(Maps.immutableEntry(key, value)));
+    }
+
+    /**
+     * Method to add values for a key to the multimap.
+     * @param key The key
+     * @param values The values
+     * @return Whether the multimap was changed
+     */
+    public boolean putAll(K key, Iterable<? extends V> values)
+    {
+        return putEntries(Iterables.transform(values, value -> Maps.immutableEntry(key, value)));
+    }
+
+    /**
+     * Method to add the key-value pairs of another multimap to this multimap.
+     * @param m The multimap
+     * @return Whether the multimap was changed
+     */
+    public boolean putAll(com.google.common.collect.Multimap<? extends K, ? extends V> m)
+    {
+        return putEntries(m.entries());
+    }
+
+    /**
+     * Convenience method to add key-value pairs to the multimap, passing those that change it to the backing store
+     * as a single batch. A SetMultimap only takes a pair that it doesn't already hold.
+     * @param entries The key-value pairs
+     * @return Whether the multimap was changed
+     */
+    protected boolean putEntries(Iterable<? extends Map.Entry<? extends K, ? extends V>> entries)
+    {
+        loadForChange();
+
+        boolean unique = (delegate instanceof com.google.common.collect.SetMultimap);
+        boolean delegateCurrent = isDelegateCurrent();
+        com.google.common.collect.Multimap<K, V> added = ArrayListMultimap.create();
+        for (Map.Entry<? extends K, ? extends V> entry : entries)
+        {
+            K key = entry.getKey();
+            V value = entry.getValue();
+            if (delegateCurrent ? delegate.put(key, value) : !unique || (!added.containsEntry(key, value) && !containsEntry(key, value)))
+            {
+                added.put(key, value);
+            }
+        }
+        if (added.isEmpty())
+        {
+            return false;
+        }
+
+        if (backingStore != null)
+        {
+            if (useQueuedChanges())
+            {
+                MultimapChangeOperation<K, V> oper = getQueuedChangeOperation();
+                for (Map.Entry<K, V> entry : added.entries())
+                {
+                    oper.put(entry.getKey(), entry.getValue());
+                }
+            }
+            else
+            {
+                try
+                {
+                    storeCall("putEntries");
+                    backingStore.putEntries(ownerSM, added);
+                }
+                catch (NucleusDataStoreException dse)
+                {
+                    NucleusLogger.PERSISTENCE.warn(Localiser.msg("023013", "put", ownerMmd.getName(), dse));
+                }
+            }
+        }
+        makeDirty();
+        return true;
+    }
+
+    /**
+     * Method to remove (one occurrence of) a key-value pair from the multimap.
+     * @param key The key
+     * @param value The value
+     * @return Whether the multimap was changed
+     */
+    public boolean remove(Object key, Object value)
+    {
+        loadForChange();
+
+        boolean removed;
+        if (isDelegateCurrent())
+        {
+            removed = delegate.remove(key, value);
+        }
+        else if (useQueuedChanges())
+        {
+            removed = containsEntry(key, value);
+        }
+        else
+        {
+            // Not loaded, so the backing store tells whether the pair was present
+            try
+            {
+                storeCall("removeEntry");
+                removed = backingStore.removeEntry(ownerSM, key, value);
+            }
+            catch (NucleusDataStoreException dse)
+            {
+                NucleusLogger.PERSISTENCE.warn(Localiser.msg("023013", "remove", ownerMmd.getName(), dse));
+                removed = false;
+            }
+            if (removed)
+            {
+                makeDirty();
+            }
+            return removed;
+        }
+
+        if (removed)
+        {
+            if (backingStore != null)
+            {
+                if (useQueuedChanges())
+                {
+                    getQueuedChangeOperation().remove(key, value);
+                }
+                else
+                {
+                    try
+                    {
+                        storeCall("removeEntry");
+                        backingStore.removeEntry(ownerSM, key, value);
+                    }
+                    catch (NucleusDataStoreException dse)
+                    {
+                        NucleusLogger.PERSISTENCE.warn(Localiser.msg("023013", "remove", ownerMmd.getName(), dse));
+                    }
+                }
+            }
+            makeDirty();
+        }
+        return removed;
+    }
+
+    /**
+     * Method to remove all values for a key from the multimap.
+     * @param key The key
+     * @return The values that were removed
+     */
+    public Collection<V> removeAll(Object key)
+    {
+        loadForChange();
+
+        Collection<V> removed;
+        if (isDelegateCurrent())
+        {
+            removed = delegate.removeAll(key);
+        }
+        else
+        {
+            Collection<V> values = getValues(key);
+            removed = (delegate instanceof com.google.common.collect.SetMultimap ? new LinkedHashSet<>(values) : new ArrayList<>(values));
+        }
+
+        if (!removed.isEmpty())
+        {
+            if (backingStore != null)
+            {
+                if (useQueuedChanges())
+                {
+                    getQueuedChangeOperation().removeKey(key);
+                }
+                else
+                {
+                    try
+                    {
+                        storeCall("removeKey");
+                        backingStore.removeKey(ownerSM, key);
+                    }
+                    catch (NucleusDataStoreException dse)
+                    {
+                        NucleusLogger.PERSISTENCE.warn(Localiser.msg("023013", "removeAll", ownerMmd.getName(), dse));
+                    }
+                }
+            }
+            makeDirty();
+        }
+        return removed;
+    }
+
+    /**
+     * Method to replace the values for a key in the multimap.
+     * @param key The key
+     * @param values The new values
+     * @return The values that were replaced
+     */
+    public Collection<V> replaceValues(K key, Iterable<? extends V> values)
+    {
+        Collection<V> replaced = removeAll(key);
+        putAll(key, values);
+        return replaced;
+    }
+
+    /**
+     * Method to clear the multimap.
+     */
+    public void clear()
+    {
+        makeDirty();
+
+        if (backingStore != null)
+        {
+            if (SCOUtils.useQueuedUpdate(ownerSM))
+            {
+                getQueuedChangeOperation().clear();
+            }
+            else
+            {
+                if (isRewritePending())
+                {
+                    // Nothing left to write in full
+                    queuedChangeOperation.clear();
+                }
+                storeCall("clear");
+                backingStore.clear(ownerSM);
+            }
+        }
+        delegate.clear();
+        if (useCache)
+        {
+            // Multimap is now known to be empty, so no need to load it
+            isCacheLoaded = true;
+        }
+    }
+
+    /**
+     * Convenience method to replace all key-value pairs of the multimap, as a clear followed by a put of the pairs.
+     * @param m The new key-value pairs
+     */
+    protected void replaceContents(com.google.common.collect.Multimap<K, V> m)
+    {
+        clear();
+        if (!m.isEmpty())
+        {
+            putEntries(m.entries());
+        }
+    }
+
+    /**
+     * The writeReplace method is called when ObjectOutputStream is preparing
+     * to write the object to the stream. The ObjectOutputStream checks
+     * whether the class defines the writeReplace method. If the method is
+     * defined, the writeReplace method is called to allow the object to
+     * designate its replacement in the stream. The object returned should be
+     * either of the same type as the object passed in or an object that when
+     * read and resolved will result in an object of a type that is compatible
+     * with all references to the object.
+     * @return the replaced object
+     * @throws ObjectStreamException if an error occurs
+     */
+    protected Object writeReplace() throws ObjectStreamException
+    {
+        loadContents();
+        return super.writeReplace();
+    }
+
+    /**
+     * View of the values of a key, answered from the datastore until the "delegate" is loaded.
+     * Changes are passed to the owning Multimap as puts and removals of key-value pairs.
+     */
+    protected class KeyValues extends AbstractCollection<V>
+    {
+        final K key;
+
+        KeyValues(K key)
+        {
+            this.key = key;
+        }
+
+        @Override
+        public Iterator<V> iterator()
+        {
+            return getValuesIterator(key);
+        }
+
+        @Override
+        public int size()
+        {
+            return getValues(key).size();
+        }
+
+        @Override
+        public boolean contains(Object value)
+        {
+            return Multimap.this.containsEntry(key, value);
+        }
+
+        @Override
+        public boolean add(V value)
+        {
+            return Multimap.this.put(key, value);
+        }
+
+        @Override
+        public boolean remove(Object value)
+        {
+            return Multimap.this.remove(key, value);
+        }
+
+        @Override
+        public void clear()
+        {
+            Multimap.this.removeAll(key);
+        }
+    }
+
+    /**
+     * View of the values of a key of a SetMultimap, answered from the datastore until the "delegate" is loaded.
+     * Changes are passed to the owning Multimap as puts and removals of key-value pairs.
+     */
+    protected class KeyValueSet extends AbstractSet<V>
+    {
+        final K key;
+
+        KeyValueSet(K key)
+        {
+            this.key = key;
+        }
+
+        @Override
+        public Iterator<V> iterator()
+        {
+            return getValuesIterator(key);
+        }
+
+        @Override
+        public int size()
+        {
+            return getValues(key).size();
+        }
+
+        @Override
+        public boolean contains(Object value)
+        {
+            return Multimap.this.containsEntry(key, value);
+        }
+
+        @Override
+        public boolean add(V value)
+        {
+            return Multimap.this.put(key, value);
+        }
+
+        @Override
+        public boolean remove(Object value)
+        {
+            return Multimap.this.remove(key, value);
+        }
+
+        @Override
+        public void clear()
+        {
+            Multimap.this.removeAll(key);
+        }
+    }
+
+    /**
+     * View of the values of a key of a ListMultimap, answered from the datastore until the "delegate" is loaded.
+     * Appending and removing values are passed to the owning Multimap as puts and removals of key-value pairs, while
+     * a positional change is applied to the loaded values, having the contents written in full.
+     */
+    protected class KeyValueList extends AbstractList<V>
+    {
+        final K key;
+
+        KeyValueList(K key)
+        {
+            this.key = key;
+        }
+
+        @Override
+        public V get(int index)
+        {
+            return ((List<V>) getValues(key)).get(index);
+        }
+
+        @Override
+        public Iterator<V> iterator()
+        {
+            return getValuesIterator(key);
+        }
+
+        @Override
+        public int size()
+        {
+            return getValues(key).size();
+        }
+
+        @Override
+        public boolean contains(Object value)
+        {
+            return Multimap.this.containsEntry(key, value);
+        }
+
+        @Override
+        public boolean add(V value)
+        {
+            return Multimap.this.put(key, value);
+        }
+
+        @Override
+        public void add(int index, V value)
+        {
+            changeValues(key, values ->
+            {
+                ((List<V>) values).add(index, value);
+                return null;
+            });
+        }
+
+        @Override
+        public V set(int index, V value)
+        {
+            return changeValues(key, values -> ((List<V>) values).set(index, value));
+        }
+
+        @Override
+        public boolean remove(Object value)
+        {
+            return Multimap.this.remove(key, value);
+        }
+
+        @Override
+        public V remove(int index)
+        {
+            return changeValues(key, values -> ((List<V>) values).remove(index));
+        }
+
+        @Override
+        public void clear()
+        {
+            Multimap.this.removeAll(key);
+        }
+    }
+}
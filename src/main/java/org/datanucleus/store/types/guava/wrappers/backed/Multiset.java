@@ -18,14 +18,18 @@ Contributors:
 package org.datanucleus.store.types.guava.wrappers.backed;
 
 import java.io.ObjectStreamException;
+import java.util.AbstractSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.datanucleus.ExecutionContext;
 import org.datanucleus.PersistableObjectType;
 import org.datanucleus.exceptions.NucleusDataStoreException;
-import org.datanucleus.flush.CollectionAddOperation;
-import org.datanucleus.flush.CollectionClearOperation;
 import org.datanucleus.flush.CollectionRemoveOperation;
 import org.datanucleus.flush.Operation;
 import org.datanucleus.metadata.AbstractMemberMetaData;
@@ -35,6 +39,15 @@ import org.datanucleus.state.RelationshipManager;
 import org.datanucleus.store.BackedSCOStoreManager;
 import org.datanucleus.store.types.SCOCollectionIterator;
 import org.datanucleus.store.types.SCOUtils;
+import org.datanucleus.store.types.guava.cache.CachedContents;
+import org.datanucleus.store.types.guava.cache.ContainerContentCache;
+import org.datanucleus.store.types.guava.containers.MultisetHandler;
+import org.datanucleus.store.types.guava.converters.MultisetExternalForm;
+import org.datanucleus.store.types.guava.flush.MultisetCountOperation;
+import org.datanucleus.store.types.guava.management.ContainerFieldMetrics;
+import org.datanucleus.store.types.guava.management.ContainerMetrics;
+import org.datanucleus.store.types.guava.rdbms.MultisetMapping;
+import org.datanucleus.store.types.guava.scostore.MultisetStore;
 import org.datanucleus.store.types.scostore.CollectionStore;
 import org.datanucleus.store.types.scostore.Store;
 import org.datanucleus.store.types.wrappers.backed.BackedSCO;
@@ -42,6 +55,9 @@ import org.datanucleus.util.Localiser;
 import org.datanucleus.util.NucleusLogger;
 
 import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 
 /**
  * A mutable second-class MultiSet object.
@@ -63,6 +79,16 @@ import com.google.common.collect.HashMultiset;
  * When any accessor method is invoked, it typically checks whether the container has been loaded from its
  * "backing store" (where present) and does this as necessary. Some methods (<B>size()</B>) just check if 
  * everything is loaded and use the delegate if possible, otherwise going direct to the datastore.
+ *
+ * <H3>Level 2 cache</H3>
+ * Where the owner is in the Level 2 cache, the contents loaded from the "backing store" are also cached (see
+ * {@link ContainerContentCache}) so that a later load for that owner does not read the datastore.
+ *
+ * <H3>Counts</H3>
+ * Where the "backing store" is a {@link MultisetStore} (storing a count per distinct element), changes to the count
+ * of an element are passed to the datastore as a single operation, rather than one operation per occurrence.
+ * Likewise <B>elementSet()</B> and <B>entrySet()</B> query the distinct elements (and their counts) in the datastore
+ * until the "delegate" is loaded, rather than loading every occurrence.
  */
 public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Multiset<E> implements BackedSCO
 {
@@ -71,6 +97,22 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
     protected transient boolean useCache = true;
     protected transient boolean isCacheLoaded = false;
 
+    /** Queued changes in the counts of elements, when using queued updates. */
+    protected transient MultisetCountOperation<E> queuedCountOperation = null;
+
+    /** Runtime metrics for this field (null unless enabled). */
+    protected transient ContainerFieldMetrics metrics;
+
+    /** Number of distinct elements to read per chunk when iterating in non-cached mode (0 to read all at once). */
+    protected transient int fetchSize = 0;
+
+    /** Maximum number of owners whose multisets of this field are loaded together (0 to load each on its own). */
+    protected transient int bulkFetchSize = 0;
+
+    /** Hash code of the contents (sum of the hash codes of the entries), when known. Maintained by the mutators. */
+    protected transient int contentHash = 0;
+    protected transient boolean contentHashKnown = false;
+
     /**
      * Constructor, using StateManager of the "owner" and the field name.
      * @param sm The owner StateManager
@@ -81,14 +123,33 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
         super(sm, mmd);
 
         // Set up our delegate
-        this.delegate = HashMultiset.create();
+        this.delegate = newDelegate(-1);
         this.allowNulls = SCOUtils.allowNullsInContainer(allowNulls, ownerMmd);
         this.useCache = SCOUtils.useContainerCache(sm, ownerMmd);
+        this.metrics = ContainerMetrics.getMetrics(sm, ownerMmd);
+        this.fetchSize = MultisetHandler.getFetchSize(ownerMmd, sm.getExecutionContext());
 
         if (!SCOUtils.collectionHasSerialisedElements(ownerMmd) && ownerMmd.getPersistenceModifier() == FieldPersistenceModifier.PERSISTENT)
         {
-            this.backingStore = (CollectionStore)((BackedSCOStoreManager)ownerSM.getStoreManager()).getBackingStoreForField(sm.getExecutionContext().getClassLoaderResolver(), 
-                mmd, java.util.HashSet.class);
+            if ("rdbms".equals(ownerSM.getStoreManager().getStoreManagerKey()))
+            {
+                // Uses the join table with a count column where the member has one
+                this.backingStore = MultisetMapping.getBackingStore(ownerSM, mmd);
+            }
+            else
+            {
+                this.backingStore = (CollectionStore)((BackedSCOStoreManager)ownerSM.getStoreManager()).getBackingStoreForField(sm.getExecutionContext().getClassLoaderResolver(), 
+                    mmd, java.util.HashSet.class);
+            }
+        }
+
+        if (useCache && backingStore instanceof MultisetStore)
+        {
+            this.bulkFetchSize = MultisetHandler.getBulkFetchSize(ownerMmd, sm.getExecutionContext());
+            if (bulkFetchSize > 1)
+            {
+                MultisetBulkFetch.register(this);
+            }
         }
 
         if (NucleusLogger.PERSISTENCE.isDebugEnabled())
@@ -129,40 +190,162 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
                 NucleusLogger.PERSISTENCE.debug(Localiser.msg("023008", ownerSM.getObjectAsPrintable(), ownerMmd.getName(), "" + newValue.size()));
             }
 
-            // Detect which objects are added and which are deleted
+            // Detect the change in count of each element, and pass them to the datastore as a batch
+            com.google.common.collect.Multiset<E> oldMultiset = (backingStore != null && !useCache) ? readFromStore() : toMultiset((Collection)oldValue);
+            Map<E, Integer> deltas = getCountDeltas(oldMultiset, newValue);
+            if (metrics != null)
+            {
+                metrics.initialiseDiff(deltas.size());
+            }
+            if (!deltas.isEmpty())
+            {
+                manageRelations(deltas);
+                if (backingStore != null)
+                {
+                    updateCountsInStore(deltas, oldMultiset.size(), "initialise");
+                }
+                makeDirty();
+            }
+
             if (useCache)
             {
-                Collection oldColl = (Collection)oldValue;
-                if (oldColl != null)
+                delegate.clear();
+                for (com.google.common.collect.Multiset.Entry<E> entry : newValue.entrySet())
                 {
-                    delegate.addAll(oldColl);
+                    delegate.add(entry.getElement(), entry.getCount());
                 }
                 isCacheLoaded = true;
-
-                SCOUtils.updateCollectionWithCollection(ownerSM.getExecutionContext().getApiAdapter(), this, newValue);
             }
-            else
+            setContentHash(newValue.hashCode());
+        }
+    }
+
+    /**
+     * Method to change the counts of several elements of this multiset, passing the changes to the backing store
+     * (where present) as a single batch.
+     * @param deltas Change in count of each element (positive to add occurrences, negative to remove them)
+     */
+    @Override
+    protected void applyCountDeltas(Map<E, Integer> deltas)
+    {
+        if (deltas.isEmpty())
+        {
+            return;
+        }
+        if (useCache)
+        {
+            loadFromStore();
+        }
+
+        manageRelations(deltas);
+        updateCountsInStore(deltas, (useCache ? delegate.size() : -1), "attachCopy");
+        for (Map.Entry<E, Integer> entry : deltas.entrySet())
+        {
+            updateContentHash(entry.getKey(), entry.getValue());
+        }
+
+        // Only make it dirty after changing the datastore, as for add()
+        super.applyCountDeltas(deltas);
+    }
+
+    /**
+     * Convenience method to perform relationship management for changes in count of elements.
+     * @param deltas Change in count of each element
+     */
+    private void manageRelations(Map<E, Integer> deltas)
+    {
+        if (ownerSM != null && ownerSM.getExecutionContext().getManageRelations())
+        {
+            RelationshipManager relMgr = ownerSM.getExecutionContext().getRelationshipManager(ownerSM);
+            for (Map.Entry<E, Integer> entry : deltas.entrySet())
             {
-                for (Object elem : newValue)
+                if (entry.getValue() > 0)
                 {
-                    if (!contains(elem))
-                    {
-                        add((E) elem);
-                    }
+                    relMgr.relationAdd(ownerMmd.getAbsoluteFieldNumber(), entry.getKey());
                 }
-                Iterator iter = iterator();
-                while (iter.hasNext())
+                else
                 {
-                    Object elem = iter.next();
-                    if (!newValue.contains(elem))
-                    {
-                        remove(elem);
-                    }
+                    relMgr.relationRemove(ownerMmd.getAbsoluteFieldNumber(), entry.getKey());
                 }
             }
         }
     }
 
+    /**
+     * Convenience method to view a (possibly null) collection as a multiset.
+     * @param coll The collection
+     * @return The multiset
+     */
+    private com.google.common.collect.Multiset<E> toMultiset(Collection coll)
+    {
+        if (coll == null)
+        {
+            return ImmutableMultiset.of();
+        }
+        return (coll instanceof com.google.common.collect.Multiset) ? (com.google.common.collect.Multiset<E>) coll : HashMultiset.create(coll);
+    }
+
+    /**
+     * Method to read the elements in the "backing store" into a new multiset, without affecting the "delegate".
+     * Where the backing store is a {@link MultisetStore} this reads the entries (distinct element and count) rather
+     * than every occurrence.
+     * @return The multiset
+     */
+    protected com.google.common.collect.Multiset<E> readFromStore()
+    {
+        long startTime = (metrics != null ? System.nanoTime() : 0);
+        com.google.common.collect.Multiset<E> multiset = newDelegate(-1);
+        if (backingStore instanceof MultisetStore)
+        {
+            Iterator<com.google.common.collect.Multiset.Entry<E>> iter = ((MultisetStore<E>)backingStore).entryIterator(ownerSM);
+            while (iter.hasNext())
+            {
+                com.google.common.collect.Multiset.Entry<E> entry = iter.next();
+                multiset.add(entry.getElement(), entry.getCount());
+            }
+        }
+        else
+        {
+            Iterator<? extends E> iter = backingStore.iterator(ownerSM);
+            while (iter.hasNext())
+            {
+                multiset.add(iter.next());
+            }
+        }
+        if (metrics != null)
+        {
+            metrics.storeCall(backingStore instanceof MultisetStore ? "entryIterator" : "iterator");
+            metrics.loaded(multiset.size(), startTime);
+        }
+        return multiset;
+    }
+
+    /**
+     * Accessor for the counts of the specified (distinct) elements, from the "delegate" when loaded, or otherwise
+     * from the backing store with a single call where it is a {@link MultisetStore}.
+     * @param elements The distinct elements
+     * @return The count of each element that is present
+     */
+    protected Map<E, Integer> getCounts(Collection<?> elements)
+    {
+        if (!(useCache && isCacheLoaded) && backingStore instanceof MultisetStore)
+        {
+            storeFallback("counts");
+            return ((MultisetStore<E>)backingStore).counts(ownerSM, elements);
+        }
+
+        Map<E, Integer> counts = new HashMap<>();
+        for (Object element : elements)
+        {
+            int num = count(element);
+            if (num > 0)
+            {
+                counts.put((E) element, num);
+            }
+        }
+        return counts;
+    }
+
     /**
      * Method to initialise the SCO from an existing value.
      * @param c The object to set from
@@ -195,6 +378,7 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
 
             delegate.addAll(c);
             isCacheLoaded = true;
+            setContentHash(delegate.hashCode());
         }
     }
 
@@ -257,13 +441,142 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
                     ownerSM.getObjectAsPrintable(), ownerMmd.getName()));
             }
             delegate.clear();
-            Iterator<? extends E> iter = backingStore.iterator(ownerSM);
-            while (iter.hasNext())
+            ContainerContentCache contentCache = ContainerContentCache.getCache(ownerSM, ownerMmd);
+            CachedContents cached = (contentCache != null ? contentCache.get(ownerSM, ownerMmd) : null);
+            if (cached != null)
             {
-                delegate.add(iter.next());
+                Object[] elements = cached.getValues();
+                int[] counts = cached.getCounts();
+                for (int i = 0; i < elements.length; i++)
+                {
+                    delegate.add((E) elements[i], counts[i]);
+                }
+                if (metrics != null)
+                {
+                    metrics.loadedFromContentCache();
+                }
+            }
+            else if (bulkFetchSize > 1 && MultisetBulkFetch.load(this, bulkFetchSize))
+            {
+                // Loaded together with the multisets of this field of other owners
+                return;
+            }
+            else
+            {
+                long loadStamp = (contentCache != null ? contentCache.getLoadStamp() : 0);
+                delegate.addAll(readFromStore());
+                if (contentCache != null)
+                {
+                    contentCache.putMultiset(ownerSM, ownerMmd, delegate, loadStamp);
+                }
             }
 
             isCacheLoaded = true;
+            setContentHash(delegate.hashCode());
+        }
+    }
+
+    /**
+     * Method to set the hash code of the contents, now known.
+     * @param hash The hash code
+     */
+    protected void setContentHash(int hash)
+    {
+        contentHash = hash;
+        contentHashKnown = true;
+    }
+
+    /**
+     * Method to update the hash code of the contents (where known) for a change in the count of an element.
+     * @param element The element
+     * @param oldCount The count before the change
+     * @param newCount The count after the change
+     */
+    protected void updateContentHash(Object element, int oldCount, int newCount)
+    {
+        if (contentHashKnown && oldCount != newCount)
+        {
+            contentHash += getEntryHash(element, Math.max(0, newCount)) - getEntryHash(element, Math.max(0, oldCount));
+        }
+    }
+
+    /**
+     * Method to update the hash code of the contents (where known) for a change in the count of an element, taking
+     * the count before the change from the "delegate" when that is loaded, or otherwise forgetting the hash code.
+     * This should be called before the "delegate" is changed.
+     * @param element The element
+     * @param delta The change in count
+     */
+    protected void updateContentHash(Object element, int delta)
+    {
+        if (!contentHashKnown || delta == 0)
+        {
+            return;
+        }
+        if (useCache && isCacheLoaded || backingStore == null)
+        {
+            int oldCount = delegate.count(element);
+            updateContentHash(element, oldCount, oldCount + delta);
+        }
+        else
+        {
+            contentHashKnown = false;
+        }
+    }
+
+    /**
+     * Accessor for the hash code of an entry of a multiset, as defined by {@link com.google.common.collect.Multiset.Entry#hashCode()}.
+     * @param element The element
+     * @param count The count of the element
+     * @return The hash code (0 when the count is 0, i.e there is no entry)
+     */
+    private static int getEntryHash(Object element, int count)
+    {
+        return (count == 0) ? 0 : ((element == null ? 0 : element.hashCode()) ^ count);
+    }
+
+    /**
+     * Accessor for the StateManager of the owner.
+     * @return The owner StateManager (or null if the owner is unset)
+     */
+    DNStateManager getOwnerSM()
+    {
+        return ownerSM;
+    }
+
+    /**
+     * Accessor for the metadata of the member.
+     * @return The member metadata (or null if the owner is unset)
+     */
+    AbstractMemberMetaData getOwnerMmd()
+    {
+        return ownerMmd;
+    }
+
+    /**
+     * Method to load the elements from entries read from the "backing store" (e.g together with those of other owners).
+     * @param entries The entries (distinct element and its count)
+     * @param loadStamp Stamp of the content cache taken before reading the entries (see {@link ContainerContentCache#getLoadStamp()})
+     */
+    protected void loadFromEntries(List<com.google.common.collect.Multiset.Entry<E>> entries, long loadStamp)
+    {
+        if (isCacheLoaded)
+        {
+            return;
+        }
+
+        delegate.clear();
+        for (com.google.common.collect.Multiset.Entry<E> entry : entries)
+        {
+            delegate.add(entry.getElement(), entry.getCount());
+        }
+        isCacheLoaded = true;
+        setContentHash(delegate.hashCode());
+
+        ContainerContentCache contentCache = ContainerContentCache.getCache(ownerSM, ownerMmd);
+        if (contentCache != null)
+        {
+            contentCache.putMultiset(ownerSM, ownerMmd, delegate, loadStamp);
         }
     }
 
@@ -281,9 +594,146 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
      */
     protected void addQueuedOperation(Operation oper)
     {
+        if (metrics != null)
+        {
+            metrics.queuedOperation();
+        }
         ownerSM.getExecutionContext().addOperationToQueue(oper);
     }
 
+    /**
+     * Convenience method to register a call to the backing store, and whether an accessor was answered from the
+     * "delegate" or had to go to the backing store, in the metrics (when enabled).
+     * @param operation Name of the backing store operation (or null if answered from the "delegate")
+     */
+    protected void storeCall(String operation)
+    {
+        if (metrics != null)
+        {
+            if (operation == null)
+            {
+                metrics.cacheHit();
+            }
+            else
+            {
+                metrics.storeCall(operation);
+            }
+        }
+    }
+
+    /**
+     * Convenience method to register an accessor that had to go to the backing store in the metrics (when enabled).
+     * @param operation Name of the backing store operation
+     */
+    protected void storeFallback(String operation)
+    {
+        if (metrics != null)
+        {
+            metrics.datastoreFallback();
+            metrics.storeCall(operation);
+        }
+    }
+
+    /**
+     * Accessor for the queued operation holding the changes in counts of elements, queueing a new one if
+     * there is none pending. Changes are folded into the pending operation so that there is one operation on
+     * the datastore per distinct element when it is performed.
+     * @return The pending count operation
+     */
+    protected MultisetCountOperation<E> getQueuedCountOperation()
+    {
+        if (queuedCountOperation == null || queuedCountOperation.isPerformed())
+        {
+            queuedCountOperation = new MultisetCountOperation<>(ownerSM, backingStore);
+            addQueuedOperation(queuedCountOperation);
+        }
+        return queuedCountOperation;
+    }
+
+    /**
+     * Convenience method to pass a change in the count of an element to the backing store (where present).
+     * Whatever the change in count, this is a single (queued or immediate) operation.
+     * @param element The element
+     * @param delta The change in count (positive when adding occurrences, negative when removing)
+     * @param opName Name of the calling operation (for logging)
+     * @return Whether the backing store was updated successfully
+     */
+    protected boolean updateCountInStore(E element, int delta, String opName)
+    {
+        if (backingStore == null || delta == 0)
+        {
+            return true;
+        }
+
+        if (SCOUtils.useQueuedUpdate(ownerSM))
+        {
+            getQueuedCountOperation().addDelta(element, delta);
+            return true;
+        }
+
+        try
+        {
+            storeCall("updateCount");
+            return MultisetCountOperation.updateCount(ownerSM, backingStore, element, delta, (useCache ? delegate.size() : -1));
+        }
+        catch (NucleusDataStoreException dse)
+        {
+            NucleusLogger.PERSISTENCE.warn(Localiser.msg("023013", opName, ownerMmd.getName(), dse));
+            return false;
+        }
+    }
+
+    /**
+     * Convenience method to pass changes in the counts of several elements to the backing store (where present).
+     * The changes are passed as a single (queued or immediate) batch.
+     * @param deltas The change in count of each element
+     * @param size Size of the multiset before the changes (or -1 if not known)
+     * @param opName Name of the calling operation (for logging)
+     * @return Whether the backing store was updated successfully
+     */
+    protected boolean updateCountsInStore(Map<E, Integer> deltas, int size, String opName)
+    {
+        if (backingStore == null || deltas.isEmpty())
+        {
+            return true;
+        }
+
+        if (SCOUtils.useQueuedUpdate(ownerSM))
+        {
+            MultisetCountOperation<E> countOper = getQueuedCountOperation();
+            for (Map.Entry<E, Integer> entry : deltas.entrySet())
+            {
+                countOper.addDelta(entry.getKey(), entry.getValue());
+            }
+            return true;
+        }
+
+        try
+        {
+            storeCall("updateCounts");
+            return MultisetCountOperation.updateCounts(ownerSM, backingStore, deltas, size);
+        }
+        catch (NucleusDataStoreException dse)
+        {
+            NucleusLogger.PERSISTENCE.warn(Localiser.msg("023013", opName, ownerMmd.getName(), dse));
+            return false;
+        }
+    }
+
+    /**
+     * Utility to mark the object as dirty, evicting any cached contents of this field when the transaction commits.
+     */
+    @Override
+    public void makeDirty()
+    {
+        super.makeDirty();
+        ContainerContentCache contentCache = ContainerContentCache.getCache(ownerSM, ownerMmd);
+        if (contentCache != null)
+        {
+            contentCache.markChanged(ownerSM, ownerMmd);
+        }
+    }
+
     /**
      * Method to update an embedded element in this collection.
      * @param element The element
@@ -293,6 +743,8 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
      */
     public void updateEmbeddedElement(E element, int fieldNumber, Object value, boolean makeDirty)
     {
+        // The hash code of the element may have changed
+        contentHashKnown = false;
         if (backingStore != null)
         {
             backingStore.updateEmbeddedElement(ownerSM, element, fieldNumber, value);
@@ -309,6 +761,7 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
         {
             backingStore = null;
         }
+        queuedCountOperation = null;
     }
 
     // ------------------ Implementation of MultiSet methods --------------------
@@ -338,10 +791,12 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
         if (useCache && isCacheLoaded)
         {
             // If the "delegate" is already loaded, use it
+            storeCall(null);
             return delegate.contains(element);
         }
         else if (backingStore != null)
         {
+            storeFallback("contains");
             return backingStore.contains(ownerSM,element);
         }
 
@@ -359,49 +814,181 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
         {
             loadFromStore();
         }
+        else if (backingStore instanceof MultisetStore)
+        {
+            // Check all elements with a single call to the datastore
+            storeFallback("containsAll");
+            return ((MultisetStore<E>)backingStore).containsAll(ownerSM, new java.util.HashSet(c));
+        }
+        else if (backingStore != null)
+        {
+            java.util.HashSet h=new java.util.HashSet(c);
+            Iterator iter=iterator();
+            while (iter.hasNext())
+            {
+                h.remove(iter.next());
+            }
+
+            return h.isEmpty();
+        }
+
+        return super.containsAll(c);
+    }
+
+    /**
+     * Accessor for the number of occurrences of an element in this Multiset.
+     * When the "delegate" is not loaded this goes direct to the datastore where the backing store is able to
+     * count the element, and otherwise only loads the elements when the element is present.
+     * @param element The element
+     * @return The count of the element
+     */
+    public int count(Object element)
+    {
+        if (useCache && isCacheLoaded)
+        {
+            // If the "delegate" is already loaded, use it
+            storeCall(null);
+            return delegate.count(element);
+        }
+        else if (backingStore instanceof MultisetStore)
+        {
+            storeFallback("count");
+            return ((MultisetStore<E>)backingStore).count(ownerSM, element);
+        }
+        else if (backingStore != null)
+        {
+            storeFallback("contains");
+            if (!backingStore.contains(ownerSM, element))
+            {
+                return 0;
+            }
+            if (!useCache)
+            {
+                storeCall("iterator");
+                int num = 0;
+                Iterator<E> iter = backingStore.iterator(ownerSM);
+                while (iter.hasNext())
+                {
+                    Object elem = iter.next();
+                    if (element == null ? elem == null : element.equals(elem))
+                    {
+                        num++;
+                    }
+                }
+                return num;
+            }
+        }
+
+        if (useCache)
+        {
+            loadFromStore();
+        }
+        return super.count(element);
+    }
+
+    /**
+     * Method to compare this Multiset with another object.
+     * Compares the sizes and the numbers of distinct elements first (from the datastore when not loaded, where that
+     * is cheap), and the hash codes where both are known, before comparing the counts of all elements.
+     * @param o The object to compare with
+     * @return Whether they are equal
+     */
+    public synchronized boolean equals(Object o)
+    {
+        if (o == this)
+        {
+            return true;
+        }
+        if (!(o instanceof com.google.common.collect.Multiset))
+        {
+            return false;
+        }
+        com.google.common.collect.Multiset other = (com.google.common.collect.Multiset) o;
+        if (size() != other.size())
+        {
+            return false;
+        }
+        int distinct = getDistinctSizeIfCheap();
+        int otherDistinct = (other instanceof Multiset) ? ((Multiset) other).getDistinctSizeIfCheap() : other.elementSet().size();
+        if (distinct >= 0 && otherDistinct >= 0 && distinct != otherDistinct)
+        {
+            return false;
+        }
+        if (isContentHashCurrent() && other instanceof Multiset && ((Multiset) other).isContentHashCurrent() && contentHash != ((Multiset) other).contentHash)
+        {
+            return false;
+        }
+
+        if (useCache)
+        {
+            loadFromStore();
+        }
+        else if (backingStore != null)
+        {
+            com.google.common.collect.Multiset<E> current = readFromStore();
+            setContentHash(current.hashCode());
+            return current.equals(o);
+        }
+        return super.equals(o);
+    }
+
+    /**
+     * Accessor for the hash code of this Multiset.
+     * This is maintained by the mutators once known, so is only calculated (loading the elements) when first requested.
+     * When not caching the elements it is calculated each time, since the datastore may have been changed by another
+     * ExecutionContext.
+     * @return The hash code
+     */
+    public synchronized int hashCode()
+    {
+        if (isContentHashCurrent())
+        {
+            return contentHash;
+        }
+
+        if (useCache)
+        {
+            loadFromStore();
+            setContentHash(delegate.hashCode());
+        }
         else if (backingStore != null)
         {
-            java.util.HashSet h=new java.util.HashSet(c);
-            Iterator iter=iterator();
-            while (iter.hasNext())
-            {
-                h.remove(iter.next());
-            }
-
-            return h.isEmpty();
+            setContentHash(readFromStore().hashCode());
         }
-
-        return super.containsAll(c);
+        else
+        {
+            return super.hashCode();
+        }
+        return contentHash;
     }
 
-    /* (non-Javadoc)
-     * @see com.google.common.collect.ForwardingMultiset#count(java.lang.Object)
+    /**
+     * Accessor for whether the maintained hash code reflects the contents, i.e it is known and the contents are held in
+     * the "delegate". When not caching the elements the contents are in the datastore, so it could be out of date.
+     * @return Whether the hash code can be used
      */
-    public int count(Object element)
+    protected boolean isContentHashCurrent()
     {
-        if (useCache)
-        {
-            loadFromStore();
-        }
-        return super.count(element);
+        return contentHashKnown && (useCache && isCacheLoaded || backingStore == null);
     }
 
-    public synchronized boolean equals(Object o)
+    /**
+     * Accessor for the number of distinct elements, where that is cheap to find (the "delegate" is loaded, or the backing
+     * store can count them).
+     * @return The number of distinct elements, or -1 if that would need the elements to be loaded
+     */
+    protected int getDistinctSizeIfCheap()
     {
-        if (useCache)
+        if (useCache && isCacheLoaded || backingStore == null)
         {
-            loadFromStore();
+            return delegate.elementSet().size();
         }
-        return super.equals(o);
-    }
-
-    public synchronized int hashCode()
-    {
-        if (useCache)
+        else if (backingStore instanceof MultisetStore)
         {
-            loadFromStore();
+            storeFallback("elementSetSize");
+            return ((MultisetStore<E>)backingStore).elementSetSize(ownerSM);
         }
-        return super.hashCode();
+        return -1;
     }
 
     /**
@@ -415,6 +1002,8 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
 
     /**
      * Accessor for an iterator for the Set.
+     * In non-cached mode with a fetch size set (and a {@link MultisetStore} backing store) this streams the elements
+     * from the datastore in chunks (see {@link ChunkedMultisetIterator}).
      * @return The iterator
      **/
     public Iterator<E> iterator()
@@ -424,9 +1013,22 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
         {
             loadFromStore();
         }
+        else if (useChunkedIterator())
+        {
+            return new ChunkedMultisetIterator<>(this, ownerSM, (MultisetStore<E>)backingStore, fetchSize);
+        }
         return new SCOCollectionIterator(this, ownerSM, delegate, backingStore, useCache);
     }
 
+    /**
+     * Convenience method to return whether iteration of the backing store should be in chunks.
+     * @return Whether to use a chunked iterator
+     */
+    protected boolean useChunkedIterator()
+    {
+        return !useCache && fetchSize > 0 && backingStore instanceof MultisetStore;
+    }
+
     /**
      * Accessor for the size of the HashSet.
      * @return The size.
@@ -436,16 +1038,77 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
         if (useCache && isCacheLoaded)
         {
             // If the "delegate" is already loaded, use it
+            storeCall(null);
             return delegate.size();
         }
         else if (backingStore != null)
         {
+            storeFallback("size");
             return backingStore.size(ownerSM);
         }
 
         return super.size();
     }
 
+    /**
+     * Accessor for the distinct elements of this Multiset.
+     * When the "delegate" is not loaded and the backing store is a {@link MultisetStore} this is a view that
+     * queries the distinct elements in the datastore, so the occurrences of each element are not loaded.
+     * @return The distinct elements
+     */
+    @Override
+    public Set<E> elementSet()
+    {
+        if (useCache && isCacheLoaded || backingStore == null)
+        {
+            return super.elementSet();
+        }
+        else if (backingStore instanceof MultisetStore)
+        {
+            return new StoreElementSet();
+        }
+        else if (useCache)
+        {
+            loadFromStore();
+            return super.elementSet();
+        }
+        return Collections.unmodifiableSet(readFromStore().elementSet());
+    }
+
+    /**
+     * Accessor for the entries (distinct element and its count) of this Multiset.
+     * When the "delegate" is not loaded and the backing store is a {@link MultisetStore} this is a view that
+     * queries the count of each distinct element in the datastore, so the occurrences of each element are not loaded.
+     * @return The entries
+     */
+    @Override
+    public Set<com.google.common.collect.Multiset.Entry<E>> entrySet()
+    {
+        if (useCache && isCacheLoaded || backingStore == null)
+        {
+            return super.entrySet();
+        }
+        else if (backingStore instanceof MultisetStore)
+        {
+            return new StoreEntrySet();
+        }
+        else if (useCache)
+        {
+            loadFromStore();
+            return super.entrySet();
+        }
+        return Collections.unmodifiableSet(readFromStore().entrySet());
+    }
+
+    /**
+     * Convenience method to return whether the store views should go to the datastore, or else use the "delegate".
+     * @return Whether to use the backing store
+     */
+    protected boolean useStoreViews()
+    {
+        return !(useCache && isCacheLoaded) && backingStore instanceof MultisetStore;
+    }
+
     /**
      * Method to return the list as an array.
      * @return The array
@@ -456,8 +1119,13 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
         {
             loadFromStore();
         }
+        else if (useChunkedIterator())
+        {
+            return Iterators.toArray(iterator(), Object.class);
+        }
         else if (backingStore != null)
         {
+            storeCall("iterator");
             return SCOUtils.toArray(backingStore,ownerSM);
         }  
         return super.toArray();
@@ -474,8 +1142,13 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
         {
             loadFromStore();
         }
+        else if (useChunkedIterator())
+        {
+            return Lists.newArrayList(iterator()).toArray(a);
+        }
         else if (backingStore != null)
         {
+            storeCall("iterator");
             return SCOUtils.toArray(backingStore,ownerSM,a);
         }  
         return super.toArray(a);
@@ -511,12 +1184,13 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
         {
             if (SCOUtils.useQueuedUpdate(ownerSM))
             {
-                addQueuedOperation(new CollectionAddOperation(ownerSM, backingStore, element));
+                getQueuedCountOperation().addDelta(element, 1);
             }
             else
             {
                 try
                 {
+                    storeCall("add");
                     backingSuccess = backingStore.add(ownerSM, element, (useCache ? delegate.size() : -1));
                 }
                 catch (NucleusDataStoreException dse)
@@ -531,10 +1205,57 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
         // to be inserted - otherwise jdoPreStore on this object would have been called before completing the addition
         makeDirty();
 
+        updateContentHash(element, 1);
         boolean delegateSuccess = delegate.add(element);
         return (backingStore != null ? backingSuccess : delegateSuccess);
     }
 
+    /**
+     * Method to add occurrences of an element to the HashSet.
+     * The occurrences are passed to the backing store as a single operation.
+     * @param element The new element
+     * @param num Number of occurrences to add
+     * @return Count of the element before
+     */
+    public int add(E element, int num)
+    {
+        if (num < 0)
+        {
+            throw new IllegalArgumentException("Number of occurrences is negative");
+        }
+        if (!allowNulls && element == null)
+        {
+            throw new NullPointerException("Nulls not allowed for collection at field " + ownerMmd.getName() + " but element is null");
+        }
+
+        if (useCache)
+        {
+            loadFromStore();
+        }
+
+        int origNum = count(element);
+        if (num == 0)
+        {
+            return origNum;
+        }
+
+        if (ownerSM != null && ownerSM.getExecutionContext().getManageRelations())
+        {
+            // Relationship management
+            ownerSM.getExecutionContext().getRelationshipManager(ownerSM).relationAdd(ownerMmd.getAbsoluteFieldNumber(), element);
+        }
+
+        updateCountInStore(element, num, "add");
+
+        // Only make it dirty after adding the element(s) to the datastore so we give it time
+        // to be inserted - otherwise jdoPreStore on this object would have been called before completing the addition
+        makeDirty();
+
+        updateContentHash(element, origNum, origNum + num);
+        delegate.add(element, num);
+        return origNum;
+    }
+
     /**
      * Method to add a collection to the HashSet.
      * @param c The collection
@@ -563,16 +1284,18 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
         {
             if (SCOUtils.useQueuedUpdate(ownerSM))
             {
-                Iterator iter = c.iterator();
+                MultisetCountOperation<E> countOper = getQueuedCountOperation();
+                Iterator<? extends E> iter = c.iterator();
                 while (iter.hasNext())
                 {
-                    addQueuedOperation(new CollectionAddOperation(ownerSM, backingStore, iter.next()));
+                    countOper.addDelta(iter.next(), 1);
                 }
             }
             else
             {
                 try
                 {
+                    storeCall("addAll");
                     backingSuccess = backingStore.addAll(ownerSM, c, (useCache ? delegate.size() : -1));
                 }
                 catch (NucleusDataStoreException dse)
@@ -587,6 +1310,10 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
         // to be inserted - otherwise jdoPreStore on this object would have been called before completing the addition
         makeDirty();
 
+        for (com.google.common.collect.Multiset.Entry<E> entry : toMultiset(c).entrySet())
+        {
+            updateContentHash(entry.getElement(), entry.getCount());
+        }
         boolean delegateSuccess = delegate.addAll(c);
         return (backingStore != null ? backingSuccess : delegateSuccess);
     }
@@ -602,14 +1329,22 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
         {
             if (SCOUtils.useQueuedUpdate(ownerSM))
             {
-                addQueuedOperation(new CollectionClearOperation(ownerSM, backingStore));
+                // Drops any changes in count queued before this
+                getQueuedCountOperation().clear();
             }
             else
             {
+                storeCall("clear");
                 backingStore.clear(ownerSM);
             }
         }
         delegate.clear();
+        if (useCache && backingStore != null)
+        {
+            // Contents are now known (empty), so a later add must not load them from the datastore before a queued clear
+            isCacheLoaded = true;
+        }
+        setContentHash(0);
     }
 
     /**
@@ -638,6 +1373,11 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
 
         int size = (useCache ? delegate.size() : -1);
         boolean contained = delegate.contains(element);
+        if (contained || !(useCache && isCacheLoaded))
+        {
+            // Where not loaded the "delegate" may not hold the element, so this forgets the hash code
+            updateContentHash(element, -1);
+        }
         boolean delegateSuccess = delegate.remove(element);
         if (ownerSM != null && ownerSM.getExecutionContext().getManageRelations())
         {
@@ -652,13 +1392,23 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
                 backingSuccess = contained;
                 if (backingSuccess)
                 {
-                    addQueuedOperation(new CollectionRemoveOperation(ownerSM, backingStore, element, allowCascadeDelete));
+                    if (allowCascadeDelete)
+                    {
+                        getQueuedCountOperation().addDelta((E) element, -1);
+                    }
+                    else
+                    {
+                        // Queue after any pending count changes, and start a new count operation for subsequent changes
+                        addQueuedOperation(new CollectionRemoveOperation(ownerSM, backingStore, element, allowCascadeDelete));
+                        queuedCountOperation = null;
+                    }
                 }
             }
             else
             {
                 try
                 {
+                    storeCall("remove");
                     backingSuccess = backingStore.remove(ownerSM, element, size, allowCascadeDelete);
                 }
                 catch (NucleusDataStoreException dse)
@@ -672,6 +1422,45 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
         return (backingStore != null ? backingSuccess : delegateSuccess);
     }
 
+    /**
+     * Method to remove occurrences of an element from the HashSet.
+     * The removal is passed to the backing store as a single operation.
+     * @param element The element
+     * @param num Number of occurrences to remove
+     * @return Count of the element before
+     */
+    public synchronized int remove(Object element, int num)
+    {
+        if (num < 0)
+        {
+            throw new IllegalArgumentException("Number of occurrences is negative");
+        }
+
+        makeDirty();
+
+        if (useCache)
+        {
+            loadFromStore();
+        }
+
+        int origNum = count(element);
+        if (num == 0 || origNum == 0)
+        {
+            return origNum;
+        }
+
+        if (ownerSM != null && ownerSM.getExecutionContext().getManageRelations())
+        {
+            ownerSM.getExecutionContext().getRelationshipManager(ownerSM).relationRemove(ownerMmd.getAbsoluteFieldNumber(), element);
+        }
+
+        updateCountInStore((E) element, -Math.min(num, origNum), "remove");
+
+        updateContentHash(element, origNum, Math.max(0, origNum - num));
+        delegate.remove(element, num);
+        return origNum;
+    }
+
     /**
      * Method to remove all elements from the collection from the HashSet.
      * @param c The collection of elements to remove 
@@ -704,22 +1493,24 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
 
             if (SCOUtils.useQueuedUpdate(ownerSM))
             {
-                backingSuccess = false;
-                Iterator iter = c.iterator();
-                while (iter.hasNext())
+                // Find the counts of the elements to remove with a single call, and queue their removal
+                Map<E, Integer> counts = getCounts(new java.util.HashSet(c));
+                for (Map.Entry<E, Integer> entry : counts.entrySet())
                 {
-                    Object element = iter.next();
-                    if (contains(element))
-                    {
-                        backingSuccess = true;
-                        addQueuedOperation(new CollectionRemoveOperation(ownerSM, backingStore, element, true));
-                    }
+                    getQueuedCountOperation().addDelta(entry.getKey(), -entry.getValue());
+                    updateContentHash(entry.getKey(), entry.getValue(), 0);
                 }
+                backingSuccess = !counts.isEmpty();
             }
             else
             {
+                for (Object element : new java.util.HashSet(c))
+                {
+                    updateContentHash(element, -(useCache ? delegate.count(element) : 1));
+                }
                 try
                 {
+                    storeCall("removeAll");
                     backingSuccess = backingStore.removeAll(ownerSM, c, size);
                 }
                 catch (NucleusDataStoreException dse)
@@ -733,6 +1524,10 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
             return backingSuccess;
         }
 
+        for (Object element : new java.util.HashSet(c))
+        {
+            updateContentHash(element, delegate.count(element), 0);
+        }
         return delegate.removeAll(c);
     }
 
@@ -750,18 +1545,113 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
             loadFromStore();
         }
 
-        boolean modified = false;
-        Iterator iter = iterator();
-        while (iter.hasNext())
+        Collection retained = (c instanceof java.util.Set) ? c : new java.util.HashSet(c);
+        if (!useCache && backingStore instanceof MultisetStore && !SCOUtils.useQueuedUpdate(ownerSM) && 
+            (ownerSM == null || !ownerSM.getExecutionContext().getManageRelations()))
+        {
+            // Remove all other elements in the datastore with a single operation
+            contentHashKnown = false;
+            delegate.retainAll(retained);
+            try
+            {
+                storeCall("retainAll");
+                return ((MultisetStore<E>)backingStore).retainAll(ownerSM, retained);
+            }
+            catch (NucleusDataStoreException dse)
+            {
+                NucleusLogger.PERSISTENCE.warn(Localiser.msg("023013", "retainAll", ownerMmd.getName(), dse));
+                return false;
+            }
+        }
+
+        // Find the elements to remove, and remove them as a single batch
+        com.google.common.collect.Multiset<E> current = (useCache || backingStore == null) ? delegate : readFromStore();
+        Map<E, Integer> deltas = new HashMap<>();
+        for (com.google.common.collect.Multiset.Entry<E> entry : current.entrySet())
+        {
+            if (!retained.contains(entry.getElement()))
+            {
+                deltas.put(entry.getElement(), -entry.getCount());
+            }
+        }
+        if (deltas.isEmpty())
+        {
+            return false;
+        }
+
+        manageRelations(deltas);
+        updateCountsInStore(deltas, (useCache ? delegate.size() : -1), "retainAll");
+        for (Map.Entry<E, Integer> entry : deltas.entrySet())
+        {
+            updateContentHash(entry.getKey(), -entry.getValue(), 0);
+        }
+        delegate.retainAll(retained);
+        return true;
+    }
+
+    /**
+     * Add or remove occurrences of the element so it has the specified count.
+     * The change is passed to the backing store as a single operation.
+     * @param element The element
+     * @param num The number required
+     * @return The number of occurrences before
+     */
+    public int setCount(E element, int num)
+    {
+        if (num < 0)
+        {
+            throw new IllegalArgumentException("Number of occurrences is negative");
+        }
+
+        if (useCache)
+        {
+            loadFromStore();
+        }
+
+        int origNum = count(element);
+        if (origNum == num)
+        {
+            return origNum;
+        }
+
+        if (ownerSM != null && ownerSM.getExecutionContext().getManageRelations())
+        {
+            // Relationship management
+            RelationshipManager relMgr = ownerSM.getExecutionContext().getRelationshipManager(ownerSM);
+            if (num > origNum)
+            {
+                relMgr.relationAdd(ownerMmd.getAbsoluteFieldNumber(), element);
+            }
+            else
+            {
+                relMgr.relationRemove(ownerMmd.getAbsoluteFieldNumber(), element);
+            }
+        }
+
+        if (backingStore instanceof MultisetStore && !SCOUtils.useQueuedUpdate(ownerSM))
         {
-            Object element = iter.next();
-            if (!c.contains(element))
+            try
+            {
+                storeCall("setCount");
+                ((MultisetStore<E>)backingStore).setCount(ownerSM, element, num);
+            }
+            catch (NucleusDataStoreException dse)
             {
-                iter.remove();
-                modified = true;
+                NucleusLogger.PERSISTENCE.warn(Localiser.msg("023013", "setCount", ownerMmd.getName(), dse));
             }
         }
-        return modified;
+        else
+        {
+            updateCountInStore(element, num - origNum, "setCount");
+        }
+
+        // Only make it dirty after updating the datastore so we give it time
+        // to be inserted - otherwise jdoPreStore on this object would have been called before completing the addition
+        makeDirty();
+
+        updateContentHash(element, origNum, num);
+        delegate.setCount(element, num);
+        return origNum;
     }
 
     /**
@@ -782,14 +1672,128 @@ public class Multiset<E> extends org.datanucleus.store.types.guava.wrappers.Mult
         if (useCache)
         {
             loadFromStore();
-            HashMultiset multi = HashMultiset.create();
-            multi.addAll(delegate);
-            return multi;
+            return new MultisetExternalForm(delegate);
+        }
+        else if (backingStore != null)
+        {
+            storeCall("iterator");
+            com.google.common.collect.Multiset<E> multi = newDelegate(-1);
+            Iterator<? extends E> iter = backingStore.iterator(ownerSM);
+            while (iter.hasNext())
+            {
+                multi.add(iter.next());
+            }
+            return new MultisetExternalForm(multi);
+        }
+
+        return new MultisetExternalForm(delegate);
+    }
+
+    /**
+     * View of the distinct elements of the Multiset, answered from the datastore until the "delegate" is loaded.
+     * Removal of an element removes all of its occurrences via the owning Multiset, so it is intercepted.
+     */
+    protected class StoreElementSet extends AbstractSet<E>
+    {
+        @Override
+        public Iterator<E> iterator()
+        {
+            if (!useStoreViews())
+            {
+                storeCall(null);
+                return Iterators.unmodifiableIterator(delegate.elementSet().iterator());
+            }
+            storeFallback("elementIterator");
+            return Iterators.unmodifiableIterator(((MultisetStore<E>)backingStore).elementIterator(ownerSM));
+        }
+
+        @Override
+        public int size()
+        {
+            if (!useStoreViews())
+            {
+                storeCall(null);
+                return delegate.elementSet().size();
+            }
+            storeFallback("elementSetSize");
+            return ((MultisetStore<E>)backingStore).elementSetSize(ownerSM);
+        }
+
+        @Override
+        public boolean contains(Object element)
+        {
+            return Multiset.this.contains(element);
         }
 
-        // TODO Cater for non-cached collection, load elements in a DB call.
-        HashMultiset multi = HashMultiset.create();
-        multi.addAll(delegate);
-        return multi;
+        @Override
+        public boolean remove(Object element)
+        {
+            return Multiset.this.setCount((E) element, 0) > 0;
+        }
+
+        @Override
+        public void clear()
+        {
+            Multiset.this.clear();
+        }
+    }
+
+    /**
+     * View of the entries of the Multiset, answered from the datastore until the "delegate" is loaded.
+     * Removal of an entry removes all occurrences of its element via the owning Multiset, so it is intercepted.
+     */
+    protected class StoreEntrySet extends AbstractSet<com.google.common.collect.Multiset.Entry<E>>
+    {
+        @Override
+        public Iterator<com.google.common.collect.Multiset.Entry<E>> iterator()
+        {
+            if (!useStoreViews())
+            {
+                storeCall(null);
+                return Iterators.unmodifiableIterator(delegate.entrySet().iterator());
+            }
+            storeFallback("entryIterator");
+            return Iterators.unmodifiableIterator(((MultisetStore<E>)backingStore).entryIterator(ownerSM));
+        }
+
+        @Override
+        public int size()
+        {
+            if (!useStoreViews())
+            {
+                storeCall(null);
+                return delegate.entrySet().size();
+            }
+            storeFallback("elementSetSize");
+            return ((MultisetStore<E>)backingStore).elementSetSize(ownerSM);
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            if (o instanceof com.google.common.collect.Multiset.Entry)
+            {
+                com.google.common.collect.Multiset.Entry<?> entry = (com.google.common.collect.Multiset.Entry<?>) o;
+                return entry.getCount() > 0 && Multiset.this.count(entry.getElement()) == entry.getCount();
+            }
+            return false;
+        }
+
+        @Override
+        public boolean remove(Object o)
+        {
+            if (contains(o))
+            {
+                Multiset.this.setCount((E) ((com.google.common.collect.Multiset.Entry<?>) o).getElement(), 0);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear()
+        {
+            Multiset.this.clear();
+        }
     }
 }
\ No newline at end of file
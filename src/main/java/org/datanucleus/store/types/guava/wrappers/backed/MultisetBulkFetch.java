@@ -0,0 +1,185 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.wrappers.backed;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.ExecutionContextListener;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.guava.cache.ContainerContentCache;
+import org.datanucleus.store.types.guava.scostore.MultisetStore;
+
+/**
+ * Registry of the (cached) backed Multisets in an ExecutionContext that are not yet loaded, so that when the first
+ * of them for a field is loaded, those of the other owners of that field are loaded with it in a single call to the
+ * {@link MultisetStore}. This avoids one query per owner when, for example, iterating the results of a query and
+ * accessing the Multiset field of each (where the field is in the fetch plan, so its wrapper exists for each owner).
+ * Wrappers are held weakly, and are dropped once loaded or when their owner is no longer managed by the context.
+ * The registry of an ExecutionContext is a listener of it, and is dropped when the context closes.
+ */
+class MultisetBulkFetch
+{
+    /** Registry of each open ExecutionContext having wrappers registered. */
+    private static final Map<ExecutionContext, Registry> REGISTRIES = new ConcurrentHashMap<>();
+
+    /** Number of registered wrappers of a field after which those no longer pending are dropped. */
+    private static final int PRUNE_INTERVAL = 1024;
+
+    private MultisetBulkFetch()
+    {
+    }
+
+    /**
+     * Method to register a (not yet loaded) wrapper, so it can be loaded together with the others of its field.
+     * @param multiset The wrapper
+     */
+    static void register(Multiset<?> multiset)
+    {
+        ExecutionContext ec = multiset.getOwnerSM().getExecutionContext();
+        if (ec.isClosed())
+        {
+            return;
+        }
+        Map<String, List<WeakReference<Multiset<?>>>> pendingByField = REGISTRIES.computeIfAbsent(ec, k -> 
+        {
+            Registry registry = new Registry();
+            ec.registerExecutionContextListener(registry);
+            return registry;
+        }).pendingByField;
+        synchronized (pendingByField)
+        {
+            List<WeakReference<Multiset<?>>> pending = pendingByField.computeIfAbsent(multiset.getOwnerMmd().getFullFieldName(), k -> new ArrayList<>());
+            if (pending.size() > 0 && pending.size() % PRUNE_INTERVAL == 0)
+            {
+                // Drop wrappers that have been loaded, or whose owner is no longer managed, e.g after the context was reused
+                pending.removeIf(ref -> !isPending(ref.get(), ec));
+            }
+            pending.add(new WeakReference<>(multiset));
+        }
+    }
+
+    /**
+     * Method to load the specified wrapper together with (up to) the maximum number of other wrappers of its field
+     * that are registered and not yet loaded.
+     * @param multiset The wrapper to load
+     * @param maxOwners Maximum number of owners to load together
+     * @return Whether the wrapper was loaded. False when there are no other wrappers to load with it
+     * @param <E> Type of the element
+     */
+    static <E> boolean load(Multiset<E> multiset, int maxOwners)
+    {
+        ExecutionContext ec = multiset.getOwnerSM().getExecutionContext();
+        Registry registry = REGISTRIES.get(ec);
+        if (registry == null)
+        {
+            return false;
+        }
+        Map<String, List<WeakReference<Multiset<?>>>> pendingByField = registry.pendingByField;
+
+        Map<DNStateManager, Multiset<E>> batch = new LinkedHashMap<>();
+        batch.put(multiset.getOwnerSM(), multiset);
+        synchronized (pendingByField)
+        {
+            List<WeakReference<Multiset<?>>> pending = pendingByField.get(multiset.getOwnerMmd().getFullFieldName());
+            if (pending == null)
+            {
+                return false;
+            }
+            List<WeakReference<Multiset<?>>> stillPending = new ArrayList<>();
+            for (WeakReference<Multiset<?>> ref : pending)
+            {
+                Multiset<E> other = (Multiset<E>) ref.get();
+                if (other == multiset || !isPending(other, ec) || other.backingStore != multiset.backingStore)
+                {
+                    // This wrapper, or garbage collected, loaded already, or no longer managed by this context
+                    continue;
+                }
+                if (batch.size() < maxOwners)
+                {
+                    batch.put(other.getOwnerSM(), other);
+                }
+                else
+                {
+                    stillPending.add(ref);
+                }
+            }
+            if (stillPending.isEmpty())
+            {
+                pendingByField.remove(multiset.getOwnerMmd().getFullFieldName());
+            }
+            else
+            {
+                pendingByField.put(multiset.getOwnerMmd().getFullFieldName(), stillPending);
+            }
+        }
+        if (batch.size() == 1)
+        {
+            return false;
+        }
+
+        ContainerContentCache contentCache = ContainerContentCache.getCache(multiset.getOwnerSM(), multiset.getOwnerMmd());
+        long loadStamp = (contentCache != null ? contentCache.getLoadStamp() : 0);
+        long startTime = (multiset.metrics != null ? System.nanoTime() : 0);
+        Map<DNStateManager, List<com.google.common.collect.Multiset.Entry<E>>> entriesByOwner = 
+                ((MultisetStore<E>)multiset.backingStore).entries(batch.keySet());
+        int numElements = 0;
+        for (Map.Entry<DNStateManager, Multiset<E>> ownerEntry : batch.entrySet())
+        {
+            List<com.google.common.collect.Multiset.Entry<E>> entries = entriesByOwner.get(ownerEntry.getKey());
+            ownerEntry.getValue().loadFromEntries(entries != null ? entries : Collections.emptyList(), loadStamp);
+            numElements += ownerEntry.getValue().getValue().size();
+        }
+        if (multiset.metrics != null)
+        {
+            multiset.metrics.storeCall("entries");
+            multiset.metrics.loaded(numElements, startTime);
+        }
+        return true;
+    }
+
+    private static boolean isPending(Multiset<?> multiset, ExecutionContext ec)
+    {
+        return multiset != null && !multiset.isCacheLoaded && isManaged(multiset, ec);
+    }
+
+    private static boolean isManaged(Multiset<?> multiset, ExecutionContext ec)
+    {
+        DNStateManager sm = multiset.getOwnerSM();
+        return sm != null && !ec.isClosed() && sm.getExecutionContext() == ec && ec.findStateManager(sm.getObject()) == sm;
+    }
+
+    /**
+     * Wrappers not yet loaded in an ExecutionContext, by field, dropped when the context closes.
+     */
+    private static class Registry implements ExecutionContextListener
+    {
+        final Map<String, List<WeakReference<Multiset<?>>>> pendingByField = new LinkedHashMap<>();
+
+        public void executionContextClosing(ExecutionContext ec)
+        {
+            REGISTRIES.remove(ec);
+        }
+    }
+}
@@ -0,0 +1,690 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.wrappers.backed;
+
+import java.io.ObjectStreamException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+import org.datanucleus.FetchPlanState;
+import org.datanucleus.exceptions.NucleusDataStoreException;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.FieldPersistenceModifier;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.SCOUtils;
+import org.datanucleus.store.types.guava.flush.RangeMapChangeOperation;
+import org.datanucleus.store.types.guava.management.ContainerFieldMetrics;
+import org.datanucleus.store.types.guava.management.ContainerMetrics;
+import org.datanucleus.store.types.guava.rdbms.RangeMapMapping;
+import org.datanucleus.store.types.guava.scostore.RangeMapStore;
+import org.datanucleus.store.types.scostore.Store;
+import org.datanucleus.store.types.wrappers.backed.BackedSCO;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.TreeRangeMap;
+
+/**
+ * A mutable second-class RangeMap object.
+ * This class extends RangeMap, using that class to contain the current entries, and the backing RangeMapStore to be the
+ * interface to the datastore. A "backing store" is not present for datastores that dont use DatastoreClass, or if the
+ * container is serialised or non-persistent.
+ *
+ * <H3>Modes of Operation</H3>
+ * The user can operate the map in 2 modes.
+ * The <B>cached</B> mode will use an internal cache of the entries (in the "delegate") reading them at the first
+ * opportunity and then using the cache thereafter.
+ * The <B>non-cached</B> mode will just go direct to the "backing store" each call.
+ *
+ * <H3>Lookups and changes</H3>
+ * Until the "delegate" is loaded, get() and getEntry() are answered by a query of the ranges in the datastore, so a
+ * lookup doesn't load the whole map. A change that is not queued is passed straight to the datastore without loading,
+ * as a replacement of the stored entries whose ranges are connected to the changed range (read first). Changes are only
+ * queued when the "delegate" holds the current entries, so in non-cached mode a change is written straight away even
+ * when updates are otherwise queued. The views (asMapOfRanges(), subRangeMap() etc) are views of the loaded entries;
+ * since a change made via one of them can't be told apart, it has the entries written in full when next flushed.
+ */
+public class RangeMap<K extends Comparable, V> extends org.datanucleus.store.types.guava.wrappers.RangeMap<K, V> implements BackedSCO
+{
+    protected transient RangeMapStore<K, V> backingStore;
+    protected transient boolean useCache = true;
+    protected transient boolean isCacheLoaded = false;
+
+    /** Changes queued for the backing store and not yet performed (if any). */
+    protected transient RangeMapChangeOperation<K, V> queuedChangeOperation;
+
+    /** Runtime metrics for this field (null unless enabled). */
+    protected transient ContainerFieldMetrics metrics;
+
+    /**
+     * Constructor, using StateManager of the "owner" and the field name.
+     * @param sm The owner StateManager
+     * @param mmd Metadata for the member
+     */
+    public RangeMap(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        super(sm, mmd);
+
+        // Set up our delegate
+        this.delegate = TreeRangeMap.create();
+        this.useCache = SCOUtils.useContainerCache(sm, ownerMmd);
+        this.metrics = ContainerMetrics.getMetrics(sm, ownerMmd);
+
+        if (!ownerMmd.isSerialized() && ownerMmd.getPersistenceModifier() == FieldPersistenceModifier.PERSISTENT &&
+            "rdbms".equals(ownerSM.getStoreManager().getStoreManagerKey()))
+        {
+            this.backingStore = RangeMapMapping.getBackingStore(ownerSM, mmd);
+        }
+
+        if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+        {
+            NucleusLogger.PERSISTENCE.debug(SCOUtils.getContainerInfoMessage(sm, ownerMmd.getName(), this, useCache, true, SCOUtils.useCachedLazyLoading(sm, ownerMmd)));
+        }
+    }
+
+    public void initialise(com.google.common.collect.RangeMap<K, V> newValue, Object oldValue)
+    {
+        if (newValue != null)
+        {
+            if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+            {
+                NucleusLogger.PERSISTENCE.debug(Localiser.msg("023008", ownerSM.getObjectAsPrintable(), ownerMmd.getName(), "" + newValue.asMapOfRanges().size()));
+            }
+            replaceContents(newValue);
+        }
+    }
+
+    /**
+     * Method to initialise the SCO from an existing value.
+     * @param m The object to set from
+     */
+    public void initialise(com.google.common.collect.RangeMap<K, V> m)
+    {
+        if (m != null)
+        {
+            if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+            {
+                NucleusLogger.PERSISTENCE.debug(Localiser.msg("023007", ownerSM.getObjectAsPrintable(), ownerMmd.getName(), "" + m.asMapOfRanges().size()));
+            }
+
+            delegate.putAll(m);
+            isCacheLoaded = true;
+        }
+    }
+
+    /**
+     * Method to initialise the SCO for use.
+     */
+    public void initialise()
+    {
+        if (useCache && !SCOUtils.useCachedLazyLoading(ownerSM, ownerMmd))
+        {
+            // Load up the container now if not using lazy loading
+            loadFromStore();
+        }
+    }
+
+    // ----------------------- Implementation of SCO methods -------------------
+
+    /**
+     * Accessor for the unwrapped value that we are wrapping.
+     * @return The unwrapped value
+     */
+    public com.google.common.collect.RangeMap<K, V> getValue()
+    {
+        return loadContents();
+    }
+
+    /**
+     * Method to effect the load of the data in the SCO.
+     * Used when the SCO supports lazy-loading to tell it to load all now.
+     */
+    public void load()
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+    }
+
+    /**
+     * Method to return if the SCO has its contents loaded.
+     * If the SCO doesn't support lazy loading will just return true.
+     * @return Whether it is loaded
+     */
+    public boolean isLoaded()
+    {
+        return useCache ? isCacheLoaded : false;
+    }
+
+    /**
+     * Method to load all entries from the "backing store" where appropriate.
+     */
+    protected void loadFromStore()
+    {
+        if (backingStore != null && !isCacheLoaded)
+        {
+            if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+            {
+                NucleusLogger.PERSISTENCE.debug(Localiser.msg("023006", ownerSM.getObjectAsPrintable(), ownerMmd.getName()));
+            }
+            long startTime = (metrics != null ? System.nanoTime() : 0);
+            readFromStore();
+            if (metrics != null)
+            {
+                metrics.storeCall("entryIterator");
+                metrics.loaded(delegate.asMapOfRanges().size(), startTime);
+            }
+
+            isCacheLoaded = true;
+        }
+    }
+
+    /**
+     * Convenience method to read all entries from the "backing store" into the "delegate".
+     */
+    protected void readFromStore()
+    {
+        delegate.clear();
+        Iterator<Map.Entry<Range<K>, V>> iter = backingStore.entryIterator(ownerSM);
+        while (iter.hasNext())
+        {
+            Map.Entry<Range<K>, V> entry = iter.next();
+            delegate.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Accessor for the "delegate" holding the current entries, for a view of the whole map. When not caching, the
+     * entries are read from the "backing store" for each such view (unless the "delegate" holds changes that are still
+     * to be written).
+     * @return The "delegate"
+     */
+    protected com.google.common.collect.RangeMap<K, V> loadContents()
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+        else if (backingStore != null && !isChangePending())
+        {
+            storeCall("entryIterator");
+            readFromStore();
+        }
+        return delegate;
+    }
+
+    /**
+     * Accessor for whether the "delegate" holds the current entries, so can answer an accessor.
+     * @return Whether the "delegate" is current
+     */
+    protected boolean isDelegateCurrent()
+    {
+        return backingStore == null || (useCache && isCacheLoaded) || isChangePending();
+    }
+
+    /* (non-Javadoc)
+     * @see org.datanucleus.store.types.backed.BackedSCO#getBackingStore()
+     */
+    public Store getBackingStore()
+    {
+        return backingStore;
+    }
+
+    /**
+     * Convenience method to add a queued operation to the operations we perform at commit.
+     * @param oper The operation
+     */
+    protected void addQueuedOperation(org.datanucleus.flush.Operation oper)
+    {
+        if (metrics != null)
+        {
+            metrics.queuedOperation();
+        }
+        ownerSM.getExecutionContext().addOperationToQueue(oper);
+    }
+
+    /**
+     * Accessor for the queued changes of this map, creating (and queueing) them if none are pending.
+     * @return The queued changes
+     */
+    protected RangeMapChangeOperation<K, V> getQueuedChangeOperation()
+    {
+        if (queuedChangeOperation == null || queuedChangeOperation.isPerformed())
+        {
+            queuedChangeOperation = new RangeMapChangeOperation<>(ownerSM, backingStore, delegate);
+            addQueuedOperation(queuedChangeOperation);
+        }
+        return queuedChangeOperation;
+    }
+
+    /**
+     * Accessor for whether changes are queued and not yet performed, so the "delegate" holds the current entries.
+     * @return Whether changes are pending
+     */
+    protected boolean isChangePending()
+    {
+        return queuedChangeOperation != null && !queuedChangeOperation.isPerformed();
+    }
+
+    /**
+     * Convenience method to register a call to the backing store, or that an accessor was answered from the
+     * "delegate", in the metrics (when enabled).
+     * @param operation Name of the backing store operation (or null if answered from the "delegate")
+     */
+    protected void storeCall(String operation)
+    {
+        if (metrics != null)
+        {
+            if (operation == null)
+            {
+                metrics.cacheHit();
+            }
+            else
+            {
+                metrics.storeCall(operation);
+            }
+        }
+    }
+
+    /**
+     * Convenience method to register an accessor that had to go to the backing store in the metrics (when enabled).
+     * @param operation Name of the backing store operation
+     */
+    protected void storeFallback(String operation)
+    {
+        if (metrics != null)
+        {
+            metrics.datastoreFallback();
+            metrics.storeCall(operation);
+        }
+    }
+
+    /**
+     * Method called after the map has been changed via one of its views. Which entries were changed can't be told, so
+     * the entries are written in full when next flushed.
+     */
+    @Override
+    protected void viewChanged()
+    {
+        makeDirty();
+        if (backingStore != null)
+        {
+            getQueuedChangeOperation().rewrite();
+        }
+    }
+
+    /**
+     * Method to unset the owner and field information.
+     */
+    public synchronized void unsetOwner()
+    {
+        super.unsetOwner();
+        if (backingStore != null)
+        {
+            backingStore = null;
+        }
+    }
+
+    /**
+     * Method to return a detached copy of the container.
+     * @param state State for detachment process
+     * @return The detached container
+     */
+    public com.google.common.collect.RangeMap<K, V> detachCopy(FetchPlanState state)
+    {
+        loadContents();
+        return super.detachCopy(state);
+    }
+
+    /**
+     * Method to return an attached copy of the passed (detached) value. Replaces the entries of this map by those of the
+     * detached value where they differ.
+     * @param value The new (map) value
+     */
+    public void attachCopy(com.google.common.collect.RangeMap<K, V> value)
+    {
+        if (value == null || loadContents().equals(value))
+        {
+            return;
+        }
+        replaceContents(value);
+    }
+
+    // ------------------ Implementation of RangeMap methods --------------------
+
+    /**
+     * Creates and returns a copy of this object.
+     * @return The cloned object
+     */
+    public Object clone()
+    {
+        loadContents();
+        return super.clone();
+    }
+
+    /**
+     * Accessor for the value of the range containing a key.
+     * @param key The key
+     * @return The value (or null if no range contains the key)
+     */
+    public V get(K key)
+    {
+        Map.Entry<Range<K>, V> entry = getEntry(key);
+        return (entry != null ? entry.getValue() : null);
+    }
+
+    /**
+     * Accessor for the range containing a key, and its value.
+     * @param key The key
+     * @return The entry (or null if no range contains the key)
+     */
+    public Map.Entry<Range<K>, V> getEntry(K key)
+    {
+        if (isDelegateCurrent())
+        {
+            storeCall(null);
+            return delegate.getEntry(key);
+        }
+        storeFallback("getEntry");
+        return backingStore.getEntry(ownerSM, key);
+    }
+
+    /**
+     * Accessor for the minimal range enclosing the ranges of the map, loading all entries.
+     * @return The span
+     */
+    public Range<K> span()
+    {
+        loadContents();
+        return super.span();
+    }
+
+    /**
+     * Accessor for a view of the entries, loading all entries.
+     * @return The map of ranges to values
+     */
+    public Map<Range<K>, V> asMapOfRanges()
+    {
+        loadContents();
+        return super.asMapOfRanges();
+    }
+
+    /**
+     * Accessor for a view of the entries in descending order, loading all entries.
+     * @return The map of ranges to values
+     */
+    public Map<Range<K>, V> asDescendingMapOfRanges()
+    {
+        loadContents();
+        return super.asDescendingMapOfRanges();
+    }
+
+    /**
+     * Accessor for a view of the map within a range, loading all entries.
+     * @param range The range
+     * @return The view
+     */
+    public com.google.common.collect.RangeMap<K, V> subRangeMap(Range<K> range)
+    {
+        loadContents();
+        return super.subRangeMap(range);
+    }
+
+    public synchronized boolean equals(Object o)
+    {
+        loadContents();
+        return super.equals(o);
+    }
+
+    public synchronized int hashCode()
+    {
+        loadContents();
+        return super.hashCode();
+    }
+
+    public String toString()
+    {
+        loadContents();
+        return super.toString();
+    }
+
+    // ------------------------------ Mutator methods --------------------------
+
+    /**
+     * Convenience method to load the entries before a change that will be queued, since a queued change is performed
+     * from the "delegate". A change that isn't queued goes to the datastore without loading.
+     */
+    protected void loadForChange()
+    {
+        if (useCache && backingStore != null && SCOUtils.useQueuedUpdate(ownerSM))
+        {
+            loadFromStore();
+        }
+    }
+
+    /**
+     * Method to map a range to a value.
+     * @param range The range
+     * @param value The value
+     */
+    public void put(Range<K> range, V value)
+    {
+        change(range, "put", entries ->
+        {
+            entries.put(range, value);
+            return true;
+        });
+    }
+
+    /**
+     * Method to map a range to a value, coalescing with connected ranges having the same value.
+     * @param range The range
+     * @param value The value
+     */
+    public void putCoalescing(Range<K> range, V value)
+    {
+        change(range, "putCoalescing", entries ->
+        {
+            entries.putCoalescing(range, value);
+            return true;
+        });
+    }
+
+    /**
+     * Method to put all of the ranges of another map into this map.
+     * @param rangeMap The other map
+     */
+    public void putAll(com.google.common.collect.RangeMap<K, ? extends V> rangeMap)
+    {
+        for (Map.Entry<Range<K>, ? extends V> entry : new ArrayList<>(rangeMap.asMapOfRanges().entrySet()))
+        {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Method to merge a value into the values of the range.
+     * @param range The range
+     * @param value The value
+     * @param remappingFunction Function to merge the existing and new value
+     */
+    public void merge(Range<K> range, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction)
+    {
+        change(range, "merge", entries ->
+        {
+            entries.merge(range, value, remappingFunction);
+            return true;
+        });
+    }
+
+    /**
+     * Method to remove the mappings in a range.
+     * @param range The range
+     */
+    public void remove(Range<K> range)
+    {
+        change(range, "remove", entries ->
+        {
+            if (entries.subRangeMap(range).asMapOfRanges().isEmpty())
+            {
+                return false;
+            }
+            entries.remove(range);
+            return true;
+        });
+    }
+
+    /**
+     * Convenience method to make a change to the entries whose ranges are connected to a range. When the "delegate"
+     * holds the current entries the change is made to it, and then queued or written. Otherwise the stored entries
+     * connected to the range are read, and replaced by the result of making the change to them.
+     * @param range The range
+     * @param operation Name of the change (for logging)
+     * @param change The change, returning whether the entries were changed
+     */
+    protected void change(Range<K> range, String operation, Predicate<com.google.common.collect.RangeMap<K, V>> change)
+    {
+        if (range.isEmpty())
+        {
+            return;
+        }
+        loadForChange();
+
+        com.google.common.collect.RangeMap<K, V> entries;
+        if (isDelegateCurrent())
+        {
+            entries = delegate;
+        }
+        else
+        {
+            storeCall("getConnectedEntries");
+            entries = TreeRangeMap.create();
+            for (Map.Entry<Range<K>, V> entry : backingStore.getConnectedEntries(ownerSM, range).entrySet())
+            {
+                entries.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (!change.test(entries))
+        {
+            return;
+        }
+
+        if (backingStore != null)
+        {
+            if (entries == delegate && (SCOUtils.useQueuedUpdate(ownerSM) || isChangePending()))
+            {
+                getQueuedChangeOperation().change(range);
+            }
+            else
+            {
+                try
+                {
+                    storeCall("replaceConnectedEntries");
+                    RangeMapChangeOperation<K, V> oper = new RangeMapChangeOperation<>(ownerSM, backingStore, entries);
+                    oper.change(range);
+                    oper.perform();
+                }
+                catch (NucleusDataStoreException dse)
+                {
+                    NucleusLogger.PERSISTENCE.warn(Localiser.msg("023013", operation, ownerMmd.getName(), dse));
+                }
+            }
+        }
+        makeDirty();
+    }
+
+    /**
+     * Method to clear the map.
+     */
+    public void clear()
+    {
+        makeDirty();
+
+        delegate.clear();
+        if (backingStore != null)
+        {
+            if (SCOUtils.useQueuedUpdate(ownerSM) || isChangePending())
+            {
+                // The "delegate" now holds the current (no) entries
+                getQueuedChangeOperation().rewrite();
+            }
+            else
+            {
+                storeCall("clear");
+                backingStore.clear(ownerSM);
+            }
+        }
+        if (useCache)
+        {
+            // Map is now known to be empty, so no need to load it
+            isCacheLoaded = true;
+        }
+    }
+
+    /**
+     * Convenience method to replace all entries of the map, as a clear followed by a put of the entries (written as a
+     * single batch, unless changes are queued).
+     * @param m The new entries
+     */
+    protected void replaceContents(com.google.common.collect.RangeMap<K, V> m)
+    {
+        clear();
+        if (m.asMapOfRanges().isEmpty())
+        {
+            return;
+        }
+
+        delegate.putAll(m);
+        if (backingStore != null && !isChangePending())
+        {
+            try
+            {
+                storeCall("putEntries");
+                backingStore.putEntries(ownerSM, delegate.asMapOfRanges());
+            }
+            catch (NucleusDataStoreException dse)
+            {
+                NucleusLogger.PERSISTENCE.warn(Localiser.msg("023013", "putAll", ownerMmd.getName(), dse));
+            }
+        }
+        makeDirty();
+    }
+
+    /**
+     * The writeReplace method is called when ObjectOutputStream is preparing
+     * to write the object to the stream. The ObjectOutputStream checks
+     * whether the class defines the writeReplace method. If the method is
+     * defined, the writeReplace method is called to allow the object to
+     * designate its replacement in the stream. The object returned should be
+     * either of the same type as the object passed in or an object that when
+     * read and resolved will result in an object of a type that is compatible
+     * with all references to the object.
+     * @return the replaced object
+     * @throws ObjectStreamException if an error occurs
+     */
+    protected Object writeReplace() throws ObjectStreamException
+    {
+        loadContents();
+        return super.writeReplace();
+    }
+}
@@ -0,0 +1,744 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.wrappers.backed;
+
+import java.io.ObjectStreamException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.datanucleus.FetchPlanState;
+import org.datanucleus.exceptions.NucleusDataStoreException;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.FieldPersistenceModifier;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.SCOUtils;
+import org.datanucleus.store.types.guava.flush.RangeSetChangeOperation;
+import org.datanucleus.store.types.guava.management.ContainerFieldMetrics;
+import org.datanucleus.store.types.guava.management.ContainerMetrics;
+import org.datanucleus.store.types.guava.rdbms.RangeSetMapping;
+import org.datanucleus.store.types.guava.scostore.RangeSetStore;
+import org.datanucleus.store.types.scostore.Store;
+import org.datanucleus.store.types.wrappers.backed.BackedSCO;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.TreeRangeSet;
+
+/**
+ * A mutable second-class RangeSet object.
+ * This class extends RangeSet, using that class to contain the current ranges, and the backing RangeSetStore to be the
+ * interface to the datastore. A "backing store" is not present for datastores that dont use DatastoreClass, or if the
+ * container is serialised or non-persistent.
+ *
+ * <H3>Modes of Operation</H3>
+ * The user can operate the set in 2 modes.
+ * The <B>cached</B> mode will use an internal cache of the ranges (in the "delegate") reading them at the first
+ * opportunity and then using the cache thereafter.
+ * The <B>non-cached</B> mode will just go direct to the "backing store" each call.
+ *
+ * <H3>Lookups and changes</H3>
+ * Until the "delegate" is loaded, contains(), rangeContaining(), encloses() and intersects() are answered by a query of
+ * the ranges in the datastore, so a lookup doesn't load the whole set. A change that is not queued is passed straight to
+ * the datastore without loading, as a replacement of the stored ranges connected to the changed range (read first).
+ * Changes are only queued when the "delegate" holds the current ranges, so in non-cached mode a change is written
+ * straight away even when updates are otherwise queued. The views (asRanges(), complement(), subRangeSet() etc) are
+ * views of the loaded ranges; since a change made via one of them can't be told apart, it has the ranges written in
+ * full when next flushed.
+ */
+public class RangeSet<C extends Comparable> extends org.datanucleus.store.types.guava.wrappers.RangeSet<C> implements BackedSCO
+{
+    protected transient RangeSetStore<C> backingStore;
+    protected transient boolean useCache = true;
+    protected transient boolean isCacheLoaded = false;
+
+    /** Changes queued for the backing store and not yet performed (if any). */
+    protected transient RangeSetChangeOperation<C> queuedChangeOperation;
+
+    /** Runtime metrics for this field (null unless enabled). */
+    protected transient ContainerFieldMetrics metrics;
+
+    /**
+     * Constructor, using StateManager of the "owner" and the field name.
+     * @param sm The owner StateManager
+     * @param mmd Metadata for the member
+     */
+    public RangeSet(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        super(sm, mmd);
+
+        // Set up our delegate
+        this.delegate = TreeRangeSet.create();
+        this.useCache = SCOUtils.useContainerCache(sm, ownerMmd);
+        this.metrics = ContainerMetrics.getMetrics(sm, ownerMmd);
+
+        if (!ownerMmd.isSerialized() && ownerMmd.getPersistenceModifier() == FieldPersistenceModifier.PERSISTENT &&
+            "rdbms".equals(ownerSM.getStoreManager().getStoreManagerKey()))
+        {
+            this.backingStore = RangeSetMapping.getBackingStore(ownerSM, mmd);
+        }
+
+        if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+        {
+            NucleusLogger.PERSISTENCE.debug(SCOUtils.getContainerInfoMessage(sm, ownerMmd.getName(), this, useCache, true, SCOUtils.useCachedLazyLoading(sm, ownerMmd)));
+        }
+    }
+
+    public void initialise(com.google.common.collect.RangeSet<C> newValue, Object oldValue)
+    {
+        if (newValue != null)
+        {
+            if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+            {
+                NucleusLogger.PERSISTENCE.debug(Localiser.msg("023008", ownerSM.getObjectAsPrintable(), ownerMmd.getName(), "" + newValue.asRanges().size()));
+            }
+            replaceContents(newValue);
+        }
+    }
+
+    /**
+     * Method to initialise the SCO from an existing value.
+     * @param s The object to set from
+     */
+    public void initialise(com.google.common.collect.RangeSet<C> s)
+    {
+        if (s != null)
+        {
+            if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+            {
+                NucleusLogger.PERSISTENCE.debug(Localiser.msg("023007", ownerSM.getObjectAsPrintable(), ownerMmd.getName(), "" + s.asRanges().size()));
+            }
+
+            delegate.addAll(s);
+            isCacheLoaded = true;
+        }
+    }
+
+    /**
+     * Method to initialise the SCO for use.
+     */
+    public void initialise()
+    {
+        if (useCache && !SCOUtils.useCachedLazyLoading(ownerSM, ownerMmd))
+        {
+            // Load up the container now if not using lazy loading
+            loadFromStore();
+        }
+    }
+
+    // ----------------------- Implementation of SCO methods -------------------
+
+    /**
+     * Accessor for the unwrapped value that we are wrapping.
+     * @return The unwrapped value
+     */
+    public com.google.common.collect.RangeSet<C> getValue()
+    {
+        return loadContents();
+    }
+
+    /**
+     * Method to effect the load of the data in the SCO.
+     * Used when the SCO supports lazy-loading to tell it to load all now.
+     */
+    public void load()
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+    }
+
+    /**
+     * Method to return if the SCO has its contents loaded.
+     * If the SCO doesn't support lazy loading will just return true.
+     * @return Whether it is loaded
+     */
+    public boolean isLoaded()
+    {
+        return useCache ? isCacheLoaded : false;
+    }
+
+    /**
+     * Method to load all ranges from the "backing store" where appropriate.
+     */
+    protected void loadFromStore()
+    {
+        if (backingStore != null && !isCacheLoaded)
+        {
+            if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+            {
+                NucleusLogger.PERSISTENCE.debug(Localiser.msg("023006", ownerSM.getObjectAsPrintable(), ownerMmd.getName()));
+            }
+            long startTime = (metrics != null ? System.nanoTime() : 0);
+            readFromStore();
+            if (metrics != null)
+            {
+                metrics.storeCall("iterator");
+                metrics.loaded(delegate.asRanges().size(), startTime);
+            }
+
+            isCacheLoaded = true;
+        }
+    }
+
+    /**
+     * Convenience method to read all ranges from the "backing store" into the "delegate".
+     */
+    protected void readFromStore()
+    {
+        delegate.clear();
+        Iterator<Range<C>> iter = backingStore.iterator(ownerSM);
+        while (iter.hasNext())
+        {
+            delegate.add(iter.next());
+        }
+    }
+
+    /**
+     * Accessor for the "delegate" holding the current ranges, for a view of the whole set. When not caching, the ranges
+     * are read from the "backing store" for each such view (unless the "delegate" holds changes that are still to be
+     * written).
+     * @return The "delegate"
+     */
+    protected com.google.common.collect.RangeSet<C> loadContents()
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+        else if (backingStore != null && !isChangePending())
+        {
+            storeCall("iterator");
+            readFromStore();
+        }
+        return delegate;
+    }
+
+    /**
+     * Accessor for whether the "delegate" holds the current ranges, so can answer an accessor.
+     * @return Whether the "delegate" is current
+     */
+    protected boolean isDelegateCurrent()
+    {
+        return backingStore == null || (useCache && isCacheLoaded) || isChangePending();
+    }
+
+    /* (non-Javadoc)
+     * @see org.datanucleus.store.types.backed.BackedSCO#getBackingStore()
+     */
+    public Store getBackingStore()
+    {
+        return backingStore;
+    }
+
+    /**
+     * Convenience method to add a queued operation to the operations we perform at commit.
+     * @param oper The operation
+     */
+    protected void addQueuedOperation(org.datanucleus.flush.Operation oper)
+    {
+        if (metrics != null)
+        {
+            metrics.queuedOperation();
+        }
+        ownerSM.getExecutionContext().addOperationToQueue(oper);
+    }
+
+    /**
+     * Accessor for the queued changes of this set, creating (and queueing) them if none are pending.
+     * @return The queued changes
+     */
+    protected RangeSetChangeOperation<C> getQueuedChangeOperation()
+    {
+        if (queuedChangeOperation == null || queuedChangeOperation.isPerformed())
+        {
+            queuedChangeOperation = new RangeSetChangeOperation<>(ownerSM, backingStore, delegate);
+            addQueuedOperation(queuedChangeOperation);
+        }
+        return queuedChangeOperation;
+    }
+
+    /**
+     * Accessor for whether changes are queued and not yet performed, so the "delegate" holds the current ranges.
+     * @return Whether changes are pending
+     */
+    protected boolean isChangePending()
+    {
+        return queuedChangeOperation != null && !queuedChangeOperation.isPerformed();
+    }
+
+    /**
+     * Convenience method to register a call to the backing store, or that an accessor was answered from the
+     * "delegate", in the metrics (when enabled).
+     * @param operation Name of the backing store operation (or null if answered from the "delegate")
+     */
+    protected void storeCall(String operation)
+    {
+        if (metrics != null)
+        {
+            if (operation == null)
+            {
+                metrics.cacheHit();
+            }
+            else
+            {
+                metrics.storeCall(operation);
+            }
+        }
+    }
+
+    /**
+     * Convenience method to register an accessor that had to go to the backing store in the metrics (when enabled).
+     * @param operation Name of the backing store operation
+     */
+    protected void storeFallback(String operation)
+    {
+        if (metrics != null)
+        {
+            metrics.datastoreFallback();
+            metrics.storeCall(operation);
+        }
+    }
+
+    /**
+     * Method called after the set has been changed via one of its views. Which ranges were changed can't be told, so
+     * the ranges are written in full when next flushed.
+     */
+    @Override
+    protected void viewChanged()
+    {
+        makeDirty();
+        if (backingStore != null)
+        {
+            getQueuedChangeOperation().rewrite();
+        }
+    }
+
+    /**
+     * Method to unset the owner and field information.
+     */
+    public synchronized void unsetOwner()
+    {
+        super.unsetOwner();
+        if (backingStore != null)
+        {
+            backingStore = null;
+        }
+    }
+
+    /**
+     * Method to return a detached copy of the container.
+     * @param state State for detachment process
+     * @return The detached container
+     */
+    public com.google.common.collect.RangeSet<C> detachCopy(FetchPlanState state)
+    {
+        loadContents();
+        return super.detachCopy(state);
+    }
+
+    /**
+     * Method to return an attached copy of the passed (detached) value. Replaces the ranges of this set by those of the
+     * detached value where they differ.
+     * @param value The new (set) value
+     */
+    public void attachCopy(com.google.common.collect.RangeSet<C> value)
+    {
+        if (value == null || loadContents().equals(value))
+        {
+            return;
+        }
+        replaceContents(value);
+    }
+
+    // ------------------ Implementation of RangeSet methods --------------------
+
+    /**
+     * Creates and returns a copy of this object.
+     * @return The cloned object
+     */
+    public Object clone()
+    {
+        loadContents();
+        return super.clone();
+    }
+
+    /**
+     * Accessor for whether a value is contained in a range of the set.
+     * @param value The value
+     * @return Whether it is contained
+     */
+    public boolean contains(C value)
+    {
+        return rangeContaining(value) != null;
+    }
+
+    /**
+     * Accessor for the range of the set containing a value.
+     * @param value The value
+     * @return The range containing it (or null if not contained)
+     */
+    public Range<C> rangeContaining(C value)
+    {
+        if (isDelegateCurrent())
+        {
+            storeCall(null);
+            return delegate.rangeContaining(value);
+        }
+        storeFallback("rangeContaining");
+        return backingStore.rangeContaining(ownerSM, value);
+    }
+
+    /**
+     * Accessor for whether any range of the set intersects a range.
+     * @param otherRange The range
+     * @return Whether a range of the set intersects it
+     */
+    public boolean intersects(Range<C> otherRange)
+    {
+        if (isDelegateCurrent())
+        {
+            storeCall(null);
+            return delegate.intersects(otherRange);
+        }
+        storeFallback("getConnectedRanges");
+        return TreeRangeSet.create(backingStore.getConnectedRanges(ownerSM, otherRange)).intersects(otherRange);
+    }
+
+    /**
+     * Accessor for whether a range of the set encloses a range.
+     * @param otherRange The range
+     * @return Whether a range of the set encloses it
+     */
+    public boolean encloses(Range<C> otherRange)
+    {
+        if (isDelegateCurrent())
+        {
+            storeCall(null);
+            return delegate.encloses(otherRange);
+        }
+        storeFallback("encloses");
+        return backingStore.encloses(ownerSM, otherRange);
+    }
+
+    /**
+     * Accessor for whether each range of another set is enclosed by a range of this set.
+     * @param other The other set
+     * @return Whether all of its ranges are enclosed
+     */
+    public boolean enclosesAll(com.google.common.collect.RangeSet<C> other)
+    {
+        for (Range<C> range : other.asRanges())
+        {
+            if (!encloses(range))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Accessor for whether the set is empty.
+     * @return Whether it is empty
+     */
+    public boolean isEmpty()
+    {
+        if (isDelegateCurrent())
+        {
+            storeCall(null);
+            return delegate.isEmpty();
+        }
+        storeFallback("size");
+        return backingStore.size(ownerSM) == 0;
+    }
+
+    /**
+     * Accessor for the minimal range enclosing the ranges of the set, loading all ranges.
+     * @return The span
+     */
+    public Range<C> span()
+    {
+        loadContents();
+        return super.span();
+    }
+
+    /**
+     * Accessor for a view of the ranges, loading all ranges.
+     * @return The ranges
+     */
+    public Set<Range<C>> asRanges()
+    {
+        loadContents();
+        return super.asRanges();
+    }
+
+    /**
+     * Accessor for a view of the ranges in descending order, loading all ranges.
+     * @return The ranges
+     */
+    public Set<Range<C>> asDescendingSetOfRanges()
+    {
+        loadContents();
+        return super.asDescendingSetOfRanges();
+    }
+
+    /**
+     * Accessor for a view of the complement of the set, loading all ranges.
+     * @return The complement
+     */
+    public com.google.common.collect.RangeSet<C> complement()
+    {
+        loadContents();
+        return super.complement();
+    }
+
+    /**
+     * Accessor for a view of the set within a range, loading all ranges.
+     * @param view The range
+     * @return The view
+     */
+    public com.google.common.collect.RangeSet<C> subRangeSet(Range<C> view)
+    {
+        loadContents();
+        return super.subRangeSet(view);
+    }
+
+    public synchronized boolean equals(Object o)
+    {
+        loadContents();
+        return super.equals(o);
+    }
+
+    public synchronized int hashCode()
+    {
+        loadContents();
+        return super.hashCode();
+    }
+
+    public String toString()
+    {
+        loadContents();
+        return super.toString();
+    }
+
+    // ------------------------------ Mutator methods --------------------------
+
+    /**
+     * Convenience method to load the ranges before a change that will be queued, since a queued change is performed
+     * from the "delegate". A change that isn't queued goes to the datastore without loading.
+     */
+    protected void loadForChange()
+    {
+        if (useCache && backingStore != null && SCOUtils.useQueuedUpdate(ownerSM))
+        {
+            loadFromStore();
+        }
+    }
+
+    /**
+     * Method to add a range to the set.
+     * @param range The range
+     */
+    public void add(Range<C> range)
+    {
+        change(range, "add", ranges ->
+        {
+            if (ranges.encloses(range))
+            {
+                return false;
+            }
+            ranges.add(range);
+            return true;
+        });
+    }
+
+    /**
+     * Method to remove a range from the set.
+     * @param range The range
+     */
+    public void remove(Range<C> range)
+    {
+        change(range, "remove", ranges ->
+        {
+            if (!ranges.intersects(range))
+            {
+                return false;
+            }
+            ranges.remove(range);
+            return true;
+        });
+    }
+
+    /**
+     * Method to add the ranges of another set to this set.
+     * @param other The other set
+     */
+    public void addAll(com.google.common.collect.RangeSet<C> other)
+    {
+        for (Range<C> range : new ArrayList<>(other.asRanges()))
+        {
+            add(range);
+        }
+    }
+
+    /**
+     * Method to remove the ranges of another set from this set.
+     * @param other The other set
+     */
+    public void removeAll(com.google.common.collect.RangeSet<C> other)
+    {
+        for (Range<C> range : new ArrayList<>(other.asRanges()))
+        {
+            remove(range);
+        }
+    }
+
+    /**
+     * Convenience method to make a change to the ranges connected to a range. When the "delegate" holds the current
+     * ranges the change is made to it, and then queued or written. Otherwise the stored ranges connected to the range
+     * are read, and replaced by the result of making the change to them.
+     * @param range The range
+     * @param operation Name of the change (for logging)
+     * @param change The change, returning whether the ranges were changed
+     */
+    protected void change(Range<C> range, String operation, Predicate<com.google.common.collect.RangeSet<C>> change)
+    {
+        if (range.isEmpty())
+        {
+            return;
+        }
+        loadForChange();
+
+        com.google.common.collect.RangeSet<C> ranges;
+        if (isDelegateCurrent())
+        {
+            ranges = delegate;
+        }
+        else
+        {
+            storeCall("getConnectedRanges");
+            ranges = TreeRangeSet.create(backingStore.getConnectedRanges(ownerSM, range));
+        }
+        if (!change.test(ranges))
+        {
+            return;
+        }
+
+        if (backingStore != null)
+        {
+            if (ranges == delegate && (SCOUtils.useQueuedUpdate(ownerSM) || isChangePending()))
+            {
+                getQueuedChangeOperation().change(range);
+            }
+            else
+            {
+                try
+                {
+                    storeCall("replaceConnectedRanges");
+                    RangeSetChangeOperation<C> oper = new RangeSetChangeOperation<>(ownerSM, backingStore, ranges);
+                    oper.change(range);
+                    oper.perform();
+                }
+                catch (NucleusDataStoreException dse)
+                {
+                    NucleusLogger.PERSISTENCE.warn(Localiser.msg("023013", operation, ownerMmd.getName(), dse));
+                }
+            }
+        }
+        makeDirty();
+    }
+
+    /**
+     * Method to clear the set.
+     */
+    public void clear()
+    {
+        makeDirty();
+
+        delegate.clear();
+        if (backingStore != null)
+        {
+            if (SCOUtils.useQueuedUpdate(ownerSM) || isChangePending())
+            {
+                // The "delegate" now holds the current (no) ranges
+                getQueuedChangeOperation().rewrite();
+            }
+            else
+            {
+                storeCall("clear");
+                backingStore.clear(ownerSM);
+            }
+        }
+        if (useCache)
+        {
+            // Set is now known to be empty, so no need to load it
+            isCacheLoaded = true;
+        }
+    }
+
+    /**
+     * Convenience method to replace all ranges of the set, as a clear followed by an add of the ranges (written as a
+     * single batch, unless changes are queued).
+     * @param s The new ranges
+     */
+    protected void replaceContents(com.google.common.collect.RangeSet<C> s)
+    {
+        clear();
+        if (s.isEmpty())
+        {
+            return;
+        }
+
+        delegate.addAll(s);
+        if (backingStore != null && !isChangePending())
+        {
+            try
+            {
+                storeCall("addRanges");
+                backingStore.addRanges(ownerSM, delegate.asRanges());
+            }
+            catch (NucleusDataStoreException dse)
+            {
+                NucleusLogger.PERSISTENCE.warn(Localiser.msg("023013", "addAll", ownerMmd.getName(), dse));
+            }
+        }
+        makeDirty();
+    }
+
+    /**
+     * The writeReplace method is called when ObjectOutputStream is preparing
+     * to write the object to the stream. The ObjectOutputStream checks
+     * whether the class defines the writeReplace method. If the method is
+     * defined, the writeReplace method is called to allow the object to
+     * designate its replacement in the stream. The object returned should be
+     * either of the same type as the object passed in or an object that when
+     * read and resolved will result in an object of a type that is compatible
+     * with all references to the object.
+     * @return the replaced object
+     * @throws ObjectStreamException if an error occurs
+     */
+    protected Object writeReplace() throws ObjectStreamException
+    {
+        loadContents();
+        return super.writeReplace();
+    }
+}
@@ -0,0 +1,289 @@
+/**********************************************************************
+Copyright (c) 2026 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.guava.wrappers.backed;
+
+import java.io.ObjectStreamException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.DNStateManager;
+import org.datanucleus.store.types.SCOCollectionIterator;
+import org.datanucleus.store.types.guava.containers.MultisetHandler;
+import org.datanucleus.store.types.guava.scostore.SortedMultisetStore;
+
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Multisets;
+import com.google.common.collect.TreeMultiset;
+
+/**
+ * A mutable second-class SortedMultiset object.
+ * This class extends the backed Multiset, with a TreeMultiset "delegate" ordered as configured for the member (see
+ * {@link MultisetHandler}).
+ *
+ * <H3>Range queries</H3>
+ * Where the "backing store" is a {@link SortedMultisetStore} (as for a join table with a count column) and the member
+ * uses the natural ordering of its (non-persistable) elements,
+ * <B>firstEntry()</B>, <B>lastEntry()</B> and the range views (<B>headMultiset()</B>, <B>tailMultiset()</B> and
+ * <B>subMultiset()</B>) go direct to the datastore with an ordered, bounded query until the "delegate" is loaded,
+ * rather than loading all elements. In that case the range view is a snapshot of the range when it is requested.
+ * The descending and range views are read-only, so mutations have to go through this object and are intercepted.
+ */
+public class SortedMultiset<E> extends Multiset<E> implements com.google.common.collect.SortedMultiset<E>
+{
+    /** Whether range queries can be passed to the backing store. */
+    protected transient boolean useRangeQueries = false;
+
+    /**
+     * Constructor, using StateManager of the "owner" and the field name.
+     * @param sm The owner StateManager
+     * @param mmd Metadata for the member
+     */
+    public SortedMultiset(DNStateManager sm, AbstractMemberMetaData mmd)
+    {
+        super(sm, mmd);
+        // The datastore orders elements by their stored value, so only matches the natural ordering of elements stored as values
+        this.useRangeQueries = backingStore instanceof SortedMultisetStore && 
+            ownerMmd.getValueForExtension(MultisetHandler.EXTENSION_MULTISET_COMPARATOR) == null &&
+            !ownerMmd.getCollection().elementIsPersistent();
+    }
+
+    @Override
+    protected com.google.common.collect.Multiset<E> newDelegate(int distinctElements)
+    {
+        return MultisetHandler.newSortedMultiset(ownerMmd, ownerSM != null ? ownerSM.getExecutionContext() : null);
+    }
+
+    /**
+     * Accessor for the delegate as a SortedMultiset.
+     * @return The delegate
+     */
+    protected com.google.common.collect.SortedMultiset<E> sortedDelegate()
+    {
+        return (com.google.common.collect.SortedMultiset<E>) delegate;
+    }
+
+    /**
+     * Accessor for the current contents in order. This is the "delegate" in cached mode (loading it where necessary),
+     * and otherwise a copy read from the "backing store".
+     * @return The contents
+     */
+    protected com.google.common.collect.SortedMultiset<E> getSortedContents()
+    {
+        if (useCache)
+        {
+            loadFromStore();
+        }
+        else if (backingStore != null)
+        {
+            return (com.google.common.collect.SortedMultiset<E>) readFromStore();
+        }
+        return sortedDelegate();
+    }
+
+    /**
+     * Convenience method to return whether to query a range of elements in the "backing store" rather than use
+     * the "delegate".
+     * @return Whether to use a range query
+     */
+    protected boolean useRangeQuery()
+    {
+        return useRangeQueries && !(useCache && isCacheLoaded);
+    }
+
+    /**
+     * Method to read the entries in a range of elements from the "backing store", in order.
+     * @param lower The lower bound
+     * @param lowerType Type of the lower bound, or null when unbounded below
+     * @param upper The upper bound
+     * @param upperType Type of the upper bound, or null when unbounded above
+     * @param descending Whether to read in descending order
+     * @param maxEntries Maximum number of entries to read, or -1 for all in the range
+     * @return The entries
+     */
+    protected List<Entry<E>> readRangeFromStore(E lower, BoundType lowerType, E upper, BoundType upperType, boolean descending, int maxEntries)
+    {
+        storeFallback("rangeEntries");
+        return ((SortedMultisetStore<E>)backingStore).rangeEntries(ownerSM, lower, lowerType, upper, upperType, descending, maxEntries);
+    }
+
+    /**
+     * Method to read a range of elements from the "backing store" as a (read-only) snapshot.
+     * @param lower The lower bound
+     * @param lowerType Type of the lower bound, or null when unbounded below
+     * @param upper The upper bound
+     * @param upperType Type of the upper bound, or null when unbounded above
+     * @return The range
+     */
+    protected com.google.common.collect.SortedMultiset<E> readRangeSnapshot(E lower, BoundType lowerType, E upper, BoundType upperType)
+    {
+        com.google.common.collect.SortedMultiset<E> range = (com.google.common.collect.SortedMultiset<E>) newDelegate(-1);
+        for (Entry<E> entry : readRangeFromStore(lower, lowerType, upper, upperType, false, -1))
+        {
+            range.add(entry.getElement(), entry.getCount());
+        }
+        return Multisets.unmodifiableSortedMultiset(range);
+    }
+
+    public Comparator<? super E> comparator()
+    {
+        return sortedDelegate().comparator();
+    }
+
+    /**
+     * Accessor for the entry of the first element.
+     * When the "delegate" is not loaded and range queries are possible this reads just that entry from the datastore.
+     * @return The entry (or null if empty)
+     */
+    public Entry<E> firstEntry()
+    {
+        if (useRangeQuery())
+        {
+            List<Entry<E>> entries = readRangeFromStore(null, null, null, null, false, 1);
+            return entries.isEmpty() ? null : entries.get(0);
+        }
+        return getSortedContents().firstEntry();
+    }
+
+    /**
+     * Accessor for the entry of the last element.
+     * When the "delegate" is not loaded and range queries are possible this reads just that entry from the datastore.
+     * @return The entry (or null if empty)
+     */
+    public Entry<E> lastEntry()
+    {
+        if (useRangeQuery())
+        {
+            List<Entry<E>> entries = readRangeFromStore(null, null, null, null, true, 1);
+            return entries.isEmpty() ? null : entries.get(0);
+        }
+        return getSortedContents().lastEntry();
+    }
+
+    /**
+     * Method to remove all occurrences of the first element, returning its entry.
+     * @return The entry removed (or null if empty)
+     */
+    public Entry<E> pollFirstEntry()
+    {
+        return pollEntry(firstEntry());
+    }
+
+    /**
+     * Method to remove all occurrences of the last element, returning its entry.
+     * @return The entry removed (or null if empty)
+     */
+    public Entry<E> pollLastEntry()
+    {
+        return pollEntry(lastEntry());
+    }
+
+    /**
+     * Convenience method to remove all occurrences of the element of an entry (via setCount, so it is intercepted).
+     * @param entry The entry (or null)
+     * @return A copy of the entry removed (or null)
+     */
+    protected Entry<E> pollEntry(Entry<E> entry)
+    {
+        if (entry == null)
+        {
+            return null;
+        }
+        Entry<E> polled = Multisets.immutableEntry(entry.getElement(), entry.getCount());
+        setCount(polled.getElement(), 0);
+        return polled;
+    }
+
+    /**
+     * Accessor for an iterator for the SortedMultiset, in order of the elements.
+     * @return The iterator
+     */
+    @Override
+    public Iterator<E> iterator()
+    {
+        if (!useCache && backingStore != null)
+        {
+            // Iterate an ordered copy, passing any removal through this object
+            return new SCOCollectionIterator(this, ownerSM, getSortedContents(), null, true);
+        }
+        return super.iterator();
+    }
+
+    @Override
+    public NavigableSet<E> elementSet()
+    {
+        com.google.common.collect.SortedMultiset<E> contents = getSortedContents();
+        return (contents == delegate) ? contents.elementSet() : Collections.unmodifiableNavigableSet(contents.elementSet());
+    }
+
+    @Override
+    public Set<Entry<E>> entrySet()
+    {
+        com.google.common.collect.SortedMultiset<E> contents = getSortedContents();
+        return (contents == delegate) ? contents.entrySet() : Collections.unmodifiableSet(contents.entrySet());
+    }
+
+    public com.google.common.collect.SortedMultiset<E> descendingMultiset()
+    {
+        return Multisets.unmodifiableSortedMultiset(getSortedContents().descendingMultiset());
+    }
+
+    public com.google.common.collect.SortedMultiset<E> headMultiset(E upperBound, BoundType boundType)
+    {
+        if (useRangeQuery())
+        {
+            return readRangeSnapshot(null, null, upperBound, boundType);
+        }
+        return Multisets.unmodifiableSortedMultiset(getSortedContents().headMultiset(upperBound, boundType));
+    }
+
+    public com.google.common.collect.SortedMultiset<E> subMultiset(E lowerBound, BoundType lowerBoundType, E upperBound, BoundType upperBoundType)
+    {
+        if (useRangeQuery())
+        {
+            return readRangeSnapshot(lowerBound, lowerBoundType, upperBound, upperBoundType);
+        }
+        return Multisets.unmodifiableSortedMultiset(getSortedContents().subMultiset(lowerBound, lowerBoundType, upperBound, upperBoundType));
+    }
+
+    public com.google.common.collect.SortedMultiset<E> tailMultiset(E lowerBound, BoundType boundType)
+    {
+        if (useRangeQuery())
+        {
+            return readRangeSnapshot(lowerBound, boundType, null, null);
+        }
+        return Multisets.unmodifiableSortedMultiset(getSortedContents().tailMultiset(lowerBound, boundType));
+    }
+
+    /**
+     * The writeReplace method is called when ObjectOutputStream is preparing to write the object to the stream.
+     * Replaces this object by a TreeMultiset with the same ordering and elements.
+     * @return the replaced object
+     * @throws ObjectStreamException if an error occurs
+     */
+    protected Object writeReplace() throws ObjectStreamException
+    {
+        TreeMultiset<E> copy = TreeMultiset.create(comparator());
+        copy.addAll(getSortedContents());
+        return copy;
+    }
+}
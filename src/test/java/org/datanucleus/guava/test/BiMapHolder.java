@@ -0,0 +1,19 @@
+package org.datanucleus.guava.test;
+
+import javax.jdo.annotations.PersistenceCapable;
+
+import com.google.common.collect.BiMap;
+
+@PersistenceCapable
+public class BiMapHolder {
+
+	private BiMap<String, Long> codes;
+
+	public BiMapHolder(BiMap<String, Long> codes) {
+		this.codes = codes;
+	}
+
+	public BiMap<String, Long> getCodes() {
+		return codes;
+	}
+}
@@ -0,0 +1,234 @@
+package org.datanucleus.guava.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Transaction;
+
+import org.datanucleus.store.types.guava.scostore.BiMapStore;
+import org.datanucleus.store.types.wrappers.backed.BackedSCO;
+import org.datanucleus.util.NucleusLogger;
+import org.junit.Test;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+
+public class BiMapTest
+{
+    @Test
+    public void testPersist()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            BiMap<String, Long> codes = HashBiMap.create();
+            codes.put("banana", 1L);
+            codes.put("car", 2L);
+            codes.put("moon", 3L);
+
+            BiMapHolder holder = new BiMapHolder(codes);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            BiMapHolder loadedHolder = (BiMapHolder) pm.getObjectById(id);
+            BiMap<String, Long> loadedCodes = loadedHolder.getCodes();
+
+            assertEquals("car", loadedCodes.inverse().get(2L));
+            assertNull(loadedCodes.inverse().get(4L));
+            assertEquals(3, loadedCodes.size());
+            assertEquals(Long.valueOf(1L), loadedCodes.get("banana"));
+
+            loadedCodes.inverse().put(4L, "dog");
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedHolder = (BiMapHolder) pm.getObjectById(id);
+            assertEquals(4, loadedHolder.getCodes().size());
+            assertEquals(Long.valueOf(4L), loadedHolder.getCodes().get("dog"));
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testKeyForValueFromStore()
+    {
+        Map<String, Object> props = new HashMap<>();
+        props.put("datanucleus.cache.collections", "false");
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory(props, "GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            BiMap<String, Long> codes = HashBiMap.create();
+            codes.put("banana", 1L);
+            codes.put("car", 2L);
+
+            BiMapHolder holder = new BiMapHolder(codes);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            // Not caching the entries, so the key for a value is read using the value column
+            BiMap<String, Long> loadedCodes = ((BiMapHolder) pm.getObjectById(id)).getCodes();
+            assertTrue(((BackedSCO) loadedCodes).getBackingStore() instanceof BiMapStore);
+            assertEquals("car", loadedCodes.inverse().get(2L));
+            assertNull(loadedCodes.inverse().get(3L));
+
+            try
+            {
+                loadedCodes.put("moon", 1L);
+                fail("Put of a value already present against another key should have thrown");
+            }
+            catch (IllegalArgumentException iae)
+            {
+                // Expected
+            }
+            loadedCodes.forcePut("moon", 2L);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedCodes = ((BiMapHolder) pm.getObjectById(id)).getCodes();
+            assertEquals(2, loadedCodes.size());
+            assertEquals("moon", loadedCodes.inverse().get(2L));
+            assertNull(loadedCodes.get("car"));
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testOwnersSharingValue()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            BiMap<String, Long> codes1 = HashBiMap.create();
+            codes1.put("shared-a", 100L);
+            codes1.put("shared-b", 101L);
+            BiMap<String, Long> codes2 = HashBiMap.create();
+            codes2.put("shared-c", 100L);
+
+            BiMapHolder holder1 = new BiMapHolder(codes1);
+            BiMapHolder holder2 = new BiMapHolder(codes2);
+
+            pm.makePersistent(holder1);
+            pm.makePersistent(holder2);
+            Object id1 = JDOHelper.getObjectId(holder1);
+            Object id2 = JDOHelper.getObjectId(holder2);
+            tx.commit();
+            pm.close();
+
+            // Same value held by the BiMap of each owner, and each finds its own key for it
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            assertEquals("shared-a", ((BiMapHolder) pm.getObjectById(id1)).getCodes().inverse().get(100L));
+            BiMap<String, Long> loadedCodes2 = ((BiMapHolder) pm.getObjectById(id2)).getCodes();
+            assertEquals("shared-c", loadedCodes2.inverse().get(100L));
+            loadedCodes2.put("shared-d", 101L);
+
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            assertEquals("shared-b", ((BiMapHolder) pm.getObjectById(id1)).getCodes().inverse().get(101L));
+            assertEquals("shared-d", ((BiMapHolder) pm.getObjectById(id2)).getCodes().inverse().get(101L));
+            assertEquals(2, ((BiMapHolder) pm.getObjectById(id2)).getCodes().size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+}
@@ -0,0 +1,29 @@
+package org.datanucleus.guava.test;
+
+import javax.jdo.annotations.Extension;
+import javax.jdo.annotations.PersistenceCapable;
+
+import com.google.common.collect.Multiset;
+
+@PersistenceCapable
+public class ConvertedMultisetHolder {
+
+	@Extension(vendorName="datanucleus", key="type-converter-name", value="dn.guava.multiset-string")
+	private Multiset<String> tags;
+
+	@Extension(vendorName="datanucleus", key="type-converter-name", value="dn.guava.multiset-bytes")
+	private Multiset<Integer> scores;
+
+	public ConvertedMultisetHolder(Multiset<String> tags, Multiset<Integer> scores) {
+		this.tags = tags;
+		this.scores = scores;
+	}
+
+	public Multiset<String> getTags() {
+		return tags;
+	}
+
+	public Multiset<Integer> getScores() {
+		return scores;
+	}
+}
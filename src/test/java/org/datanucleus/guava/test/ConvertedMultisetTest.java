@@ -0,0 +1,90 @@
+package org.datanucleus.guava.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Transaction;
+
+import org.datanucleus.util.NucleusLogger;
+import org.junit.Test;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+
+public class ConvertedMultisetTest
+{
+    @Test
+    public void testPersist()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            Multiset<String> tags = HashMultiset.create();
+            tags.add("red");
+            tags.add("a,b:c", 2);
+
+            Multiset<Integer> scores = HashMultiset.create();
+            scores.add(10, 5);
+            scores.add(-3);
+
+            ConvertedMultisetHolder holder = new ConvertedMultisetHolder(tags, scores);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            ConvertedMultisetHolder loadedHolder = (ConvertedMultisetHolder) pm.getObjectById(id);
+            Multiset<String> loadedTags = loadedHolder.getTags();
+            assertEquals(1, loadedTags.count("red"));
+            assertEquals(2, loadedTags.count("a,b:c"));
+
+            Multiset<Integer> loadedScores = loadedHolder.getScores();
+            assertEquals(5, loadedScores.count(10));
+            assertEquals(1, loadedScores.count(-3));
+
+            // Update, so the column is rewritten
+            loadedScores.setCount(10, 7);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedHolder = (ConvertedMultisetHolder) pm.getObjectById(id);
+            assertEquals(7, loadedHolder.getScores().count(10));
+            assertEquals(8, loadedHolder.getScores().size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+}
@@ -0,0 +1,42 @@
+package org.datanucleus.guava.test;
+
+import javax.jdo.annotations.PersistenceCapable;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.ImmutableSortedSet;
+
+@PersistenceCapable
+public class ImmutableHolder {
+
+	private ImmutableList<String> names;
+
+	private ImmutableMultiset<String> words;
+
+	private ImmutableSortedSet<String> tags;
+
+	public ImmutableHolder(ImmutableList<String> names, ImmutableMultiset<String> words) {
+		this.names = names;
+		this.words = words;
+	}
+
+	public ImmutableList<String> getNames() {
+		return names;
+	}
+
+	public void setNames(ImmutableList<String> names) {
+		this.names = names;
+	}
+
+	public ImmutableMultiset<String> getWords() {
+		return words;
+	}
+
+	public ImmutableSortedSet<String> getTags() {
+		return tags;
+	}
+
+	public void setTags(ImmutableSortedSet<String> tags) {
+		this.tags = tags;
+	}
+}
@@ -0,0 +1,137 @@
+package org.datanucleus.guava.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Transaction;
+
+import org.datanucleus.util.NucleusLogger;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.ImmutableSortedSet;
+
+public class ImmutableTest
+{
+    @Test
+    public void testPersist()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            ImmutableHolder holder = new ImmutableHolder(ImmutableList.of("banana", "car"), ImmutableMultiset.of("car", "car", "moon"));
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            ImmutableHolder loadedHolder = (ImmutableHolder) pm.getObjectById(id);
+            assertEquals(ImmutableList.of("banana", "car"), loadedHolder.getNames());
+            assertEquals(2, loadedHolder.getWords().count("car"));
+            assertEquals(1, loadedHolder.getWords().count("moon"));
+
+            // Reassignment is the only way of changing an immutable field
+            loadedHolder.setNames(ImmutableList.of("dog"));
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedHolder = (ImmutableHolder) pm.getObjectById(id);
+            assertEquals(ImmutableList.of("dog"), loadedHolder.getNames());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testSortedSet()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            ImmutableHolder holder = new ImmutableHolder(ImmutableList.of(), ImmutableMultiset.of());
+            holder.setTags(ImmutableSortedSet.of("moon", "banana", "car"));
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            // Loaded as an immutable collection, rather than wrapped
+            ImmutableHolder loadedHolder = (ImmutableHolder) pm.getObjectById(id);
+            assertEquals(ImmutableList.of("banana", "car", "moon"), loadedHolder.getTags().asList());
+            assertTrue(loadedHolder.getNames().isEmpty());
+
+            loadedHolder.setTags(ImmutableSortedSet.of("dog"));
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedHolder = (ImmutableHolder) pm.getObjectById(id);
+            assertEquals(ImmutableSortedSet.of("dog"), loadedHolder.getTags());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+}
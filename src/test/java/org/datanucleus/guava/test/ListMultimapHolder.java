@@ -0,0 +1,19 @@
+package org.datanucleus.guava.test;
+
+import javax.jdo.annotations.PersistenceCapable;
+
+import com.google.common.collect.ListMultimap;
+
+@PersistenceCapable
+public class ListMultimapHolder {
+
+	private ListMultimap<String, Long> readings;
+
+	public ListMultimapHolder(ListMultimap<String, Long> readings) {
+		this.readings = readings;
+	}
+
+	public ListMultimap<String, Long> getReadings() {
+		return readings;
+	}
+}
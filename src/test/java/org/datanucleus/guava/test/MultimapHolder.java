@@ -0,0 +1,19 @@
+package org.datanucleus.guava.test;
+
+import javax.jdo.annotations.PersistenceCapable;
+
+import com.google.common.collect.SetMultimap;
+
+@PersistenceCapable
+public class MultimapHolder {
+
+	private SetMultimap<String, Long> index;
+
+	public MultimapHolder(SetMultimap<String, Long> index) {
+		this.index = index;
+	}
+
+	public SetMultimap<String, Long> getIndex() {
+		return index;
+	}
+}
@@ -0,0 +1,307 @@
+package org.datanucleus.guava.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Transaction;
+
+import org.datanucleus.store.types.guava.scostore.MultimapStore;
+import org.datanucleus.store.types.wrappers.backed.BackedSCO;
+import org.datanucleus.util.NucleusLogger;
+import org.junit.Test;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+
+public class MultimapTest
+{
+    @Test
+    public void testPersist()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            SetMultimap<String, Long> index = HashMultimap.create();
+            index.put("banana", 1L);
+            index.put("car", 2L);
+            index.put("car", 3L);
+
+            MultimapHolder holder = new MultimapHolder(index);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            MultimapHolder loadedHolder = (MultimapHolder) pm.getObjectById(id);
+            SetMultimap<String, Long> loadedIndex = loadedHolder.getIndex();
+
+            assertEquals(3, loadedIndex.size());
+            assertEquals(1, loadedIndex.get("banana").size());
+            assertEquals(2, loadedIndex.get("car").size());
+            assertTrue(loadedIndex.containsEntry("car", 3L));
+            assertTrue(loadedIndex.get("dog").isEmpty());
+
+            loadedIndex.put("dog", 4L);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedHolder = (MultimapHolder) pm.getObjectById(id);
+            assertEquals(4, loadedHolder.getIndex().size());
+            assertTrue(loadedHolder.getIndex().containsEntry("dog", 4L));
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testViewMutations()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            SetMultimap<String, Long> index = HashMultimap.create();
+            index.put("apple", 1L);
+            index.put("banana", 2L);
+            index.put("car", 3L);
+            index.put("car", 4L);
+            index.put("dog", 5L);
+
+            MultimapHolder holder = new MultimapHolder(index);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            // Change the multimap only via its views
+            SetMultimap<String, Long> loadedIndex = ((MultimapHolder) pm.getObjectById(id)).getIndex();
+            loadedIndex.get("apple").add(6L);
+            loadedIndex.asMap().get("car").remove(3L);
+            loadedIndex.keySet().remove("banana");
+            loadedIndex.entries().remove(Maps.immutableEntry("dog", 5L));
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedIndex = ((MultimapHolder) pm.getObjectById(id)).getIndex();
+            assertEquals(3, loadedIndex.size());
+            assertTrue(loadedIndex.containsEntry("apple", 1L));
+            assertTrue(loadedIndex.containsEntry("apple", 6L));
+            assertTrue(loadedIndex.containsEntry("car", 4L));
+            assertFalse(loadedIndex.containsKey("banana"));
+            assertFalse(loadedIndex.containsKey("dog"));
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testValuesForKeyFromStore()
+    {
+        Map<String, Object> props = new HashMap<>();
+        props.put("datanucleus.cache.collections", "false");
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory(props, "GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            SetMultimap<String, Long> index = HashMultimap.create();
+            index.put("banana", 1L);
+            index.put("car", 2L);
+            index.put("car", 3L);
+
+            MultimapHolder holder = new MultimapHolder(index);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            // Not caching the entries, so the values of a key are read using the key column
+            SetMultimap<String, Long> loadedIndex = ((MultimapHolder) pm.getObjectById(id)).getIndex();
+            assertTrue(((BackedSCO) loadedIndex).getBackingStore() instanceof MultimapStore);
+            assertEquals(2, loadedIndex.get("car").size());
+            assertTrue(loadedIndex.get("car").contains(3L));
+            assertTrue(loadedIndex.get("dog").isEmpty());
+            assertTrue(loadedIndex.containsKey("banana"));
+            assertFalse(loadedIndex.containsValue(4L));
+
+            assertFalse(loadedIndex.put("car", 2L));
+            loadedIndex.get("car").remove(2L);
+            loadedIndex.put("dog", 4L);
+            loadedIndex.removeAll("banana");
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedIndex = ((MultimapHolder) pm.getObjectById(id)).getIndex();
+            assertEquals(2, loadedIndex.size());
+            assertTrue(loadedIndex.containsEntry("car", 3L));
+            assertTrue(loadedIndex.containsEntry("dog", 4L));
+            assertFalse(loadedIndex.containsKey("banana"));
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testListMultimapDuplicateValues()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            ListMultimap<String, Long> readings = ArrayListMultimap.create();
+            readings.put("north", 5L);
+            readings.put("north", 5L);
+            readings.put("north", 7L);
+            readings.put("south", 5L);
+
+            ListMultimapHolder holder = new ListMultimapHolder(readings);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            ListMultimap<String, Long> loadedReadings = ((ListMultimapHolder) pm.getObjectById(id)).getReadings();
+            assertEquals(4, loadedReadings.size());
+            assertEquals(3, loadedReadings.get("north").size());
+
+            // Removes one occurrence of the pair only
+            assertTrue(loadedReadings.remove("north", 5L));
+            loadedReadings.put("south", 5L);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedReadings = ((ListMultimapHolder) pm.getObjectById(id)).getReadings();
+            assertEquals(4, loadedReadings.size());
+            assertEquals(2, loadedReadings.get("north").size());
+            assertTrue(loadedReadings.get("north").contains(5L));
+            assertTrue(loadedReadings.get("north").contains(7L));
+            assertEquals(2, loadedReadings.get("south").size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+}
@@ -1,12 +1,14 @@
 package org.datanucleus.guava.test;
 
+import javax.jdo.annotations.Extension;
 import javax.jdo.annotations.PersistenceCapable;
 
 import com.google.common.collect.Multiset;
 
-@PersistenceCapable
+@PersistenceCapable(detachable="true")
 public class MultisetHolder {
 
+	@Extension(vendorName="datanucleus", key="multiset-count-column", value="true")
 	private Multiset<String> words;
 
 	public MultisetHolder(Multiset<String> words) {
@@ -16,4 +18,8 @@ public class MultisetHolder {
 	public Multiset<String> getWords() {
 		return words;
 	}
+
+	public void setWords(Multiset<String> words) {
+		this.words = words;
+	}
 }
@@ -0,0 +1,86 @@
+package org.datanucleus.guava.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Query;
+import javax.jdo.Transaction;
+
+import org.datanucleus.util.NucleusLogger;
+import org.junit.Test;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+
+public class MultisetQueryTest
+{
+    @Test
+    public void testQuery()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            Multiset<String> words1 = HashMultiset.create();
+            words1.add("car", 4);
+            words1.add("moon");
+            Multiset<String> words2 = HashMultiset.create();
+            words2.add("car", 2);
+            words2.add("kiwi");
+            words2.add("plum");
+            words2.add("pear");
+
+            pm.makePersistent(new MultisetHolder(words1));
+            pm.makePersistent(new MultisetHolder(words2));
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            Query<MultisetHolder> q = pm.newQuery(MultisetHolder.class, "words.count('car') > 3");
+            List<MultisetHolder> results = q.executeList();
+            assertEquals(1, results.size());
+            assertEquals(4, results.get(0).getWords().count("car"));
+
+            q = pm.newQuery(MultisetHolder.class, "words.elementSet().size() == 4");
+            results = q.executeList();
+            assertEquals(1, results.size());
+            assertEquals(1, results.get(0).getWords().count("kiwi"));
+
+            q = pm.newQuery(MultisetHolder.class, "words.size() == 5");
+            assertEquals(2, q.executeList().size());
+
+            q = pm.newQuery(MultisetHolder.class, "words.contains(:word)");
+            assertEquals(1, q.setParameters("plum").executeList().size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+}
@@ -2,18 +2,36 @@ package org.datanucleus.guava.test;
 
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import javax.jdo.JDOHelper;
 import javax.jdo.PersistenceManager;
 import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Query;
 import javax.jdo.Transaction;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
+import org.datanucleus.store.types.SCOContainer;
+import org.datanucleus.store.types.guava.scostore.MultisetStore;
+import org.datanucleus.store.types.wrappers.backed.BackedSCO;
 import org.datanucleus.util.NucleusLogger;
 import org.junit.Test;
 
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Multiset;
+import com.google.common.collect.Multisets;
 
 public class MultisetTest
 {
@@ -71,4 +89,1173 @@ public class MultisetTest
 
         pmf.close();
     }
+
+    @Test
+    public void testReplace()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("banana", 2);
+            words.add("car", 3);
+            words.add("moon");
+
+            MultisetHolder multisetHolder = new MultisetHolder(words);
+
+            pm.makePersistent(multisetHolder);
+            Object id = JDOHelper.getObjectId(multisetHolder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            // Replace the field, changing some counts and dropping/adding elements
+            HashMultiset<String> newWords = HashMultiset.create();
+            newWords.add("banana", 2);
+            newWords.add("car", 1);
+            newWords.add("dog", 4);
+
+            MultisetHolder loadedHolder = (MultisetHolder) pm.getObjectById(id);
+            loadedHolder.setWords(newWords);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedHolder = (MultisetHolder) pm.getObjectById(id);
+            Multiset<String> loadedWords = loadedHolder.getWords();
+
+            assertEquals(2, loadedWords.count("banana"));
+            assertEquals(1, loadedWords.count("car"));
+            assertEquals(0, loadedWords.count("moon"));
+            assertEquals(4, loadedWords.count("dog"));
+            assertEquals(7, loadedWords.size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testDetachAttach()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("banana", 2);
+            words.add("car", 3);
+
+            MultisetHolder multisetHolder = new MultisetHolder(words);
+
+            pm.makePersistent(multisetHolder);
+            MultisetHolder detachedHolder = pm.detachCopy(multisetHolder);
+            tx.commit();
+            pm.close();
+
+            Multiset<String> detachedWords = detachedHolder.getWords();
+            assertEquals(2, detachedWords.count("banana"));
+            assertEquals(3, detachedWords.count("car"));
+
+            // Change the counts while detached
+            detachedWords.setCount("car", 1);
+            detachedWords.add("moon", 2);
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+            MultisetHolder attachedHolder = pm.makePersistent(detachedHolder);
+            Object id = JDOHelper.getObjectId(attachedHolder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            Multiset<String> loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(2, loadedWords.count("banana"));
+            assertEquals(1, loadedWords.count("car"));
+            assertEquals(2, loadedWords.count("moon"));
+            assertEquals(5, loadedWords.size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testLevel2Cache()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("banana", 2);
+            words.add("car", 3);
+
+            MultisetHolder multisetHolder = new MultisetHolder(words);
+
+            pm.makePersistent(multisetHolder);
+            Object id = JDOHelper.getObjectId(multisetHolder);
+            tx.commit();
+            pm.close();
+
+            // Load a few times, so the owner and then the contents are cached, and change the contents in between
+            for (int i = 0; i < 3; i++)
+            {
+                pm = pmf.getPersistenceManager();
+                tx = pm.currentTransaction();
+                tx.begin();
+
+                Multiset<String> loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+                assertEquals(2, loadedWords.count("banana"));
+                assertEquals(3 + i, loadedWords.count("car"));
+                loadedWords.add("car");
+
+                tx.commit();
+                pm.close();
+            }
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            Multiset<String> loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(6, loadedWords.count("car"));
+            assertEquals(8, loadedWords.size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testLevel2CacheRollback()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("car", 3);
+
+            MultisetHolder multisetHolder = new MultisetHolder(words);
+
+            pm.makePersistent(multisetHolder);
+            Object id = JDOHelper.getObjectId(multisetHolder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+            assertEquals(3, ((MultisetHolder) pm.getObjectById(id)).getWords().count("car"));
+            tx.commit();
+            pm.close();
+
+            // Reload the contents after an uncommitted change, and then roll back
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+            MultisetHolder loadedHolder = (MultisetHolder) pm.getObjectById(id);
+            loadedHolder.getWords().add("car");
+            pm.flush();
+            pm.refresh(loadedHolder);
+            assertEquals(4, loadedHolder.getWords().count("car"));
+            tx.rollback();
+            pm.close();
+
+            // Contents read in the rolled back transaction must not have been cached
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+            assertEquals(3, ((MultisetHolder) pm.getObjectById(id)).getWords().count("car"));
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testMetrics()
+    {
+        Map<String, Object> props = new HashMap<>();
+        props.put("datanucleus.guava.metrics", "true");
+        props.put("datanucleus.jmxType", "platform");
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory(props, "GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("banana", 2);
+            words.add("car");
+
+            MultisetHolder multisetHolder = new MultisetHolder(words);
+
+            pm.makePersistent(multisetHolder);
+            Object id = JDOHelper.getObjectId(multisetHolder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            Multiset<String> loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(3, loadedWords.size());
+            assertEquals(2, loadedWords.count("banana"));
+
+            tx.commit();
+
+            MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+            Set<ObjectName> names = mbeanServer.queryNames(new ObjectName("*:Type=GuavaContainerMetrics,*"), null);
+            long calls = 0;
+            for (ObjectName name : names)
+            {
+                if (name.getKeyProperty("Name").contains("MultisetHolder.words"))
+                {
+                    calls += (Long) mbeanServer.getAttribute(name, "LoadCount") + (Long) mbeanServer.getAttribute(name, "DatastoreFallbacks") + 
+                        (Long) mbeanServer.getAttribute(name, "CacheHits");
+                }
+            }
+            assertTrue("No metrics recorded for MultisetHolder.words", calls > 0);
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testElementSetEntrySet()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("banana", 3);
+            words.add("car", 2);
+            words.add("moon");
+
+            MultisetHolder multisetHolder = new MultisetHolder(words);
+
+            pm.makePersistent(multisetHolder);
+            Object id = JDOHelper.getObjectId(multisetHolder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            Multiset<String> loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(3, loadedWords.elementSet().size());
+            assertTrue(loadedWords.elementSet().contains("car"));
+            Map<String, Integer> counts = new HashMap<>();
+            for (Multiset.Entry<String> entry : loadedWords.entrySet())
+            {
+                counts.put(entry.getElement(), entry.getCount());
+            }
+            assertEquals(3, counts.size());
+            assertEquals(Integer.valueOf(3), counts.get("banana"));
+            assertEquals(Integer.valueOf(2), counts.get("car"));
+            assertEquals(Integer.valueOf(1), counts.get("moon"));
+
+            loadedWords.elementSet().remove("banana");
+            assertEquals(3, loadedWords.size());
+
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(0, loadedWords.count("banana"));
+            assertEquals(2, loadedWords.elementSet().size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testElementSetEntrySetFromStoreLazy()
+    {
+        Map<String, Object> props = new HashMap<>();
+        props.put("datanucleus.cache.collections.lazy", "true");
+        checkElementSetEntrySetFromStore(props, true);
+    }
+
+    @Test
+    public void testElementSetEntrySetFromStoreNonCached()
+    {
+        Map<String, Object> props = new HashMap<>();
+        props.put("datanucleus.cache.collections", "false");
+        checkElementSetEntrySetFromStore(props, false);
+    }
+
+    private void checkElementSetEntrySetFromStore(Map<String, Object> props, boolean cached)
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory(props, "GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("banana", 3);
+            words.add("car", 2);
+            words.add("moon");
+
+            MultisetHolder multisetHolder = new MultisetHolder(words);
+
+            pm.makePersistent(multisetHolder);
+            Object id = JDOHelper.getObjectId(multisetHolder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            Multiset<String> loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            assertTrue(((BackedSCO) loadedWords).getBackingStore() instanceof MultisetStore);
+            assertFalse(((SCOContainer) loadedWords).isLoaded());
+
+            assertEquals(3, loadedWords.elementSet().size());
+            Set<String> elements = new HashSet<>(loadedWords.elementSet());
+            assertEquals(new HashSet<>(Arrays.asList("banana", "car", "moon")), elements);
+            Map<String, Integer> counts = new HashMap<>();
+            for (Multiset.Entry<String> entry : loadedWords.entrySet())
+            {
+                counts.put(entry.getElement(), entry.getCount());
+            }
+            assertEquals(Integer.valueOf(3), counts.get("banana"));
+            assertEquals(Integer.valueOf(2), counts.get("car"));
+            assertEquals(Integer.valueOf(1), counts.get("moon"));
+            assertEquals(3, loadedWords.entrySet().size());
+
+            // Views answered from the store, so the occurrences were not loaded
+            assertFalse(((SCOContainer) loadedWords).isLoaded());
+
+            assertTrue(loadedWords.entrySet().remove(Multisets.immutableEntry("car", 2)));
+            assertTrue(loadedWords.elementSet().remove("moon"));
+            if (cached)
+            {
+                // Removal goes through the multiset, which loads its contents when caching
+                assertTrue(((SCOContainer) loadedWords).isLoaded());
+            }
+
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(1, loadedWords.elementSet().size());
+            assertEquals(3, loadedWords.count("banana"));
+            assertEquals(0, loadedWords.count("car"));
+            assertEquals(0, loadedWords.count("moon"));
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testBulkFetch()
+    {
+        Map<String, Object> props = new HashMap<>();
+        props.put("datanucleus.guava.multisetBulkFetch", "100");
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory(props, "GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            for (int i = 0; i < 5; i++)
+            {
+                HashMultiset<String> words = HashMultiset.create();
+                words.add("bulk", i + 1);
+                words.add("word" + i);
+                pm.makePersistent(new MultisetHolder(words));
+            }
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            pm.getFetchPlan().addGroup("all");
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            Query<MultisetHolder> q = pm.newQuery(MultisetHolder.class);
+            List<MultisetHolder> holders = q.executeList();
+            int numBulk = 0;
+            for (MultisetHolder holder : holders)
+            {
+                Multiset<String> loadedWords = holder.getWords();
+                if (loadedWords.count("bulk") > 0)
+                {
+                    numBulk++;
+                    assertEquals(loadedWords.count("bulk") + 1, loadedWords.size());
+                }
+            }
+            assertTrue(numBulk >= 5);
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testBulkOperations()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("banana", 3);
+            words.add("car", 2);
+            words.add("moon");
+            words.add("dog", 2);
+
+            MultisetHolder multisetHolder = new MultisetHolder(words);
+
+            pm.makePersistent(multisetHolder);
+            Object id = JDOHelper.getObjectId(multisetHolder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            Multiset<String> loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            assertTrue(loadedWords.containsAll(Arrays.asList("banana", "car", "banana")));
+            assertFalse(loadedWords.containsAll(Arrays.asList("banana", "tree")));
+            assertTrue(loadedWords.retainAll(Arrays.asList("banana", "car", "dog")));
+            assertFalse(loadedWords.retainAll(Arrays.asList("banana", "car", "dog")));
+            assertTrue(loadedWords.removeAll(Arrays.asList("dog", "tree")));
+
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(5, loadedWords.size());
+            assertEquals(3, loadedWords.count("banana"));
+            assertEquals(2, loadedWords.count("car"));
+            assertEquals(0, loadedWords.count("moon"));
+            assertEquals(0, loadedWords.count("dog"));
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testEqualsHashCode()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("banana", 3);
+            words.add("car", 2);
+
+            MultisetHolder multisetHolder = new MultisetHolder(words);
+
+            pm.makePersistent(multisetHolder);
+            Object id = JDOHelper.getObjectId(multisetHolder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            Multiset<String> loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(words.hashCode(), loadedWords.hashCode());
+            assertTrue(loadedWords.equals(words));
+
+            // Change the counts in various ways, and check the hash code is kept in step
+            loadedWords.add("moon");
+            loadedWords.add("banana", 2);
+            loadedWords.remove("car");
+            loadedWords.setCount("dog", 4);
+            loadedWords.removeAll(Arrays.asList("moon"));
+            words.add("banana", 2);
+            words.remove("car");
+            words.setCount("dog", 4);
+            assertEquals(words.hashCode(), loadedWords.hashCode());
+            assertTrue(loadedWords.equals(words));
+
+            HashMultiset<String> other = HashMultiset.create(words);
+            other.add("car");
+            assertFalse(loadedWords.equals(other));
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testEqualsHashCodeAfterChangeByOtherPM()
+    {
+        Map<String, Object> props = new HashMap<>();
+        props.put("datanucleus.cache.collections", "false");
+        props.put("datanucleus.RetainValues", "true");
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory(props, "GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        PersistenceManager pm2 = null;
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("banana", 2);
+            words.add("car");
+
+            MultisetHolder multisetHolder = new MultisetHolder(words);
+
+            pm.makePersistent(multisetHolder);
+            Object id = JDOHelper.getObjectId(multisetHolder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            Multiset<String> loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(words.hashCode(), loadedWords.hashCode());
+            assertTrue(loadedWords.equals(words));
+
+            tx.commit();
+
+            // Change the multiset in the datastore using another PM
+            pm2 = pmf.getPersistenceManager();
+            Transaction tx2 = pm2.currentTransaction();
+            tx2.begin();
+            ((MultisetHolder) pm2.getObjectById(id)).getWords().add("moon", 2);
+            tx2.commit();
+            pm2.close();
+
+            // Not caching the elements, so the same wrapper has to see the change rather than use its hash code
+            tx.begin();
+
+            HashMultiset<String> changedWords = HashMultiset.create(words);
+            changedWords.add("moon", 2);
+            HashMultiset<String> sameSizeWords = HashMultiset.create(words);
+            sameSizeWords.add("sun", 2);
+            assertEquals(changedWords.hashCode(), loadedWords.hashCode());
+            assertTrue(loadedWords.equals(changedWords));
+            assertFalse(loadedWords.equals(words));
+            assertFalse(loadedWords.equals(sameSizeWords));
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+            if (pm2 != null && !pm2.isClosed())
+            {
+                pm2.close();
+            }
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testCountColumn()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("countcolumn-a", 3);
+            words.add("countcolumn-b");
+
+            MultisetHolder multisetHolder = new MultisetHolder(words);
+
+            pm.makePersistent(multisetHolder);
+            Object id = JDOHelper.getObjectId(multisetHolder);
+            tx.commit();
+            pm.close();
+
+            // Join table has one row per distinct element, holding its count
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            assertEquals(Arrays.asList(3), getCountColumn(pm, "countcolumn-a"));
+            assertEquals(Arrays.asList(1), getCountColumn(pm, "countcolumn-b"));
+
+            Multiset<String> loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            loadedWords.add("countcolumn-a", 2);
+            loadedWords.remove("countcolumn-b");
+            loadedWords.setCount("countcolumn-c", 4);
+
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            assertEquals(Arrays.asList(5), getCountColumn(pm, "countcolumn-a"));
+            assertEquals(Arrays.asList(), getCountColumn(pm, "countcolumn-b"));
+            assertEquals(Arrays.asList(4), getCountColumn(pm, "countcolumn-c"));
+
+            loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(9, loadedWords.size());
+            assertEquals(5, loadedWords.count("countcolumn-a"));
+            assertEquals(2, loadedWords.elementSet().size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testCountColumnConcurrentInsert()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            MultisetHolder multisetHolder = new MultisetHolder(HashMultiset.<String>create());
+
+            pm.makePersistent(multisetHolder);
+            Object id = JDOHelper.getObjectId(multisetHolder);
+            tx.commit();
+            pm.close();
+
+            // Add a new element in this transaction, and the same element in another while its row is uncommitted
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            ((MultisetHolder) pm.getObjectById(id)).getWords().add("concurrent-a", 2);
+            pm.flush();
+
+            Throwable[] otherFailure = new Throwable[1];
+            Thread other = new Thread(() ->
+            {
+                PersistenceManager otherPm = pmf.getPersistenceManager();
+                Transaction otherTx = otherPm.currentTransaction();
+                try
+                {
+                    otherTx.begin();
+                    ((MultisetHolder) otherPm.getObjectById(id)).getWords().add("concurrent-a", 3);
+                    otherTx.commit();
+                }
+                catch (Throwable thr)
+                {
+                    otherFailure[0] = thr;
+                }
+                finally
+                {
+                    if (otherTx.isActive())
+                    {
+                        otherTx.rollback();
+                    }
+                    otherPm.close();
+                }
+            });
+            other.start();
+            Thread.sleep(200);
+            tx.commit();
+            other.join();
+            pm.close();
+            if (otherFailure[0] != null)
+            {
+                throw otherFailure[0];
+            }
+
+            // Element has a single row, holding the occurrences added by both transactions
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            assertEquals(Arrays.asList(5), getCountColumn(pm, "concurrent-a"));
+            assertEquals(5, ((MultisetHolder) pm.getObjectById(id)).getWords().count("concurrent-a"));
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testRemoveOccurrences()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("a", 3);
+            words.add("b", 2);
+            words.add("c");
+
+            MultisetHolder holder = new MultisetHolder(words);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            Multiset<String> loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(3, loadedWords.remove("a", 1));
+            assertEquals(2, loadedWords.setCount("b", 1));
+            assertEquals(1, loadedWords.remove("c", 5));
+
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(2, loadedWords.count("a"));
+            assertEquals(1, loadedWords.count("b"));
+            assertEquals(0, loadedWords.count("c"));
+            assertEquals(3, loadedWords.size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testCountFromStore()
+    {
+        Map<String, Object> props = new HashMap<>();
+        props.put("datanucleus.cache.collections", "false");
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory(props, "GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("banana", 3);
+            words.add("car");
+
+            MultisetHolder multisetHolder = new MultisetHolder(words);
+
+            pm.makePersistent(multisetHolder);
+            Object id = JDOHelper.getObjectId(multisetHolder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            // Not caching the elements, so each count is read from the count column
+            Multiset<String> loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            assertTrue(((BackedSCO) loadedWords).getBackingStore() instanceof MultisetStore);
+            assertEquals(3, loadedWords.count("banana"));
+            assertEquals(1, loadedWords.count("car"));
+            assertEquals(0, loadedWords.count("moon"));
+            assertEquals(0, loadedWords.count(Integer.valueOf(1)));
+
+            loadedWords.add("banana", 2);
+            assertEquals(5, loadedWords.count("banana"));
+            assertEquals(6, loadedWords.size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testQueuedFolding()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("folding-a", 2);
+            words.add("folding-b");
+
+            MultisetHolder multisetHolder = new MultisetHolder(words);
+
+            pm.makePersistent(multisetHolder);
+            Object id = JDOHelper.getObjectId(multisetHolder);
+            tx.commit();
+            pm.close();
+
+            // Add/remove/add of the same element, queued and folded into one change in count
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.setOptimistic(true);
+            tx.begin();
+
+            Multiset<String> loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            loadedWords.add("folding-a", 3);
+            loadedWords.remove("folding-a", 4);
+            loadedWords.add("folding-a");
+            loadedWords.add("folding-c");
+            loadedWords.remove("folding-c");
+
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            assertEquals(Arrays.asList(2), getCountColumn(pm, "folding-a"));
+            assertEquals(Arrays.asList(1), getCountColumn(pm, "folding-b"));
+            assertEquals(Arrays.asList(), getCountColumn(pm, "folding-c"));
+
+            tx.commit();
+            pm.close();
+
+            // Clear followed by adds, queued and performed in the same flush
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.setOptimistic(true);
+            tx.begin();
+
+            loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            loadedWords.add("folding-b", 2);
+            loadedWords.clear();
+            loadedWords.add("folding-a");
+            loadedWords.add("folding-d", 2);
+            assertEquals(1, loadedWords.count("folding-a"));
+            assertEquals(0, loadedWords.count("folding-b"));
+            assertEquals(3, loadedWords.size());
+
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            assertEquals(Arrays.asList(1), getCountColumn(pm, "folding-a"));
+            assertEquals(Arrays.asList(), getCountColumn(pm, "folding-b"));
+            assertEquals(Arrays.asList(2), getCountColumn(pm, "folding-d"));
+
+            loadedWords = ((MultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(3, loadedWords.size());
+            assertEquals(2, loadedWords.elementSet().size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    private static List<Integer> getCountColumn(PersistenceManager pm, String word)
+    {
+        Query q = pm.newQuery("javax.jdo.query.SQL", "SELECT ELEMENT_COUNT FROM MULTISETHOLDER_WORDS WHERE ELEMENT = ?");
+        List results = (List) q.execute(word);
+        List<Integer> counts = new ArrayList<>();
+        for (Object result : results)
+        {
+            counts.add(((Number) result).intValue());
+        }
+        return counts;
+    }
 }
@@ -0,0 +1,39 @@
+package org.datanucleus.guava.test;
+
+import javax.jdo.annotations.Extension;
+import javax.jdo.annotations.Extensions;
+import javax.jdo.annotations.PersistenceCapable;
+
+import com.google.common.collect.Multiset;
+
+@PersistenceCapable
+public class MultisetTypeHolder {
+
+	public enum Colour {
+		RED, GREEN, BLUE
+	}
+
+	@Extensions({
+		@Extension(vendorName="datanucleus", key="multiset-type", value="enum"),
+		@Extension(vendorName="datanucleus", key="multiset-count-column", value="true")})
+	private Multiset<Colour> colours;
+
+	@Extensions({
+		@Extension(vendorName="datanucleus", key="multiset-type", value="linked"),
+		@Extension(vendorName="datanucleus", key="multiset-expected-size", value="64"),
+		@Extension(vendorName="datanucleus", key="multiset-count-column", value="true")})
+	private Multiset<String> tags;
+
+	public MultisetTypeHolder(Multiset<Colour> colours, Multiset<String> tags) {
+		this.colours = colours;
+		this.tags = tags;
+	}
+
+	public Multiset<Colour> getColours() {
+		return colours;
+	}
+
+	public Multiset<String> getTags() {
+		return tags;
+	}
+}
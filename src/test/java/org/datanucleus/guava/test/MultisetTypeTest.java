@@ -0,0 +1,162 @@
+package org.datanucleus.guava.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Transaction;
+
+import org.datanucleus.guava.test.MultisetTypeHolder.Colour;
+import org.datanucleus.store.types.SCO;
+import org.datanucleus.store.types.guava.converters.MultisetExternalForm;
+import org.datanucleus.util.NucleusLogger;
+import org.junit.Test;
+
+import com.google.common.collect.EnumMultiset;
+import com.google.common.collect.LinkedHashMultiset;
+import com.google.common.collect.Multiset;
+
+public class MultisetTypeTest
+{
+    @Test
+    public void testPersist()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            Multiset<Colour> colours = EnumMultiset.create(Colour.class);
+            colours.add(Colour.GREEN, 3);
+            colours.add(Colour.RED);
+
+            Multiset<String> tags = LinkedHashMultiset.create();
+            tags.add("zebra");
+            tags.add("apple", 2);
+            tags.add("mango");
+
+            MultisetTypeHolder holder = new MultisetTypeHolder(colours, tags);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            MultisetTypeHolder loadedHolder = (MultisetTypeHolder) pm.getObjectById(id);
+            Multiset<Colour> loadedColours = loadedHolder.getColours();
+            assertEquals(3, loadedColours.count(Colour.GREEN));
+            assertEquals(1, loadedColours.count(Colour.RED));
+            assertEquals(0, loadedColours.count(Colour.BLUE));
+            assertTrue(((SCO) loadedColours).getValue() instanceof EnumMultiset);
+
+            Multiset<String> loadedTags = loadedHolder.getTags();
+            assertEquals(2, loadedTags.count("apple"));
+            assertTrue(((SCO) loadedTags).getValue() instanceof LinkedHashMultiset);
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testSerialisedForm()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            Multiset<Colour> colours = EnumMultiset.create(Colour.class);
+            colours.add(Colour.BLUE, 2);
+
+            Multiset<String> tags = LinkedHashMultiset.create();
+            tags.add("zebra");
+            tags.add("apple", 2);
+
+            MultisetTypeHolder holder = new MultisetTypeHolder(colours, tags);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            // The serialised form of the Multisets keeps their implementation
+            MultisetTypeHolder loadedHolder = (MultisetTypeHolder) pm.getObjectById(id);
+            Object copy = serialiseAndDeserialise(new MultisetExternalForm(((SCO) loadedHolder.getColours()).getValue()));
+            assertTrue(copy instanceof EnumMultiset);
+            assertEquals(2, ((Multiset) copy).count(Colour.BLUE));
+
+            copy = serialiseAndDeserialise(new MultisetExternalForm(((SCO) loadedHolder.getTags()).getValue()));
+            assertTrue(copy instanceof LinkedHashMultiset);
+            assertEquals("zebra", ((Multiset) copy).iterator().next());
+            assertEquals(3, ((Multiset) copy).size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    private static Object serialiseAndDeserialise(Object obj) throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+        {
+            out.writeObject(obj);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+        {
+            return in.readObject();
+        }
+    }
+}
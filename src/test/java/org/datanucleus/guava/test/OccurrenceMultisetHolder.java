@@ -0,0 +1,23 @@
+package org.datanucleus.guava.test;
+
+import javax.jdo.annotations.Extension;
+import javax.jdo.annotations.Join;
+import javax.jdo.annotations.PersistenceCapable;
+
+import com.google.common.collect.Multiset;
+
+@PersistenceCapable(detachable="true")
+public class OccurrenceMultisetHolder {
+
+	@Extension(vendorName="datanucleus", key="multiset-count-column", value="false")
+	@Join(extensions=@Extension(vendorName="datanucleus", key="primary-key", value="false"))
+	private Multiset<String> words;
+
+	public OccurrenceMultisetHolder(Multiset<String> words) {
+		this.words = words;
+	}
+
+	public Multiset<String> getWords() {
+		return words;
+	}
+}
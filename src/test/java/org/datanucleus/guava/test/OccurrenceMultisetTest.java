@@ -0,0 +1,148 @@
+package org.datanucleus.guava.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Transaction;
+
+import org.datanucleus.util.NucleusLogger;
+import org.junit.Test;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+
+public class OccurrenceMultisetTest
+{
+    @Test
+    public void testRemoveOccurrences()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("a", 3);
+            words.add("b", 2);
+            words.add("c");
+
+            OccurrenceMultisetHolder holder = new OccurrenceMultisetHolder(words);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            Multiset<String> loadedWords = ((OccurrenceMultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(3, loadedWords.remove("a", 1));
+            assertEquals(2, loadedWords.setCount("b", 1));
+            assertEquals(1, loadedWords.remove("c", 5));
+
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedWords = ((OccurrenceMultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(2, loadedWords.count("a"));
+            assertEquals(1, loadedWords.count("b"));
+            assertEquals(0, loadedWords.count("c"));
+            assertEquals(3, loadedWords.size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testRemoveOccurrencesQueued()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("a", 3);
+            words.add("b", 2);
+            words.add("c");
+
+            OccurrenceMultisetHolder holder = new OccurrenceMultisetHolder(words);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.setOptimistic(true);
+            tx.begin();
+
+            Multiset<String> loadedWords = ((OccurrenceMultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(3, loadedWords.remove("a", 1));
+            assertEquals(2, loadedWords.setCount("b", 1));
+            assertEquals(1, loadedWords.remove("c", 5));
+
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedWords = ((OccurrenceMultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(2, loadedWords.count("a"));
+            assertEquals(1, loadedWords.count("b"));
+            assertEquals(0, loadedWords.count("c"));
+            assertEquals(3, loadedWords.size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+}
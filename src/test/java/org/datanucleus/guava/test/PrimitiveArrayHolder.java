@@ -0,0 +1,39 @@
+package org.datanucleus.guava.test;
+
+import javax.jdo.annotations.PersistenceCapable;
+
+import com.google.common.primitives.ImmutableDoubleArray;
+import com.google.common.primitives.ImmutableIntArray;
+import com.google.common.primitives.ImmutableLongArray;
+
+@PersistenceCapable
+public class PrimitiveArrayHolder {
+
+	private ImmutableIntArray ints;
+
+	private ImmutableLongArray longs;
+
+	private ImmutableDoubleArray features;
+
+	public PrimitiveArrayHolder(ImmutableIntArray ints, ImmutableLongArray longs, ImmutableDoubleArray features) {
+		this.ints = ints;
+		this.longs = longs;
+		this.features = features;
+	}
+
+	public ImmutableIntArray getInts() {
+		return ints;
+	}
+
+	public ImmutableLongArray getLongs() {
+		return longs;
+	}
+
+	public ImmutableDoubleArray getFeatures() {
+		return features;
+	}
+
+	public void setFeatures(ImmutableDoubleArray features) {
+		this.features = features;
+	}
+}
@@ -0,0 +1,85 @@
+package org.datanucleus.guava.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Transaction;
+
+import org.datanucleus.util.NucleusLogger;
+import org.junit.Test;
+
+import com.google.common.primitives.ImmutableDoubleArray;
+import com.google.common.primitives.ImmutableIntArray;
+import com.google.common.primitives.ImmutableLongArray;
+
+public class PrimitiveArrayTest
+{
+    @Test
+    public void testPersist()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            ImmutableDoubleArray.Builder features = ImmutableDoubleArray.builder(10000);
+            for (int i = 0; i < 10000; i++)
+            {
+                features.add(i * 0.5);
+            }
+            PrimitiveArrayHolder holder = new PrimitiveArrayHolder(ImmutableIntArray.of(1, -2, Integer.MAX_VALUE), 
+                ImmutableLongArray.of(), features.build());
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            PrimitiveArrayHolder loadedHolder = (PrimitiveArrayHolder) pm.getObjectById(id);
+            assertEquals(ImmutableIntArray.of(1, -2, Integer.MAX_VALUE), loadedHolder.getInts());
+            assertEquals(0, loadedHolder.getLongs().length());
+            assertEquals(10000, loadedHolder.getFeatures().length());
+            assertEquals(4999.5, loadedHolder.getFeatures().get(9999), 0.0);
+
+            loadedHolder.setFeatures(null);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedHolder = (PrimitiveArrayHolder) pm.getObjectById(id);
+            assertNull(loadedHolder.getFeatures());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+}
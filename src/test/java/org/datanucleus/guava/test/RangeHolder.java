@@ -0,0 +1,29 @@
+package org.datanucleus.guava.test;
+
+import javax.jdo.annotations.Extension;
+import javax.jdo.annotations.PersistenceCapable;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+
+@PersistenceCapable
+public class RangeHolder {
+
+	@Extension(vendorName="datanucleus", key="type-converter-name", value="dn.guava.range-long")
+	private Range<Long> window;
+
+	private RangeSet<Long> allocated;
+
+	public RangeHolder(Range<Long> window, RangeSet<Long> allocated) {
+		this.window = window;
+		this.allocated = allocated;
+	}
+
+	public Range<Long> getWindow() {
+		return window;
+	}
+
+	public RangeSet<Long> getAllocated() {
+		return allocated;
+	}
+}
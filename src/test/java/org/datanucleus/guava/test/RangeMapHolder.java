@@ -0,0 +1,19 @@
+package org.datanucleus.guava.test;
+
+import javax.jdo.annotations.PersistenceCapable;
+
+import com.google.common.collect.RangeMap;
+
+@PersistenceCapable
+public class RangeMapHolder {
+
+	private RangeMap<Long, String> tariffs;
+
+	public RangeMapHolder(RangeMap<Long, String> tariffs) {
+		this.tariffs = tariffs;
+	}
+
+	public RangeMap<Long, String> getTariffs() {
+		return tariffs;
+	}
+}
@@ -0,0 +1,363 @@
+package org.datanucleus.guava.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Query;
+import javax.jdo.Transaction;
+
+import org.datanucleus.store.types.guava.scostore.RangeSetStore;
+import org.datanucleus.store.types.wrappers.backed.BackedSCO;
+import org.datanucleus.util.NucleusLogger;
+import org.junit.Test;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeMap;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeMap;
+import com.google.common.collect.TreeRangeSet;
+
+public class RangeTest
+{
+    @Test
+    public void testPersist()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            RangeSet<Long> allocated = TreeRangeSet.create();
+            allocated.add(Range.closedOpen(10L, 20L));
+            allocated.add(Range.closed(30L, 40L));
+
+            RangeHolder holder = new RangeHolder(Range.atLeast(5L), allocated);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            RangeHolder loadedHolder = (RangeHolder) pm.getObjectById(id);
+            assertEquals(Range.atLeast(5L), loadedHolder.getWindow());
+
+            RangeSet<Long> loadedAllocated = loadedHolder.getAllocated();
+            assertEquals(2, loadedAllocated.asRanges().size());
+            assertTrue(loadedAllocated.contains(15L));
+            assertFalse(loadedAllocated.contains(20L));
+            assertEquals(Range.closed(30L, 40L), loadedAllocated.rangeContaining(35L));
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testQueryMethods()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            pm.makePersistent(new RangeHolder(Range.closedOpen(1000L, 1010L), TreeRangeSet.create()));
+            pm.makePersistent(new RangeHolder(Range.closed(1010L, 1020L), TreeRangeSet.create()));
+            pm.makePersistent(new RangeHolder(Range.greaterThan(1020L), TreeRangeSet.create()));
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            Query<RangeHolder> q = pm.newQuery(RangeHolder.class, "window.contains(:value)");
+            Set<Range<Long>> windows = getWindows(q.setParameters(1010L).executeList());
+            assertFalse(windows.contains(Range.closedOpen(1000L, 1010L)));
+            assertTrue(windows.contains(Range.closed(1010L, 1020L)));
+            assertFalse(windows.contains(Range.greaterThan(1020L)));
+
+            q = pm.newQuery(RangeHolder.class, "window.encloses(:range)");
+            windows = getWindows(q.setParameters(Range.closedOpen(1012L, 1020L)).executeList());
+            assertFalse(windows.contains(Range.closedOpen(1000L, 1010L)));
+            assertTrue(windows.contains(Range.closed(1010L, 1020L)));
+            assertFalse(windows.contains(Range.greaterThan(1020L)));
+
+            q = pm.newQuery(RangeHolder.class, "window.isConnected(:range)");
+            windows = getWindows(q.setParameters(Range.closed(1005L, 1010L)).executeList());
+            assertTrue(windows.contains(Range.closedOpen(1000L, 1010L)));
+            assertTrue(windows.contains(Range.closed(1010L, 1020L)));
+            assertFalse(windows.contains(Range.greaterThan(1020L)));
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testViewMutations()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            RangeSet<Long> allocated = TreeRangeSet.create();
+            allocated.add(Range.closedOpen(10L, 20L));
+            allocated.add(Range.closed(30L, 40L));
+
+            RangeHolder holder = new RangeHolder(Range.atLeast(5L), allocated);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            // Change the set only via its views
+            RangeSet<Long> loadedAllocated = ((RangeHolder) pm.getObjectById(id)).getAllocated();
+            loadedAllocated.subRangeSet(Range.closed(30L, 50L)).remove(Range.closed(30L, 35L));
+            loadedAllocated.complement().remove(Range.closed(20L, 25L));
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedAllocated = ((RangeHolder) pm.getObjectById(id)).getAllocated();
+            assertTrue(loadedAllocated.contains(22L));
+            assertFalse(loadedAllocated.contains(32L));
+            assertTrue(loadedAllocated.contains(38L));
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testRangesFromStore()
+    {
+        Map<String, Object> props = new HashMap<>();
+        props.put("datanucleus.cache.collections", "false");
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory(props, "GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            RangeSet<Long> allocated = TreeRangeSet.create();
+            allocated.add(Range.closedOpen(10L, 20L));
+            allocated.add(Range.closed(30L, 40L));
+            allocated.add(Range.atLeast(100L));
+
+            RangeHolder holder = new RangeHolder(Range.atLeast(5L), allocated);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            // Not caching the ranges, so lookups are made against the endpoint columns
+            RangeSet<Long> loadedAllocated = ((RangeHolder) pm.getObjectById(id)).getAllocated();
+            assertTrue(((BackedSCO) loadedAllocated).getBackingStore() instanceof RangeSetStore);
+            assertEquals(Range.closed(30L, 40L), loadedAllocated.rangeContaining(40L));
+            assertEquals(Range.atLeast(100L), loadedAllocated.rangeContaining(5000L));
+            assertTrue(loadedAllocated.contains(10L));
+            assertFalse(loadedAllocated.contains(20L));
+            assertTrue(loadedAllocated.encloses(Range.closed(12L, 15L)));
+            assertFalse(loadedAllocated.encloses(Range.closed(15L, 30L)));
+            assertFalse(loadedAllocated.intersects(Range.open(40L, 100L)));
+
+            // Bridge the first two ranges, and split the last
+            loadedAllocated.add(Range.closedOpen(20L, 30L));
+            loadedAllocated.remove(Range.closedOpen(200L, 300L));
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedAllocated = ((RangeHolder) pm.getObjectById(id)).getAllocated();
+            assertEquals(Range.closed(10L, 40L), loadedAllocated.rangeContaining(25L));
+            assertEquals(Range.closedOpen(100L, 200L), loadedAllocated.rangeContaining(150L));
+            assertFalse(loadedAllocated.contains(250L));
+            assertEquals(Range.atLeast(300L), loadedAllocated.rangeContaining(300L));
+            assertEquals(3, loadedAllocated.asRanges().size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testRangeMap()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            RangeMap<Long, String> tariffs = TreeRangeMap.create();
+            tariffs.put(Range.closedOpen(0L, 100L), "low");
+            tariffs.put(Range.closedOpen(100L, 1000L), "medium");
+            tariffs.put(Range.atLeast(1000L), "high");
+
+            RangeMapHolder holder = new RangeMapHolder(tariffs);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            RangeMap<Long, String> loadedTariffs = ((RangeMapHolder) pm.getObjectById(id)).getTariffs();
+            assertEquals("low", loadedTariffs.get(99L));
+            assertEquals("medium", loadedTariffs.get(100L));
+            assertEquals(Range.atLeast(1000L), loadedTariffs.getEntry(50000L).getKey());
+            assertNull(loadedTariffs.get(-1L));
+
+            // Split the middle range, and drop part of the first
+            loadedTariffs.put(Range.closedOpen(400L, 600L), "special");
+            loadedTariffs.remove(Range.closedOpen(0L, 10L));
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedTariffs = ((RangeMapHolder) pm.getObjectById(id)).getTariffs();
+            assertEquals(5, loadedTariffs.asMapOfRanges().size());
+            assertNull(loadedTariffs.get(5L));
+            assertEquals("low", loadedTariffs.get(10L));
+            assertEquals("medium", loadedTariffs.get(399L));
+            assertEquals("special", loadedTariffs.get(400L));
+            assertEquals(Range.closedOpen(600L, 1000L), loadedTariffs.getEntry(600L).getKey());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    private static Set<Range<Long>> getWindows(List<RangeHolder> holders)
+    {
+        Set<Range<Long>> windows = new HashSet<>();
+        for (RangeHolder holder : holders)
+        {
+            windows.add(holder.getWindow());
+        }
+        return windows;
+    }
+}
@@ -0,0 +1,21 @@
+package org.datanucleus.guava.test;
+
+import javax.jdo.annotations.PersistenceCapable;
+import javax.jdo.annotations.Persistent;
+
+import com.google.common.collect.Multiset;
+
+@PersistenceCapable
+public class SerialisedMultisetHolder {
+
+	@Persistent(serialized="true")
+	private Multiset<String> words;
+
+	public SerialisedMultisetHolder(Multiset<String> words) {
+		this.words = words;
+	}
+
+	public Multiset<String> getWords() {
+		return words;
+	}
+}
@@ -0,0 +1,85 @@
+package org.datanucleus.guava.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Transaction;
+
+import org.datanucleus.util.NucleusLogger;
+import org.junit.Test;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+
+public class SerialisedMultisetTest
+{
+    @Test
+    public void testPersist()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            Multiset<String> words = HashMultiset.create();
+            words.add("banana");
+            words.add("car", 3);
+
+            SerialisedMultisetHolder holder = new SerialisedMultisetHolder(words);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            SerialisedMultisetHolder loadedHolder = (SerialisedMultisetHolder) pm.getObjectById(id);
+            Multiset<String> loadedWords = loadedHolder.getWords();
+            assertEquals(1, loadedWords.count("banana"));
+            assertEquals(3, loadedWords.count("car"));
+            assertEquals(4, loadedWords.size());
+
+            // Update, so the wrapper is serialised
+            loadedWords.add("moon", 2);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedHolder = (SerialisedMultisetHolder) pm.getObjectById(id);
+            loadedWords = loadedHolder.getWords();
+            assertEquals(3, loadedWords.count("car"));
+            assertEquals(2, loadedWords.count("moon"));
+            assertEquals(6, loadedWords.size());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+}
@@ -0,0 +1,23 @@
+package org.datanucleus.guava.test;
+
+import javax.jdo.annotations.Element;
+import javax.jdo.annotations.Extension;
+import javax.jdo.annotations.PersistenceCapable;
+
+import com.google.common.collect.SortedMultiset;
+
+@PersistenceCapable
+public class SortedMultisetHolder {
+
+	@Element(index="true")
+	@Extension(vendorName="datanucleus", key="multiset-count-column", value="true")
+	private SortedMultiset<Integer> buckets;
+
+	public SortedMultisetHolder(SortedMultiset<Integer> buckets) {
+		this.buckets = buckets;
+	}
+
+	public SortedMultiset<Integer> getBuckets() {
+		return buckets;
+	}
+}
@@ -0,0 +1,186 @@
+package org.datanucleus.guava.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Transaction;
+
+import org.datanucleus.store.types.SCOContainer;
+import org.datanucleus.store.types.guava.scostore.SortedMultisetStore;
+import org.datanucleus.store.types.wrappers.backed.BackedSCO;
+import org.datanucleus.util.NucleusLogger;
+import org.junit.Test;
+
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.SortedMultiset;
+import com.google.common.collect.TreeMultiset;
+
+public class SortedMultisetTest
+{
+    @Test
+    public void testRanges()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            TreeMultiset<Integer> buckets = TreeMultiset.create();
+            buckets.add(100, 3);
+            buckets.add(200, 1);
+            buckets.add(300, 5);
+            buckets.add(400, 2);
+
+            SortedMultisetHolder holder = new SortedMultisetHolder(buckets);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            SortedMultiset<Integer> loadedBuckets = ((SortedMultisetHolder) pm.getObjectById(id)).getBuckets();
+            Multiset.Entry<Integer> last = loadedBuckets.lastEntry();
+            assertEquals(Integer.valueOf(400), last.getElement());
+            assertEquals(2, last.getCount());
+            assertEquals(Integer.valueOf(100), loadedBuckets.firstEntry().getElement());
+
+            SortedMultiset<Integer> newest = loadedBuckets.tailMultiset(300, BoundType.CLOSED);
+            assertEquals(7, newest.size());
+            assertEquals(Arrays.asList(300, 400), Arrays.asList(newest.elementSet().toArray()));
+            assertEquals(4, loadedBuckets.headMultiset(200, BoundType.CLOSED).size());
+            assertEquals(6, loadedBuckets.subMultiset(100, BoundType.OPEN, 400, BoundType.OPEN).size());
+            assertEquals(Arrays.asList(100, 200, 300, 400), Arrays.asList(loadedBuckets.elementSet().toArray()));
+
+            Multiset.Entry<Integer> polled = loadedBuckets.pollFirstEntry();
+            assertEquals(Integer.valueOf(100), polled.getElement());
+            assertEquals(3, polled.getCount());
+
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedBuckets = ((SortedMultisetHolder) pm.getObjectById(id)).getBuckets();
+            assertEquals(8, loadedBuckets.size());
+            assertEquals(Integer.valueOf(200), loadedBuckets.firstEntry().getElement());
+            loadedBuckets.clear();
+            assertNull(loadedBuckets.lastEntry());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+
+    @Test
+    public void testRangesFromStoreLazy()
+    {
+        Map<String, Object> props = new HashMap<>();
+        props.put("datanucleus.cache.collections.lazy", "true");
+        checkRangesFromStore(props);
+    }
+
+    @Test
+    public void testRangesFromStoreNonCached()
+    {
+        Map<String, Object> props = new HashMap<>();
+        props.put("datanucleus.cache.collections", "false");
+        checkRangesFromStore(props);
+    }
+
+    private void checkRangesFromStore(Map<String, Object> props)
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory(props, "GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            TreeMultiset<Integer> buckets = TreeMultiset.create();
+            buckets.add(100, 3);
+            buckets.add(200, 1);
+            buckets.add(300, 5);
+            buckets.add(400, 2);
+
+            SortedMultisetHolder holder = new SortedMultisetHolder(buckets);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            // Ranges are read with bounded queries on the join table, without loading the multiset
+            SortedMultiset<Integer> loadedBuckets = ((SortedMultisetHolder) pm.getObjectById(id)).getBuckets();
+            assertTrue(((BackedSCO) loadedBuckets).getBackingStore() instanceof SortedMultisetStore);
+            Multiset.Entry<Integer> last = loadedBuckets.lastEntry();
+            assertEquals(Integer.valueOf(400), last.getElement());
+            assertEquals(2, last.getCount());
+            assertEquals(Integer.valueOf(100), loadedBuckets.firstEntry().getElement());
+            SortedMultiset<Integer> newest = loadedBuckets.tailMultiset(300, BoundType.OPEN);
+            assertEquals(2, newest.size());
+            assertEquals(Arrays.asList(400), Arrays.asList(newest.elementSet().toArray()));
+            SortedMultiset<Integer> oldest = loadedBuckets.headMultiset(300, BoundType.CLOSED);
+            assertEquals(9, oldest.size());
+            assertEquals(Arrays.asList(100, 200, 300), Arrays.asList(oldest.elementSet().toArray()));
+            assertEquals(1, loadedBuckets.subMultiset(100, BoundType.OPEN, 300, BoundType.OPEN).size());
+            assertFalse(((SCOContainer) loadedBuckets).isLoaded());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+}
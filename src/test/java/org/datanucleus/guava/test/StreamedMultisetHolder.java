@@ -0,0 +1,25 @@
+package org.datanucleus.guava.test;
+
+import javax.jdo.annotations.Extension;
+import javax.jdo.annotations.Extensions;
+import javax.jdo.annotations.PersistenceCapable;
+
+import com.google.common.collect.Multiset;
+
+@PersistenceCapable
+public class StreamedMultisetHolder {
+
+	@Extensions({
+		@Extension(vendorName="datanucleus", key="cache", value="false"),
+		@Extension(vendorName="datanucleus", key="multiset-count-column", value="true"),
+		@Extension(vendorName="datanucleus", key="multiset-fetch-size", value="2")})
+	private Multiset<String> words;
+
+	public StreamedMultisetHolder(Multiset<String> words) {
+		this.words = words;
+	}
+
+	public Multiset<String> getWords() {
+		return words;
+	}
+}
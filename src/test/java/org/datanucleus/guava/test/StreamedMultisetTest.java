@@ -0,0 +1,98 @@
+package org.datanucleus.guava.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.util.Iterator;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Transaction;
+
+import org.datanucleus.util.NucleusLogger;
+import org.junit.Test;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+
+public class StreamedMultisetTest
+{
+    @Test
+    public void testIterate()
+    {
+        PersistenceManagerFactory pmf = JDOHelper.getPersistenceManagerFactory("GuavaTest");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+
+            HashMultiset<String> words = HashMultiset.create();
+            words.add("banana", 3);
+            words.add("car", 2);
+            words.add("moon");
+            words.add("dog");
+            words.add("tree", 4);
+
+            StreamedMultisetHolder holder = new StreamedMultisetHolder(words);
+
+            pm.makePersistent(holder);
+            Object id = JDOHelper.getObjectId(holder);
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            Multiset<String> loadedWords = ((StreamedMultisetHolder) pm.getObjectById(id)).getWords();
+            HashMultiset<String> iterated = HashMultiset.create();
+            for (String word : loadedWords)
+            {
+                iterated.add(word);
+            }
+            assertEquals(words, iterated);
+            assertEquals(11, loadedWords.toArray().length);
+
+            // Stop part way through, removing the occurrences seen
+            Iterator<String> iter = loadedWords.iterator();
+            for (int i = 0; i < 4 && iter.hasNext(); i++)
+            {
+                iter.next();
+                iter.remove();
+            }
+
+            tx.commit();
+            pm.close();
+
+            pm = pmf.getPersistenceManager();
+            tx = pm.currentTransaction();
+            tx.begin();
+
+            loadedWords = ((StreamedMultisetHolder) pm.getObjectById(id)).getWords();
+            assertEquals(7, loadedWords.size());
+            assertFalse(loadedWords.isEmpty());
+
+            tx.commit();
+        }
+        catch (Throwable thr)
+        {
+            NucleusLogger.GENERAL.error(">> Exception in test", thr);
+            fail("Failed test : " + thr.getMessage());
+        }
+        finally 
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        pmf.close();
+    }
+}